@@ -4,6 +4,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentNotFoundException;
 import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.LocationLockTimeoutException;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
 import jakarta.inject.Inject;
@@ -47,6 +48,9 @@ public class GlobalExceptionMapper implements ExceptionMapper<Exception> {
     if (exception instanceof WarehouseValidationException) {
       return Response.Status.BAD_REQUEST.getStatusCode();
     }
+    if (exception instanceof LocationLockTimeoutException) {
+      return Response.Status.CONFLICT.getStatusCode();
+    }
     if (exception instanceof FulfillmentNotFoundException) {
       return Response.Status.NOT_FOUND.getStatusCode();
     }
@@ -4,40 +4,53 @@ import com.fulfilment.application.monolith.products.Product;
 import com.fulfilment.application.monolith.stores.Store;
 import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
 import jakarta.persistence.Cacheable;
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
-import jakarta.persistence.UniqueConstraint;
+import java.time.LocalDateTime;
 import org.hibernate.annotations.OnDelete;
 import org.hibernate.annotations.OnDeleteAction;
 
 @Entity
 @Cacheable
+// a triple is unique among the attached rows only, so a pair detached with its archived warehouse
+// can be created again; the partial unique index ux_fulfillment_attached is created in import.sql
+// because the mapping cannot declare one
 @Table(
     name = "fulfillment",
-    uniqueConstraints =
-        @UniqueConstraint(columnNames = {"warehouse_id", "product_id", "store_id"}))
+    // keyset pages of one store or warehouse, in id order
+    indexes = {
+      @Index(name = "ix_fulfillment_store_id_id", columnList = "store_id, id"),
+      @Index(name = "ix_fulfillment_warehouse_id_id", columnList = "warehouse_id, id")
+    })
 public class DbFulfillment {
 
   @Id @GeneratedValue public Long id;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "warehouse_id", nullable = false)
   @OnDelete(action = OnDeleteAction.CASCADE)
   public DbWarehouse warehouse;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "product_id", nullable = false)
   @OnDelete(action = OnDeleteAction.CASCADE)
   public Product product;
 
-  @ManyToOne
+  @ManyToOne(fetch = FetchType.LAZY)
   @JoinColumn(name = "store_id", nullable = false)
   @OnDelete(action = OnDeleteAction.CASCADE)
   public Store store;
 
+  // set when the warehouse is archived: the row stays as history but no limit counts it
+  @Column(name = "detached_at")
+  public LocalDateTime detachedAt;
+
   public DbFulfillment() {}
 }
@@ -1,116 +1,487 @@
 package com.fulfilment.application.monolith.fulfillment.adapters.database;
 
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentConstraintCheck;
 import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentFilter;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentReferenceCheck;
 import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
 import com.fulfilment.application.monolith.products.Product;
 import com.fulfilment.application.monolith.stores.Store;
 import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import com.fulfilment.application.monolith.warehouses.domain.utils.WarehouseTimestampUtil;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.query.SelectionQuery;
 
 @ApplicationScoped
 public class FulfillmentRepositoryAdapter
     implements FulfillmentStore, PanacheRepository<DbFulfillment> {
 
+  private static final int STREAM_FETCH_SIZE = 5_000;
+  private static final int BATCH_SIZE = 50;
+
+  // first key of pg_advisory_xact_lock(int, int), keeps these locks apart from the location locks
+  static final int WAREHOUSE_LOCK_NAMESPACE = 0x46554c46;
+
+  private static final String SELECT_IDS =
+      "select f.id, f.warehouse.id, f.product.id, f.store.id from DbFulfillment f";
+
+  // fulfillments of archived warehouses are detached rather than joined away, so every listing,
+  // lookup, count and pass feeding the limits filters on the row itself
+  private static final String ATTACHED = "f.detachedAt is null";
+
   private final EntityManager entityManager;
 
   public FulfillmentRepositoryAdapter(EntityManager entityManager) {
     this.entityManager = entityManager;
   }
 
+  // listings read the foreign key columns only: no entities are loaded and nothing is joined
+
   @Override
-  public List<FulfillmentDTO> findAllFulfillments() {
-    return listAll().stream().map(this::toDomain).toList();
+  public List<FulfillmentDTO> findFulfillmentsPage(
+      FulfillmentFilter filter, Long afterId, int limit) {
+    Map<String, Object> parameters = new HashMap<>();
+    TypedQuery<Object[]> query =
+        entityManager
+            .createQuery(
+                SELECT_IDS + where(filter, afterId, parameters) + " order by f.id", Object[].class)
+            .setMaxResults(limit);
+    parameters.forEach(query::setParameter);
+    return query.getResultList().stream().map(this::fromRow).toList();
   }
 
   @Override
-  public List<FulfillmentDTO> findByStoreId(Long storeId) {
-    return list("store.id", storeId).stream().map(this::toDomain).toList();
+  public void forEachFulfillmentInIdOrder(
+      FulfillmentFilter filter, Consumer<FulfillmentDTO> consumer) {
+    Map<String, Object> parameters = new HashMap<>();
+    SelectionQuery<Object[]> query =
+        entityManager
+            .unwrap(Session.class)
+            .createSelectionQuery(
+                SELECT_IDS + where(filter, null, parameters) + " order by f.id", Object[].class);
+    parameters.forEach(query::setParameter);
+    scroll(query, consumer);
   }
 
   @Override
-  public List<FulfillmentDTO> findByWarehouseId(Long warehouseId) {
-    return list("warehouse.id", warehouseId).stream().map(this::toDomain).toList();
+  public List<FulfillmentDTO> findByStoreId(Long storeId) {
+    return selectIds(
+        " where f.store.id = :storeId and " + ATTACHED, Map.of("storeId", storeId));
   }
 
   @Override
   public FulfillmentDTO findFulfillmentById(Long id) {
-    DbFulfillment entity = find("id", id).firstResult();
-    return entity != null ? toDomain(entity) : null;
+    List<FulfillmentDTO> found = selectIds(" where f.id = :id and " + ATTACHED, Map.of("id", id));
+    return found.isEmpty() ? null : found.get(0);
+  }
+
+  @Override
+  public boolean lockStore(Long storeId) {
+    // a row lock without loading the store into the session
+    return !entityManager
+        .createNativeQuery("select id from store where id = :storeId for update")
+        .setParameter("storeId", storeId)
+        .getResultList()
+        .isEmpty();
+  }
+
+  @Override
+  public Set<Long> lockStores(Collection<Long> storeIds) {
+    if (storeIds.isEmpty()) {
+      return Set.of();
+    }
+    // rows are locked in the order they are returned, so ordering by id keeps batches from
+    // deadlocking on each other
+    @SuppressWarnings("unchecked")
+    List<Number> locked =
+        entityManager
+            .createNativeQuery("select id from store where id in :storeIds order by id for update")
+            .setParameter("storeIds", storeIds)
+            .getResultList();
+    Set<Long> ids = new HashSet<>();
+    locked.forEach(id -> ids.add(id.longValue()));
+    return ids;
+  }
+
+  @Override
+  public void lockWarehouses(Collection<Long> warehouseIds) {
+    for (Long warehouseId : new TreeSet<>(warehouseIds)) {
+      // wrapped in a count because Hibernate cannot map the void result of the function itself
+      entityManager
+          .createNativeQuery(
+              "select count(*) from (select pg_advisory_xact_lock(:namespace, :key)) l")
+          .setParameter("namespace", WAREHOUSE_LOCK_NAMESPACE)
+          .setParameter("key", Long.hashCode(warehouseId))
+          .getSingleResult();
+    }
+  }
+
+  @Override
+  public void forEachFulfillment(Consumer<FulfillmentDTO> consumer) {
+    scroll(
+        entityManager
+            .unwrap(Session.class)
+            .createSelectionQuery(SELECT_IDS + " where " + ATTACHED, Object[].class),
+        consumer);
+  }
+
+  @Override
+  public void forEachStoreId(LongConsumer consumer) {
+    try (ScrollableResults<Long> ids =
+        entityManager
+            .unwrap(Session.class)
+            .createSelectionQuery("select s.id from Store s", Long.class)
+            .setFetchSize(STREAM_FETCH_SIZE)
+            .setReadOnly(true)
+            .scroll(ScrollMode.FORWARD_ONLY)) {
+      while (ids.next()) {
+        consumer.accept(ids.get());
+      }
+    }
+  }
+
+  @Override
+  public List<FulfillmentDTO> findByStoreIds(Collection<Long> storeIds) {
+    if (storeIds.isEmpty()) {
+      return List.of();
+    }
+    return selectIds(
+        " where f.store.id in :storeIds and " + ATTACHED, Map.of("storeIds", storeIds));
+  }
+
+  @Override
+  public List<FulfillmentDTO> findByWarehouseIds(Collection<Long> warehouseIds) {
+    if (warehouseIds.isEmpty()) {
+      return List.of();
+    }
+    return selectIds(
+        " where f.warehouse.id in :warehouseIds and " + ATTACHED,
+        Map.of("warehouseIds", warehouseIds));
+  }
+
+  @Override
+  public List<Long> findWarehouseIdsByBusinessUnitCode(String businessUnitCode, int limit) {
+    // read backwards from the (businessUnitCode, createdAt) index
+    return entityManager
+        .createQuery(
+            "select w.id from DbWarehouse w where w.businessUnitCode = :code "
+                + "order by w.createdAt desc, w.id desc",
+            Long.class)
+        .setParameter("code", businessUnitCode)
+        .setMaxResults(limit)
+        .getResultList();
+  }
+
+  @Override
+  public Long findLastArchivedWarehouseId(String businessUnitCode) {
+    return entityManager
+        .createQuery(
+            "select w.id from DbWarehouse w "
+                + "where w.businessUnitCode = :code and w.archivedAt is not null "
+                + "order by w.createdAt desc, w.id desc",
+            Long.class)
+        .setParameter("code", businessUnitCode)
+        .setMaxResults(1)
+        .getResultStream()
+        .findFirst()
+        .orElse(null);
+  }
+
+  @Override
+  public Map<Long, Set<Long>> findProductIdsByWarehouseIds(Collection<Long> warehouseIds) {
+    if (warehouseIds.isEmpty()) {
+      return new HashMap<>();
+    }
+    return productIdsByWarehouse(
+        entityManager
+            .createQuery(
+                "select distinct f.warehouse.id, f.product.id from DbFulfillment f "
+                    + "where f.warehouse.id in :warehouseIds and "
+                    + ATTACHED,
+                Object[].class)
+            .setParameter("warehouseIds", warehouseIds));
+  }
+
+  @Override
+  public Map<Long, Set<Long>> findProductIdsOfOtherStores(
+      Collection<Long> warehouseIds, Long storeId) {
+    if (warehouseIds.isEmpty()) {
+      return new HashMap<>();
+    }
+    return productIdsByWarehouse(
+        entityManager
+            .createQuery(
+                "select distinct f.warehouse.id, f.product.id from DbFulfillment f "
+                    + "where f.warehouse.id in :warehouseIds and f.store.id <> :storeId and "
+                    + ATTACHED,
+                Object[].class)
+            .setParameter("warehouseIds", warehouseIds)
+            .setParameter("storeId", storeId));
+  }
+
+  private static Map<Long, Set<Long>> productIdsByWarehouse(TypedQuery<Object[]> query) {
+    Map<Long, Set<Long>> productIds = new HashMap<>();
+    query
+        .getResultList()
+        .forEach(
+            row ->
+                productIds
+                    .computeIfAbsent((Long) row[0], id -> new HashSet<>())
+                    .add((Long) row[1]));
+    return productIds;
+  }
+
+  @Override
+  public Map<Long, Set<Long>> findProductIdsOfActiveWarehouses() {
+    Map<Long, Set<Long>> productIds = new HashMap<>();
+    entityManager
+        .createQuery(
+            "select distinct w.id, f.product.id from DbWarehouse w "
+                + "left join DbFulfillment f on f.warehouse.id = w.id where w.archivedAt is null",
+            Object[].class)
+        .getResultList()
+        .forEach(
+            row -> {
+              Set<Long> products = productIds.computeIfAbsent((Long) row[0], id -> new HashSet<>());
+              if (row[1] != null) {
+                products.add((Long) row[1]);
+              }
+            });
+    return productIds;
+  }
+
+  @Override
+  public Set<Long> findExistingWarehouseIds(Collection<Long> warehouseIds) {
+    return findExistingIds("DbWarehouse", warehouseIds);
+  }
+
+  @Override
+  public Set<Long> findExistingProductIds(Collection<Long> productIds) {
+    return findExistingIds("Product", productIds);
+  }
+
+  @Override
+  public Set<Long> findExistingStoreIds(Collection<Long> storeIds) {
+    return findExistingIds("Store", storeIds);
+  }
+
+  private Set<Long> findExistingIds(String entityName, Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return Set.of();
+    }
+    return new HashSet<>(
+        entityManager
+            .createQuery("select e.id from " + entityName + " e where e.id in :ids", Long.class)
+            .setParameter("ids", ids)
+            .getResultList());
   }
 
   @Override
   public void persistFulfillment(FulfillmentDTO dto) {
-    DbFulfillment entity = new DbFulfillment();
-    entity.warehouse = entityManager.find(DbWarehouse.class, dto.warehouseId);
-    entity.product = entityManager.find(Product.class, dto.productId);
-    entity.store = entityManager.find(Store.class, dto.storeId);
+    DbFulfillment entity = toEntity(dto);
     persist(entity);
     dto.id = entity.id;
   }
 
+  @Override
+  public void persistFulfillments(List<FulfillmentDTO> dtos) {
+    List<DbFulfillment> pending = new ArrayList<>(BATCH_SIZE);
+    for (FulfillmentDTO dto : dtos) {
+      DbFulfillment entity = toEntity(dto);
+      entityManager.persist(entity);
+      dto.id = entity.id;
+      pending.add(entity);
+      // flush each full JDBC batch and detach only its rows; reconcile and the batch create run
+      // this inside transactions that may still hold entities of their own
+      if (pending.size() == BATCH_SIZE) {
+        flushAndDetach(pending);
+      }
+    }
+    flushAndDetach(pending);
+  }
+
+  private void flushAndDetach(List<DbFulfillment> pending) {
+    entityManager.flush();
+    pending.forEach(entityManager::detach);
+    pending.clear();
+  }
+
   @Override
   public void deleteFulfillment(Long id) {
     delete("id", id);
   }
 
   @Override
-  public long countDistinctWarehousesByProductAndStore(Long productId, Long storeId) {
-    return getEntityManager()
-        .createQuery(
-            "select count(distinct f.warehouse.id) from DbFulfillment f "
-                + "where f.product.id = :productId and f.store.id = :storeId",
-            Long.class)
-        .setParameter("productId", productId)
-        .setParameter("storeId", storeId)
-        .getSingleResult();
+  public void deleteFulfillments(Collection<Long> ids) {
+    if (ids.isEmpty()) {
+      return;
+    }
+    entityManager
+        .createQuery("delete from DbFulfillment f where f.id in :ids")
+        .setParameter("ids", ids)
+        .executeUpdate();
   }
 
   @Override
-  public long countDistinctWarehousesByStore(Long storeId) {
-    return getEntityManager()
+  public int moveFulfillments(Long fromWarehouseId, Long toWarehouseId) {
+    // a bulk statement, so Hibernate also drops the cached fulfillments it makes stale
+    return entityManager
         .createQuery(
-            "select count(distinct f.warehouse.id) from DbFulfillment f "
-                + "where f.store.id = :storeId",
-            Long.class)
-        .setParameter("storeId", storeId)
-        .getSingleResult();
+            "update DbFulfillment f set f.warehouse = :warehouse "
+                + "where f.warehouse.id = :warehouseId and "
+                + ATTACHED)
+        .setParameter("warehouse", entityManager.getReference(DbWarehouse.class, toWarehouseId))
+        .setParameter("warehouseId", fromWarehouseId)
+        .executeUpdate();
   }
 
   @Override
-  public long countDistinctProductsByWarehouse(Long warehouseId) {
-    return getEntityManager()
+  public int detachFulfillments(Long warehouseId) {
+    return entityManager
         .createQuery(
-            "select count(distinct f.product.id) from DbFulfillment f "
-                + "where f.warehouse.id = :warehouseId",
-            Long.class)
+            "update DbFulfillment f set f.detachedAt = :detachedAt "
+                + "where f.warehouse.id = :warehouseId and "
+                + ATTACHED)
+        // the same clock as the archivedAt written in this transaction
+        .setParameter("detachedAt", WarehouseTimestampUtil.getCurrentTimestamp().toLocalDateTime())
         .setParameter("warehouseId", warehouseId)
-        .getSingleResult();
+        .executeUpdate();
   }
 
   @Override
-  public boolean warehouseExists(Long warehouseId) {
-    return entityManager.find(DbWarehouse.class, warehouseId) != null;
+  public int deleteFulfillmentsOfWarehouse(Long warehouseId) {
+    return entityManager
+        .createQuery("delete from DbFulfillment f where f.warehouse.id = :warehouseId")
+        .setParameter("warehouseId", warehouseId)
+        .executeUpdate();
   }
 
   @Override
-  public boolean productExists(Long productId) {
-    return entityManager.find(Product.class, productId) != null;
+  public FulfillmentReferenceCheck checkReferences(
+      Long warehouseId, Long productId, Long storeId) {
+    Object[] row =
+        (Object[])
+            entityManager
+                .createNativeQuery(
+                    "select "
+                        + "exists(select 1 from warehouse where id = :warehouseId), "
+                        + "exists(select 1 from product where id = :productId), "
+                        + "exists(select 1 from store where id = :storeId)")
+                .setParameter("warehouseId", warehouseId)
+                .setParameter("productId", productId)
+                .setParameter("storeId", storeId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(DbWarehouse.class)
+                .addSynchronizedEntityClass(Product.class)
+                .addSynchronizedEntityClass(Store.class)
+                .getSingleResult();
+    return new FulfillmentReferenceCheck((Boolean) row[0], (Boolean) row[1], (Boolean) row[2]);
   }
 
   @Override
-  public boolean storeExists(Long storeId) {
-    return entityManager.find(Store.class, storeId) != null;
+  public FulfillmentConstraintCheck checkConstraints(Long warehouseId, Long productId, Long storeId) {
+    // one round trip instead of three lookups and three counts; the declared entity classes make
+    // Hibernate flush pending fulfillments first, as it did for the JPQL counts
+    Object[] row =
+        (Object[])
+            entityManager
+                .createNativeQuery(
+                    "select "
+                        + "exists(select 1 from warehouse where id = :warehouseId), "
+                        + "exists(select 1 from product where id = :productId), "
+                        + "exists(select 1 from store where id = :storeId), "
+                        + "(select count(distinct warehouse_id) from fulfillment "
+                        + "where product_id = :productId and store_id = :storeId "
+                        + "and detached_at is null), "
+                        + "(select count(distinct warehouse_id) from fulfillment "
+                        + "where store_id = :storeId and detached_at is null), "
+                        + "(select count(distinct product_id) from fulfillment "
+                        + "where warehouse_id = :warehouseId and detached_at is null)")
+                .setParameter("warehouseId", warehouseId)
+                .setParameter("productId", productId)
+                .setParameter("storeId", storeId)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(DbWarehouse.class)
+                .addSynchronizedEntityClass(Product.class)
+                .addSynchronizedEntityClass(Store.class)
+                .addSynchronizedEntityClass(DbFulfillment.class)
+                .getSingleResult();
+    return new FulfillmentConstraintCheck(
+        (Boolean) row[0],
+        (Boolean) row[1],
+        (Boolean) row[2],
+        ((Number) row[3]).longValue(),
+        ((Number) row[4]).longValue(),
+        ((Number) row[5]).longValue());
   }
 
-  private FulfillmentDTO toDomain(DbFulfillment entity) {
+  private DbFulfillment toEntity(FulfillmentDTO dto) {
+    DbFulfillment entity = new DbFulfillment();
+    // existence was checked just before, so references are enough to write the foreign keys
+    entity.warehouse = entityManager.getReference(DbWarehouse.class, dto.warehouseId);
+    entity.product = entityManager.getReference(Product.class, dto.productId);
+    entity.store = entityManager.getReference(Store.class, dto.storeId);
+    return entity;
+  }
+
+  // scalar rows through a forward-only cursor: the driver only holds one fetch of rows at a time
+  private void scroll(SelectionQuery<Object[]> query, Consumer<FulfillmentDTO> consumer) {
+    try (ScrollableResults<Object[]> rows =
+        query.setFetchSize(STREAM_FETCH_SIZE).setReadOnly(true).scroll(ScrollMode.FORWARD_ONLY)) {
+      while (rows.next()) {
+        consumer.accept(fromRow(rows.get()));
+      }
+    }
+  }
+
+  private static String where(
+      FulfillmentFilter filter, Long afterId, Map<String, Object> parameters) {
+    List<String> conditions = new ArrayList<>();
+    conditions.add(ATTACHED);
+    if (filter.storeId() != null) {
+      conditions.add("f.store.id = :storeId");
+      parameters.put("storeId", filter.storeId());
+    }
+    if (filter.warehouseId() != null) {
+      conditions.add("f.warehouse.id = :warehouseId");
+      parameters.put("warehouseId", filter.warehouseId());
+    }
+    if (afterId != null) {
+      conditions.add("f.id > :afterId");
+      parameters.put("afterId", afterId);
+    }
+    return " where " + String.join(" and ", conditions);
+  }
+
+  private List<FulfillmentDTO> selectIds(String where, Map<String, Object> parameters) {
+    TypedQuery<Object[]> query = entityManager.createQuery(SELECT_IDS + where, Object[].class);
+    parameters.forEach(query::setParameter);
+    return query.getResultList().stream().map(this::fromRow).toList();
+  }
+
+  private FulfillmentDTO fromRow(Object[] row) {
     FulfillmentDTO dto = new FulfillmentDTO();
-    dto.id = entity.id;
-    dto.warehouseId = entity.warehouse.id;
-    dto.productId = entity.product.id;
-    dto.storeId = entity.store.id;
+    dto.id = (Long) row[0];
+    dto.warehouseId = (Long) row[1];
+    dto.productId = (Long) row[2];
+    dto.storeId = (Long) row[3];
     return dto;
   }
 }
@@ -1,23 +1,55 @@
 package com.fulfilment.application.monolith.fulfillment.adapters.restapi;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fulfilment.api.beans.CoverageQuery;
+import com.fulfilment.api.beans.CoverageResult;
+import com.fulfilment.api.beans.DemandedProduct;
+import com.fulfilment.api.beans.FulfillmentBatchItem;
+import com.fulfilment.api.beans.FulfillmentBatchResponse;
+import com.fulfilment.api.beans.FulfillmentPlanRequest;
+import com.fulfilment.api.beans.FulfillmentPlanResponse;
 import com.fulfilment.api.beans.FulfillmentRequest;
 import com.fulfilment.api.beans.FulfillmentResponse;
+import com.fulfilment.api.beans.StoreAssignment;
+import com.fulfilment.api.beans.StoreReconcileResponse;
+import com.fulfilment.application.monolith.fulfillment.domain.coverage.FulfillmentCoverage;
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
+import com.fulfilment.application.monolith.fulfillment.domain.models.CoverageExpression;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentBatchItemResult;
 import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDemand;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentFilter;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentPlan;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentReconciliation;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.BatchCreateFulfillmentOperation;
 import com.fulfilment.application.monolith.fulfillment.domain.ports.CreateFulfillmentOperation;
 import com.fulfilment.application.monolith.fulfillment.domain.ports.DeleteFulfillmentOperation;
 import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.PlanFulfillmentsOperation;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.ReconcileStoreFulfillmentsOperation;
+import io.quarkus.narayana.jta.QuarkusTransaction;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.Consumes;
 import jakarta.ws.rs.DELETE;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.POST;
+import jakarta.ws.rs.PUT;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.WebApplicationException;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Stream;
 import org.jboss.logging.Logger;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
 
 @Path("/fulfillment")
 @ApplicationScoped
@@ -27,38 +59,122 @@ public class FulfillmentResourceImpl {
 
   private static final Logger LOG = Logger.getLogger(FulfillmentResourceImpl.class);
 
+  static final String NDJSON = "application/x-ndjson";
+  static final int DEFAULT_PAGE_SIZE = 100;
+  static final int MAX_PAGE_SIZE = 1000;
+  static final int MAX_COVERAGE_DEPTH = 32;
+
   private final CreateFulfillmentOperation createFulfillmentOperation;
   private final DeleteFulfillmentOperation deleteFulfillmentOperation;
+  private final BatchCreateFulfillmentOperation batchCreateFulfillmentOperation;
+  private final PlanFulfillmentsOperation planFulfillmentsOperation;
+  private final ReconcileStoreFulfillmentsOperation reconcileStoreFulfillmentsOperation;
   private final FulfillmentStore fulfillmentStore;
+  private final FulfillmentCoverage fulfillmentCoverage;
+  private final ObjectMapper objectMapper;
 
   public FulfillmentResourceImpl(
       CreateFulfillmentOperation createFulfillmentOperation,
       DeleteFulfillmentOperation deleteFulfillmentOperation,
-      FulfillmentStore fulfillmentStore) {
+      BatchCreateFulfillmentOperation batchCreateFulfillmentOperation,
+      PlanFulfillmentsOperation planFulfillmentsOperation,
+      ReconcileStoreFulfillmentsOperation reconcileStoreFulfillmentsOperation,
+      FulfillmentStore fulfillmentStore,
+      FulfillmentCoverage fulfillmentCoverage,
+      ObjectMapper objectMapper) {
     this.createFulfillmentOperation = createFulfillmentOperation;
     this.deleteFulfillmentOperation = deleteFulfillmentOperation;
+    this.batchCreateFulfillmentOperation = batchCreateFulfillmentOperation;
+    this.planFulfillmentsOperation = planFulfillmentsOperation;
+    this.reconcileStoreFulfillmentsOperation = reconcileStoreFulfillmentsOperation;
     this.fulfillmentStore = fulfillmentStore;
+    this.fulfillmentCoverage = fulfillmentCoverage;
+    this.objectMapper = objectMapper;
   }
 
   @GET
-  public List<FulfillmentResponse> listAllFulfillments() {
-    LOG.debug("Listing all fulfillments");
-    return fulfillmentStore.findAllFulfillments().stream().map(this::toResponse).toList();
+  public List<FulfillmentResponse> listAllFulfillments(
+      @QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+    LOG.debugf("Listing fulfillments after %d", after);
+    return listPage(FulfillmentFilter.all(), after, limit);
+  }
+
+  @GET
+  @Path("/stream")
+  @Produces(NDJSON)
+  public StreamingOutput streamAllFulfillments() {
+    LOG.debug("Streaming all fulfillments");
+    return stream(FulfillmentFilter.all());
   }
 
   @POST
   @Transactional
   public Response createFulfillment(FulfillmentRequest data) {
     LOG.infof("REST request to create fulfillment");
-    FulfillmentDTO dto = new FulfillmentDTO();
-    dto.warehouseId = data.getWarehouseId();
-    dto.productId = data.getProductId();
-    dto.storeId = data.getStoreId();
-
-    FulfillmentDTO created = createFulfillmentOperation.create(dto);
+    FulfillmentDTO created = createFulfillmentOperation.create(toDomain(data));
     return Response.status(201).entity(toResponse(created)).build();
   }
 
+  @POST
+  @Path("/batch")
+  @Transactional
+  public FulfillmentBatchResponse createFulfillmentsInBatch(List<FulfillmentRequest> data) {
+    LOG.infof("REST request to create %d fulfillments in batch", data.size());
+    List<FulfillmentBatchItemResult> results =
+        batchCreateFulfillmentOperation.createAll(data.stream().map(this::toDomain).toList());
+
+    FulfillmentBatchResponse response = new FulfillmentBatchResponse();
+    response.setResults(results.stream().map(this::toBatchItem).toList());
+    int created =
+        (int)
+            results.stream()
+                .filter(result -> result.outcome() == FulfillmentBatchItemResult.Outcome.CREATED)
+                .count();
+    response.setCreated(created);
+    response.setRejected(results.size() - created);
+    return response;
+  }
+
+  @POST
+  @Path("/plan")
+  public FulfillmentPlanResponse planFulfillments(FulfillmentPlanRequest data) {
+    List<DemandedProduct> demand = data.getDemand() != null ? data.getDemand() : List.of();
+    LOG.infof("REST request to plan fulfillments for %d demanded pairs", demand.size());
+    FulfillmentPlan plan =
+        planFulfillmentsOperation.plan(demand.stream().map(this::toDemand).toList());
+
+    FulfillmentPlanResponse response = new FulfillmentPlanResponse();
+    response.setDemanded(plan.demanded());
+    response.setCovered(plan.covered());
+    response.setInserts(plan.inserts().stream().map(this::toRequest).toList());
+    response.setDeletes(plan.deletes().stream().map(this::toResponse).toList());
+    response.setUncovered(plan.uncovered().stream().map(this::toDemandedProduct).toList());
+    return response;
+  }
+
+  @POST
+  @Path("/coverage/query")
+  public CoverageResult queryFulfillmentCoverage(
+      CoverageQuery query, @QueryParam("after") Long after, @QueryParam("limit") Integer limit) {
+    int pageSize = pageSize(limit);
+    Roaring64Bitmap stores = fulfillmentCoverage.stores(toExpression(query, 1));
+    CoverageResult result = new CoverageResult();
+    result.setCount(stores.getLongCardinality());
+    result.setStoreIds(idsAfter(stores, after, pageSize));
+    return result;
+  }
+
+  // ascending; store ids are positive, so the bitmap's unsigned order is their numeric order
+  private static List<Long> idsAfter(Roaring64Bitmap stores, Long after, int limit) {
+    long from = after == null || after < 0 ? 0 : stores.rankLong(after);
+    long to = Math.min(stores.getLongCardinality(), from + limit);
+    List<Long> ids = new ArrayList<>((int) Math.max(0, to - from));
+    for (long rank = from; rank < to; rank++) {
+      ids.add(stores.select(rank));
+    }
+    return ids;
+  }
+
   @DELETE
   @Path("/{id}")
   @Transactional
@@ -70,17 +186,182 @@ public class FulfillmentResourceImpl {
 
   @GET
   @Path("/store/{storeId}")
-  public List<FulfillmentResponse> listFulfillmentsByStore(@PathParam("storeId") long storeId) {
-    LOG.debugf("Listing fulfillments for store: %d", storeId);
-    return fulfillmentStore.findByStoreId(storeId).stream().map(this::toResponse).toList();
+  public List<FulfillmentResponse> listFulfillmentsByStore(
+      @PathParam("storeId") long storeId,
+      @QueryParam("after") Long after,
+      @QueryParam("limit") Integer limit) {
+    LOG.debugf("Listing fulfillments for store %d after %d", storeId, after);
+    return listPage(FulfillmentFilter.byStore(storeId), after, limit);
+  }
+
+  @PUT
+  @Path("/store/{storeId}")
+  @Transactional
+  public StoreReconcileResponse reconcileStoreFulfillments(
+      @PathParam("storeId") long storeId, List<StoreAssignment> data) {
+    // an empty list is a valid request that removes every fulfillment of the store, a missing one
+    // is not
+    if (data == null) {
+      throw new FulfillmentValidationException("A list of store assignments is required.");
+    }
+    LOG.infof("REST request to reconcile store %d to %d fulfillments", storeId, data.size());
+    FulfillmentReconciliation reconciliation =
+        reconcileStoreFulfillmentsOperation.reconcile(
+            storeId, data.stream().map(this::toDomain).toList());
+
+    StoreReconcileResponse response = new StoreReconcileResponse();
+    response.setInserted(reconciliation.inserted().stream().map(this::toResponse).toList());
+    response.setDeleted(reconciliation.deleted().stream().map(this::toResponse).toList());
+    response.setUnchanged(reconciliation.unchanged());
+    return response;
+  }
+
+  @GET
+  @Path("/store/{storeId}/stream")
+  @Produces(NDJSON)
+  public StreamingOutput streamFulfillmentsByStore(@PathParam("storeId") long storeId) {
+    LOG.debugf("Streaming fulfillments for store: %d", storeId);
+    return stream(FulfillmentFilter.byStore(storeId));
   }
 
   @GET
   @Path("/warehouse/{warehouseId}")
   public List<FulfillmentResponse> listFulfillmentsByWarehouse(
+      @PathParam("warehouseId") long warehouseId,
+      @QueryParam("after") Long after,
+      @QueryParam("limit") Integer limit) {
+    LOG.debugf("Listing fulfillments for warehouse %d after %d", warehouseId, after);
+    return listPage(FulfillmentFilter.byWarehouse(warehouseId), after, limit);
+  }
+
+  @GET
+  @Path("/warehouse/{warehouseId}/stream")
+  @Produces(NDJSON)
+  public StreamingOutput streamFulfillmentsByWarehouse(
       @PathParam("warehouseId") long warehouseId) {
-    LOG.debugf("Listing fulfillments for warehouse: %d", warehouseId);
-    return fulfillmentStore.findByWarehouseId(warehouseId).stream().map(this::toResponse).toList();
+    LOG.debugf("Streaming fulfillments for warehouse: %d", warehouseId);
+    return stream(FulfillmentFilter.byWarehouse(warehouseId));
+  }
+
+  private List<FulfillmentResponse> listPage(FulfillmentFilter filter, Long after, Integer limit) {
+    return fulfillmentStore.findFulfillmentsPage(filter, after, pageSize(limit)).stream()
+        .map(this::toResponse)
+        .toList();
+  }
+
+  private static int pageSize(Integer limit) {
+    int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new WebApplicationException("Page size must be between 1 and " + MAX_PAGE_SIZE, 400);
+    }
+    return pageSize;
+  }
+
+  // one JSON object per line, written while the rows are read, so heap use does not grow with
+  // the number of fulfillments
+  private StreamingOutput stream(FulfillmentFilter filter) {
+    // the cursor needs an open transaction for as long as the response is being written
+    return output ->
+        QuarkusTransaction.requiringNew()
+            .run(
+                () ->
+                    fulfillmentStore.forEachFulfillmentInIdOrder(
+                        filter, dto -> writeLine(output, dto)));
+  }
+
+  private void writeLine(OutputStream output, FulfillmentDTO dto) {
+    try {
+      output.write(objectMapper.writeValueAsBytes(toResponse(dto)));
+      output.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private FulfillmentDTO toDomain(FulfillmentRequest data) {
+    FulfillmentDTO dto = new FulfillmentDTO();
+    dto.warehouseId = data.getWarehouseId();
+    dto.productId = data.getProductId();
+    dto.storeId = data.getStoreId();
+    return dto;
+  }
+
+  private FulfillmentDTO toDomain(StoreAssignment data) {
+    if (data == null) {
+      throw new FulfillmentValidationException("warehouseId and productId are required.");
+    }
+    FulfillmentDTO dto = new FulfillmentDTO();
+    dto.warehouseId = data.getWarehouseId();
+    dto.productId = data.getProductId();
+    return dto;
+  }
+
+  private CoverageExpression toExpression(CoverageQuery query, int depth) {
+    if (query == null || depth > MAX_COVERAGE_DEPTH) {
+      throw new WebApplicationException(
+          "Coverage query is missing or nested deeper than " + MAX_COVERAGE_DEPTH, 400);
+    }
+    boolean leaf = query.getWarehouseId() != null || query.getProductId() != null;
+    boolean allStores = Boolean.TRUE.equals(query.getAllStores());
+    boolean and = query.getAnd() != null && !query.getAnd().isEmpty();
+    boolean or = query.getOr() != null && !query.getOr().isEmpty();
+    boolean not = query.getNot() != null;
+    if (Stream.of(leaf, allStores, and, or, not).filter(kind -> kind).count() != 1) {
+      throw new WebApplicationException(
+          "Coverage query needs exactly one of warehouseId/productId, allStores, and, or, not",
+          400);
+    }
+    if (leaf) {
+      if (query.getProductId() == null) {
+        return new CoverageExpression.Warehouse(query.getWarehouseId());
+      }
+      return query.getWarehouseId() == null
+          ? new CoverageExpression.Product(query.getProductId())
+          : new CoverageExpression.WarehouseProduct(query.getWarehouseId(), query.getProductId());
+    }
+    if (allStores) {
+      return new CoverageExpression.AllStores();
+    }
+    if (not) {
+      return new CoverageExpression.Not(toExpression(query.getNot(), depth + 1));
+    }
+    List<CoverageQuery> nested = and ? query.getAnd() : query.getOr();
+    List<CoverageExpression> operands =
+        nested.stream().map(operand -> toExpression(operand, depth + 1)).toList();
+    return and ? new CoverageExpression.And(operands) : new CoverageExpression.Or(operands);
+  }
+
+  private FulfillmentBatchItem toBatchItem(FulfillmentBatchItemResult result) {
+    FulfillmentBatchItem item = new FulfillmentBatchItem();
+    item.setId(result.fulfillment().id);
+    item.setWarehouseId(result.fulfillment().warehouseId);
+    item.setProductId(result.fulfillment().productId);
+    item.setStoreId(result.fulfillment().storeId);
+    item.setStatus(result.outcome().name());
+    item.setMessage(result.message());
+    return item;
+  }
+
+  private FulfillmentRequest toRequest(FulfillmentDTO dto) {
+    FulfillmentRequest request = new FulfillmentRequest();
+    request.setWarehouseId(dto.warehouseId);
+    request.setProductId(dto.productId);
+    request.setStoreId(dto.storeId);
+    return request;
+  }
+
+  private FulfillmentDemand toDemand(DemandedProduct pair) {
+    if (pair.getStoreId() == null || pair.getProductId() == null) {
+      throw new FulfillmentValidationException("storeId and productId are required.");
+    }
+    return new FulfillmentDemand(pair.getStoreId(), pair.getProductId());
+  }
+
+  private DemandedProduct toDemandedProduct(FulfillmentDemand pair) {
+    DemandedProduct demandedProduct = new DemandedProduct();
+    demandedProduct.setStoreId(pair.storeId());
+    demandedProduct.setProductId(pair.productId());
+    return demandedProduct;
   }
 
   private FulfillmentResponse toResponse(FulfillmentDTO dto) {
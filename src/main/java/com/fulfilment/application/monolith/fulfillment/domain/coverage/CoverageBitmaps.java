@@ -0,0 +1,128 @@
+package com.fulfilment.application.monolith.fulfillment.domain.coverage;
+
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+/**
+ * Store bitmaps per warehouse, per product and per warehouse and product. A fulfillment is unique
+ * per warehouse, product and store, so the last ones are exact sets, applying a change twice is
+ * harmless, and the other two are derived from them. Not thread safe, and the bitmaps handed out
+ * are the live ones, so callers copy before they combine them.
+ */
+final class CoverageBitmaps {
+
+  static final Roaring64Bitmap EMPTY = new Roaring64Bitmap();
+
+  final Roaring64Bitmap stores = new Roaring64Bitmap();
+  final Map<Long, Roaring64Bitmap> byWarehouse = new HashMap<>();
+  final Map<Long, Roaring64Bitmap> byProduct = new HashMap<>();
+  final Map<WarehouseProduct, Roaring64Bitmap> byWarehouseProduct = new HashMap<>();
+
+  private final Map<Long, Set<Long>> productsByWarehouse = new HashMap<>();
+  private final Map<Long, Set<Long>> warehousesByProduct = new HashMap<>();
+
+  static CoverageBitmaps load(FulfillmentStore fulfillmentStore) {
+    CoverageBitmaps bitmaps = new CoverageBitmaps();
+    fulfillmentStore.forEachStoreId(bitmaps.stores::addLong);
+    fulfillmentStore.forEachFulfillment(
+        fulfillment ->
+            bitmaps.add(fulfillment.warehouseId, fulfillment.productId, fulfillment.storeId));
+    return bitmaps;
+  }
+
+  void apply(FulfillmentChange change) {
+    if (change.delta() > 0) {
+      add(change.warehouseId(), change.productId(), change.storeId());
+    } else {
+      remove(change.warehouseId(), change.productId(), change.storeId());
+    }
+  }
+
+  void add(long warehouseId, long productId, long storeId) {
+    stores.addLong(storeId);
+    byWarehouseProduct
+        .computeIfAbsent(new WarehouseProduct(warehouseId, productId), key -> new Roaring64Bitmap())
+        .addLong(storeId);
+    productsByWarehouse.computeIfAbsent(warehouseId, id -> new HashSet<>()).add(productId);
+    warehousesByProduct.computeIfAbsent(productId, id -> new HashSet<>()).add(warehouseId);
+    byWarehouse.computeIfAbsent(warehouseId, id -> new Roaring64Bitmap()).addLong(storeId);
+    byProduct.computeIfAbsent(productId, id -> new Roaring64Bitmap()).addLong(storeId);
+  }
+
+  void remove(long warehouseId, long productId, long storeId) {
+    WarehouseProduct pair = new WarehouseProduct(warehouseId, productId);
+    Roaring64Bitmap pairStores = byWarehouseProduct.get(pair);
+    if (pairStores == null || !pairStores.contains(storeId)) {
+      return;
+    }
+    pairStores.removeLong(storeId);
+    if (pairStores.isEmpty()) {
+      byWarehouseProduct.remove(pair);
+      unlink(productsByWarehouse, warehouseId, productId);
+      unlink(warehousesByProduct, productId, warehouseId);
+    }
+    // the store keeps its bit as long as another product of the warehouse, or another warehouse
+    // of the product, still links them
+    boolean stillServedByWarehouse =
+        productsByWarehouse.getOrDefault(warehouseId, Set.of()).stream()
+            .anyMatch(product -> storesOf(warehouseId, product).contains(storeId));
+    if (!stillServedByWarehouse) {
+      clear(byWarehouse, warehouseId, storeId);
+    }
+    boolean stillGetsProduct =
+        warehousesByProduct.getOrDefault(productId, Set.of()).stream()
+            .anyMatch(warehouse -> storesOf(warehouse, productId).contains(storeId));
+    if (!stillGetsProduct) {
+      clear(byProduct, productId, storeId);
+    }
+  }
+
+  void addStore(long storeId) {
+    stores.addLong(storeId);
+  }
+
+  // the store's fulfillments went with it through on delete cascade without changes of their own
+  void removeStore(long storeId) {
+    List<WarehouseProduct> served =
+        byWarehouseProduct.entrySet().stream()
+            .filter(entry -> entry.getValue().contains(storeId))
+            .map(Map.Entry::getKey)
+            .toList();
+    served.forEach(pair -> remove(pair.warehouseId(), pair.productId(), storeId));
+    stores.removeLong(storeId);
+  }
+
+  Roaring64Bitmap storesOf(long warehouseId, long productId) {
+    return byWarehouseProduct.getOrDefault(new WarehouseProduct(warehouseId, productId), EMPTY);
+  }
+
+  int size() {
+    return byWarehouse.size() + byProduct.size() + byWarehouseProduct.size();
+  }
+
+  private static void clear(Map<Long, Roaring64Bitmap> bitmaps, long key, long storeId) {
+    Roaring64Bitmap bitmap = bitmaps.get(key);
+    if (bitmap == null) {
+      return;
+    }
+    bitmap.removeLong(storeId);
+    if (bitmap.isEmpty()) {
+      bitmaps.remove(key);
+    }
+  }
+
+  private static void unlink(Map<Long, Set<Long>> links, long from, long to) {
+    Set<Long> linked = links.get(from);
+    if (linked != null && linked.remove(to) && linked.isEmpty()) {
+      links.remove(from);
+    }
+  }
+
+  record WarehouseProduct(long warehouseId, long productId) {}
+}
@@ -0,0 +1,139 @@
+package com.fulfilment.application.monolith.fulfillment.domain.coverage;
+
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChanges;
+import com.fulfilment.application.monolith.fulfillment.domain.models.CoverageExpression;
+import com.fulfilment.application.monolith.stores.StoreDeletedEvent;
+import com.fulfilment.application.monolith.stores.StoreEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import org.jboss.logging.Logger;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+/**
+ * Answers which stores are covered by which warehouses and products from bitmaps held in memory.
+ * Fulfillment changes are applied once their transaction commits, through the same events as the
+ * constraint index; stores are added from their store events and removed, together with the
+ * fulfillments their deletion cascaded to, once that deletion commits.
+ */
+@ApplicationScoped
+public class FulfillmentCoverage {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentCoverage.class);
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private CoverageBitmaps bitmaps = new CoverageBitmaps();
+
+  // changes seen while a rebuild is loading, replayed onto the rebuilt bitmaps before the swap
+  private List<Consumer<CoverageBitmaps>> pending;
+
+  public Roaring64Bitmap stores(CoverageExpression expression) {
+    lock.readLock().lock();
+    try {
+      // the leaves are the live bitmaps, so the result never is one of them
+      return evaluate(expression).clone();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) FulfillmentChange change) {
+    update(bitmaps -> bitmaps.apply(change));
+  }
+
+  void onChanges(@Observes(during = TransactionPhase.AFTER_SUCCESS) FulfillmentChanges changes) {
+    update(bitmaps -> changes.changes().forEach(bitmaps::apply));
+  }
+
+  void onStoreEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) StoreEvent event) {
+    if (event.action() == StoreEvent.Action.CREATE) {
+      long storeId = event.store().id;
+      update(bitmaps -> bitmaps.addStore(storeId));
+    }
+  }
+
+  void onStoreDeleted(@Observes(during = TransactionPhase.AFTER_SUCCESS) StoreDeletedEvent event) {
+    long storeId = event.storeId();
+    update(bitmaps -> bitmaps.removeStore(storeId));
+  }
+
+  // changes are idempotent, so one that committed before the load and is replayed changes nothing
+  synchronized void rebuild(Supplier<CoverageBitmaps> loader) {
+    withWriteLock(() -> pending = new ArrayList<>());
+    try {
+      CoverageBitmaps rebuilt = loader.get();
+      withWriteLock(
+          () -> {
+            pending.forEach(change -> change.accept(rebuilt));
+            bitmaps = rebuilt;
+          });
+      LOG.infof("Fulfillment coverage rebuilt with %d bitmaps", rebuilt.size());
+    } finally {
+      withWriteLock(() -> pending = null);
+    }
+  }
+
+  private void update(Consumer<CoverageBitmaps> change) {
+    withWriteLock(
+        () -> {
+          change.accept(bitmaps);
+          if (pending != null) {
+            pending.add(change);
+          }
+        });
+  }
+
+  private void withWriteLock(Runnable action) {
+    lock.writeLock().lock();
+    try {
+      action.run();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  // returns a live bitmap for a leaf; combinations start from a copy and change only that
+  private Roaring64Bitmap evaluate(CoverageExpression expression) {
+    if (expression instanceof CoverageExpression.AllStores) {
+      return bitmaps.stores;
+    }
+    if (expression instanceof CoverageExpression.Warehouse warehouse) {
+      return bitmaps.byWarehouse.getOrDefault(warehouse.warehouseId(), CoverageBitmaps.EMPTY);
+    }
+    if (expression instanceof CoverageExpression.Product product) {
+      return bitmaps.byProduct.getOrDefault(product.productId(), CoverageBitmaps.EMPTY);
+    }
+    if (expression instanceof CoverageExpression.WarehouseProduct pair) {
+      return bitmaps.storesOf(pair.warehouseId(), pair.productId());
+    }
+    if (expression instanceof CoverageExpression.And and) {
+      Roaring64Bitmap result = evaluate(and.operands().get(0)).clone();
+      for (CoverageExpression operand : and.operands().subList(1, and.operands().size())) {
+        if (result.isEmpty()) {
+          break;
+        }
+        result.and(evaluate(operand));
+      }
+      return result;
+    }
+    if (expression instanceof CoverageExpression.Or or) {
+      Roaring64Bitmap result = new Roaring64Bitmap();
+      for (CoverageExpression operand : or.operands()) {
+        result.or(evaluate(operand));
+      }
+      return result;
+    }
+    CoverageExpression.Not not = (CoverageExpression.Not) expression;
+    Roaring64Bitmap result = bitmaps.stores.clone();
+    result.andNot(evaluate(not.operand()));
+    return result;
+  }
+}
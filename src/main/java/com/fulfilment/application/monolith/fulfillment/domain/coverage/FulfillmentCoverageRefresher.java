@@ -0,0 +1,43 @@
+package com.fulfilment.application.monolith.fulfillment.domain.coverage;
+
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+/**
+ * Loads the coverage bitmaps at startup and reloads them periodically, which catches up with
+ * changes committed on other nodes, whose events this node never sees.
+ */
+@ApplicationScoped
+public class FulfillmentCoverageRefresher {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentCoverageRefresher.class);
+
+  private final FulfillmentStore fulfillmentStore;
+  private final FulfillmentCoverage coverage;
+
+  public FulfillmentCoverageRefresher(
+      FulfillmentStore fulfillmentStore, FulfillmentCoverage coverage) {
+    this.fulfillmentStore = fulfillmentStore;
+    this.coverage = coverage;
+  }
+
+  @Transactional
+  void onStart(@Observes StartupEvent event) {
+    refresh();
+  }
+
+  @Scheduled(
+      every = "${fulfillment.coverage.refresh-interval:10m}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  @Transactional
+  void refresh() {
+    long start = System.nanoTime();
+    coverage.rebuild(() -> CoverageBitmaps.load(fulfillmentStore));
+    LOG.infof("Fulfillment coverage loaded in %d ms", (System.nanoTime() - start) / 1_000_000);
+  }
+}
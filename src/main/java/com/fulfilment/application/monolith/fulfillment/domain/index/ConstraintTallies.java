@@ -0,0 +1,62 @@
+package com.fulfilment.application.monolith.fulfillment.domain.index;
+
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The distinct ids behind each fulfillment limit: warehouses per store, warehouses per product and
+ * store, and products per warehouse. A warehouse serving a store with two products is counted once
+ * for that store but linked twice, so deleting one of the two fulfillments keeps it there.
+ */
+final class ConstraintTallies {
+
+  final Map<Long, IdTally> warehousesByStore = new ConcurrentHashMap<>();
+  final Map<ProductStore, IdTally> warehousesByProductStore = new ConcurrentHashMap<>();
+  final Map<Long, IdTally> productsByWarehouse = new ConcurrentHashMap<>();
+
+  static ConstraintTallies load(FulfillmentStore fulfillmentStore) {
+    ConstraintTallies tallies = new ConstraintTallies();
+    fulfillmentStore.forEachFulfillment(
+        fulfillment ->
+            tallies.add(
+                fulfillment.warehouseId, fulfillment.productId, fulfillment.storeId, 1));
+    return tallies;
+  }
+
+  void add(long warehouseId, long productId, long storeId, int delta) {
+    add(warehousesByStore, storeId, warehouseId, delta);
+    add(warehousesByProductStore, new ProductStore(productId, storeId), warehouseId, delta);
+    add(productsByWarehouse, warehouseId, productId, delta);
+  }
+
+  int size() {
+    return warehousesByStore.size() + warehousesByProductStore.size() + productsByWarehouse.size();
+  }
+
+  static <K> void add(Map<K, IdTally> tallies, K key, long id, int delta) {
+    tallies.compute(
+        key,
+        (k, current) -> orNull((current != null ? current : IdTally.EMPTY).plus(id, delta)));
+  }
+
+  static <K> void reset(Map<K, IdTally> tallies, K key, IdTally tally) {
+    if (tally.size() == 0) {
+      tallies.remove(key);
+    } else {
+      tallies.put(key, tally);
+    }
+  }
+
+  // entries are overwritten in place so readers never see an empty map while it is rebuilt
+  static <K> void replaceAll(Map<K, IdTally> tallies, Map<K, IdTally> rebuilt) {
+    tallies.putAll(rebuilt);
+    tallies.keySet().retainAll(rebuilt.keySet());
+  }
+
+  private static IdTally orNull(IdTally tally) {
+    return tally.size() > 0 ? tally : null;
+  }
+
+  record ProductStore(long productId, long storeId) {}
+}
@@ -0,0 +1,16 @@
+package com.fulfilment.application.monolith.fulfillment.domain.index;
+
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+
+public record FulfillmentChange(long warehouseId, long productId, long storeId, int delta) {
+
+  public static FulfillmentChange added(FulfillmentDTO fulfillment) {
+    return new FulfillmentChange(
+        fulfillment.warehouseId, fulfillment.productId, fulfillment.storeId, 1);
+  }
+
+  public static FulfillmentChange removed(FulfillmentDTO fulfillment) {
+    return new FulfillmentChange(
+        fulfillment.warehouseId, fulfillment.productId, fulfillment.storeId, -1);
+  }
+}
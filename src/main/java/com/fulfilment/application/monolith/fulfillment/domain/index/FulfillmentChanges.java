@@ -0,0 +1,6 @@
+package com.fulfilment.application.monolith.fulfillment.domain.index;
+
+import java.util.List;
+
+// the changes of one bulk statement, fired as a single event instead of one per row
+public record FulfillmentChanges(List<FulfillmentChange> changes) {}
@@ -0,0 +1,82 @@
+package com.fulfilment.application.monolith.fulfillment.domain.index;
+
+import com.fulfilment.application.monolith.fulfillment.domain.index.ConstraintTallies.ProductStore;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import java.util.List;
+import org.jboss.logging.Logger;
+
+/**
+ * In-memory counts behind the three fulfillment limits, so checking them does not grow with the
+ * fulfillment table. Changes recorded by the use cases are applied only once their transaction
+ * commits, so a rolled back create never shows up.
+ */
+@ApplicationScoped
+public class FulfillmentConstraintIndex {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentConstraintIndex.class);
+
+  private final Event<FulfillmentChange> changes;
+  private final Event<FulfillmentChanges> bulkChanges;
+
+  private final ConstraintTallies tallies = new ConstraintTallies();
+
+  public FulfillmentConstraintIndex(
+      Event<FulfillmentChange> changes, Event<FulfillmentChanges> bulkChanges) {
+    this.changes = changes;
+    this.bulkChanges = bulkChanges;
+  }
+
+  public int warehousesForProductInStore(long productId, long storeId) {
+    return sizeOf(tallies.warehousesByProductStore.get(new ProductStore(productId, storeId)));
+  }
+
+  public int warehousesForStore(long storeId) {
+    return sizeOf(tallies.warehousesByStore.get(storeId));
+  }
+
+  public int productsInWarehouse(long warehouseId) {
+    return sizeOf(tallies.productsByWarehouse.get(warehouseId));
+  }
+
+  public void record(FulfillmentChange change) {
+    changes.fire(change);
+  }
+
+  public void recordAll(List<FulfillmentChange> changes) {
+    if (!changes.isEmpty()) {
+      bulkChanges.fire(new FulfillmentChanges(changes));
+    }
+  }
+
+  void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) FulfillmentChange change) {
+    apply(change);
+  }
+
+  void onChanges(@Observes(during = TransactionPhase.AFTER_SUCCESS) FulfillmentChanges changes) {
+    changes.changes().forEach(this::apply);
+  }
+
+  void apply(FulfillmentChange change) {
+    LOG.debugf("Applying fulfillment change %s", change);
+    tallies.add(change.warehouseId(), change.productId(), change.storeId(), change.delta());
+  }
+
+  void replaceAll(ConstraintTallies rebuilt) {
+    ConstraintTallies.replaceAll(tallies.warehousesByStore, rebuilt.warehousesByStore);
+    ConstraintTallies.replaceAll(
+        tallies.warehousesByProductStore, rebuilt.warehousesByProductStore);
+    ConstraintTallies.replaceAll(tallies.productsByWarehouse, rebuilt.productsByWarehouse);
+    LOG.infof("Fulfillment constraint index rebuilt with %d entries", rebuilt.size());
+  }
+
+  ConstraintTallies tallies() {
+    return tallies;
+  }
+
+  private static int sizeOf(IdTally tally) {
+    return tally != null ? tally.size() : 0;
+  }
+}
@@ -0,0 +1,115 @@
+package com.fulfilment.application.monolith.fulfillment.domain.index;
+
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.transaction.Transactional;
+import java.util.HashMap;
+import java.util.Map;
+import org.jboss.logging.Logger;
+
+/**
+ * Loads the constraint index from the database at startup and periodically compares the two, which
+ * also catches fulfillments removed by the on delete cascade of a warehouse, product or store. An
+ * entry is only corrected when the same difference is seen on two consecutive checks, so a commit
+ * whose index update is still in flight is not mistaken for drift.
+ */
+@ApplicationScoped
+public class FulfillmentIndexReconciler {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentIndexReconciler.class);
+
+  private final FulfillmentStore fulfillmentStore;
+  private final FulfillmentConstraintIndex constraintIndex;
+  private final Counter corrections;
+
+  private Map<Long, IdTally> suspectStores = Map.of();
+  private Map<ConstraintTallies.ProductStore, IdTally> suspectProductStores = Map.of();
+  private Map<Long, IdTally> suspectWarehouses = Map.of();
+
+  public FulfillmentIndexReconciler(
+      FulfillmentStore fulfillmentStore,
+      FulfillmentConstraintIndex constraintIndex,
+      MeterRegistry meterRegistry) {
+    this.fulfillmentStore = fulfillmentStore;
+    this.constraintIndex = constraintIndex;
+    this.corrections =
+        Counter.builder("fulfillment.constraint-index.corrections")
+            .description(
+                "Constraint index entries that disagreed with the database and were corrected")
+            .register(meterRegistry);
+  }
+
+  @Transactional
+  void onStart(@Observes StartupEvent event) {
+    long start = System.nanoTime();
+    constraintIndex.replaceAll(ConstraintTallies.load(fulfillmentStore));
+    LOG.infof(
+        "Fulfillment constraint index loaded in %d ms", (System.nanoTime() - start) / 1_000_000);
+  }
+
+  @Scheduled(
+      every = "${fulfillment.constraint-index.check-interval:10m}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  @Transactional
+  void checkConsistency() {
+    ConstraintTallies actual = ConstraintTallies.load(fulfillmentStore);
+    ConstraintTallies recorded = constraintIndex.tallies();
+    suspectStores =
+        correct("store", actual.warehousesByStore, recorded.warehousesByStore, suspectStores);
+    suspectProductStores =
+        correct(
+            "product in store",
+            actual.warehousesByProductStore,
+            recorded.warehousesByProductStore,
+            suspectProductStores);
+    suspectWarehouses =
+        correct(
+            "warehouse",
+            actual.productsByWarehouse,
+            recorded.productsByWarehouse,
+            suspectWarehouses);
+  }
+
+  // returns the entries that differ on this run, to be compared against on the next one
+  private <K> Map<K, IdTally> correct(
+      String kind, Map<K, IdTally> actual, Map<K, IdTally> recorded, Map<K, IdTally> suspects) {
+    Map<K, IdTally> drifted = new HashMap<>();
+    actual.forEach(
+        (key, expected) -> compare(kind, key, expected, recorded, suspects, drifted));
+    recorded.forEach(
+        (key, current) -> {
+          if (!actual.containsKey(key)) {
+            compare(kind, key, IdTally.EMPTY, recorded, suspects, drifted);
+          }
+        });
+    return drifted;
+  }
+
+  private <K> void compare(
+      String kind,
+      K key,
+      IdTally expected,
+      Map<K, IdTally> recorded,
+      Map<K, IdTally> suspects,
+      Map<K, IdTally> drifted) {
+    IdTally current = recorded.getOrDefault(key, IdTally.EMPTY);
+    if (expected.equals(current)) {
+      return;
+    }
+    drifted.put(key, expected);
+    if (expected.equals(suspects.get(key))) {
+      LOG.warnf(
+          "Constraint index drifted for %s %s: index %s, database %s",
+          kind, key, current, expected);
+      ConstraintTallies.reset(recorded, key, expected);
+      corrections.increment();
+    } else {
+      LOG.debugf("Constraint index differs for %s %s, re-checking on next run", kind, key);
+    }
+  }
+}
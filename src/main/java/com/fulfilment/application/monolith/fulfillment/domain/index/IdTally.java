@@ -0,0 +1,94 @@
+package com.fulfilment.application.monolith.fulfillment.domain.index;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of distinct ids, each with the number of fulfillments that put it there. Ids are
+ * kept sorted so equal tallies compare equal, and updates return a new tally.
+ */
+final class IdTally {
+
+  static final IdTally EMPTY = new IdTally(new long[0], new int[0]);
+
+  // most tallies hold one id linked once; they all share this array, which is never written to
+  private static final int[] ONCE = {1};
+
+  private final long[] ids;
+  private final int[] counts;
+
+  private IdTally(long[] ids, int[] counts) {
+    this.ids = ids;
+    this.counts = counts;
+  }
+
+  int size() {
+    return ids.length;
+  }
+
+  IdTally plus(long id, int delta) {
+    int at = Arrays.binarySearch(ids, id);
+    if (at >= 0) {
+      int count = counts[at] + delta;
+      if (count > 0) {
+        int[] updated = counts.clone();
+        updated[at] = count;
+        return new IdTally(ids, updated);
+      }
+      return without(at);
+    }
+    if (delta <= 0) {
+      // removing a link that was never counted, e.g. one the index had already dropped
+      return this;
+    }
+    return with(-at - 1, id, delta);
+  }
+
+  private IdTally with(int at, long id, int count) {
+    if (ids.length == 0 && count == 1) {
+      return new IdTally(new long[] {id}, ONCE);
+    }
+    long[] grownIds = new long[ids.length + 1];
+    int[] grownCounts = new int[ids.length + 1];
+    System.arraycopy(ids, 0, grownIds, 0, at);
+    System.arraycopy(counts, 0, grownCounts, 0, at);
+    grownIds[at] = id;
+    grownCounts[at] = count;
+    System.arraycopy(ids, at, grownIds, at + 1, ids.length - at);
+    System.arraycopy(counts, at, grownCounts, at + 1, ids.length - at);
+    return new IdTally(grownIds, grownCounts);
+  }
+
+  private IdTally without(int at) {
+    if (ids.length == 1) {
+      return EMPTY;
+    }
+    long[] shrunkIds = new long[ids.length - 1];
+    int[] shrunkCounts = new int[ids.length - 1];
+    System.arraycopy(ids, 0, shrunkIds, 0, at);
+    System.arraycopy(counts, 0, shrunkCounts, 0, at);
+    System.arraycopy(ids, at + 1, shrunkIds, at, ids.length - at - 1);
+    System.arraycopy(counts, at + 1, shrunkCounts, at, ids.length - at - 1);
+    return new IdTally(shrunkIds, shrunkCounts);
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof IdTally tally
+        && Arrays.equals(ids, tally.ids)
+        && Arrays.equals(counts, tally.counts);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * Arrays.hashCode(ids) + Arrays.hashCode(counts);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder text = new StringBuilder("{");
+    for (int i = 0; i < ids.length; i++) {
+      text.append(i > 0 ? ", " : "").append(ids[i]).append('x').append(counts[i]);
+    }
+    return text.append('}').toString();
+  }
+}
@@ -0,0 +1,26 @@
+package com.fulfilment.application.monolith.fulfillment.domain.models;
+
+import java.util.List;
+
+/** A set of stores, described in terms of the fulfillments that serve them. */
+public sealed interface CoverageExpression {
+
+  /** Every known store, whether it has fulfillments or not. */
+  record AllStores() implements CoverageExpression {}
+
+  /** Stores served by the warehouse, for any product. */
+  record Warehouse(long warehouseId) implements CoverageExpression {}
+
+  /** Stores that get the product, from any warehouse. */
+  record Product(long productId) implements CoverageExpression {}
+
+  /** Stores that get the product from the warehouse. */
+  record WarehouseProduct(long warehouseId, long productId) implements CoverageExpression {}
+
+  record And(List<CoverageExpression> operands) implements CoverageExpression {}
+
+  record Or(List<CoverageExpression> operands) implements CoverageExpression {}
+
+  /** All stores except the operand's. */
+  record Not(CoverageExpression operand) implements CoverageExpression {}
+}
@@ -0,0 +1,23 @@
+package com.fulfilment.application.monolith.fulfillment.domain.models;
+
+public record FulfillmentBatchItemResult(
+    FulfillmentDTO fulfillment, Outcome outcome, String message) {
+
+  public enum Outcome {
+    CREATED,
+    NOT_FOUND,
+    REJECTED
+  }
+
+  public static FulfillmentBatchItemResult created(FulfillmentDTO fulfillment) {
+    return new FulfillmentBatchItemResult(fulfillment, Outcome.CREATED, null);
+  }
+
+  public static FulfillmentBatchItemResult notFound(FulfillmentDTO fulfillment, String message) {
+    return new FulfillmentBatchItemResult(fulfillment, Outcome.NOT_FOUND, message);
+  }
+
+  public static FulfillmentBatchItemResult rejected(FulfillmentDTO fulfillment, String message) {
+    return new FulfillmentBatchItemResult(fulfillment, Outcome.REJECTED, message);
+  }
+}
@@ -0,0 +1,10 @@
+package com.fulfilment.application.monolith.fulfillment.domain.models;
+
+// existence of the referenced entities and the current counts behind the three fulfillment limits
+public record FulfillmentConstraintCheck(
+    boolean warehouseExists,
+    boolean productExists,
+    boolean storeExists,
+    long warehousesForProductInStore,
+    long warehousesForStore,
+    long productsInWarehouse) {}
@@ -0,0 +1,3 @@
+package com.fulfilment.application.monolith.fulfillment.domain.models;
+
+public record FulfillmentDemand(long storeId, long productId) {}
@@ -0,0 +1,17 @@
+package com.fulfilment.application.monolith.fulfillment.domain.models;
+
+// which fulfillments a listing covers; a null id leaves that column unrestricted
+public record FulfillmentFilter(Long storeId, Long warehouseId) {
+
+  public static FulfillmentFilter all() {
+    return new FulfillmentFilter(null, null);
+  }
+
+  public static FulfillmentFilter byStore(Long storeId) {
+    return new FulfillmentFilter(storeId, null);
+  }
+
+  public static FulfillmentFilter byWarehouse(Long warehouseId) {
+    return new FulfillmentFilter(null, warehouseId);
+  }
+}
@@ -0,0 +1,14 @@
+package com.fulfilment.application.monolith.fulfillment.domain.models;
+
+import java.util.List;
+
+/**
+ * The fulfillments to insert and delete to move the demanded stores to the planned assignment,
+ * and the demanded pairs it could not cover within the limits.
+ */
+public record FulfillmentPlan(
+    int demanded,
+    int covered,
+    List<FulfillmentDTO> inserts,
+    List<FulfillmentDTO> deletes,
+    List<FulfillmentDemand> uncovered) {}
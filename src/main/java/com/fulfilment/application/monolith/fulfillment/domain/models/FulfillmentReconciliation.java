@@ -0,0 +1,7 @@
+package com.fulfilment.application.monolith.fulfillment.domain.models;
+
+import java.util.List;
+
+/** What moving a store to its desired set of fulfillments inserted, deleted and left alone. */
+public record FulfillmentReconciliation(
+    List<FulfillmentDTO> inserted, List<FulfillmentDTO> deleted, int unchanged) {}
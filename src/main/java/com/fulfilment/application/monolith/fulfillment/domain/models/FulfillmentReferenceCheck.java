@@ -0,0 +1,5 @@
+package com.fulfilment.application.monolith.fulfillment.domain.models;
+
+// existence of the warehouse, product and store a new fulfillment points at
+public record FulfillmentReferenceCheck(
+    boolean warehouseExists, boolean productExists, boolean storeExists) {}
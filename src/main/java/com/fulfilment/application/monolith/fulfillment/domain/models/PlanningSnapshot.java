@@ -0,0 +1,16 @@
+package com.fulfilment.application.monolith.fulfillment.domain.models;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * What the planner knows of the database: the demanded stores and products that exist, the
+ * products every active warehouse carries, empty for those without fulfillments, and the current
+ * fulfillments of the demanded stores.
+ */
+public record PlanningSnapshot(
+    Set<Long> storeIds,
+    Set<Long> productIds,
+    Map<Long, Set<Long>> productsByWarehouse,
+    List<FulfillmentDTO> assignments) {}
@@ -0,0 +1,202 @@
+package com.fulfilment.application.monolith.fulfillment.domain.planning;
+
+import static com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerProductPerStoreValidator.MAX_WAREHOUSES_PER_PRODUCT_PER_STORE;
+import static com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerStoreValidator.MAX_WAREHOUSES_PER_STORE;
+
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDemand;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentPlan;
+import com.fulfilment.application.monolith.fulfillment.domain.models.PlanningSnapshot;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.jboss.logging.Logger;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+/**
+ * Plans which warehouses serve the demanded products of each store, within the same limits the
+ * validators enforce, against a snapshot and without touching the database.
+ *
+ * <p>Products that nobody carries are placed in warehouse catalogues first. With the catalogues
+ * fixed no store's choice affects another's, so stores are then planned in parallel partitions:
+ * each greedily takes up to three warehouses, the one covering most of its still uncovered
+ * products first, preferring warehouses it already uses on a tie, and then keeps using the other
+ * warehouses it already has while there is room. Current fulfillments through those warehouses are
+ * kept, up to two per product, a product without one gets one insert, and everything else the
+ * store has is deleted. Greedy cover is not guaranteed optimal, but it is deterministic and
+ * linear in the demand.
+ */
+@ApplicationScoped
+public class FulfillmentPlanner {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentPlanner.class);
+
+  private static final int PARTITION_SIZE = 256;
+
+  public FulfillmentPlan plan(PlanningSnapshot snapshot, Collection<FulfillmentDemand> demand) {
+    long start = System.nanoTime();
+    Map<Long, Set<Long>> productsByStore = new TreeMap<>();
+    Map<Long, Roaring64Bitmap> storesByProduct = new HashMap<>();
+    List<FulfillmentDemand> unknown = new ArrayList<>();
+    Set<FulfillmentDemand> distinct = new LinkedHashSet<>(demand);
+    for (FulfillmentDemand pair : distinct) {
+      if (!snapshot.storeIds().contains(pair.storeId())
+          || !snapshot.productIds().contains(pair.productId())) {
+        unknown.add(pair);
+        continue;
+      }
+      productsByStore.computeIfAbsent(pair.storeId(), id -> new TreeSet<>()).add(pair.productId());
+      storesByProduct
+          .computeIfAbsent(pair.productId(), id -> new Roaring64Bitmap())
+          .addLong(pair.storeId());
+    }
+
+    WarehouseCatalogue catalogue = new WarehouseCatalogue(snapshot.productsByWarehouse());
+    int placed = catalogue.placeUncarried(storesByProduct);
+
+    Map<Long, List<FulfillmentDTO>> assignmentsByStore = new HashMap<>();
+    snapshot
+        .assignments()
+        .forEach(
+            assignment ->
+                assignmentsByStore
+                    .computeIfAbsent(assignment.storeId, id -> new ArrayList<>())
+                    .add(assignment));
+    List<Long> storeIds = new ArrayList<>(productsByStore.keySet());
+    List<List<Long>> partitions = new ArrayList<>();
+    for (int from = 0; from < storeIds.size(); from += PARTITION_SIZE) {
+      partitions.add(storeIds.subList(from, Math.min(from + PARTITION_SIZE, storeIds.size())));
+    }
+    List<StorePlan> storePlans =
+        partitions.parallelStream()
+            .flatMap(
+                partition ->
+                    partition.stream()
+                        .map(
+                            storeId ->
+                                planStore(
+                                    catalogue,
+                                    storeId,
+                                    productsByStore.get(storeId),
+                                    assignmentsByStore.getOrDefault(storeId, List.of()))))
+            .toList();
+
+    List<FulfillmentDTO> inserts = new ArrayList<>();
+    List<FulfillmentDTO> deletes = new ArrayList<>();
+    List<FulfillmentDemand> uncovered = new ArrayList<>(unknown);
+    for (StorePlan storePlan : storePlans) {
+      inserts.addAll(storePlan.inserts());
+      deletes.addAll(storePlan.deletes());
+      uncovered.addAll(storePlan.uncovered());
+    }
+    LOG.infof(
+        "Planned %d stores in %d ms: %d products placed, %d inserts, %d deletes, %d of %d pairs"
+            + " uncovered",
+        storeIds.size(),
+        (System.nanoTime() - start) / 1_000_000,
+        placed,
+        inserts.size(),
+        deletes.size(),
+        uncovered.size(),
+        distinct.size());
+    return new FulfillmentPlan(
+        distinct.size(), distinct.size() - uncovered.size(), inserts, deletes, uncovered);
+  }
+
+  private static StorePlan planStore(
+      WarehouseCatalogue catalogue,
+      long storeId,
+      Set<Long> products,
+      List<FulfillmentDTO> assignments) {
+    Set<Long> used = new HashSet<>();
+    assignments.forEach(assignment -> used.add(assignment.warehouseId));
+    Set<Long> candidates = new TreeSet<>();
+    products.forEach(productId -> candidates.addAll(catalogue.warehouses(productId)));
+
+    List<Long> chosen = new ArrayList<>(MAX_WAREHOUSES_PER_STORE);
+    Set<Long> uncovered = new TreeSet<>(products);
+    while (chosen.size() < MAX_WAREHOUSES_PER_STORE && !uncovered.isEmpty()) {
+      Long best = null;
+      int bestGain = 0;
+      for (Long warehouseId : candidates) {
+        int gain = 0;
+        for (Long productId : catalogue.products(warehouseId)) {
+          if (uncovered.contains(productId)) {
+            gain++;
+          }
+        }
+        boolean preferred = used.contains(warehouseId) && !used.contains(best);
+        if (gain > bestGain || (gain == bestGain && gain > 0 && preferred)) {
+          best = warehouseId;
+          bestGain = gain;
+        }
+      }
+      if (best == null) {
+        break;
+      }
+      chosen.add(best);
+      candidates.remove(best);
+      uncovered.removeAll(catalogue.products(best));
+    }
+    // warehouses the store already uses for a demanded product stay while there is room, so
+    // their second warehouses for a product are not deleted for nothing
+    for (Long warehouseId : new TreeSet<>(used)) {
+      if (chosen.size() < MAX_WAREHOUSES_PER_STORE
+          && !chosen.contains(warehouseId)
+          && catalogue.products(warehouseId).stream().anyMatch(products::contains)) {
+        chosen.add(warehouseId);
+      }
+    }
+
+    Map<Long, Integer> kept = new HashMap<>();
+    List<FulfillmentDTO> deletes = new ArrayList<>();
+    for (FulfillmentDTO assignment : assignments) {
+      boolean keep =
+          chosen.contains(assignment.warehouseId)
+              && products.contains(assignment.productId)
+              && kept.getOrDefault(assignment.productId, 0) < MAX_WAREHOUSES_PER_PRODUCT_PER_STORE;
+      if (keep) {
+        kept.merge(assignment.productId, 1, Integer::sum);
+      } else {
+        deletes.add(assignment);
+      }
+    }
+    List<FulfillmentDTO> inserts = new ArrayList<>();
+    for (Long productId : products) {
+      if (uncovered.contains(productId) || kept.containsKey(productId)) {
+        continue;
+      }
+      Long warehouseId =
+          chosen.stream()
+              .filter(id -> catalogue.products(id).contains(productId))
+              .findFirst()
+              .orElseThrow();
+      inserts.add(fulfillment(warehouseId, productId, storeId));
+    }
+    return new StorePlan(
+        inserts,
+        deletes,
+        uncovered.stream().map(productId -> new FulfillmentDemand(storeId, productId)).toList());
+  }
+
+  private static FulfillmentDTO fulfillment(long warehouseId, long productId, long storeId) {
+    FulfillmentDTO dto = new FulfillmentDTO();
+    dto.warehouseId = warehouseId;
+    dto.productId = productId;
+    dto.storeId = storeId;
+    return dto;
+  }
+
+  private record StorePlan(
+      List<FulfillmentDTO> inserts,
+      List<FulfillmentDTO> deletes,
+      List<FulfillmentDemand> uncovered) {}
+}
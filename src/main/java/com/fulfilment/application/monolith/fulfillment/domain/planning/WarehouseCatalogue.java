@@ -0,0 +1,119 @@
+package com.fulfilment.application.monolith.fulfillment.domain.planning;
+
+import static com.fulfilment.application.monolith.fulfillment.domain.validators.ProductPerWarehouseValidator.MAX_PRODUCTS_PER_WAREHOUSE;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+/**
+ * The products each active warehouse carries, its catalogue. Once the demanded products nobody
+ * carries have been placed, the catalogues are fixed and stores can be planned independently of
+ * each other.
+ */
+final class WarehouseCatalogue {
+
+  private final Map<Long, Set<Long>> productsByWarehouse = new TreeMap<>();
+  private final Map<Long, Set<Long>> warehousesByProduct = new TreeMap<>();
+
+  WarehouseCatalogue(Map<Long, Set<Long>> productsByWarehouse) {
+    productsByWarehouse.forEach(
+        (warehouseId, productIds) -> {
+          this.productsByWarehouse.put(warehouseId, new TreeSet<>());
+          productIds.forEach(productId -> carry(warehouseId, productId));
+        });
+  }
+
+  Set<Long> products(long warehouseId) {
+    return productsByWarehouse.getOrDefault(warehouseId, Set.of());
+  }
+
+  Set<Long> warehouses(long productId) {
+    return warehousesByProduct.getOrDefault(productId, Set.of());
+  }
+
+  /**
+   * Gives each demanded product that no warehouse carries to a warehouse with a free slot, most
+   * demanded product first. A product joins the warehouse whose products are demanded by most of
+   * the same stores, so those stores can take both from one of their three warehouses; when no
+   * such warehouse has room it starts an empty one. Returns the number of products placed.
+   */
+  int placeUncarried(Map<Long, Roaring64Bitmap> storesByProduct) {
+    Comparator<Long> mostDemandedFirst =
+        Comparator.comparingLong(
+                (Long productId) -> storesByProduct.get(productId).getLongCardinality())
+            .reversed()
+            .thenComparing(Comparator.naturalOrder());
+    List<Long> uncarried =
+        storesByProduct.keySet().stream()
+            .filter(productId -> warehouses(productId).isEmpty())
+            .sorted(mostDemandedFirst)
+            .toList();
+    TreeSet<Long> empty = new TreeSet<>();
+    // stores demanding a product of the warehouse, for the warehouses with products and room
+    Map<Long, Roaring64Bitmap> reach = new TreeMap<>();
+    productsByWarehouse.forEach(
+        (warehouseId, productIds) -> {
+          if (productIds.isEmpty()) {
+            empty.add(warehouseId);
+          } else if (productIds.size() < MAX_PRODUCTS_PER_WAREHOUSE) {
+            Roaring64Bitmap stores = new Roaring64Bitmap();
+            for (Long productId : productIds) {
+              Roaring64Bitmap demanding = storesByProduct.get(productId);
+              if (demanding != null) {
+                stores.or(demanding);
+              }
+            }
+            reach.put(warehouseId, stores);
+          }
+        });
+
+    int placed = 0;
+    for (Long productId : uncarried) {
+      Roaring64Bitmap demandingStores = storesByProduct.get(productId);
+      Long target = null;
+      long bestOverlap = 0;
+      for (Map.Entry<Long, Roaring64Bitmap> entry : reach.entrySet()) {
+        Roaring64Bitmap shared = entry.getValue().clone();
+        shared.and(demandingStores);
+        long overlap = shared.getLongCardinality();
+        if (overlap > bestOverlap) {
+          bestOverlap = overlap;
+          target = entry.getKey();
+        }
+      }
+      if (target == null) {
+        target = !empty.isEmpty() ? empty.pollFirst() : mostRoom(reach);
+      }
+      if (target == null) {
+        break;
+      }
+      carry(target, productId);
+      placed++;
+      if (products(target).size() < MAX_PRODUCTS_PER_WAREHOUSE) {
+        // only the reach bitmaps are built here, the demand ones are left as they are
+        reach.computeIfAbsent(target, id -> new Roaring64Bitmap()).or(demandingStores);
+      } else {
+        reach.remove(target);
+      }
+    }
+    return placed;
+  }
+
+  private Long mostRoom(Map<Long, Roaring64Bitmap> reach) {
+    return reach.keySet().stream()
+        .min(
+            Comparator.comparingInt((Long warehouseId) -> products(warehouseId).size())
+                .thenComparing(Comparator.naturalOrder()))
+        .orElse(null);
+  }
+
+  private void carry(long warehouseId, long productId) {
+    productsByWarehouse.computeIfAbsent(warehouseId, id -> new TreeSet<>()).add(productId);
+    warehousesByProduct.computeIfAbsent(productId, id -> new TreeSet<>()).add(warehouseId);
+  }
+}
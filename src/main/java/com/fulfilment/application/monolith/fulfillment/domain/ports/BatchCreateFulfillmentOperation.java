@@ -0,0 +1,11 @@
+package com.fulfilment.application.monolith.fulfillment.domain.ports;
+
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentBatchItemResult;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import java.util.List;
+
+public interface BatchCreateFulfillmentOperation {
+
+  // one result per item, in request order
+  List<FulfillmentBatchItemResult> createAll(List<FulfillmentDTO> fulfillmentDTOs);
+}
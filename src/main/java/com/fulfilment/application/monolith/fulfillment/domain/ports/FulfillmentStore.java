@@ -1,31 +1,94 @@
 package com.fulfilment.application.monolith.fulfillment.domain.ports;
 
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentConstraintCheck;
 import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentFilter;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentReferenceCheck;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
 
 public interface FulfillmentStore {
 
-  List<FulfillmentDTO> findAllFulfillments();
+  // every lookup leaves detached fulfillments out; they are only kept as the history of an
+  // archived warehouse
+
+  // ordered by id; afterId is exclusive and may be null for the first page
+  List<FulfillmentDTO> findFulfillmentsPage(FulfillmentFilter filter, Long afterId, int limit);
+
+  // streams the matching fulfillments in id order without holding them in memory
+  void forEachFulfillmentInIdOrder(FulfillmentFilter filter, Consumer<FulfillmentDTO> consumer);
 
   List<FulfillmentDTO> findByStoreId(Long storeId);
 
-  List<FulfillmentDTO> findByWarehouseId(Long warehouseId);
+  List<FulfillmentDTO> findByStoreIds(Collection<Long> storeIds);
+
+  List<FulfillmentDTO> findByWarehouseIds(Collection<Long> warehouseIds);
+
+  // ids of the generations of a warehouse business unit, newest first
+  List<Long> findWarehouseIdsByBusinessUnitCode(String businessUnitCode, int limit);
+
+  // id of the newest archived generation of a warehouse business unit, null if none is archived
+  Long findLastArchivedWarehouseId(String businessUnitCode);
+
+  // distinct product ids per warehouse; warehouses without fulfillments are left out
+  Map<Long, Set<Long>> findProductIdsByWarehouseIds(Collection<Long> warehouseIds);
+
+  // like findProductIdsByWarehouseIds, leaving out the fulfillments of the given store
+  Map<Long, Set<Long>> findProductIdsOfOtherStores(Collection<Long> warehouseIds, Long storeId);
+
+  // distinct product ids of every warehouse that is not archived, empty for those without
+  // fulfillments
+  Map<Long, Set<Long>> findProductIdsOfActiveWarehouses();
+
+  Set<Long> findExistingWarehouseIds(Collection<Long> warehouseIds);
+
+  Set<Long> findExistingProductIds(Collection<Long> productIds);
+
+  Set<Long> findExistingStoreIds(Collection<Long> storeIds);
 
   FulfillmentDTO findFulfillmentById(Long id);
 
+  // locks the store row until the transaction ends; false when there is no such store
+  boolean lockStore(Long storeId);
+
+  // like lockStore for many stores, in id order; returns the ids of those that exist
+  Set<Long> lockStores(Collection<Long> storeIds);
+
+  // serialises fulfillment writes per warehouse until the transaction ends, taking the locks in id
+  // order after any store locks; the warehouse rows themselves are left unlocked
+  void lockWarehouses(Collection<Long> warehouseIds);
+
+  // streams every attached fulfillment, in no particular order, without holding them in memory
+  void forEachFulfillment(Consumer<FulfillmentDTO> consumer);
+
+  // streams the id of every store, with or without fulfillments
+  void forEachStoreId(LongConsumer consumer);
+
   void persistFulfillment(FulfillmentDTO dto);
 
+  // sets the id of every fulfillment it persists
+  void persistFulfillments(List<FulfillmentDTO> dtos);
+
   void deleteFulfillment(Long id);
 
-  long countDistinctWarehousesByProductAndStore(Long productId, Long storeId);
+  // one statement for all of them
+  void deleteFulfillments(Collection<Long> ids);
 
-  long countDistinctWarehousesByStore(Long storeId);
+  // repoints every attached fulfillment of one warehouse to another in one statement; returns
+  // the count
+  int moveFulfillments(Long fromWarehouseId, Long toWarehouseId);
 
-  long countDistinctProductsByWarehouse(Long warehouseId);
+  // detaches every fulfillment of the warehouse in one statement; returns the count
+  int detachFulfillments(Long warehouseId);
 
-  boolean warehouseExists(Long warehouseId);
+  // deletes every fulfillment of the warehouse in one statement; returns the count
+  int deleteFulfillmentsOfWarehouse(Long warehouseId);
 
-  boolean productExists(Long productId);
+  FulfillmentReferenceCheck checkReferences(Long warehouseId, Long productId, Long storeId);
 
-  boolean storeExists(Long storeId);
+  FulfillmentConstraintCheck checkConstraints(Long warehouseId, Long productId, Long storeId);
 }
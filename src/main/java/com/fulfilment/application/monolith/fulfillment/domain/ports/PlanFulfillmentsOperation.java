@@ -0,0 +1,11 @@
+package com.fulfilment.application.monolith.fulfillment.domain.ports;
+
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDemand;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentPlan;
+import java.util.List;
+
+public interface PlanFulfillmentsOperation {
+
+  // computes a plan without applying it
+  FulfillmentPlan plan(List<FulfillmentDemand> demand);
+}
@@ -0,0 +1,11 @@
+package com.fulfilment.application.monolith.fulfillment.domain.ports;
+
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentReconciliation;
+import java.util.List;
+
+public interface ReconcileStoreFulfillmentsOperation {
+
+  // desired holds every warehouse and product pair the store should have, nothing else is kept
+  FulfillmentReconciliation reconcile(Long storeId, List<FulfillmentDTO> desired);
+}
@@ -0,0 +1,187 @@
+package com.fulfilment.application.monolith.fulfillment.domain.usecases;
+
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentNotFoundException;
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentBatchItemResult;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentReferenceCheck;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.BatchCreateFulfillmentOperation;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.ProductPerWarehouseValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerProductPerStoreValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerStoreValidator;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import org.jboss.logging.Logger;
+
+/**
+ * Creates many fulfillments at once. The referenced warehouses, products and stores and the
+ * fulfillments already linking them are loaded with one query each, under the store and warehouse
+ * locks a single create takes, after which every item is checked in memory in the same order and
+ * with the same messages as a single create, counting the items accepted earlier in the batch. Valid items are persisted together; rejected ones are
+ * reported back without failing the batch.
+ */
+@ApplicationScoped
+public class BatchCreateFulfillmentUseCase implements BatchCreateFulfillmentOperation {
+
+  private static final Logger LOG = Logger.getLogger(BatchCreateFulfillmentUseCase.class);
+
+  static final int MAX_BATCH_SIZE = 10_000;
+
+  private final FulfillmentStore fulfillmentStore;
+  private final WarehousePerProductPerStoreValidator warehousePerProductPerStoreValidator;
+  private final WarehousePerStoreValidator warehousePerStoreValidator;
+  private final ProductPerWarehouseValidator productPerWarehouseValidator;
+  private final FulfillmentConstraintIndex constraintIndex;
+
+  public BatchCreateFulfillmentUseCase(
+      FulfillmentStore fulfillmentStore,
+      WarehousePerProductPerStoreValidator warehousePerProductPerStoreValidator,
+      WarehousePerStoreValidator warehousePerStoreValidator,
+      ProductPerWarehouseValidator productPerWarehouseValidator,
+      FulfillmentConstraintIndex constraintIndex) {
+    this.fulfillmentStore = fulfillmentStore;
+    this.warehousePerProductPerStoreValidator = warehousePerProductPerStoreValidator;
+    this.warehousePerStoreValidator = warehousePerStoreValidator;
+    this.productPerWarehouseValidator = productPerWarehouseValidator;
+    this.constraintIndex = constraintIndex;
+  }
+
+  @Override
+  public List<FulfillmentBatchItemResult> createAll(List<FulfillmentDTO> fulfillmentDTOs) {
+    LOG.infof("Creating %d fulfillments in batch", fulfillmentDTOs.size());
+    if (fulfillmentDTOs.isEmpty() || fulfillmentDTOs.size() > MAX_BATCH_SIZE) {
+      throw new FulfillmentValidationException(
+          "A batch must contain between 1 and " + MAX_BATCH_SIZE + " fulfillments.");
+    }
+
+    Set<Long> warehouses =
+        fulfillmentStore.findExistingWarehouseIds(idsOf(fulfillmentDTOs, dto -> dto.warehouseId));
+    Set<Long> products =
+        fulfillmentStore.findExistingProductIds(idsOf(fulfillmentDTOs, dto -> dto.productId));
+    // the same locks as a single create, taken before the links are read so concurrent writes to
+    // these stores and warehouses cannot slip past the counts
+    Set<Long> stores = fulfillmentStore.lockStores(idsOf(fulfillmentDTOs, dto -> dto.storeId));
+    fulfillmentStore.lockWarehouses(warehouses);
+    Links links = new Links();
+    if (!stores.isEmpty()) {
+      fulfillmentStore.findByStoreIds(stores).forEach(links::addToStore);
+    }
+    if (!warehouses.isEmpty()) {
+      fulfillmentStore
+          .findProductIdsByWarehouseIds(warehouses)
+          .forEach((warehouseId, productIds) -> links.addToWarehouse(warehouseId, productIds));
+    }
+
+    List<FulfillmentBatchItemResult> results = new ArrayList<>(fulfillmentDTOs.size());
+    List<FulfillmentDTO> accepted = new ArrayList<>();
+    for (FulfillmentDTO dto : fulfillmentDTOs) {
+      try {
+        CreateFulfillmentUseCase.validateRequiredFields(dto);
+        CreateFulfillmentUseCase.validateEntitiesExist(
+            dto,
+            new FulfillmentReferenceCheck(
+                warehouses.contains(dto.warehouseId),
+                products.contains(dto.productId),
+                stores.contains(dto.storeId)));
+        validateConstraints(dto, links);
+      } catch (FulfillmentNotFoundException e) {
+        results.add(FulfillmentBatchItemResult.notFound(dto, e.getMessage()));
+        continue;
+      } catch (FulfillmentValidationException e) {
+        results.add(FulfillmentBatchItemResult.rejected(dto, e.getMessage()));
+        continue;
+      }
+      links.addToStore(dto);
+      links.addToWarehouse(dto.warehouseId, Set.of(dto.productId));
+      accepted.add(dto);
+      results.add(FulfillmentBatchItemResult.created(dto));
+    }
+
+    if (!accepted.isEmpty()) {
+      fulfillmentStore.persistFulfillments(accepted);
+      accepted.forEach(dto -> constraintIndex.record(FulfillmentChange.added(dto)));
+    }
+    LOG.infof(
+        "Fulfillment batch done: %d created, %d rejected",
+        accepted.size(), fulfillmentDTOs.size() - accepted.size());
+    return results;
+  }
+
+  private void validateConstraints(FulfillmentDTO dto, Links links) {
+    warehousePerProductPerStoreValidator.validate(
+        links.warehousesForProductInStore(dto.productId, dto.storeId));
+    warehousePerStoreValidator.validate(links.warehousesForStore(dto.storeId));
+    productPerWarehouseValidator.validate(links.productsInWarehouse(dto.warehouseId));
+    // a single create lets the unique index fail the whole request instead
+    if (links.exists(dto)) {
+      throw new FulfillmentValidationException(
+          "Fulfillment of product "
+              + dto.productId
+              + " by warehouse "
+              + dto.warehouseId
+              + " for store "
+              + dto.storeId
+              + " already exists.");
+    }
+  }
+
+  private static Set<Long> idsOf(
+      List<FulfillmentDTO> fulfillmentDTOs, Function<FulfillmentDTO, Long> id) {
+    Set<Long> ids = new HashSet<>();
+    fulfillmentDTOs.stream().map(id).filter(Objects::nonNull).forEach(ids::add);
+    return ids;
+  }
+
+  // the links behind the three limits for the stores and warehouses of one batch
+  private static final class Links {
+
+    private final Set<Link> existing = new HashSet<>();
+    private final Map<Long, Set<Long>> warehousesByStore = new HashMap<>();
+    private final Map<ProductStore, Set<Long>> warehousesByProductStore = new HashMap<>();
+    private final Map<Long, Set<Long>> productsByWarehouse = new HashMap<>();
+
+    void addToStore(FulfillmentDTO dto) {
+      existing.add(new Link(dto.warehouseId, dto.productId, dto.storeId));
+      warehousesByStore.computeIfAbsent(dto.storeId, id -> new HashSet<>()).add(dto.warehouseId);
+      warehousesByProductStore
+          .computeIfAbsent(new ProductStore(dto.productId, dto.storeId), key -> new HashSet<>())
+          .add(dto.warehouseId);
+    }
+
+    void addToWarehouse(Long warehouseId, Set<Long> productIds) {
+      productsByWarehouse.computeIfAbsent(warehouseId, id -> new HashSet<>()).addAll(productIds);
+    }
+
+    boolean exists(FulfillmentDTO dto) {
+      return existing.contains(new Link(dto.warehouseId, dto.productId, dto.storeId));
+    }
+
+    int warehousesForProductInStore(Long productId, Long storeId) {
+      return warehousesByProductStore
+          .getOrDefault(new ProductStore(productId, storeId), Set.of())
+          .size();
+    }
+
+    int warehousesForStore(Long storeId) {
+      return warehousesByStore.getOrDefault(storeId, Set.of()).size();
+    }
+
+    int productsInWarehouse(Long warehouseId) {
+      return productsByWarehouse.getOrDefault(warehouseId, Set.of()).size();
+    }
+  }
+
+  private record Link(Long warehouseId, Long productId, Long storeId) {}
+
+  private record ProductStore(Long productId, Long storeId) {}
+}
@@ -2,13 +2,18 @@ package com.fulfilment.application.monolith.fulfillment.domain.usecases;
 
 import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentNotFoundException;
 import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentConstraintCheck;
 import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentReferenceCheck;
 import com.fulfilment.application.monolith.fulfillment.domain.ports.CreateFulfillmentOperation;
 import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
 import com.fulfilment.application.monolith.fulfillment.domain.validators.ProductPerWarehouseValidator;
 import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerProductPerStoreValidator;
 import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerStoreValidator;
 import jakarta.enterprise.context.ApplicationScoped;
+import java.util.List;
 import org.jboss.logging.Logger;
 
 @ApplicationScoped
@@ -20,16 +25,19 @@ public class CreateFulfillmentUseCase implements CreateFulfillmentOperation {
   private final WarehousePerProductPerStoreValidator warehousePerProductPerStoreValidator;
   private final WarehousePerStoreValidator warehousePerStoreValidator;
   private final ProductPerWarehouseValidator productPerWarehouseValidator;
+  private final FulfillmentConstraintIndex constraintIndex;
 
   public CreateFulfillmentUseCase(
       FulfillmentStore fulfillmentStore,
       WarehousePerProductPerStoreValidator warehousePerProductPerStoreValidator,
       WarehousePerStoreValidator warehousePerStoreValidator,
-      ProductPerWarehouseValidator productPerWarehouseValidator) {
+      ProductPerWarehouseValidator productPerWarehouseValidator,
+      FulfillmentConstraintIndex constraintIndex) {
     this.fulfillmentStore = fulfillmentStore;
     this.warehousePerProductPerStoreValidator = warehousePerProductPerStoreValidator;
     this.warehousePerStoreValidator = warehousePerStoreValidator;
     this.productPerWarehouseValidator = productPerWarehouseValidator;
+    this.constraintIndex = constraintIndex;
   }
 
   @Override
@@ -39,10 +47,14 @@ public class CreateFulfillmentUseCase implements CreateFulfillmentOperation {
         fulfillmentDTO.warehouseId, fulfillmentDTO.productId, fulfillmentDTO.storeId);
 
     validateRequiredFields(fulfillmentDTO);
-    validateEntitiesExist(fulfillmentDTO);
+    FulfillmentReferenceCheck references =
+        fulfillmentStore.checkReferences(
+            fulfillmentDTO.warehouseId, fulfillmentDTO.productId, fulfillmentDTO.storeId);
+    validateEntitiesExist(fulfillmentDTO, references);
     validateConstraints(fulfillmentDTO);
 
     fulfillmentStore.persistFulfillment(fulfillmentDTO);
+    constraintIndex.record(FulfillmentChange.added(fulfillmentDTO));
 
     LOG.infof(
         "Fulfillment created: warehouse=%d product=%d store=%d",
@@ -51,31 +63,53 @@ public class CreateFulfillmentUseCase implements CreateFulfillmentOperation {
     return fulfillmentDTO;
   }
 
-  private void validateRequiredFields(FulfillmentDTO dto) {
+  static void validateRequiredFields(FulfillmentDTO dto) {
     if (dto.warehouseId == null || dto.productId == null || dto.storeId == null) {
       throw new FulfillmentValidationException(
           "warehouseId, productId, and storeId are required.");
     }
   }
 
-  private void validateEntitiesExist(FulfillmentDTO dto) {
-    if (!fulfillmentStore.warehouseExists(dto.warehouseId)) {
+  static void validateEntitiesExist(FulfillmentDTO dto, FulfillmentReferenceCheck check) {
+    if (!check.warehouseExists()) {
       throw new FulfillmentNotFoundException(
           "Warehouse with id " + dto.warehouseId + " does not exist.");
     }
-    if (!fulfillmentStore.productExists(dto.productId)) {
+    if (!check.productExists()) {
       throw new FulfillmentNotFoundException(
           "Product with id " + dto.productId + " does not exist.");
     }
-    if (!fulfillmentStore.storeExists(dto.storeId)) {
+    if (!check.storeExists()) {
       throw new FulfillmentNotFoundException(
           "Store with id " + dto.storeId + " does not exist.");
     }
   }
 
   private void validateConstraints(FulfillmentDTO dto) {
-    warehousePerProductPerStoreValidator.validate(dto.productId, dto.storeId);
-    warehousePerStoreValidator.validate(dto.storeId);
-    productPerWarehouseValidator.validate(dto.warehouseId);
+    // the index neither sees creates committed on other nodes nor forgets cascade deletes, detaches
+    // or reconciles done elsewhere until its next refresh, so only the table decides the limits;
+    // the store lock is the one reconcile and batch take, the warehouse lock covers creates for
+    // other stores adding products to the same warehouse
+    if (!fulfillmentStore.lockStore(dto.storeId)) {
+      throw new FulfillmentNotFoundException("Store with id " + dto.storeId + " does not exist.");
+    }
+    fulfillmentStore.lockWarehouses(List.of(dto.warehouseId));
+    FulfillmentConstraintCheck check =
+        fulfillmentStore.checkConstraints(dto.warehouseId, dto.productId, dto.storeId);
+    validateEntitiesExist(
+        dto,
+        new FulfillmentReferenceCheck(
+            check.warehouseExists(), check.productExists(), check.storeExists()));
+    validateConstraints(
+        check.warehousesForProductInStore(),
+        check.warehousesForStore(),
+        check.productsInWarehouse());
+  }
+
+  private void validateConstraints(
+      long warehousesForProductInStore, long warehousesForStore, long productsInWarehouse) {
+    warehousePerProductPerStoreValidator.validate(warehousesForProductInStore);
+    warehousePerStoreValidator.validate(warehousesForStore);
+    productPerWarehouseValidator.validate(productsInWarehouse);
   }
 }
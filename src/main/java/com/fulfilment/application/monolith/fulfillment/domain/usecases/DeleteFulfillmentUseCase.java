@@ -1,6 +1,8 @@
 package com.fulfilment.application.monolith.fulfillment.domain.usecases;
 
 import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentNotFoundException;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
 import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
 import com.fulfilment.application.monolith.fulfillment.domain.ports.DeleteFulfillmentOperation;
 import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
@@ -13,9 +15,12 @@ public class DeleteFulfillmentUseCase implements DeleteFulfillmentOperation {
   private static final Logger LOG = Logger.getLogger(DeleteFulfillmentUseCase.class);
 
   private final FulfillmentStore fulfillmentStore;
+  private final FulfillmentConstraintIndex constraintIndex;
 
-  public DeleteFulfillmentUseCase(FulfillmentStore fulfillmentStore) {
+  public DeleteFulfillmentUseCase(
+      FulfillmentStore fulfillmentStore, FulfillmentConstraintIndex constraintIndex) {
     this.fulfillmentStore = fulfillmentStore;
+    this.constraintIndex = constraintIndex;
   }
 
   @Override
@@ -28,6 +33,7 @@ public class DeleteFulfillmentUseCase implements DeleteFulfillmentOperation {
     }
 
     fulfillmentStore.deleteFulfillment(id);
+    constraintIndex.record(FulfillmentChange.removed(existing));
     LOG.infof("Fulfillment %d deleted", id);
   }
 }
@@ -0,0 +1,85 @@
+package com.fulfilment.application.monolith.fulfillment.domain.usecases;
+
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDemand;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentPlan;
+import com.fulfilment.application.monolith.fulfillment.domain.models.PlanningSnapshot;
+import com.fulfilment.application.monolith.fulfillment.domain.planning.FulfillmentPlanner;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.PlanFulfillmentsOperation;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import org.jboss.logging.Logger;
+
+/**
+ * Reads what the planner needs in one short transaction and plans outside of it, so a large plan
+ * holds no connection while it is computed. Nothing is written; the caller applies the plan.
+ */
+@ApplicationScoped
+public class PlanFulfillmentsUseCase implements PlanFulfillmentsOperation {
+
+  private static final Logger LOG = Logger.getLogger(PlanFulfillmentsUseCase.class);
+
+  static final int MAX_DEMAND = 1_000_000;
+
+  // keeps every in list well below the bind parameter limit of the driver
+  private static final int LOOKUP_CHUNK = 10_000;
+
+  private final FulfillmentStore fulfillmentStore;
+  private final FulfillmentPlanner planner;
+
+  public PlanFulfillmentsUseCase(FulfillmentStore fulfillmentStore, FulfillmentPlanner planner) {
+    this.fulfillmentStore = fulfillmentStore;
+    this.planner = planner;
+  }
+
+  @Override
+  public FulfillmentPlan plan(List<FulfillmentDemand> demand) {
+    LOG.infof("Planning fulfillments for %d demanded pairs", demand.size());
+    if (demand.isEmpty() || demand.size() > MAX_DEMAND) {
+      throw new FulfillmentValidationException(
+          "A plan must cover between 1 and " + MAX_DEMAND + " demanded pairs.");
+    }
+    PlanningSnapshot snapshot = QuarkusTransaction.requiringNew().call(() -> loadSnapshot(demand));
+    return planner.plan(snapshot, demand);
+  }
+
+  private PlanningSnapshot loadSnapshot(List<FulfillmentDemand> demand) {
+    Set<Long> storeIds =
+        inChunks(idsOf(demand, FulfillmentDemand::storeId), fulfillmentStore::findExistingStoreIds);
+    Set<Long> productIds =
+        inChunks(
+            idsOf(demand, FulfillmentDemand::productId), fulfillmentStore::findExistingProductIds);
+    List<FulfillmentDTO> assignments = new ArrayList<>();
+    List<Long> stores = new ArrayList<>(storeIds);
+    for (int from = 0; from < stores.size(); from += LOOKUP_CHUNK) {
+      assignments.addAll(
+          fulfillmentStore.findByStoreIds(
+              stores.subList(from, Math.min(from + LOOKUP_CHUNK, stores.size()))));
+    }
+    return new PlanningSnapshot(
+        storeIds, productIds, fulfillmentStore.findProductIdsOfActiveWarehouses(), assignments);
+  }
+
+  private static Set<Long> inChunks(Set<Long> ids, Function<List<Long>, Set<Long>> lookup) {
+    Set<Long> found = new HashSet<>();
+    List<Long> all = new ArrayList<>(ids);
+    for (int from = 0; from < all.size(); from += LOOKUP_CHUNK) {
+      found.addAll(lookup.apply(all.subList(from, Math.min(from + LOOKUP_CHUNK, all.size()))));
+    }
+    return found;
+  }
+
+  private static Set<Long> idsOf(
+      List<FulfillmentDemand> demand, Function<FulfillmentDemand, Long> id) {
+    Set<Long> ids = new HashSet<>();
+    demand.forEach(pair -> ids.add(id.apply(pair)));
+    return ids;
+  }
+}
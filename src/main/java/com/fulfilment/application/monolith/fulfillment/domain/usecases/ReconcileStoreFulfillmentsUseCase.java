@@ -0,0 +1,159 @@
+package com.fulfilment.application.monolith.fulfillment.domain.usecases;
+
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentNotFoundException;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentReconciliation;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.ReconcileStoreFulfillmentsOperation;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.ProductPerWarehouseValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerProductPerStoreValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerStoreValidator;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.jboss.logging.Logger;
+
+/**
+ * Moves a store to a desired set of fulfillments. The store's current fulfillments are read once
+ * and diffed against the desired pairs, so pairs the store already has cost no write at all. The
+ * limits are checked against the store's final set, and for the warehouses gaining a product
+ * against the products they carry for other stores, after which the missing pairs are inserted in
+ * one JDBC batch and the others deleted in one statement.
+ */
+@ApplicationScoped
+public class ReconcileStoreFulfillmentsUseCase implements ReconcileStoreFulfillmentsOperation {
+
+  private static final Logger LOG = Logger.getLogger(ReconcileStoreFulfillmentsUseCase.class);
+
+  private final FulfillmentStore fulfillmentStore;
+  private final WarehousePerProductPerStoreValidator warehousePerProductPerStoreValidator;
+  private final WarehousePerStoreValidator warehousePerStoreValidator;
+  private final ProductPerWarehouseValidator productPerWarehouseValidator;
+  private final FulfillmentConstraintIndex constraintIndex;
+
+  public ReconcileStoreFulfillmentsUseCase(
+      FulfillmentStore fulfillmentStore,
+      WarehousePerProductPerStoreValidator warehousePerProductPerStoreValidator,
+      WarehousePerStoreValidator warehousePerStoreValidator,
+      ProductPerWarehouseValidator productPerWarehouseValidator,
+      FulfillmentConstraintIndex constraintIndex) {
+    this.fulfillmentStore = fulfillmentStore;
+    this.warehousePerProductPerStoreValidator = warehousePerProductPerStoreValidator;
+    this.warehousePerStoreValidator = warehousePerStoreValidator;
+    this.productPerWarehouseValidator = productPerWarehouseValidator;
+    this.constraintIndex = constraintIndex;
+  }
+
+  @Override
+  public FulfillmentReconciliation reconcile(Long storeId, List<FulfillmentDTO> desired) {
+    LOG.infof("Reconciling store %d to %d fulfillments", storeId, desired.size());
+
+    Map<Assignment, FulfillmentDTO> wanted = new LinkedHashMap<>();
+    for (FulfillmentDTO dto : desired) {
+      dto.storeId = storeId;
+      CreateFulfillmentUseCase.validateRequiredFields(dto);
+      wanted.putIfAbsent(new Assignment(dto.warehouseId, dto.productId), dto);
+    }
+    // concurrent reconciles of the same store would otherwise both pass the limits
+    if (!fulfillmentStore.lockStore(storeId)) {
+      throw new FulfillmentNotFoundException("Store with id " + storeId + " does not exist.");
+    }
+
+    Set<Assignment> kept = new HashSet<>();
+    List<FulfillmentDTO> deletes = new ArrayList<>();
+    for (FulfillmentDTO current : fulfillmentStore.findByStoreId(storeId)) {
+      Assignment assignment = new Assignment(current.warehouseId, current.productId);
+      if (wanted.containsKey(assignment) && kept.add(assignment)) {
+        continue;
+      }
+      deletes.add(current);
+    }
+    List<FulfillmentDTO> inserts =
+        wanted.entrySet().stream()
+            .filter(entry -> !kept.contains(entry.getKey()))
+            .map(Map.Entry::getValue)
+            .toList();
+    if (inserts.isEmpty() && deletes.isEmpty()) {
+      LOG.infof("Store %d already has its %d fulfillments", storeId, kept.size());
+      return new FulfillmentReconciliation(List.of(), List.of(), kept.size());
+    }
+
+    // deletes alone cannot break a limit, so only a set that gains pairs is checked
+    if (!inserts.isEmpty()) {
+      validateEntitiesExist(inserts);
+      // creates for other stores can add products to the warehouses gaining pairs here
+      fulfillmentStore.lockWarehouses(inserts.stream().map(dto -> dto.warehouseId).toList());
+      validateConstraints(storeId, wanted.keySet(), inserts);
+    }
+
+    fulfillmentStore.deleteFulfillments(deletes.stream().map(dto -> dto.id).toList());
+    fulfillmentStore.persistFulfillments(inserts);
+    deletes.forEach(dto -> constraintIndex.record(FulfillmentChange.removed(dto)));
+    inserts.forEach(dto -> constraintIndex.record(FulfillmentChange.added(dto)));
+
+    LOG.infof(
+        "Store %d reconciled: %d inserted, %d deleted, %d unchanged",
+        storeId, inserts.size(), deletes.size(), kept.size());
+    return new FulfillmentReconciliation(inserts, deletes, kept.size());
+  }
+
+  private void validateEntitiesExist(List<FulfillmentDTO> inserts) {
+    Set<Long> warehouseIds = new TreeSet<>();
+    Set<Long> productIds = new TreeSet<>();
+    inserts.forEach(
+        dto -> {
+          warehouseIds.add(dto.warehouseId);
+          productIds.add(dto.productId);
+        });
+    warehouseIds.removeAll(fulfillmentStore.findExistingWarehouseIds(warehouseIds));
+    if (!warehouseIds.isEmpty()) {
+      throw new FulfillmentNotFoundException(
+          "Warehouse with id " + warehouseIds.iterator().next() + " does not exist.");
+    }
+    productIds.removeAll(fulfillmentStore.findExistingProductIds(productIds));
+    if (!productIds.isEmpty()) {
+      throw new FulfillmentNotFoundException(
+          "Product with id " + productIds.iterator().next() + " does not exist.");
+    }
+  }
+
+  private void validateConstraints(
+      Long storeId, Set<Assignment> assignments, List<FulfillmentDTO> inserts) {
+    Set<Long> warehouses = new HashSet<>();
+    Map<Long, Set<Long>> warehousesByProduct = new HashMap<>();
+    Map<Long, Set<Long>> productsByWarehouse = new HashMap<>();
+    for (Assignment assignment : assignments) {
+      warehouses.add(assignment.warehouseId());
+      warehousesByProduct
+          .computeIfAbsent(assignment.productId(), id -> new HashSet<>())
+          .add(assignment.warehouseId());
+      productsByWarehouse
+          .computeIfAbsent(assignment.warehouseId(), id -> new HashSet<>())
+          .add(assignment.productId());
+    }
+    warehousePerStoreValidator.validateTotal(storeId, warehouses.size());
+    warehousesByProduct.forEach(
+        (productId, warehouseIds) ->
+            warehousePerProductPerStoreValidator.validateTotal(productId, warehouseIds.size()));
+
+    Set<Long> gaining = new TreeSet<>();
+    inserts.forEach(dto -> gaining.add(dto.warehouseId));
+    Map<Long, Set<Long>> otherStores =
+        fulfillmentStore.findProductIdsOfOtherStores(gaining, storeId);
+    for (Long warehouseId : gaining) {
+      Set<Long> products = new HashSet<>(productsByWarehouse.get(warehouseId));
+      products.addAll(otherStores.getOrDefault(warehouseId, Set.of()));
+      productPerWarehouseValidator.validateTotal(warehouseId, products.size());
+    }
+  }
+
+  private record Assignment(Long warehouseId, Long productId) {}
+}
@@ -0,0 +1,112 @@
+package com.fulfilment.application.monolith.fulfillment.domain.usecases;
+
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseFulfillments;
+import jakarta.enterprise.context.ApplicationScoped;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.jboss.logging.Logger;
+
+/**
+ * Carries the fulfillments of a warehouse along when the warehouse module replaces or archives it,
+ * with the same few statements however many fulfillments there are: the pairs are read once for
+ * the constraint index and coverage, and the rows themselves are moved, detached or deleted with a
+ * single statement.
+ */
+@ApplicationScoped
+public class WarehouseFulfillmentsUseCase implements WarehouseFulfillments {
+
+  private static final Logger LOG = Logger.getLogger(WarehouseFulfillmentsUseCase.class);
+
+  private final FulfillmentStore fulfillmentStore;
+  private final FulfillmentConstraintIndex constraintIndex;
+
+  public WarehouseFulfillmentsUseCase(
+      FulfillmentStore fulfillmentStore, FulfillmentConstraintIndex constraintIndex) {
+    this.fulfillmentStore = fulfillmentStore;
+    this.constraintIndex = constraintIndex;
+  }
+
+  @Override
+  public int moveToActiveGeneration(String businessUnitCode) {
+    List<Long> generations =
+        fulfillmentStore.findWarehouseIdsByBusinessUnitCode(businessUnitCode, 2);
+    if (generations.size() < 2) {
+      LOG.debugf("Warehouse %s has no earlier generation to move from", businessUnitCode);
+      return 0;
+    }
+    Long activeId = generations.get(0);
+    Long archivedId = generations.get(1);
+
+    Set<ProductStore> served = new HashSet<>();
+    List<FulfillmentDTO> archived = new ArrayList<>();
+    for (FulfillmentDTO dto : fulfillmentStore.findByWarehouseIds(List.of(archivedId, activeId))) {
+      if (dto.warehouseId.equals(activeId)) {
+        served.add(new ProductStore(dto.productId, dto.storeId));
+      } else {
+        archived.add(dto);
+      }
+    }
+    List<Long> duplicates = new ArrayList<>();
+    List<FulfillmentChange> changes = new ArrayList<>(archived.size() * 2);
+    for (FulfillmentDTO dto : archived) {
+      changes.add(FulfillmentChange.removed(dto));
+      if (served.contains(new ProductStore(dto.productId, dto.storeId))) {
+        duplicates.add(dto.id);
+      } else {
+        changes.add(new FulfillmentChange(activeId, dto.productId, dto.storeId, 1));
+      }
+    }
+
+    // moving a pair the active generation already serves would break the unique index
+    fulfillmentStore.deleteFulfillments(duplicates);
+    int moved = fulfillmentStore.moveFulfillments(archivedId, activeId);
+    constraintIndex.recordAll(changes);
+    LOG.infof(
+        "Moved %d fulfillments of warehouse %s from %d to %d, dropped %d duplicates",
+        moved, businessUnitCode, archivedId, activeId, duplicates.size());
+    return moved;
+  }
+
+  @Override
+  public int detachFromArchivedGeneration(String businessUnitCode) {
+    return release(businessUnitCode, false);
+  }
+
+  @Override
+  public int dropFromArchivedGeneration(String businessUnitCode) {
+    return release(businessUnitCode, true);
+  }
+
+  private int release(String businessUnitCode, boolean drop) {
+    Long archivedId = fulfillmentStore.findLastArchivedWarehouseId(businessUnitCode);
+    if (archivedId == null) {
+      LOG.debugf("Warehouse %s has no archived generation", businessUnitCode);
+      return 0;
+    }
+    List<FulfillmentChange> changes =
+        fulfillmentStore.findByWarehouseIds(List.of(archivedId)).stream()
+            .map(FulfillmentChange::removed)
+            .toList();
+    if (changes.isEmpty()) {
+      return 0;
+    }
+
+    int released =
+        drop
+            ? fulfillmentStore.deleteFulfillmentsOfWarehouse(archivedId)
+            : fulfillmentStore.detachFulfillments(archivedId);
+    constraintIndex.recordAll(changes);
+    LOG.infof(
+        "%s %d fulfillments of archived warehouse %s (%d)",
+        drop ? "Dropped" : "Detached", released, businessUnitCode, archivedId);
+    return released;
+  }
+
+  private record ProductStore(Long productId, Long storeId) {}
+}
@@ -1,25 +1,29 @@
 package com.fulfilment.application.monolith.fulfillment.domain.validators;
 
 import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
-import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
 import jakarta.enterprise.context.ApplicationScoped;
 
 @ApplicationScoped
 public class ProductPerWarehouseValidator {
 
-  private static final int MAX_PRODUCTS_PER_WAREHOUSE = 5;
+  public static final int MAX_PRODUCTS_PER_WAREHOUSE = 5;
 
-  private final FulfillmentStore fulfillmentStore;
-
-  public ProductPerWarehouseValidator(FulfillmentStore fulfillmentStore) {
-    this.fulfillmentStore = fulfillmentStore;
+  public void validate(long productsInWarehouse) {
+    if (productsInWarehouse >= MAX_PRODUCTS_PER_WAREHOUSE) {
+      throw new FulfillmentValidationException(
+          "Warehouse already has the maximum of "
+              + MAX_PRODUCTS_PER_WAREHOUSE
+              + " product types.");
+    }
   }
 
-  public void validate(Long warehouseId) {
-    long count = fulfillmentStore.countDistinctProductsByWarehouse(warehouseId);
-    if (count >= MAX_PRODUCTS_PER_WAREHOUSE) {
+  // for a warehouse's complete set of products rather than one more
+  public void validateTotal(long warehouseId, long productsInWarehouse) {
+    if (productsInWarehouse > MAX_PRODUCTS_PER_WAREHOUSE) {
       throw new FulfillmentValidationException(
-          "Warehouse already has the maximum of "
+          "Warehouse "
+              + warehouseId
+              + " cannot have more than "
               + MAX_PRODUCTS_PER_WAREHOUSE
               + " product types.");
     }
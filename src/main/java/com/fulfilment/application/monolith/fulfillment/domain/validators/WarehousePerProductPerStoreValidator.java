@@ -1,25 +1,29 @@
 package com.fulfilment.application.monolith.fulfillment.domain.validators;
 
 import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
-import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
 import jakarta.enterprise.context.ApplicationScoped;
 
 @ApplicationScoped
 public class WarehousePerProductPerStoreValidator {
 
-  private static final int MAX_WAREHOUSES_PER_PRODUCT_PER_STORE = 2;
+  public static final int MAX_WAREHOUSES_PER_PRODUCT_PER_STORE = 2;
 
-  private final FulfillmentStore fulfillmentStore;
-
-  public WarehousePerProductPerStoreValidator(FulfillmentStore fulfillmentStore) {
-    this.fulfillmentStore = fulfillmentStore;
+  public void validate(long warehousesForProductInStore) {
+    if (warehousesForProductInStore >= MAX_WAREHOUSES_PER_PRODUCT_PER_STORE) {
+      throw new FulfillmentValidationException(
+          "Product already has the maximum of "
+              + MAX_WAREHOUSES_PER_PRODUCT_PER_STORE
+              + " warehouses for this store.");
+    }
   }
 
-  public void validate(Long productId, Long storeId) {
-    long count = fulfillmentStore.countDistinctWarehousesByProductAndStore(productId, storeId);
-    if (count >= MAX_WAREHOUSES_PER_PRODUCT_PER_STORE) {
+  // for a store's complete set of fulfillments rather than one more
+  public void validateTotal(long productId, long warehousesForProductInStore) {
+    if (warehousesForProductInStore > MAX_WAREHOUSES_PER_PRODUCT_PER_STORE) {
       throw new FulfillmentValidationException(
-          "Product already has the maximum of "
+          "Product "
+              + productId
+              + " cannot have more than "
               + MAX_WAREHOUSES_PER_PRODUCT_PER_STORE
               + " warehouses for this store.");
     }
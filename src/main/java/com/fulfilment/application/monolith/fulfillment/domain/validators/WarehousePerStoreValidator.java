@@ -1,25 +1,29 @@
 package com.fulfilment.application.monolith.fulfillment.domain.validators;
 
 import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
-import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
 import jakarta.enterprise.context.ApplicationScoped;
 
 @ApplicationScoped
 public class WarehousePerStoreValidator {
 
-  private static final int MAX_WAREHOUSES_PER_STORE = 3;
+  public static final int MAX_WAREHOUSES_PER_STORE = 3;
 
-  private final FulfillmentStore fulfillmentStore;
-
-  public WarehousePerStoreValidator(FulfillmentStore fulfillmentStore) {
-    this.fulfillmentStore = fulfillmentStore;
+  public void validate(long warehousesForStore) {
+    if (warehousesForStore >= MAX_WAREHOUSES_PER_STORE) {
+      throw new FulfillmentValidationException(
+          "Store already has the maximum of " + MAX_WAREHOUSES_PER_STORE + " warehouses.");
+    }
   }
 
-  public void validate(Long storeId) {
-    long count = fulfillmentStore.countDistinctWarehousesByStore(storeId);
-    if (count >= MAX_WAREHOUSES_PER_STORE) {
+  // for a store's complete set of fulfillments rather than one more
+  public void validateTotal(long storeId, long warehousesForStore) {
+    if (warehousesForStore > MAX_WAREHOUSES_PER_STORE) {
       throw new FulfillmentValidationException(
-          "Store already has the maximum of " + MAX_WAREHOUSES_PER_STORE + " warehouses.");
+          "Store "
+              + storeId
+              + " cannot have more than "
+              + MAX_WAREHOUSES_PER_STORE
+              + " warehouses.");
     }
   }
 }
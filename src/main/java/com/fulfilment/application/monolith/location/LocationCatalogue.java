@@ -0,0 +1,117 @@
+package com.fulfilment.application.monolith.location;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable hash index of the known locations. Lines of the catalogue file have the form
+ * {@code identification,maxNumberOfWarehouses,maxCapacity}; blank lines and lines starting with
+ * {@code #} are ignored.
+ */
+public final class LocationCatalogue {
+
+  private static final Logger LOG = Logger.getLogger(LocationCatalogue.class);
+
+  static final String BUNDLED_RESOURCE = "locations.csv";
+
+  // upper bound for remembered misses, so a client probing random identifiers cannot grow it forever
+  static final int MAX_UNKNOWN_IDENTIFIERS = 10_000;
+
+  private final Map<String, LocationDTO> index;
+
+  private final Set<String> unknownIdentifiers = ConcurrentHashMap.newKeySet();
+
+  public LocationCatalogue(Collection<LocationDTO> locations) {
+    Map<String, LocationDTO> byIdentifier = new HashMap<>();
+    for (LocationDTO location : locations) {
+      if (byIdentifier.putIfAbsent(location.identification, location) != null) {
+        throw new IllegalArgumentException("Duplicate location identifier " + location.identification);
+      }
+    }
+    this.index = Map.copyOf(byIdentifier);
+  }
+
+  public static LocationCatalogue fromFile(Path file) {
+    LOG.infof("Loading location catalogue from %s", file);
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      return new LocationCatalogue(parse(reader, file.toString()));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read location catalogue " + file, e);
+    }
+  }
+
+  public static LocationCatalogue fromBundledResource() {
+    InputStream stream = LocationCatalogue.class.getClassLoader().getResourceAsStream(BUNDLED_RESOURCE);
+    if (stream == null) {
+      throw new IllegalStateException("Bundled location catalogue " + BUNDLED_RESOURCE + " is missing");
+    }
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(stream, StandardCharsets.UTF_8))) {
+      return new LocationCatalogue(parse(reader, BUNDLED_RESOURCE));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to read location catalogue " + BUNDLED_RESOURCE, e);
+    }
+  }
+
+  static List<LocationDTO> parse(BufferedReader reader, String source) throws IOException {
+    List<LocationDTO> locations = new ArrayList<>();
+    String line;
+    int lineNumber = 0;
+    while ((line = reader.readLine()) != null) {
+      lineNumber++;
+      String trimmed = line.trim();
+      if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+        continue;
+      }
+      String[] fields = trimmed.split(",");
+      if (fields.length != 3) {
+        throw new IllegalArgumentException("Malformed location at " + source + ":" + lineNumber + ": " + line);
+      }
+      try {
+        locations.add(new LocationDTO(
+            fields[0].trim(), Integer.parseInt(fields[1].trim()), Integer.parseInt(fields[2].trim())));
+      } catch (NumberFormatException e) {
+        throw new IllegalArgumentException("Malformed location at " + source + ":" + lineNumber + ": " + line, e);
+      }
+    }
+    return locations;
+  }
+
+  public LocationDTO resolve(String identifier) {
+    if (identifier == null) {
+      return null;
+    }
+    LocationDTO location = index.get(identifier);
+    if (location == null && rememberUnknown(identifier)) {
+      LOG.warnf("Location with identifier %s does not exist", identifier);
+    }
+    return location;
+  }
+
+  public int size() {
+    return index.size();
+  }
+
+  // a miss is logged the first time this catalogue sees it, or every time once the set is full
+  private boolean rememberUnknown(String identifier) {
+    if (unknownIdentifiers.contains(identifier)) {
+      return false;
+    }
+    return unknownIdentifiers.size() >= MAX_UNKNOWN_IDENTIFIERS || unknownIdentifiers.add(identifier);
+  }
+}
@@ -0,0 +1,36 @@
+package com.fulfilment.application.monolith.location;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.POST;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import org.jboss.logging.Logger;
+
+@Path("admin/location-catalogue")
+@ApplicationScoped
+@Produces("application/json")
+public class LocationCatalogueResource {
+
+  private static final Logger LOG = Logger.getLogger(LocationCatalogueResource.class);
+
+  private final LocationGateway locationGateway;
+
+  public LocationCatalogueResource(LocationGateway locationGateway) {
+    this.locationGateway = locationGateway;
+  }
+
+  @GET
+  public CatalogueStatus status() {
+    return new CatalogueStatus(locationGateway.size());
+  }
+
+  @POST
+  @Path("reload")
+  public CatalogueStatus reload() {
+    LOG.info("REST request to reload the location catalogue");
+    return new CatalogueStatus(locationGateway.reload());
+  }
+
+  public record CatalogueStatus(int locations) {}
+}
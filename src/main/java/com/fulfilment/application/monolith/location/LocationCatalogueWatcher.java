@@ -0,0 +1,61 @@
+package com.fulfilment.application.monolith.location;
+
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+
+/**
+ * Polls the configured catalogue file and reloads the gateway when its modification time or size
+ * changes. Polling is used instead of a WatchService so that files replaced through a symlink swap
+ * (as mounted config maps are) are still picked up.
+ */
+@ApplicationScoped
+public class LocationCatalogueWatcher {
+
+  private static final Logger LOG = Logger.getLogger(LocationCatalogueWatcher.class);
+
+  private final LocationGateway locationGateway;
+
+  private FileTime lastModified;
+  private long lastSize = -1;
+
+  public LocationCatalogueWatcher(LocationGateway locationGateway) {
+    this.locationGateway = locationGateway;
+    locationGateway.getCatalogueFile().ifPresent(this::hasChanged);
+  }
+
+  @Scheduled(
+      every = "${location.catalogue.watch-interval:10s}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  void checkForChanges() {
+    locationGateway.getCatalogueFile().ifPresent(file -> {
+      if (hasChanged(file)) {
+        LOG.infof("Location catalogue %s changed, reloading", file);
+        try {
+          locationGateway.reload();
+        } catch (RuntimeException e) {
+          // already logged and counted by the gateway; the next change will be retried
+        }
+      }
+    });
+  }
+
+  boolean hasChanged(Path file) {
+    try {
+      BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+      boolean changed = !attributes.lastModifiedTime().equals(lastModified) || attributes.size() != lastSize;
+      lastModified = attributes.lastModifiedTime();
+      lastSize = attributes.size();
+      return changed;
+    } catch (IOException e) {
+      LOG.warnf("Cannot read attributes of location catalogue %s: %s", file, e.getMessage());
+      return false;
+    }
+  }
+}
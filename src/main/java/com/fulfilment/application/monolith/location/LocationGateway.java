@@ -2,39 +2,133 @@ package com.fulfilment.application.monolith.location;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationValidation;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.runtime.Startup;
 import jakarta.enterprise.context.ApplicationScoped;
-
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+@Startup
 @ApplicationScoped
 public class LocationGateway implements LocationResolver {
 
     private static final Logger LOG = Logger.getLogger(LocationGateway.class);
 
-    private static final List<LocationDTO> locations = new ArrayList<>();
+    private final Optional<Path> catalogueFile;
+
+    // readers only ever do a volatile read of the current snapshot; reloads swap in a fully built one
+    private final AtomicReference<LocationCatalogue> catalogue = new AtomicReference<>();
+
+    // bumped on every swap, so the gauges below tell how often and how long ago the limits changed
+    private volatile long generation;
+    private volatile long loadedAtMillis;
+
+    private final Timer reloadTimer;
+    private final Counter reloadFailures;
+    private final Counter staleValidations;
+
+    @Inject
+    public LocationGateway(
+            @ConfigProperty(name = "location.catalogue.file") Optional<String> catalogueFile,
+            MeterRegistry meterRegistry) {
+        this.catalogueFile = catalogueFile.map(Path::of);
+        this.catalogue.set(load());
+        this.loadedAtMillis = System.currentTimeMillis();
+        LOG.infof("Location catalogue loaded with %d locations", this.catalogue.get().size());
 
-    static {
-        locations.add(new LocationDTO("ZWOLLE-001", 1, 40));
-        locations.add(new LocationDTO("ZWOLLE-002", 2, 50));
-        locations.add(new LocationDTO("AMSTERDAM-001", 5, 100));
-        locations.add(new LocationDTO("AMSTERDAM-002", 3, 75));
-        locations.add(new LocationDTO("TILBURG-001", 1, 40));
-        locations.add(new LocationDTO("HELMOND-001", 1, 45));
-        locations.add(new LocationDTO("EINDHOVEN-001", 2, 70));
-        locations.add(new LocationDTO("VETSBY-001", 1, 90));
+        this.reloadTimer = Timer.builder("location.catalogue.reload")
+                .description("Time taken to load and swap in a new location catalogue")
+                .register(meterRegistry);
+        this.reloadFailures = Counter.builder("location.catalogue.reload.failures")
+                .description("Catalogue reloads that failed and kept the previous snapshot")
+                .register(meterRegistry);
+        this.staleValidations = Counter.builder("location.catalogue.stale.validations")
+                .description("Validations that applied limits from a catalogue replaced while they were in flight")
+                .register(meterRegistry);
+        Gauge.builder("location.catalogue.size", catalogue, ref -> ref.get().size())
+                .description("Number of locations in the current catalogue")
+                .register(meterRegistry);
+        Gauge.builder("location.catalogue.generation", this, gateway -> gateway.generation)
+                .description("Catalogue snapshots swapped in since startup")
+                .register(meterRegistry);
+        Gauge.builder("location.catalogue.age", this,
+                        gateway -> (System.currentTimeMillis() - gateway.loadedAtMillis) / 1000.0)
+                .description("Seconds since the current catalogue snapshot was loaded")
+                .baseUnit("seconds")
+                .register(meterRegistry);
     }
 
     @Override
     public LocationDTO resolveByIdentifier(String identifier) {
-        return locations.stream()
-                .filter(location -> location.identification.equals(identifier))
-                .findFirst()
-                .orElseGet(() -> {
-                    LOG.warnf("Location with identifier %s does not exist", identifier);
-                    return null;
-                });
-    }
-}
\ No newline at end of file
+        return catalogue.get().resolve(identifier);
+    }
+
+    @Override
+    public Map<String, LocationDTO> resolveAll(Collection<String> identifiers) {
+        LocationCatalogue snapshot = catalogue.get();
+        Map<String, LocationDTO> resolved = new HashMap<>();
+        for (String identifier : identifiers) {
+            LocationDTO location = snapshot.resolve(identifier);
+            if (location != null) {
+                resolved.put(identifier, location);
+            }
+        }
+        return resolved;
+    }
+
+    @Override
+    public LocationValidation startValidation() {
+        LocationCatalogue snapshot = catalogue.get();
+        return () -> {
+            if (catalogue.get() != snapshot) {
+                staleValidations.increment();
+            }
+        };
+    }
+
+    public Optional<Path> getCatalogueFile() {
+        return catalogueFile;
+    }
+
+    public int size() {
+        return catalogue.get().size();
+    }
+
+    // writers are serialised; a failed load leaves the current snapshot in place
+    public synchronized int reload() {
+        long start = System.nanoTime();
+        LocationCatalogue next;
+        try {
+            next = load();
+        } catch (RuntimeException e) {
+            reloadFailures.increment();
+            LOG.errorf(e, "Failed to reload location catalogue, keeping %d locations", catalogue.get().size());
+            throw e;
+        }
+        LocationCatalogue previous = catalogue.getAndSet(next);
+        loadedAtMillis = System.currentTimeMillis();
+        generation++;
+        reloadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        LOG.infof("Location catalogue reloaded: %d -> %d locations", previous.size(), next.size());
+        return next.size();
+    }
+
+    private LocationCatalogue load() {
+        return catalogueFile
+                .map(LocationCatalogue::fromFile)
+                .orElseGet(LocationCatalogue::fromBundledResource);
+    }
+}
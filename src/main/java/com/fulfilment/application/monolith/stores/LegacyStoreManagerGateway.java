@@ -1,48 +1,111 @@
 package com.fulfilment.application.monolith.stores;
 
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.inject.Instance;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @ApplicationScoped
 public class LegacyStoreManagerGateway {
 
   private static final Logger LOG = Logger.getLogger(LegacyStoreManagerGateway.class);
 
+  public enum Mode {
+    // a temp file per write that is created, written, read back and deleted
+    TEMP_FILE,
+    // appends to the memory-mapped store journal the legacy consumer tails
+    JOURNAL
+  }
+
+  // null in temp file mode
+  private final StoreJournal journal;
+
+  public LegacyStoreManagerGateway() {
+    this((StoreJournal) null);
+  }
+
+  public LegacyStoreManagerGateway(StoreJournal journal) {
+    this.journal = journal;
+  }
+
+  @Inject
+  LegacyStoreManagerGateway(
+      @ConfigProperty(name = "legacy-store.gateway.mode", defaultValue = "temp-file") Mode mode,
+      Instance<StoreJournal> journal) {
+    // the journal bean, and with it its segment files, only comes to life in journal mode
+    this(mode == Mode.JOURNAL ? journal.get() : null);
+  }
+
   public void createStoreOnLegacySystem(Store store) {
     LOG.infof("Creating store on legacy system: %s", store.name);
-    writeToFile(store);
+    if (journal != null) {
+      journal.append(List.of(new StoreEvent(store, StoreEvent.Action.CREATE)));
+      return;
+    }
+    writeQuietly(store.name, content(store));
   }
 
   public void updateStoreOnLegacySystem(Store store) {
     LOG.infof("Updating store on legacy system: %s", store.name);
-    writeToFile(store);
+    if (journal != null) {
+      journal.append(List.of(new StoreEvent(store, StoreEvent.Action.UPDATE)));
+      return;
+    }
+    writeQuietly(store.name, content(store));
   }
 
-  private void writeToFile(Store store) {
+  // one legacy write for the whole batch, one line per event in the order given; unlike the
+  // single store calls it throws when the write fails, so the caller can retry the batch
+  public void syncStoresOnLegacySystem(List<StoreEvent> events) {
+    LOG.infof("Syncing %d store events to legacy system", events.size());
+    if (journal != null) {
+      journal.append(events);
+      return;
+    }
     try {
-      Path tempFile = Files.createTempFile(store.name, ".txt");
-      LOG.debugf("Temporary file created at: %s", tempFile);
-
-      String content =
-          "Store created. [ name ="
-              + store.name
-              + " ] [ items on stock ="
-              + store.quantityProductsInStock
-              + "]";
-      Files.write(tempFile, content.getBytes());
-      LOG.debugf("Data written to temporary file for store: %s", store.name);
-
-      String readContent = new String(Files.readAllBytes(tempFile));
-      LOG.debugf("Data read from temporary file: %s", readContent);
-
-      Files.delete(tempFile);
-      LOG.debug("Temporary file deleted");
-
-    } catch (Exception e) {
-      LOG.errorf(e, "Failed to write store data to legacy system for store: %s", store.name);
+      writeToFile("stores", events.stream()
+          .map(event -> event.action() + " " + content(event.store()))
+          .collect(Collectors.joining("\n")));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to sync " + events.size() + " store events to legacy system", e);
     }
   }
+
+  private static String content(Store store) {
+    return "Store created. [ name ="
+        + store.name
+        + " ] [ items on stock ="
+        + store.quantityProductsInStock
+        + "]";
+  }
+
+  private void writeQuietly(String prefix, String content) {
+    try {
+      writeToFile(prefix, content);
+    } catch (IOException e) {
+      LOG.errorf(e, "Failed to write store data to legacy system for: %s", prefix);
+    }
+  }
+
+  private void writeToFile(String prefix, String content) throws IOException {
+    Path tempFile = Files.createTempFile(prefix, ".txt");
+    LOG.debugf("Temporary file created at: %s", tempFile);
+
+    Files.write(tempFile, content.getBytes());
+    LOG.debugf("Data written to temporary file for: %s", prefix);
+
+    String readContent = new String(Files.readAllBytes(tempFile));
+    LOG.debugf("Data read from temporary file: %s", readContent);
+
+    Files.delete(tempFile);
+    LOG.debug("Temporary file deleted");
+  }
 }
@@ -0,0 +1,5 @@
+package com.fulfilment.application.monolith.stores;
+
+// fired apart from StoreEvent because a deletion is not synced to the legacy store manager
+public record StoreDeletedEvent(Long storeId) {
+}
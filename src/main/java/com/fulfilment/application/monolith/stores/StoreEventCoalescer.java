@@ -0,0 +1,58 @@
+package com.fulfilment.application.monolith.stores;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds the store events of one relay pass into one event per store before they reach the legacy
+ * store manager: the store's latest state, as a CREATE if the pass also created it and as an
+ * UPDATE otherwise, in the order the stores first appear.
+ */
+@ApplicationScoped
+public class StoreEventCoalescer {
+
+  private final Counter received;
+  private final Counter emitted;
+
+  public StoreEventCoalescer(MeterRegistry meterRegistry) {
+    this.received = Counter.builder("legacy.store.coalescer.received")
+        .description("Store events handed to the coalescer")
+        .register(meterRegistry);
+    this.emitted = Counter.builder("legacy.store.coalescer.emitted")
+        .description("Store events left after coalescing")
+        .register(meterRegistry);
+    Gauge.builder("legacy.store.coalescer.ratio", this, StoreEventCoalescer::ratio)
+        .description("Store events received per event emitted to the legacy store manager")
+        .register(meterRegistry);
+  }
+
+  public List<StoreEvent> coalesce(List<StoreEvent> events) {
+    Map<Long, StoreEvent> latest = new LinkedHashMap<>();
+    List<StoreEvent> unidentified = new ArrayList<>();
+    for (StoreEvent event : events) {
+      if (event.store().id == null) {
+        unidentified.add(event);
+        continue;
+      }
+      latest.merge(event.store().id, event, (earlier, later) ->
+          earlier.action() == StoreEvent.Action.CREATE ? new StoreEvent(later.store(), StoreEvent.Action.CREATE) : later);
+    }
+    List<StoreEvent> coalesced = new ArrayList<>(latest.values());
+    coalesced.addAll(unidentified);
+
+    received.increment(events.size());
+    emitted.increment(coalesced.size());
+    return coalesced;
+  }
+
+  private double ratio() {
+    return emitted.count() == 0 ? 1 : received.count() / emitted.count();
+  }
+}
@@ -12,15 +12,14 @@ public class StoreEventListener {
   private static final Logger LOG = Logger.getLogger(StoreEventListener.class);
 
   @Inject
-  LegacyStoreManagerGateway legacyStoreManagerGateway;
+  StoreOutboxRelay storeOutboxRelay;
 
+  // the change is already in the outbox; this only gets it relayed without waiting for the next
+  // poll, and the legacy write happens on the relay worker, off the request path
   public void onStoreEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) StoreEvent event) {
     Store store = event.store();
     LOG.infof("Received store event: %s for store: %s", event.action(), store.name);
 
-    switch (event.action()) {
-      case CREATE -> legacyStoreManagerGateway.createStoreOnLegacySystem(store);
-      case UPDATE -> legacyStoreManagerGateway.updateStoreOnLegacySystem(store);
-    }
+    storeOutboxRelay.wakeUp();
   }
 }
@@ -0,0 +1,230 @@
+package com.fulfilment.application.monolith.stores;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of store events for the legacy store manager, in pre-allocated segment
+ * files that are memory-mapped, so an append is a copy into the mapping rather than a file
+ * create, write, read and delete per event.
+ *
+ * <p>Every record is an int length followed by that many bytes; a zero length is the untouched
+ * end of the segment and -1 marks a segment that was rolled before it was full. The length is
+ * written after the payload, so a reader that sees it sees the whole record. An append returns
+ * once its records are forced to disk, and writers arriving while a force is in flight wait for
+ * the next one together instead of forcing one after another. Full segments roll over to a new
+ * file and the newest ones are kept for the legacy consumer, which tails them with
+ * {@link StoreJournalReader}.
+ */
+@ApplicationScoped
+public class StoreJournal implements AutoCloseable {
+
+  private static final Logger LOG = Logger.getLogger(StoreJournal.class);
+
+  static final int END_OF_SEGMENT = -1;
+  static final String SEGMENT_SUFFIX = ".journal";
+
+  private final Path directory;
+  private final int segmentSize;
+  private final int retainedSegments;
+
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition forced = lock.newCondition();
+
+  private long segmentNumber;
+  private MappedByteBuffer segment;
+  // positions count bytes over all segments, so they keep growing across rolls
+  private long appended;
+  private long durable;
+  private boolean forcing;
+
+  @Inject
+  public StoreJournal(
+      @ConfigProperty(name = "legacy-store.journal.directory", defaultValue = "${java.io.tmpdir}/legacy-store-journal") String directory,
+      @ConfigProperty(name = "legacy-store.journal.segment-size", defaultValue = "67108864") int segmentSize,
+      @ConfigProperty(name = "legacy-store.journal.retained-segments", defaultValue = "8") int retainedSegments) {
+    this(Path.of(directory), segmentSize, retainedSegments);
+  }
+
+  public StoreJournal(Path directory, int segmentSize, int retainedSegments) {
+    this.directory = directory;
+    this.segmentSize = segmentSize;
+    this.retainedSegments = retainedSegments;
+    try {
+      Files.createDirectories(directory);
+      List<Long> segments = segmentNumbers(directory);
+      segmentNumber = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+      segment = map(segmentNumber);
+      // carry on after the last record a previous run wrote to this segment
+      while (segment.remaining() >= Integer.BYTES) {
+        int length = segment.getInt(segment.position());
+        if (length <= 0) {
+          break;
+        }
+        segment.position(segment.position() + Integer.BYTES + length);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open store journal in " + directory, e);
+    }
+    appended = segmentNumber * segmentSize + segment.position();
+    durable = appended;
+    LOG.infof("Store journal opened in %s at segment %d, offset %d", directory, segmentNumber, segment.position());
+  }
+
+  // appends the events in order and returns once they are on disk
+  public void append(List<StoreEvent> events) {
+    long end;
+    lock.lock();
+    try {
+      for (StoreEvent event : events) {
+        write(encode(event));
+      }
+      end = appended;
+    } finally {
+      lock.unlock();
+    }
+    awaitDurable(end);
+  }
+
+  @Override
+  @PreDestroy
+  public void close() {
+    lock.lock();
+    try {
+      segment.force();
+      durable = appended;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  static List<Long> segmentNumbers(Path directory) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      return files
+          .map(file -> file.getFileName().toString())
+          .filter(name -> name.endsWith(SEGMENT_SUFFIX))
+          .map(name -> Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())))
+          .sorted()
+          .toList();
+    }
+  }
+
+  static Path segmentFile(Path directory, long number) {
+    return directory.resolve(String.format("%020d%s", number, SEGMENT_SUFFIX));
+  }
+
+  static byte[] encode(StoreEvent event) {
+    byte[] name = event.store().name == null ? new byte[0] : event.store().name.getBytes(StandardCharsets.UTF_8);
+    return ByteBuffer.allocate(1 + Long.BYTES + Integer.BYTES + Integer.BYTES + name.length)
+        .put((byte) event.action().ordinal())
+        .putLong(event.store().id == null ? 0 : event.store().id)
+        .putInt(event.store().quantityProductsInStock)
+        .putInt(name.length)
+        .put(name)
+        .array();
+  }
+
+  static StoreEvent decode(ByteBuffer record) {
+    StoreEvent.Action action = StoreEvent.Action.values()[record.get()];
+    long id = record.getLong();
+    int quantity = record.getInt();
+    byte[] name = new byte[record.getInt()];
+    record.get(name);
+    Store store = new Store(new String(name, StandardCharsets.UTF_8));
+    store.id = id;
+    store.quantityProductsInStock = quantity;
+    return new StoreEvent(store, action);
+  }
+
+  private void write(byte[] record) {
+    if (Integer.BYTES + record.length > segmentSize - Integer.BYTES) {
+      throw new IllegalArgumentException("Store journal record of " + record.length + " bytes does not fit a segment");
+    }
+    // the last int of a segment is kept free for the roll marker
+    if (segment.remaining() < Integer.BYTES + record.length + Integer.BYTES) {
+      roll();
+    }
+    int start = segment.position();
+    segment.position(start + Integer.BYTES);
+    segment.put(record);
+    segment.putInt(start, record.length);
+    appended += Integer.BYTES + record.length;
+  }
+
+  private void roll() {
+    segment.putInt(segment.position(), END_OF_SEGMENT);
+    // whatever waits on this segment is covered here, the next force only sees the new one
+    segment.force();
+    durable = appended;
+    forced.signalAll();
+    segmentNumber++;
+    try {
+      segment = map(segmentNumber);
+      deleteExpiredSegments();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot roll store journal to segment " + segmentNumber, e);
+    }
+    appended = segmentNumber * segmentSize;
+    durable = appended;
+    LOG.debugf("Store journal rolled to segment %d", segmentNumber);
+  }
+
+  // group commit: one writer forces everything appended so far while the others wait for it
+  private void awaitDurable(long position) {
+    lock.lock();
+    try {
+      while (durable < position) {
+        if (forcing) {
+          forced.awaitUninterruptibly();
+          continue;
+        }
+        forcing = true;
+        MappedByteBuffer forcedSegment = segment;
+        long target = appended;
+        lock.unlock();
+        try {
+          forcedSegment.force();
+        } finally {
+          lock.lock();
+          forcing = false;
+          durable = Math.max(durable, target);
+          forced.signalAll();
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private MappedByteBuffer map(long number) throws IOException {
+    try (FileChannel channel = FileChannel.open(segmentFile(directory, number),
+        StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      // the mapping stays valid after the channel is closed
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+    }
+  }
+
+  private void deleteExpiredSegments() throws IOException {
+    List<Long> segments = segmentNumbers(directory);
+    for (int i = 0; i < segments.size() - retainedSegments; i++) {
+      Files.deleteIfExists(segmentFile(directory, segments.get(i)));
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package com.fulfilment.application.monolith.stores;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Tails a {@link StoreJournal} for the legacy consumer, following it across segment rolls. The
+ * reader's position is its segment and the offset in it, so a consumer that saves both can resume
+ * where it stopped; one that falls behind the retained segments skips ahead to the oldest one left.
+ * Not thread-safe, every consumer uses a reader of its own.
+ */
+public class StoreJournalReader {
+
+  private static final Logger LOG = Logger.getLogger(StoreJournalReader.class);
+
+  private final Path directory;
+
+  private long segmentNumber;
+  private int offset;
+  private MappedByteBuffer segment;
+
+  public StoreJournalReader(Path directory, long segmentNumber, int offset) {
+    this.directory = directory;
+    this.segmentNumber = segmentNumber;
+    this.offset = offset;
+  }
+
+  // starts at the oldest record still retained
+  public static StoreJournalReader fromOldest(Path directory) {
+    try {
+      List<Long> segments = StoreJournal.segmentNumbers(directory);
+      return new StoreJournalReader(directory, segments.isEmpty() ? 0 : segments.get(0), 0);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot list store journal in " + directory, e);
+    }
+  }
+
+  public long segment() {
+    return segmentNumber;
+  }
+
+  public int offset() {
+    return offset;
+  }
+
+  // hands up to max records written since the last poll to the consumer; returns how many
+  public int poll(Consumer<StoreEvent> consumer, int max) {
+    int read = 0;
+    while (read < max && open()) {
+      int length = segment.capacity() - offset >= Integer.BYTES ? segment.getInt(offset) : StoreJournal.END_OF_SEGMENT;
+      if (length == StoreJournal.END_OF_SEGMENT) {
+        if (!Files.exists(StoreJournal.segmentFile(directory, segmentNumber + 1))) {
+          break;
+        }
+        segmentNumber++;
+        offset = 0;
+        segment = null;
+        continue;
+      }
+      if (length == 0) {
+        break;
+      }
+      consumer.accept(StoreJournal.decode(segment.slice(offset + Integer.BYTES, length)));
+      offset += Integer.BYTES + length;
+      read++;
+    }
+    return read;
+  }
+
+  private boolean open() {
+    if (segment != null) {
+      return true;
+    }
+    Path file = StoreJournal.segmentFile(directory, segmentNumber);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      return true;
+    } catch (NoSuchFileException e) {
+      return skipToOldestRetained();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot open store journal segment " + file, e);
+    }
+  }
+
+  private boolean skipToOldestRetained() {
+    try {
+      List<Long> segments = StoreJournal.segmentNumbers(directory);
+      if (segments.isEmpty() || segments.get(0) <= segmentNumber) {
+        return false;
+      }
+      LOG.warnf("Store journal segment %d is no longer retained, skipping to segment %d", segmentNumber, segments.get(0));
+      segmentNumber = segments.get(0);
+      offset = 0;
+      return open();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Cannot list store journal in " + directory, e);
+    }
+  }
+}
@@ -0,0 +1,60 @@
+package com.fulfilment.application.monolith.stores;
+
+import io.quarkus.hibernate.orm.panache.PanacheEntity;
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * A store change waiting to be synced to the legacy store manager, written in the transaction of
+ * the change itself. The store's state is copied in, so the row still says what to sync after the
+ * store has changed again or is gone.
+ */
+@Entity
+@Table(
+    name = "store_outbox",
+    // the relay reads the undelivered rows in id order
+    indexes = @Index(name = "ix_store_outbox_delivered_at_id", columnList = "delivered_at, id"))
+public class StoreOutboxEvent extends PanacheEntity {
+
+  @Column(name = "store_id", nullable = false)
+  public Long storeId;
+
+  @Column(name = "store_name", length = 40)
+  public String storeName;
+
+  @Column(name = "quantity_products_in_stock")
+  public int quantityProductsInStock;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false, length = 10)
+  public StoreEvent.Action action;
+
+  @Column(name = "created_at", nullable = false)
+  public LocalDateTime createdAt;
+
+  @Column(name = "delivered_at")
+  public LocalDateTime deliveredAt;
+
+  public StoreOutboxEvent() {}
+
+  public StoreOutboxEvent(StoreEvent event) {
+    this.storeId = event.store().id;
+    this.storeName = event.store().name;
+    this.quantityProductsInStock = event.store().quantityProductsInStock;
+    this.action = event.action();
+    this.createdAt = LocalDateTime.now();
+  }
+
+  public StoreEvent toStoreEvent() {
+    Store store = new Store(storeName);
+    store.id = storeId;
+    store.quantityProductsInStock = quantityProductsInStock;
+    return new StoreEvent(store, action);
+  }
+}
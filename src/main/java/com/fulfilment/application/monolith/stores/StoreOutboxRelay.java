@@ -0,0 +1,233 @@
+package com.fulfilment.application.monolith.stores;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.runtime.ShutdownEvent;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.hibernate.query.NativeQuery;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivers the store outbox to the legacy store manager. A worker thread takes the stores with the
+ * oldest undelivered rows, claims their rows, syncs them with one legacy write and marks them
+ * delivered in the same transaction, so a failed write leaves them to be retried. A store is
+ * claimed under a transaction-scoped advisory lock and relays on other nodes skip the stores they
+ * cannot lock, so they move on to other stores instead of waiting, and never deliver a store's
+ * newer event while an older one is still held. The worker runs when a store write commits on
+ * this node and otherwise every poll interval, which also picks up rows other nodes or a crash
+ * left behind. Before each pass it waits out the coalescing window, so rapid changes to a store
+ * land in the same batch and reach the legacy system as one event.
+ */
+@ApplicationScoped
+public class StoreOutboxRelay {
+
+  private static final Logger LOG = Logger.getLogger(StoreOutboxRelay.class);
+
+  private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+  // first key of pg_try_advisory_xact_lock(int, int), keeps these locks apart from any other user
+  static final int ADVISORY_LOCK_NAMESPACE = 0x53544f52;
+
+  private final EntityManager entityManager;
+  private final LegacyStoreManagerGateway legacyStoreManagerGateway;
+  private final StoreEventCoalescer storeEventCoalescer;
+  private final int batchSize;
+  private final Duration pollInterval;
+  private final Duration coalescingWindow;
+  private final Duration retention;
+  private final boolean enabled;
+  private final DistributionSummary batchSizes;
+  private final Timer lag;
+  private final Counter failures;
+  private final Semaphore wakeUps = new Semaphore(0);
+
+  // the backlog as of the last pass; the age keeps growing between passes
+  private volatile long pending;
+  private volatile LocalDateTime oldestPending;
+  private volatile boolean running;
+  private Thread worker;
+
+  @Inject
+  public StoreOutboxRelay(
+      EntityManager entityManager,
+      LegacyStoreManagerGateway legacyStoreManagerGateway,
+      StoreEventCoalescer storeEventCoalescer,
+      MeterRegistry meterRegistry,
+      @ConfigProperty(name = "legacy-store.outbox.batch-size", defaultValue = "500") int batchSize,
+      @ConfigProperty(name = "legacy-store.outbox.poll-interval", defaultValue = "1s") Duration pollInterval,
+      @ConfigProperty(name = "legacy-store.outbox.coalescing-window", defaultValue = "500ms") Duration coalescingWindow,
+      @ConfigProperty(name = "legacy-store.outbox.retention", defaultValue = "1d") Duration retention,
+      @ConfigProperty(name = "legacy-store.outbox.relay.enabled", defaultValue = "true") boolean enabled) {
+    this.entityManager = entityManager;
+    this.legacyStoreManagerGateway = legacyStoreManagerGateway;
+    this.storeEventCoalescer = storeEventCoalescer;
+    this.batchSize = batchSize;
+    this.pollInterval = pollInterval;
+    this.coalescingWindow = coalescingWindow;
+    this.retention = retention;
+    this.enabled = enabled;
+    this.batchSizes = DistributionSummary.builder("legacy.store.outbox.batch.size")
+        .description("Store events synced per legacy write")
+        .register(meterRegistry);
+    this.lag = Timer.builder("legacy.store.outbox.lag")
+        .description("Time from a committed store write to its legacy write")
+        .register(meterRegistry);
+    this.failures = Counter.builder("legacy.store.outbox.failures")
+        .description("Batches whose legacy write failed and were left for a retry")
+        .register(meterRegistry);
+    Gauge.builder("legacy.store.outbox.pending", this, relay -> relay.pending)
+        .description("Undelivered store outbox rows as of the last relay pass")
+        .register(meterRegistry);
+    Gauge.builder("legacy.store.outbox.oldest.age", this, StoreOutboxRelay::oldestPendingSeconds)
+        .description("Age of the oldest undelivered store outbox row")
+        .baseUnit("seconds")
+        .register(meterRegistry);
+  }
+
+  void onStart(@Observes StartupEvent event) {
+    if (!enabled) {
+      LOG.info("Store outbox relay is disabled");
+      return;
+    }
+    running = true;
+    worker = new Thread(this::work, "store-outbox-relay");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  void onStop(@Observes ShutdownEvent event) throws InterruptedException {
+    running = false;
+    wakeUps.release();
+    if (worker != null) {
+      worker.join(SHUTDOWN_TIMEOUT.toMillis());
+    }
+  }
+
+  // asks the worker to relay now rather than at the next poll; never blocks the caller
+  public void wakeUp() {
+    wakeUps.release();
+  }
+
+  // claims, syncs and marks one batch in a transaction of its own; returns how many were synced
+  public int relayBatch() {
+    try {
+      return QuarkusTransaction.requiringNew().call(this::deliverBatch);
+    } catch (RuntimeException e) {
+      failures.increment();
+      LOG.errorf(e, "Failed to relay store outbox, the batch is left for a retry");
+      return 0;
+    }
+  }
+
+  // counts the undelivered rows and finds the oldest for the backlog gauges
+  void refreshBacklog() {
+    try {
+      Object[] backlog = QuarkusTransaction.requiringNew().call(() -> (Object[]) entityManager
+          .createNativeQuery("select count(*) as pending, min(created_at) as oldest from store_outbox where delivered_at is null")
+          .unwrap(NativeQuery.class)
+          .addScalar("pending", Long.class)
+          .addScalar("oldest", LocalDateTime.class)
+          .getSingleResult());
+      pending = (Long) backlog[0];
+      oldestPending = (LocalDateTime) backlog[1];
+    } catch (RuntimeException e) {
+      LOG.warnf(e, "Failed to measure the store outbox backlog");
+    }
+  }
+
+  @Scheduled(
+      every = "${legacy-store.outbox.purge-interval:1h}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  @Transactional
+  void purgeDelivered() {
+    int purged = entityManager
+        .createQuery("delete from StoreOutboxEvent e where e.deliveredAt < :before")
+        .setParameter("before", LocalDateTime.now().minus(retention))
+        .executeUpdate();
+    LOG.debugf("Purged %d delivered store outbox events", purged);
+  }
+
+  private int deliverBatch() {
+    // the lock is only tried on the stores the inner query picks, not on every undelivered row;
+    // ids beyond the int range share a key, which only makes those stores wait for each other
+    @SuppressWarnings("unchecked")
+    List<Number> stores = entityManager
+        .createNativeQuery(
+            "select s.store_id from (select store_id from store_outbox where delivered_at is null "
+                + "group by store_id order by min(id) limit :limit) s "
+                + "where pg_try_advisory_xact_lock(:namespace, cast(s.store_id % 2147483647 as integer))")
+        .setParameter("limit", batchSize)
+        .setParameter("namespace", ADVISORY_LOCK_NAMESPACE)
+        .getResultList();
+    if (stores.isEmpty()) {
+      return 0;
+    }
+    // rows of these stores committed since are read too, the lock keeps them in order
+    @SuppressWarnings("unchecked")
+    List<StoreOutboxEvent> claimed = entityManager
+        .createNativeQuery(
+            "select * from store_outbox where delivered_at is null and store_id in :stores "
+                + "order by id limit :limit for update",
+            StoreOutboxEvent.class)
+        .setParameter("stores", stores.stream().map(Number::longValue).toList())
+        .setParameter("limit", batchSize)
+        .getResultList();
+    if (claimed.isEmpty()) {
+      return 0;
+    }
+
+    // every claimed row is marked delivered, including those folded into a later one
+    List<StoreEvent> events = claimed.stream().map(StoreOutboxEvent::toStoreEvent).toList();
+    legacyStoreManagerGateway.syncStoresOnLegacySystem(storeEventCoalescer.coalesce(events));
+    LocalDateTime now = LocalDateTime.now();
+    entityManager
+        .createQuery("update StoreOutboxEvent e set e.deliveredAt = :now where e.id in :ids")
+        .setParameter("now", now)
+        .setParameter("ids", claimed.stream().map(event -> event.id).toList())
+        .executeUpdate();
+
+    batchSizes.record(claimed.size());
+    claimed.forEach(event -> lag.record(Duration.between(event.createdAt, now)));
+    return claimed.size();
+  }
+
+  private double oldestPendingSeconds() {
+    LocalDateTime oldest = oldestPending;
+    return oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis() / 1000.0;
+  }
+
+  private void work() {
+    while (running) {
+      try {
+        wakeUps.tryAcquire(pollInterval.toMillis(), TimeUnit.MILLISECONDS);
+        Thread.sleep(coalescingWindow.toMillis());
+        // wake-ups that came in meanwhile are served by the same pass
+        wakeUps.drainPermits();
+        while (relayBatch() == batchSize) {
+          LOG.debug("Store outbox has more undelivered events, relaying the next batch");
+        }
+        refreshBacklog();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+}
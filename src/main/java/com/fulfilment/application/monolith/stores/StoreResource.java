@@ -20,6 +20,8 @@ public class StoreResource {
 
   @Inject Event<StoreEvent> storeEvent;
 
+  @Inject Event<StoreDeletedEvent> storeDeletedEvent;
+
   @GET
   public List<Store> get() {
     return Store.listAll(Sort.by("name"));
@@ -44,7 +46,7 @@ public class StoreResource {
 
     store.persist();
 
-    storeEvent.fire(new StoreEvent(store, StoreEvent.Action.CREATE));
+    publish(new StoreEvent(store, StoreEvent.Action.CREATE));
 
     return Response.ok(store).status(201).build();
   }
@@ -66,7 +68,7 @@ public class StoreResource {
     entity.name = updatedStore.name;
     entity.quantityProductsInStock = updatedStore.quantityProductsInStock;
 
-    storeEvent.fire(new StoreEvent(entity, StoreEvent.Action.UPDATE));
+    publish(new StoreEvent(entity, StoreEvent.Action.UPDATE));
 
     return entity;
   }
@@ -93,7 +95,7 @@ public class StoreResource {
       entity.quantityProductsInStock = updatedStore.quantityProductsInStock;
     }
 
-    storeEvent.fire(new StoreEvent(entity, StoreEvent.Action.UPDATE));
+    publish(new StoreEvent(entity, StoreEvent.Action.UPDATE));
 
     return entity;
   }
@@ -107,6 +109,13 @@ public class StoreResource {
       throw new WebApplicationException("Store with id of " + id + " does not exist.", 404);
     }
     entity.delete();
+    storeDeletedEvent.fire(new StoreDeletedEvent(id));
     return Response.status(204).build();
   }
+
+  // the outbox row commits or rolls back with the change, the event only wakes the relay up
+  private void publish(StoreEvent event) {
+    new StoreOutboxEvent(event).persist();
+    storeEvent.fire(event);
+  }
 }
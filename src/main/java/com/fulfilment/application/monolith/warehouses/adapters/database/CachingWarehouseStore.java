@@ -0,0 +1,71 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import jakarta.annotation.Priority;
+import jakarta.decorator.Decorator;
+import jakarta.decorator.Delegate;
+import jakarta.enterprise.inject.Any;
+import jakarta.inject.Inject;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+/**
+ * Serves {@link WarehouseStore#findByBusinessUnitCode} from {@link WarehouseCache} and invalidates
+ * the written business unit codes once the writing transaction commits. Every other method goes
+ * straight to the store.
+ */
+@Decorator
+@Priority(10)
+public abstract class CachingWarehouseStore implements WarehouseStore {
+
+  @Inject
+  @Any
+  @Delegate
+  WarehouseStore delegate;
+
+  @Inject
+  WarehouseCache warehouseCache;
+
+  @Override
+  public void create(WarehouseDTO warehouseDTO) {
+    warehouseCache.invalidateAfterCommit(List.of(warehouseDTO.businessUnitCode));
+    delegate.create(warehouseDTO);
+  }
+
+  @Override
+  public void createAll(List<WarehouseDTO> warehouseDTOs) {
+    warehouseCache.invalidateAfterCommit(warehouseDTOs.stream().map(w -> w.businessUnitCode).toList());
+    delegate.createAll(warehouseDTOs);
+  }
+
+  @Override
+  public void update(WarehouseDTO warehouseDTO) {
+    warehouseCache.invalidateAfterCommit(List.of(warehouseDTO.businessUnitCode));
+    delegate.update(warehouseDTO);
+  }
+
+  @Override
+  public void remove(WarehouseDTO warehouseDTO) {
+    warehouseCache.invalidateAfterCommit(List.of(warehouseDTO.businessUnitCode));
+    delegate.remove(warehouseDTO);
+  }
+
+  @Override
+  public Integer adjustStock(String buCode, int delta) {
+    warehouseCache.invalidateAfterCommit(List.of(buCode));
+    return delegate.adjustStock(buCode, delta);
+  }
+
+  @Override
+  public WarehouseDTO archive(String buCode, ZonedDateTime archivedAt) {
+    warehouseCache.invalidateAfterCommit(List.of(buCode));
+    return delegate.archive(buCode, archivedAt);
+  }
+
+  @Override
+  public WarehouseDTO findByBusinessUnitCode(String buCode) {
+    return warehouseCache.get(buCode, delegate::findByBusinessUnitCode);
+  }
+}
@@ -0,0 +1,40 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+// the first index serves the tail replay of one warehouse, the second the snapshot window scan
+@Table(
+    name = "stock_movement",
+    indexes = {
+        @Index(name = "ix_stock_movement_business_unit_code_occurred_at", columnList = "businessUnitCode, occurredAt"),
+        @Index(name = "ix_stock_movement_occurred_at", columnList = "occurredAt")
+    })
+public class DbStockMovement {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_movement_seq")
+  @SequenceGenerator(name = "stock_movement_seq", sequenceName = "stock_movement_seq", allocationSize = 50)
+  public Long id;
+
+  public String businessUnitCode;
+
+  public int delta;
+
+  @Enumerated(EnumType.STRING)
+  public StockMovement.Reason reason;
+
+  public LocalDateTime occurredAt;
+
+  public DbStockMovement() {}
+}
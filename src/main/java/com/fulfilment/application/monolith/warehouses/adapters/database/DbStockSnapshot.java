@@ -0,0 +1,32 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(
+    name = "stock_snapshot",
+    indexes = @Index(name = "ix_stock_snapshot_business_unit_code_taken_at", columnList = "businessUnitCode, takenAt"))
+public class DbStockSnapshot {
+
+  // rows are only inserted by the snapshot statement, which draws ids with nextval one at a time
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "stock_snapshot_seq")
+  @SequenceGenerator(name = "stock_snapshot_seq", sequenceName = "stock_snapshot_seq", allocationSize = 1)
+  public Long id;
+
+  public String businessUnitCode;
+
+  // stock of the warehouse including every movement that occurred at or before takenAt
+  public LocalDateTime takenAt;
+
+  public int balance;
+
+  public DbStockSnapshot() {}
+}
@@ -3,16 +3,26 @@ package com.fulfilment.application.monolith.warehouses.adapters.database;
 import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "warehouse")
+// serves active lookups and keyset pages by business unit code as well as history and as-of queries
+@Table(
+    name = "warehouse",
+    indexes = @Index(name = "ix_warehouse_business_unit_code_created_at", columnList = "businessUnitCode, createdAt"))
 @Cacheable
 public class DbWarehouse {
 
-  @Id @GeneratedValue public Long id;
+  // ids are handed out from blocks of 50 (pooled optimizer) so batch inserts need no per-row round trip
+  @Id
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "warehouse_seq")
+  @SequenceGenerator(name = "warehouse_seq", sequenceName = "warehouse_seq", allocationSize = 50)
+  public Long id;
 
   public String businessUnitCode;
 
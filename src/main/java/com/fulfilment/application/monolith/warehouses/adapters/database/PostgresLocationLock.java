@@ -0,0 +1,126 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.LocationLockTimeoutException;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialises writers per location. Within the JVM a location maps onto one of a fixed number of
+ * stripes, so only transactions whose locations share a stripe wait for each other. Across nodes
+ * a transaction-scoped Postgres advisory lock keyed by the location hash does the same. Stripes
+ * and advisory keys are always taken in ascending order, which rules out deadlocks between
+ * transactions locking several locations.
+ */
+@ApplicationScoped
+public class PostgresLocationLock implements LocationLock {
+
+  private static final Logger LOG = Logger.getLogger(PostgresLocationLock.class);
+
+  // first key of pg_advisory_xact_lock(int, int), keeps these locks apart from any other user
+  static final int ADVISORY_LOCK_NAMESPACE = 0x57484c4f;
+
+  static final int STRIPES = 64;
+
+  private static final String HELD_STRIPES = PostgresLocationLock.class.getName() + ".stripes";
+
+  private final EntityManager entityManager;
+  private final TransactionSynchronizationRegistry transactionRegistry;
+  private final Duration timeout;
+
+  // semaphores rather than ReentrantLocks: the transaction may complete on another thread than
+  // the one that locked, e.g. when the reaper rolls back a timed out transaction
+  private final Semaphore[] stripes = new Semaphore[STRIPES];
+
+  @Inject
+  public PostgresLocationLock(
+      EntityManager entityManager,
+      TransactionSynchronizationRegistry transactionRegistry,
+      @ConfigProperty(name = "warehouse.location-lock.timeout", defaultValue = "10s") Duration timeout) {
+    this.entityManager = entityManager;
+    this.transactionRegistry = transactionRegistry;
+    this.timeout = timeout;
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Semaphore(1);
+    }
+  }
+
+  @Override
+  public void lock(Collection<String> locations) {
+    if (transactionRegistry.getTransactionStatus() != Status.STATUS_ACTIVE) {
+      throw new IllegalStateException("Locations can only be locked inside an active transaction");
+    }
+    Set<Integer> wanted = new TreeSet<>();
+    Set<Integer> keys = new TreeSet<>();
+    for (String location : locations) {
+      wanted.add(stripeOf(location));
+      keys.add(location.hashCode());
+    }
+
+    acquireStripes(wanted, locations);
+    for (int key : keys) {
+      // wrapped in a count because Hibernate cannot map the void result of the function itself
+      entityManager.createNativeQuery("select count(*) from (select pg_advisory_xact_lock(:namespace, :key)) l")
+          .setParameter("namespace", ADVISORY_LOCK_NAMESPACE)
+          .setParameter("key", key)
+          .getSingleResult();
+    }
+    LOG.debugf("Locked locations %s", locations);
+  }
+
+  private void acquireStripes(Set<Integer> wanted, Collection<String> locations) {
+    Set<Integer> held = heldStripes();
+    for (int stripe : wanted) {
+      if (held.contains(stripe)) {
+        continue;
+      }
+      try {
+        if (!stripes[stripe].tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+          throw new LocationLockTimeoutException("Timed out waiting for concurrent changes to locations " + locations);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new LocationLockTimeoutException("Interrupted while waiting for locations " + locations);
+      }
+      held.add(stripe);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<Integer> heldStripes() {
+    Set<Integer> held = (Set<Integer>) transactionRegistry.getResource(HELD_STRIPES);
+    if (held == null) {
+      Set<Integer> created = new TreeSet<>();
+      transactionRegistry.putResource(HELD_STRIPES, created);
+      transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+          created.forEach(stripe -> stripes[stripe].release());
+        }
+      });
+      held = created;
+    }
+    return held;
+  }
+
+  static int stripeOf(String location) {
+    return Math.floorMod(location.hashCode(), STRIPES);
+  }
+}
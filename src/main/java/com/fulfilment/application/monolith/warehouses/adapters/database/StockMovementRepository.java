@@ -0,0 +1,125 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
+import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import org.hibernate.query.NativeQuery;
+import org.jboss.logging.Logger;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@ApplicationScoped
+public class StockMovementRepository implements StockMovementStore, PanacheRepository<DbStockMovement> {
+
+  private static final Logger LOG = Logger.getLogger(StockMovementRepository.class);
+
+  // keep in line with quarkus.hibernate-orm.jdbc.statement-batch-size
+  static final int BATCH_SIZE = 50;
+
+  // lower bound of the first snapshot window, before any movement can have occurred
+  private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+  @Override
+  public void append(List<StockMovement> movements) {
+    EntityManager entityManager = getEntityManager();
+    List<DbStockMovement> pending = new ArrayList<>(BATCH_SIZE);
+    int appended = 0;
+    for (StockMovement movement : movements) {
+      // a zero delta carries no information and would only lengthen replays
+      if (movement.delta() == 0) {
+        continue;
+      }
+      DbStockMovement dbMovement = toEntity(movement);
+      entityManager.persist(dbMovement);
+      pending.add(dbMovement);
+      appended++;
+      if (pending.size() == BATCH_SIZE) {
+        // the caller's transaction may hold changes of its own, so only the ledger rows just
+        // written are detached instead of clearing the whole persistence context
+        entityManager.flush();
+        pending.forEach(entityManager::detach);
+        pending.clear();
+      }
+    }
+    LOG.debugf("Appended %d stock movements", appended);
+  }
+
+  @Override
+  public Integer findStockAsOf(String buCode, ZonedDateTime asOf) {
+    LocalDateTime at = toLocalDateTime(asOf);
+    DbStockSnapshot snapshot = getEntityManager()
+            .createQuery("from DbStockSnapshot s where s.businessUnitCode = :code and s.takenAt <= :at "
+                    + "order by s.takenAt desc", DbStockSnapshot.class)
+            .setParameter("code", buCode)
+            .setParameter("at", at)
+            .setMaxResults(1)
+            .getResultStream()
+            .findFirst()
+            .orElse(null);
+    LocalDateTime since = snapshot != null ? snapshot.takenAt : BEGINNING;
+
+    Object[] tail = getEntityManager()
+            .createQuery("select count(m), coalesce(sum(m.delta), 0) from DbStockMovement m "
+                    + "where m.businessUnitCode = :code and m.occurredAt > :since and m.occurredAt <= :at", Object[].class)
+            .setParameter("code", buCode)
+            .setParameter("since", since)
+            .setParameter("at", at)
+            .getSingleResult();
+    if (snapshot == null && ((Number) tail[0]).longValue() == 0) {
+      return null;
+    }
+    LOG.debugf("Stock of %s as of %s replayed from %d movements after %s", buCode, asOf, tail[0], since);
+    return (snapshot != null ? snapshot.balance : 0) + ((Number) tail[1]).intValue();
+  }
+
+  @Override
+  public int snapshotUpTo(ZonedDateTime cutoff) {
+    LocalDateTime until = toLocalDateTime(cutoff);
+    LocalDateTime since = getEntityManager()
+            .createQuery("select max(s.takenAt) from DbStockSnapshot s", LocalDateTime.class)
+            .getSingleResult();
+    if (since == null) {
+      since = BEGINNING;
+    }
+    if (!until.isAfter(since)) {
+      return 0;
+    }
+    // a warehouse's balance at the start of the window is its latest snapshot at or before it: runs
+    // cover contiguous windows and only warehouses with movements get a row, so nothing happened
+    // to it in between
+    return getEntityManager()
+            .createNativeQuery("insert into stock_snapshot(id, businessUnitCode, takenAt, balance) "
+                    + "select nextval('stock_snapshot_seq'), m.businessUnitCode, :until, "
+                    + "coalesce((select s.balance from stock_snapshot s where s.businessUnitCode = m.businessUnitCode "
+                    + "and s.takenAt <= :since order by s.takenAt desc limit 1), 0) + sum(m.delta) "
+                    + "from stock_movement m where m.occurredAt > :since and m.occurredAt <= :until "
+                    + "group by m.businessUnitCode")
+            .setParameter("since", since)
+            .setParameter("until", until)
+            .unwrap(NativeQuery.class)
+            // declares the tables involved, so pending movements are flushed first and Hibernate
+            // does not invalidate every second-level cache region after the insert
+            .addSynchronizedEntityClass(DbStockMovement.class)
+            .addSynchronizedEntityClass(DbStockSnapshot.class)
+            .executeUpdate();
+  }
+
+  private DbStockMovement toEntity(StockMovement movement) {
+    DbStockMovement dbMovement = new DbStockMovement();
+    dbMovement.businessUnitCode = movement.businessUnitCode();
+    dbMovement.delta = movement.delta();
+    dbMovement.reason = movement.reason();
+    dbMovement.occurredAt = toLocalDateTime(movement.occurredAt());
+    return dbMovement;
+  }
+
+  private LocalDateTime toLocalDateTime(ZonedDateTime zonedDateTime) {
+    return zonedDateTime.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+  }
+}
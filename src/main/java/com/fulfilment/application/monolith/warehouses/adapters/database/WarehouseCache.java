@@ -0,0 +1,125 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Active warehouses by business unit code. Codes written by a transaction are only invalidated
+ * once it commits; until then that transaction reads them from the database, so it sees its own
+ * changes while everyone else keeps getting the committed row.
+ */
+@ApplicationScoped
+public class WarehouseCache {
+
+  private static final Logger LOG = Logger.getLogger(WarehouseCache.class);
+
+  private static final String DIRTY_CODES = WarehouseCache.class.getName() + ".dirty";
+
+  private final TransactionSynchronizationRegistry transactionRegistry;
+  private final Cache<String, WarehouseDTO> cache;
+
+  @Inject
+  public WarehouseCache(
+      TransactionSynchronizationRegistry transactionRegistry,
+      MeterRegistry meterRegistry,
+      @ConfigProperty(name = "warehouse.cache.maximum-size", defaultValue = "10000") long maximumSize,
+      @ConfigProperty(name = "warehouse.cache.expire-after-write", defaultValue = "10m") Duration expireAfterWrite,
+      @ConfigProperty(name = "warehouse.cache.expire-after-access", defaultValue = "2m") Duration expireAfterAccess) {
+    this.transactionRegistry = transactionRegistry;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(expireAfterWrite)
+        .expireAfterAccess(expireAfterAccess)
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "warehouse");
+    Gauge.builder("warehouse.cache.hit.ratio", cache, c -> c.stats().hitRate())
+        .description("Share of warehouse lookups answered from the cache")
+        .register(meterRegistry);
+  }
+
+  public WarehouseDTO get(String buCode, Function<String, WarehouseDTO> loader) {
+    if (buCode == null || dirtyInCurrentTransaction(buCode)) {
+      return loader.apply(buCode);
+    }
+    // misses are not cached, the loader returning null leaves no entry behind
+    WarehouseDTO cached = cache.get(buCode, loader);
+    return cached != null ? copy(cached) : null;
+  }
+
+  public void invalidateAfterCommit(Collection<String> buCodes) {
+    if (transactionRegistry.getTransactionKey() == null) {
+      cache.invalidateAll(buCodes);
+      return;
+    }
+    dirtyCodes().addAll(buCodes);
+  }
+
+  public void invalidateAll() {
+    cache.invalidateAll();
+  }
+
+  private boolean dirtyInCurrentTransaction(String buCode) {
+    if (transactionRegistry.getTransactionKey() == null) {
+      return false;
+    }
+    @SuppressWarnings("unchecked")
+    Set<String> dirty = (Set<String>) transactionRegistry.getResource(DIRTY_CODES);
+    return dirty != null && dirty.contains(buCode);
+  }
+
+  @SuppressWarnings("unchecked")
+  private Set<String> dirtyCodes() {
+    Set<String> dirty = (Set<String>) transactionRegistry.getResource(DIRTY_CODES);
+    if (dirty == null) {
+      Set<String> created = new HashSet<>();
+      transactionRegistry.putResource(DIRTY_CODES, created);
+      transactionRegistry.registerInterposedSynchronization(new Synchronization() {
+        @Override
+        public void beforeCompletion() {
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+          if (status == Status.STATUS_COMMITTED) {
+            // blocks on any load of the same code still in flight, so a row read before the
+            // commit cannot be put back after this
+            cache.invalidateAll(created);
+            LOG.debugf("Invalidated cached warehouses %s", created);
+          }
+        }
+      });
+      dirty = created;
+    }
+    return dirty;
+  }
+
+  // callers are free to modify what they get back, so the cached instance never leaves this class
+  static WarehouseDTO copy(WarehouseDTO warehouseDTO) {
+    WarehouseDTO copy = new WarehouseDTO();
+    copy.businessUnitCode = warehouseDTO.businessUnitCode;
+    copy.location = warehouseDTO.location;
+    copy.capacity = warehouseDTO.capacity;
+    copy.stock = warehouseDTO.stock;
+    copy.creationAt = warehouseDTO.creationAt;
+    copy.archivedAt = warehouseDTO.archivedAt;
+    return copy;
+  }
+}
@@ -1,15 +1,29 @@
 package com.fulfilment.application.monolith.warehouses.adapters.database;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import io.quarkus.hibernate.orm.panache.PanacheQuery;
 import io.quarkus.hibernate.orm.panache.PanacheRepository;
+import io.quarkus.panache.common.Sort;
 import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.persistence.EntityManager;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.query.NativeQuery;
 import org.jboss.logging.Logger;
 
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @ApplicationScoped
@@ -17,17 +31,39 @@ public class WarehouseRepository implements WarehouseStore, PanacheRepository<Db
 
   private static final Logger LOG = Logger.getLogger(WarehouseRepository.class);
 
+  // keep in line with quarkus.hibernate-orm.jdbc.statement-batch-size
+  static final int BATCH_SIZE = 50;
+
+  private static final int STREAM_FETCH_SIZE = 500;
+
   @Override
   public void create(WarehouseDTO warehouseDTO) {
     LOG.debugf("Persisting new warehouse: %s", warehouseDTO.businessUnitCode);
-    DbWarehouse dbWarehouse = new DbWarehouse();
-    dbWarehouse.businessUnitCode = warehouseDTO.businessUnitCode;
-    dbWarehouse.location = warehouseDTO.location;
-    dbWarehouse.capacity = warehouseDTO.capacity;
-    dbWarehouse.stock = warehouseDTO.stock;
-    dbWarehouse.createdAt = toLocalDateTime(warehouseDTO.creationAt);
-    dbWarehouse.archivedAt = toLocalDateTime(warehouseDTO.archivedAt);
-    persist(dbWarehouse);
+    persist(toEntity(warehouseDTO));
+  }
+
+  @Override
+  public void createAll(List<WarehouseDTO> warehouseDTOs) {
+    LOG.debugf("Persisting %d new warehouses", warehouseDTOs.size());
+    EntityManager entityManager = getEntityManager();
+    List<DbWarehouse> pending = new ArrayList<>(BATCH_SIZE);
+    for (WarehouseDTO warehouseDTO : warehouseDTOs) {
+      DbWarehouse dbWarehouse = toEntity(warehouseDTO);
+      entityManager.persist(dbWarehouse);
+      pending.add(dbWarehouse);
+      // flush each full JDBC batch and detach only its rows, the caller's transaction may still
+      // hold entities of its own in the persistence context
+      if (pending.size() == BATCH_SIZE) {
+        flushAndDetach(entityManager, pending);
+      }
+    }
+    flushAndDetach(entityManager, pending);
+  }
+
+  private static void flushAndDetach(EntityManager entityManager, List<DbWarehouse> pending) {
+    entityManager.flush();
+    pending.forEach(entityManager::detach);
+    pending.clear();
   }
 
   @Override
@@ -51,6 +87,62 @@ public class WarehouseRepository implements WarehouseStore, PanacheRepository<Db
     delete("businessUnitCode = ?1 and archivedAt is null", warehouseDTO.businessUnitCode);
   }
 
+  @Override
+  public Integer adjustStock(String buCode, int delta) {
+    // the row lock is held only for this statement, so writers of a hot warehouse queue inside
+    // Postgres instead of retrying read-modify-write cycles
+    @SuppressWarnings("unchecked")
+    List<Object[]> rows = getEntityManager()
+            .createNativeQuery("update warehouse set stock = stock + :delta "
+                    + "where businessUnitCode = :code and archivedAt is null "
+                    + "and stock + :delta between 0 and capacity "
+                    + "returning id, stock")
+            .setParameter("delta", delta)
+            .setParameter("code", buCode)
+            .getResultList();
+    if (rows.isEmpty()) {
+      return null;
+    }
+    Object[] row = rows.get(0);
+    // the update bypasses the session, drop the second-level cache entry it made stale
+    getEntityManager().getEntityManagerFactory().getCache().evict(DbWarehouse.class, ((Number) row[0]).longValue());
+    return ((Number) row[1]).intValue();
+  }
+
+  @Override
+  public WarehouseDTO archive(String buCode, ZonedDateTime archivedAt) {
+    // a single conditional statement like adjustStock: the row lock orders it with concurrent
+    // adjustments, and the stock it returns is the one the row holds when it is archived
+    @SuppressWarnings("unchecked")
+    List<Object[]> rows = getEntityManager()
+            .createNativeQuery("update warehouse set archivedAt = :archivedAt "
+                    + "where businessUnitCode = :code and archivedAt is null "
+                    + "returning id, location, capacity, stock, createdAt")
+            .setParameter("archivedAt", toLocalDateTime(archivedAt))
+            .setParameter("code", buCode)
+            .unwrap(NativeQuery.class)
+            .addScalar("id", Long.class)
+            .addScalar("location", String.class)
+            .addScalar("capacity", Integer.class)
+            .addScalar("stock", Integer.class)
+            .addScalar("createdAt", LocalDateTime.class)
+            .getResultList();
+    if (rows.isEmpty()) {
+      return null;
+    }
+    Object[] row = rows.get(0);
+    // the update bypasses the session, drop the second-level cache entry it made stale
+    getEntityManager().getEntityManagerFactory().getCache().evict(DbWarehouse.class, row[0]);
+    WarehouseDTO warehouseDTO = new WarehouseDTO();
+    warehouseDTO.businessUnitCode = buCode;
+    warehouseDTO.location = (String) row[1];
+    warehouseDTO.capacity = (Integer) row[2];
+    warehouseDTO.stock = (Integer) row[3];
+    warehouseDTO.creationAt = toZonedDateTime((LocalDateTime) row[4]);
+    warehouseDTO.archivedAt = archivedAt;
+    return warehouseDTO;
+  }
+
   @Override
   public WarehouseDTO findByBusinessUnitCode(String buCode) {
     // Find only the active (non-archived) warehouse
@@ -58,6 +150,39 @@ public class WarehouseRepository implements WarehouseStore, PanacheRepository<Db
     return dbWarehouse != null ? toDomain(dbWarehouse) : null;
   }
 
+  @Override
+  public Set<String> findActiveBusinessUnitCodes(Collection<String> buCodes) {
+    if (buCodes.isEmpty()) {
+      return Set.of();
+    }
+    return Set.copyOf(getEntityManager()
+            .createQuery("select w.businessUnitCode from DbWarehouse w "
+                    + "where w.businessUnitCode in :codes and w.archivedAt is null", String.class)
+            .setParameter("codes", buCodes)
+            .getResultList());
+  }
+
+  @Override
+  public List<WarehouseDTO> findHistoryByBusinessUnitCode(String buCode) {
+    return find("businessUnitCode = ?1", Sort.by("createdAt"), buCode)
+            .stream()
+            .map(this::toDomain)
+            .collect(Collectors.toList());
+  }
+
+  @Override
+  public WarehouseDTO findByBusinessUnitCodeAsOf(String buCode, ZonedDateTime asOf) {
+    LocalDateTime at = asOf.withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+    // newest generation created at or before the instant, read backwards from the
+    // (businessUnitCode, createdAt) index; it only counts if it was not yet archived then
+    DbWarehouse dbWarehouse = find("businessUnitCode = ?1 and createdAt <= ?2", Sort.descending("createdAt"), buCode, at)
+            .firstResult();
+    if (dbWarehouse == null || (dbWarehouse.archivedAt != null && !dbWarehouse.archivedAt.isAfter(at))) {
+      return null;
+    }
+    return toDomain(dbWarehouse);
+  }
+
   @Override
   public List<WarehouseDTO> findActiveByLocation(String location) {
     return find("location = ?1 and archivedAt is null", location)
@@ -74,11 +199,92 @@ public class WarehouseRepository implements WarehouseStore, PanacheRepository<Db
   }
 
   @Override
-  public int getTotalCapacityByLocation(String location) {
-    return find("location = ?1 and archivedAt is null", location)
+  public List<WarehouseDTO> findActiveWarehousesPage(String afterBusinessUnitCode, int limit) {
+    PanacheQuery<DbWarehouse> query = afterBusinessUnitCode == null
+            ? find("archivedAt is null", Sort.by("businessUnitCode"))
+            : find("archivedAt is null and businessUnitCode > ?1", Sort.by("businessUnitCode"), afterBusinessUnitCode);
+    return query.page(0, limit)
             .stream()
-            .mapToInt(w -> w.capacity != null ? w.capacity : 0)
-            .sum();
+            .map(this::toDomain)
+            .collect(Collectors.toList());
+  }
+
+  @Override
+  public void forEachActiveWarehouse(Consumer<WarehouseDTO> consumer) {
+    // scalar rows through a forward-only cursor: nothing is added to the persistence context and
+    // the driver only holds one fetch of rows at a time
+    try (ScrollableResults<Object[]> rows = getEntityManager().unwrap(Session.class)
+            .createSelectionQuery("select w.businessUnitCode, w.location, w.capacity, w.stock, w.createdAt "
+                    + "from DbWarehouse w where w.archivedAt is null order by w.businessUnitCode", Object[].class)
+            .setFetchSize(STREAM_FETCH_SIZE)
+            .setReadOnly(true)
+            .scroll(ScrollMode.FORWARD_ONLY)) {
+      while (rows.next()) {
+        Object[] row = rows.get();
+        WarehouseDTO warehouseDTO = new WarehouseDTO();
+        warehouseDTO.businessUnitCode = (String) row[0];
+        warehouseDTO.location = (String) row[1];
+        warehouseDTO.capacity = (Integer) row[2];
+        warehouseDTO.stock = (Integer) row[3];
+        warehouseDTO.creationAt = toZonedDateTime((LocalDateTime) row[4]);
+        consumer.accept(warehouseDTO);
+      }
+    }
+  }
+
+  @Override
+  public int getTotalCapacityByLocation(String location) {
+    return getOccupancyByLocation(location).totalCapacity();
+  }
+
+  @Override
+  public LocationOccupancy getOccupancyByLocation(String location) {
+    Object[] row = getEntityManager()
+            .createQuery("select count(w), coalesce(sum(w.capacity), 0) from DbWarehouse w "
+                    + "where w.location = :location and w.archivedAt is null", Object[].class)
+            .setParameter("location", location)
+            .getSingleResult();
+    return new LocationOccupancy(location, ((Number) row[0]).intValue(), ((Number) row[1]).intValue());
+  }
+
+  @Override
+  public Map<String, LocationOccupancy> getOccupancyByLocations(Collection<String> locations) {
+    if (locations.isEmpty()) {
+      return Map.of();
+    }
+    return toOccupancies(getEntityManager()
+            .createQuery("select w.location, count(w), coalesce(sum(w.capacity), 0) from DbWarehouse w "
+                    + "where w.location in :locations and w.archivedAt is null group by w.location", Object[].class)
+            .setParameter("locations", locations)
+            .getResultList());
+  }
+
+  @Override
+  public Map<String, LocationOccupancy> getOccupancyOfAllLocations() {
+    return toOccupancies(getEntityManager()
+            .createQuery("select w.location, count(w), coalesce(sum(w.capacity), 0) from DbWarehouse w "
+                    + "where w.archivedAt is null group by w.location", Object[].class)
+            .getResultList());
+  }
+
+  private Map<String, LocationOccupancy> toOccupancies(List<Object[]> rows) {
+    Map<String, LocationOccupancy> occupancies = new HashMap<>();
+    for (Object[] row : rows) {
+      String location = (String) row[0];
+      occupancies.put(location, new LocationOccupancy(location, ((Number) row[1]).intValue(), ((Number) row[2]).intValue()));
+    }
+    return occupancies;
+  }
+
+  private DbWarehouse toEntity(WarehouseDTO warehouseDTO) {
+    DbWarehouse dbWarehouse = new DbWarehouse();
+    dbWarehouse.businessUnitCode = warehouseDTO.businessUnitCode;
+    dbWarehouse.location = warehouseDTO.location;
+    dbWarehouse.capacity = warehouseDTO.capacity;
+    dbWarehouse.stock = warehouseDTO.stock;
+    dbWarehouse.createdAt = toLocalDateTime(warehouseDTO.creationAt);
+    dbWarehouse.archivedAt = toLocalDateTime(warehouseDTO.archivedAt);
+    return dbWarehouse;
   }
 
   private WarehouseDTO toDomain(DbWarehouse dbWarehouse) {
@@ -1,18 +1,32 @@
 package com.fulfilment.application.monolith.warehouses.adapters.restapi;
 
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseBatchItemResult;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.AdjustWarehouseStockOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ArchiveWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchCreateWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.CreateWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ReplaceWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.fulfilment.api.WarehouseResource;
+import com.fulfilment.api.beans.StockAdjustmentRequest;
+import com.fulfilment.api.beans.StockAdjustmentResponse;
 import com.fulfilment.api.beans.Warehouse;
+import com.fulfilment.api.beans.WarehouseBatchItem;
+import com.fulfilment.api.beans.WarehouseBatchResponse;
+import com.fulfilment.api.beans.WarehouseGeneration;
+import com.fulfilment.api.beans.WarehouseStockAsOf;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.transaction.Transactional;
 import jakarta.validation.constraints.NotNull;
+import jakarta.ws.rs.WebApplicationException;
 import org.jboss.logging.Logger;
 
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 @ApplicationScoped
@@ -20,26 +34,42 @@ public class WarehouseResourceImpl implements WarehouseResource {
 
   private static final Logger LOG = Logger.getLogger(WarehouseResourceImpl.class);
 
+  static final int DEFAULT_PAGE_SIZE = 100;
+  static final int MAX_PAGE_SIZE = 1000;
+
   private final CreateWarehouseOperation createWarehouseOperation;
   private final ReplaceWarehouseOperation replaceWarehouseOperation;
   private final ArchiveWarehouseOperation archiveWarehouseOperation;
+  private final BatchCreateWarehouseOperation batchCreateWarehouseOperation;
+  private final AdjustWarehouseStockOperation adjustWarehouseStockOperation;
   private final WarehouseStore warehouseStore;
+  private final StockMovementStore stockMovementStore;
 
   public WarehouseResourceImpl(
       CreateWarehouseOperation createWarehouseOperation,
       ReplaceWarehouseOperation replaceWarehouseOperation,
       ArchiveWarehouseOperation archiveWarehouseOperation,
-      WarehouseStore warehouseStore) {
+      BatchCreateWarehouseOperation batchCreateWarehouseOperation,
+      AdjustWarehouseStockOperation adjustWarehouseStockOperation,
+      WarehouseStore warehouseStore,
+      StockMovementStore stockMovementStore) {
     this.createWarehouseOperation = createWarehouseOperation;
     this.replaceWarehouseOperation = replaceWarehouseOperation;
     this.archiveWarehouseOperation = archiveWarehouseOperation;
+    this.batchCreateWarehouseOperation = batchCreateWarehouseOperation;
+    this.adjustWarehouseStockOperation = adjustWarehouseStockOperation;
     this.warehouseStore = warehouseStore;
+    this.stockMovementStore = stockMovementStore;
   }
 
   @Override
-  public List<Warehouse> listAllWarehousesUnits() {
-    LOG.debug("Listing all active warehouse units");
-    return warehouseStore.findAllActiveWarehouses()
+  public List<Warehouse> listAllWarehousesUnits(String after, Integer limit) {
+    LOG.debugf("Listing active warehouse units after %s", after);
+    int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+    if (pageSize < 1 || pageSize > MAX_PAGE_SIZE) {
+      throw new WebApplicationException("Page size must be between 1 and " + MAX_PAGE_SIZE, 400);
+    }
+    return warehouseStore.findActiveWarehousesPage(after, pageSize)
             .stream()
             .map(this::toResponse)
             .toList();
@@ -60,6 +90,31 @@ public class WarehouseResourceImpl implements WarehouseResource {
     return toResponse(warehouseDTO);
   }
 
+  @Override
+  @Transactional
+  public WarehouseBatchResponse createWarehousesInBatch(@NotNull List<Warehouse> data) {
+    LOG.infof("REST request to create %d warehouses in batch", data.size());
+    List<WarehouseDTO> warehouseDTOs = data.stream()
+            .map(warehouse -> {
+              WarehouseDTO warehouseDTO = new WarehouseDTO();
+              warehouseDTO.businessUnitCode = warehouse.getId();
+              warehouseDTO.location = warehouse.getLocation();
+              warehouseDTO.capacity = warehouse.getCapacity();
+              warehouseDTO.stock = warehouse.getStock();
+              return warehouseDTO;
+            })
+            .toList();
+
+    List<WarehouseBatchItemResult> results = batchCreateWarehouseOperation.createAll(warehouseDTOs);
+
+    int created = (int) results.stream().filter(WarehouseBatchItemResult::created).count();
+    WarehouseBatchResponse response = new WarehouseBatchResponse();
+    response.setCreated(created);
+    response.setRejected(results.size() - created);
+    response.setResults(results.stream().map(this::toResponse).toList());
+    return response;
+  }
+
   @Override
   public Warehouse getAWarehouseUnitByID(String id) {
     LOG.debugf("REST request to get warehouse: %s", id);
@@ -70,9 +125,44 @@ public class WarehouseResourceImpl implements WarehouseResource {
     return toResponse(domainWarehouseDTO);
   }
 
+  @Override
+  public List<WarehouseGeneration> getWarehouseHistory(String id) {
+    LOG.debugf("REST request to get history of warehouse: %s", id);
+    List<WarehouseDTO> generations = warehouseStore.findHistoryByBusinessUnitCode(id);
+    if (generations.isEmpty()) {
+      throw new WarehouseNotFoundException("Warehouse with id " + id + " not found");
+    }
+    return generations.stream().map(this::toGeneration).toList();
+  }
+
+  @Override
+  public WarehouseGeneration getWarehouseAsOf(String id, String at) {
+    LOG.debugf("REST request to get warehouse %s as of %s", id, at);
+    WarehouseDTO generation = warehouseStore.findByBusinessUnitCodeAsOf(id, parseTimestamp(at));
+    if (generation == null) {
+      throw new WarehouseNotFoundException("Warehouse with id " + id + " was not active at " + at);
+    }
+    return toGeneration(generation);
+  }
+
+  @Override
+  public WarehouseStockAsOf getWarehouseStockAsOf(String id, String at) {
+    LOG.debugf("REST request to get stock of warehouse %s as of %s", id, at);
+    ZonedDateTime asOf = parseTimestamp(at);
+    Integer stock = stockMovementStore.findStockAsOf(id, asOf);
+    if (stock == null) {
+      throw new WarehouseNotFoundException("Warehouse with id " + id + " had no stock movements up to " + at);
+    }
+    WarehouseStockAsOf response = new WarehouseStockAsOf();
+    response.setId(id);
+    response.setAt(asOf.toOffsetDateTime().toString());
+    response.setStock(stock);
+    return response;
+  }
+
   @Override
   @Transactional
-  public Warehouse replaceAWarehouseUnitByID(String businessUnitCode, @NotNull Warehouse data) {
+  public Warehouse replaceAWarehouseUnitByID(String businessUnitCode, Boolean moveFulfillments, @NotNull Warehouse data) {
     LOG.infof("REST request to replace warehouse: %s", businessUnitCode);
     WarehouseDTO newWarehouseDTO = new WarehouseDTO();
     newWarehouseDTO.businessUnitCode = businessUnitCode;
@@ -80,18 +170,58 @@ public class WarehouseResourceImpl implements WarehouseResource {
     newWarehouseDTO.capacity = data.getCapacity();
     newWarehouseDTO.stock = data.getStock();
 
-    replaceWarehouseOperation.replace(newWarehouseDTO);
+    replaceWarehouseOperation.replace(newWarehouseDTO, Boolean.TRUE.equals(moveFulfillments));
 
     return toResponse(newWarehouseDTO);
   }
 
   @Override
   @Transactional
-  public void archiveAWarehouseUnitByID(String id) {
+  public StockAdjustmentResponse adjustWarehouseStock(String id, @NotNull StockAdjustmentRequest data) {
+    LOG.debugf("REST request to adjust stock of warehouse: %s", id);
+    int stock = adjustWarehouseStockOperation.adjust(id, data.getDeltas());
+
+    StockAdjustmentResponse response = new StockAdjustmentResponse();
+    response.setId(id);
+    response.setStock(stock);
+    response.setApplied(data.getDeltas().size());
+    return response;
+  }
+
+  @Override
+  @Transactional
+  public void archiveAWarehouseUnitByID(String id, Boolean dropFulfillments) {
     LOG.infof("REST request to archive warehouse: %s", id);
     WarehouseDTO warehouseDTO = new WarehouseDTO();
     warehouseDTO.businessUnitCode = id;
-    archiveWarehouseOperation.archive(warehouseDTO);
+    archiveWarehouseOperation.archive(warehouseDTO, Boolean.TRUE.equals(dropFulfillments));
+  }
+
+  private ZonedDateTime parseTimestamp(String at) {
+    try {
+      return ZonedDateTime.parse(String.valueOf(at));
+    } catch (DateTimeParseException e) {
+      throw new WarehouseValidationException("Timestamp " + at + " is not an ISO-8601 date-time with offset");
+    }
+  }
+
+  private WarehouseBatchItem toResponse(WarehouseBatchItemResult result) {
+    WarehouseBatchItem item = new WarehouseBatchItem();
+    item.setId(result.businessUnitCode());
+    item.setStatus(result.created() ? "CREATED" : "REJECTED");
+    item.setMessage(result.message());
+    return item;
+  }
+
+  private WarehouseGeneration toGeneration(WarehouseDTO domain) {
+    WarehouseGeneration generation = new WarehouseGeneration();
+    generation.setId(domain.businessUnitCode);
+    generation.setLocation(domain.location);
+    generation.setCapacity(domain.capacity);
+    generation.setStock(domain.stock);
+    generation.setCreatedAt(domain.creationAt != null ? domain.creationAt.toOffsetDateTime().toString() : null);
+    generation.setArchivedAt(domain.archivedAt != null ? domain.archivedAt.toOffsetDateTime().toString() : null);
+    return generation;
   }
 
   private Warehouse toResponse(WarehouseDTO domain) {
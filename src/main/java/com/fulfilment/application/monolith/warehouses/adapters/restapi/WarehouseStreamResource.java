@@ -0,0 +1,62 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fulfilment.api.beans.Warehouse;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.Path;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.StreamingOutput;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Writes every active warehouse as one JSON object per line while it is read from the database,
+ * so heap use does not grow with the number of warehouses. It lives outside /warehouse so that it
+ * cannot be shadowed by GET /warehouse/{id} for a business unit code of "stream".
+ */
+@Path("/warehouse-stream")
+@ApplicationScoped
+public class WarehouseStreamResource {
+
+  private static final Logger LOG = Logger.getLogger(WarehouseStreamResource.class);
+
+  static final String NDJSON = "application/x-ndjson";
+
+  private final WarehouseStore warehouseStore;
+  private final ObjectMapper objectMapper;
+
+  public WarehouseStreamResource(WarehouseStore warehouseStore, ObjectMapper objectMapper) {
+    this.warehouseStore = warehouseStore;
+    this.objectMapper = objectMapper;
+  }
+
+  @GET
+  @Produces(NDJSON)
+  public StreamingOutput streamWarehouses() {
+    LOG.debug("Streaming all active warehouse units");
+    // the cursor needs an open transaction for as long as the response is being written
+    return output -> QuarkusTransaction.requiringNew().run(() ->
+        warehouseStore.forEachActiveWarehouse(warehouseDTO -> writeLine(output, warehouseDTO)));
+  }
+
+  private void writeLine(OutputStream output, WarehouseDTO warehouseDTO) {
+    Warehouse warehouse = new Warehouse();
+    warehouse.setId(warehouseDTO.businessUnitCode);
+    warehouse.setLocation(warehouseDTO.location);
+    warehouse.setCapacity(warehouseDTO.capacity);
+    warehouse.setStock(warehouseDTO.stock);
+    try {
+      output.write(objectMapper.writeValueAsBytes(warehouse));
+      output.write('\n');
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
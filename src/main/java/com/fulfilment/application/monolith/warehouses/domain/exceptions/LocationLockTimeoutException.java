@@ -0,0 +1,8 @@
+package com.fulfilment.application.monolith.warehouses.domain.exceptions;
+
+public class LocationLockTimeoutException extends RuntimeException {
+
+  public LocationLockTimeoutException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,63 @@
+package com.fulfilment.application.monolith.warehouses.domain.ledger;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Event;
+import jakarta.enterprise.event.Observes;
+import jakarta.enterprise.event.TransactionPhase;
+import org.jboss.logging.Logger;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory count and summed capacity of the active warehouses per location. Changes recorded by the
+ * use cases are applied only once their transaction commits, so a rolled back create never shows up.
+ */
+@ApplicationScoped
+public class LocationOccupancyLedger {
+
+  private static final Logger LOG = Logger.getLogger(LocationOccupancyLedger.class);
+
+  private final Event<OccupancyChange> changes;
+
+  private final ConcurrentHashMap<String, LocationOccupancy> occupancies = new ConcurrentHashMap<>();
+
+  public LocationOccupancyLedger(Event<OccupancyChange> changes) {
+    this.changes = changes;
+  }
+
+  public LocationOccupancy occupancyOf(String location) {
+    LocationOccupancy occupancy = occupancies.get(location);
+    return occupancy != null ? occupancy : LocationOccupancy.empty(location);
+  }
+
+  public void record(OccupancyChange change) {
+    changes.fire(change);
+  }
+
+  void onChange(@Observes(during = TransactionPhase.AFTER_SUCCESS) OccupancyChange change) {
+    apply(change);
+  }
+
+  void apply(OccupancyChange change) {
+    LOG.debugf("Applying occupancy change %s", change);
+    occupancies.compute(change.location(), (location, current) ->
+        (current != null ? current : LocationOccupancy.empty(location)).plus(change.warehouses(), change.capacity()));
+  }
+
+  public void reset(LocationOccupancy occupancy) {
+    occupancies.put(occupancy.location(), occupancy);
+  }
+
+  // entries are overwritten in place so readers never see an empty ledger while it is rebuilt
+  public void replaceAll(Map<String, LocationOccupancy> rebuilt) {
+    occupancies.putAll(rebuilt);
+    occupancies.keySet().retainAll(rebuilt.keySet());
+    LOG.infof("Occupancy ledger rebuilt for %d locations", rebuilt.size());
+  }
+
+  public Map<String, LocationOccupancy> snapshot() {
+    return Map.copyOf(occupancies);
+  }
+}
@@ -0,0 +1,18 @@
+package com.fulfilment.application.monolith.warehouses.domain.ledger;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+
+public record OccupancyChange(String location, int warehouses, int capacity) {
+
+  public static OccupancyChange added(WarehouseDTO warehouse) {
+    return new OccupancyChange(warehouse.location, 1, capacityOf(warehouse));
+  }
+
+  public static OccupancyChange removed(WarehouseDTO warehouse) {
+    return new OccupancyChange(warehouse.location, -1, -capacityOf(warehouse));
+  }
+
+  private static int capacityOf(WarehouseDTO warehouse) {
+    return warehouse.capacity != null ? warehouse.capacity : 0;
+  }
+}
@@ -0,0 +1,80 @@
+package com.fulfilment.application.monolith.warehouses.domain.ledger;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.runtime.StartupEvent;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Seeds the occupancy ledger from the database at startup and periodically compares the two. A
+ * location is only corrected when the same difference is seen on two consecutive checks, so a
+ * commit whose ledger update is still in flight is not mistaken for drift.
+ */
+@ApplicationScoped
+public class OccupancyLedgerReconciler {
+
+  private static final Logger LOG = Logger.getLogger(OccupancyLedgerReconciler.class);
+
+  private final WarehouseStore warehouseStore;
+  private final LocationOccupancyLedger occupancyLedger;
+  private final Counter corrections;
+
+  private Map<String, LocationOccupancy> suspects = Map.of();
+
+  public OccupancyLedgerReconciler(
+      WarehouseStore warehouseStore,
+      LocationOccupancyLedger occupancyLedger,
+      MeterRegistry meterRegistry) {
+    this.warehouseStore = warehouseStore;
+    this.occupancyLedger = occupancyLedger;
+    this.corrections = Counter.builder("warehouse.occupancy.ledger.corrections")
+        .description("Locations whose ledger entry disagreed with the database and was corrected")
+        .register(meterRegistry);
+  }
+
+  @Transactional
+  void onStart(@Observes StartupEvent event) {
+    occupancyLedger.replaceAll(warehouseStore.getOccupancyOfAllLocations());
+  }
+
+  @Scheduled(
+      every = "${warehouse.occupancy.check-interval:5m}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  @Transactional
+  void checkConsistency() {
+    Map<String, LocationOccupancy> actual = warehouseStore.getOccupancyOfAllLocations();
+    Map<String, LocationOccupancy> recorded = occupancyLedger.snapshot();
+
+    Set<String> locations = new HashSet<>(actual.keySet());
+    locations.addAll(recorded.keySet());
+
+    Map<String, LocationOccupancy> drifted = new HashMap<>();
+    for (String location : locations) {
+      LocationOccupancy expected = actual.getOrDefault(location, LocationOccupancy.empty(location));
+      LocationOccupancy current = recorded.getOrDefault(location, LocationOccupancy.empty(location));
+      if (expected.equals(current)) {
+        continue;
+      }
+      drifted.put(location, expected);
+      if (expected.equals(suspects.get(location))) {
+        LOG.warnf("Occupancy ledger drifted for %s: ledger %s, database %s", location, current, expected);
+        occupancyLedger.reset(expected);
+        corrections.increment();
+      } else {
+        LOG.debugf("Occupancy ledger differs for %s, re-checking on next run", location);
+      }
+    }
+    suspects = drifted;
+  }
+}
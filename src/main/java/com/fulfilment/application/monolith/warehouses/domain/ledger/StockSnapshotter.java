@@ -0,0 +1,44 @@
+package com.fulfilment.application.monolith.warehouses.domain.ledger;
+
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
+import com.fulfilment.application.monolith.warehouses.domain.utils.WarehouseTimestampUtil;
+import io.quarkus.scheduler.Scheduled;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.jboss.logging.Logger;
+
+import java.time.Duration;
+
+/**
+ * Periodically folds new stock movements into per-warehouse balances, so a point-in-time stock
+ * lookup replays only the movements after the latest snapshot. Snapshots trail the clock by a lag
+ * longer than the transaction timeout: a movement is timestamped inside its transaction, so once
+ * the lag has passed every movement up to the cutoff has either committed or rolled back.
+ */
+@ApplicationScoped
+public class StockSnapshotter {
+
+  private static final Logger LOG = Logger.getLogger(StockSnapshotter.class);
+
+  private final StockMovementStore stockMovementStore;
+  private final Duration lag;
+
+  @Inject
+  public StockSnapshotter(
+      StockMovementStore stockMovementStore,
+      @ConfigProperty(name = "warehouse.stock-snapshot.lag", defaultValue = "2m") Duration lag) {
+    this.stockMovementStore = stockMovementStore;
+    this.lag = lag;
+  }
+
+  @Scheduled(
+      every = "${warehouse.stock-snapshot.interval:1m}",
+      concurrentExecution = Scheduled.ConcurrentExecution.SKIP)
+  @Transactional
+  void takeSnapshot() {
+    int snapshots = stockMovementStore.snapshotUpTo(WarehouseTimestampUtil.getCurrentTimestamp().minus(lag));
+    LOG.debugf("Took stock snapshots of %d warehouses", snapshots);
+  }
+}
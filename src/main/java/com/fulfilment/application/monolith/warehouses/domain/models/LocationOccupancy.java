@@ -0,0 +1,13 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+// number of active warehouses at a location and the sum of their capacities
+public record LocationOccupancy(String location, int activeWarehouses, int totalCapacity) {
+
+  public static LocationOccupancy empty(String location) {
+    return new LocationOccupancy(location, 0, 0);
+  }
+
+  public LocationOccupancy plus(int warehouses, int capacity) {
+    return new LocationOccupancy(location, activeWarehouses + warehouses, totalCapacity + capacity);
+  }
+}
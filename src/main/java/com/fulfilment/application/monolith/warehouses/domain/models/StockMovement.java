@@ -0,0 +1,26 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+import java.time.ZonedDateTime;
+
+// one signed change of a warehouse's stock; the movements of a business unit code add up to the
+// stock of its active generation, or to zero once it is archived
+public record StockMovement(String businessUnitCode, int delta, Reason reason, ZonedDateTime occurredAt) {
+
+  public enum Reason {
+    CREATED,
+    ADJUSTED,
+    ARCHIVED
+  }
+
+  public static StockMovement created(WarehouseDTO warehouse) {
+    return new StockMovement(warehouse.businessUnitCode, stockOf(warehouse), Reason.CREATED, warehouse.creationAt);
+  }
+
+  public static StockMovement archived(WarehouseDTO warehouse) {
+    return new StockMovement(warehouse.businessUnitCode, -stockOf(warehouse), Reason.ARCHIVED, warehouse.archivedAt);
+  }
+
+  private static int stockOf(WarehouseDTO warehouse) {
+    return warehouse.stock != null ? warehouse.stock : 0;
+  }
+}
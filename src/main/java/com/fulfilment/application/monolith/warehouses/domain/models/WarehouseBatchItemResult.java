@@ -0,0 +1,12 @@
+package com.fulfilment.application.monolith.warehouses.domain.models;
+
+public record WarehouseBatchItemResult(String businessUnitCode, boolean created, String message) {
+
+  public static WarehouseBatchItemResult created(String businessUnitCode) {
+    return new WarehouseBatchItemResult(businessUnitCode, true, null);
+  }
+
+  public static WarehouseBatchItemResult rejected(String businessUnitCode, String message) {
+    return new WarehouseBatchItemResult(businessUnitCode, false, message);
+  }
+}
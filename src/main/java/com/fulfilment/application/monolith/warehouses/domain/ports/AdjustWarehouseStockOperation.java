@@ -0,0 +1,8 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import java.util.List;
+
+public interface AdjustWarehouseStockOperation {
+  // returns the stock after all deltas are applied
+  int adjust(String businessUnitCode, List<Integer> deltas);
+}
@@ -3,5 +3,5 @@ package com.fulfilment.application.monolith.warehouses.domain.ports;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
 
 public interface ArchiveWarehouseOperation {
-  void archive(WarehouseDTO warehouseDTO);
+  void archive(WarehouseDTO warehouseDTO, boolean dropFulfillments);
 }
@@ -0,0 +1,11 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseBatchItemResult;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+
+import java.util.List;
+
+public interface BatchCreateWarehouseOperation {
+  // results are returned in the order of the given warehouses
+  List<WarehouseBatchItemResult> createAll(List<WarehouseDTO> warehouseDTOs);
+}
@@ -0,0 +1,9 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import java.util.Collection;
+
+public interface LocationLock {
+  // blocks until the caller's transaction exclusively holds every given location; the locks are
+  // released when that transaction completes
+  void lock(Collection<String> locations);
+}
@@ -2,6 +2,18 @@ package com.fulfilment.application.monolith.warehouses.domain.ports;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
 
+import java.util.Collection;
+import java.util.Map;
+
 public interface LocationResolver {
   LocationDTO resolveByIdentifier(String identifier);
+
+  // unknown identifiers are left out of the returned map
+  Map<String, LocationDTO> resolveAll(Collection<String> identifiers);
+
+  // opened before the limits of a validation are resolved and closed once they have been applied,
+  // so the resolver can tell whether the catalogue was replaced while they were in use
+  default LocationValidation startValidation() {
+    return () -> {};
+  }
 }
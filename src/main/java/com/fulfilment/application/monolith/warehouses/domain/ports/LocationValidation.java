@@ -0,0 +1,7 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+// spans a validation from the first location lookup until its limits have been applied
+public interface LocationValidation extends AutoCloseable {
+  @Override
+  void close();
+}
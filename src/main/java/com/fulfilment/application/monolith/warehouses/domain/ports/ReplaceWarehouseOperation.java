@@ -3,5 +3,5 @@ package com.fulfilment.application.monolith.warehouses.domain.ports;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
 
 public interface ReplaceWarehouseOperation {
-  void replace(WarehouseDTO warehouseDTO);
+  void replace(WarehouseDTO warehouseDTO, boolean moveFulfillments);
 }
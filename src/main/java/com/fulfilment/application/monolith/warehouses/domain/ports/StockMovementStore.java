@@ -0,0 +1,19 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+
+public interface StockMovementStore {
+  // append-only, movements are never updated or removed
+  void append(List<StockMovement> movements);
+
+  // latest snapshot at or before the instant plus the movements after it; null when the business
+  // unit code had no movement up to then
+  Integer findStockAsOf(String buCode, ZonedDateTime asOf);
+
+  // folds the movements since the previous snapshot run up to the cutoff into new per-warehouse
+  // balances and returns how many warehouses got one
+  int snapshotUpTo(ZonedDateTime cutoff);
+}
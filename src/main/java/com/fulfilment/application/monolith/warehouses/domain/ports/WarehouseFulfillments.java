@@ -0,0 +1,15 @@
+package com.fulfilment.application.monolith.warehouses.domain.ports;
+
+public interface WarehouseFulfillments {
+
+  // moves the fulfillments of the generation archived last over to the active generation of the
+  // business unit, in the caller's transaction; returns how many were moved
+  int moveToActiveGeneration(String businessUnitCode);
+
+  // keeps the fulfillments of the generation archived last as its history, but they no longer
+  // count towards any fulfillment limit; returns how many were detached
+  int detachFromArchivedGeneration(String businessUnitCode);
+
+  // deletes the fulfillments of the generation archived last; returns how many were deleted
+  int dropFromArchivedGeneration(String businessUnitCode);
+}
@@ -1,21 +1,57 @@
 package com.fulfilment.application.monolith.warehouses.domain.ports;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
 
+import java.time.ZonedDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface WarehouseStore {
   void create(WarehouseDTO warehouseDTO);
 
+  void createAll(List<WarehouseDTO> warehouseDTOs);
+
   void update(WarehouseDTO warehouseDTO);
 
   void remove(WarehouseDTO warehouseDTO);
 
+  // conditional in-place update; returns the new stock, or null when there is no active warehouse
+  // with this code or the delta would take its stock below zero or above its capacity
+  Integer adjustStock(String buCode, int delta);
+
+  // sets only archivedAt on the active generation and returns that generation as stored, so its
+  // stock is the one it was archived with; null when there is no active warehouse with this code
+  WarehouseDTO archive(String buCode, ZonedDateTime archivedAt);
+
   WarehouseDTO findByBusinessUnitCode(String buCode);
 
+  Set<String> findActiveBusinessUnitCodes(Collection<String> buCodes);
+
+  // every generation of the business unit, active and archived, oldest first
+  List<WarehouseDTO> findHistoryByBusinessUnitCode(String buCode);
+
+  WarehouseDTO findByBusinessUnitCodeAsOf(String buCode, ZonedDateTime asOf);
+
   List<WarehouseDTO> findActiveByLocation(String location);
 
   List<WarehouseDTO> findAllActiveWarehouses();
 
+  // ordered by business unit code; afterBusinessUnitCode is exclusive and may be null for the first page
+  List<WarehouseDTO> findActiveWarehousesPage(String afterBusinessUnitCode, int limit);
+
+  // streams every active warehouse in business unit code order without holding them in memory
+  void forEachActiveWarehouse(Consumer<WarehouseDTO> consumer);
+
   int getTotalCapacityByLocation(String location);
+
+  LocationOccupancy getOccupancyByLocation(String location);
+
+  // locations without active warehouses are left out of the result
+  Map<String, LocationOccupancy> getOccupancyByLocations(Collection<String> locations);
+
+  Map<String, LocationOccupancy> getOccupancyOfAllLocations();
 }
@@ -0,0 +1,71 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.AdjustWarehouseStockOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import com.fulfilment.application.monolith.warehouses.domain.utils.WarehouseTimestampUtil;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.jboss.logging.Logger;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Applies stock deltas with a single conditional update instead of loading and replacing the
+ * warehouse. The deltas of one request are summed first: they are applied atomically, so only the
+ * resulting stock has to stay within zero and the capacity, and a hot warehouse costs one short
+ * row lock per request however many deltas it carries.
+ */
+@ApplicationScoped
+public class AdjustWarehouseStockUseCase implements AdjustWarehouseStockOperation {
+
+  private static final Logger LOG = Logger.getLogger(AdjustWarehouseStockUseCase.class);
+
+  static final int MAX_DELTAS = 1_000;
+
+  private final WarehouseStore warehouseStore;
+  private final StockMovementStore stockMovementStore;
+
+  public AdjustWarehouseStockUseCase(WarehouseStore warehouseStore, StockMovementStore stockMovementStore) {
+    this.warehouseStore = warehouseStore;
+    this.stockMovementStore = stockMovementStore;
+  }
+
+  @Override
+  public int adjust(String businessUnitCode, List<Integer> deltas) {
+    LOG.debugf("Adjusting stock of warehouse %s by %s", businessUnitCode, deltas);
+    if (deltas == null || deltas.isEmpty() || deltas.size() > MAX_DELTAS) {
+      throw new WarehouseValidationException("A stock adjustment must contain between 1 and " + MAX_DELTAS + " deltas");
+    }
+    if (deltas.stream().anyMatch(Objects::isNull)) {
+      throw new WarehouseValidationException("Stock deltas must not be null");
+    }
+    long sum = deltas.stream().mapToLong(Integer::longValue).sum();
+    if (sum < Integer.MIN_VALUE || sum > Integer.MAX_VALUE) {
+      throw new WarehouseValidationException("Stock deltas add up to " + sum + ", which no warehouse can hold");
+    }
+
+    Integer stock = warehouseStore.adjustStock(businessUnitCode, (int) sum);
+    if (stock != null) {
+      // the ledger keeps every delta, only the update works on their sum
+      ZonedDateTime occurredAt = WarehouseTimestampUtil.getCurrentTimestamp();
+      stockMovementStore.append(deltas.stream()
+          .map(delta -> new StockMovement(businessUnitCode, delta, StockMovement.Reason.ADJUSTED, occurredAt))
+          .toList());
+      return stock;
+    }
+
+    // nothing was updated: tell a missing warehouse apart from one the delta does not fit
+    WarehouseDTO warehouse = warehouseStore.findByBusinessUnitCode(businessUnitCode);
+    if (warehouse == null) {
+      throw new WarehouseNotFoundException("Warehouse with business unit code " + businessUnitCode + " does not exist");
+    }
+    throw new WarehouseValidationException("Adjusting stock of warehouse " + businessUnitCode + " by " + sum
+        + " would leave it outside 0.." + warehouse.capacity + " (current stock " + warehouse.stock + ")");
+  }
+}
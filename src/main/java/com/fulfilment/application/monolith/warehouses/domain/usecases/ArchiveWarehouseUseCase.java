@@ -1,13 +1,20 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
+import com.fulfilment.application.monolith.warehouses.domain.ledger.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.OccupancyChange;
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ArchiveWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseFulfillments;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.fulfilment.application.monolith.warehouses.domain.utils.WarehouseTimestampUtil;
 import com.fulfilment.application.monolith.warehouses.domain.validators.WarehouseExistenceValidator;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.jboss.logging.Logger;
 
+import java.util.List;
+
 @ApplicationScoped
 public class ArchiveWarehouseUseCase implements ArchiveWarehouseOperation {
 
@@ -15,24 +22,46 @@ public class ArchiveWarehouseUseCase implements ArchiveWarehouseOperation {
 
   private final WarehouseStore warehouseStore;
   private final WarehouseExistenceValidator warehouseExistenceValidator;
+  private final LocationOccupancyLedger occupancyLedger;
+  private final StockMovementStore stockMovementStore;
+  private final WarehouseFulfillments warehouseFulfillments;
 
   public ArchiveWarehouseUseCase(
       WarehouseStore warehouseStore,
-      WarehouseExistenceValidator warehouseExistenceValidator) {
+      WarehouseExistenceValidator warehouseExistenceValidator,
+      LocationOccupancyLedger occupancyLedger,
+      StockMovementStore stockMovementStore,
+      WarehouseFulfillments warehouseFulfillments) {
     this.warehouseStore = warehouseStore;
     this.warehouseExistenceValidator = warehouseExistenceValidator;
+    this.occupancyLedger = occupancyLedger;
+    this.stockMovementStore = stockMovementStore;
+    this.warehouseFulfillments = warehouseFulfillments;
   }
 
   @Override
-  public void archive(WarehouseDTO warehouseDTO) {
+  public void archive(WarehouseDTO warehouseDTO, boolean dropFulfillments) {
     LOG.infof("Archiving warehouse %s", warehouseDTO.businessUnitCode);
 
     WarehouseDTO existingWarehouse = warehouseStore.findByBusinessUnitCode(warehouseDTO.businessUnitCode);
     warehouseExistenceValidator.validateWarehouseExists(existingWarehouse, warehouseDTO.businessUnitCode);
     warehouseExistenceValidator.validateWarehouseNotArchived(existingWarehouse);
 
-    warehouseDTO.archivedAt = WarehouseTimestampUtil.getCurrentTimestamp();
-    warehouseStore.update(warehouseDTO);
+    // the loaded generation may come from the cache and miss a concurrent adjustment, so only
+    // archivedAt is written and the ledgers get the generation as the archive left it
+    WarehouseDTO archivedWarehouse = warehouseStore.archive(warehouseDTO.businessUnitCode, WarehouseTimestampUtil.getCurrentTimestamp());
+    warehouseExistenceValidator.validateWarehouseExists(archivedWarehouse, warehouseDTO.businessUnitCode);
+    // the stock leaves with the archived generation
+    stockMovementStore.append(List.of(StockMovement.archived(archivedWarehouse)));
+    occupancyLedger.record(OccupancyChange.removed(archivedWarehouse));
+    // either way the fulfillments stop counting towards the limits, with a fixed number of statements
+    if (dropFulfillments) {
+      int dropped = warehouseFulfillments.dropFromArchivedGeneration(warehouseDTO.businessUnitCode);
+      LOG.infof("Dropped %d fulfillments of archived warehouse %s", dropped, warehouseDTO.businessUnitCode);
+    } else {
+      int detached = warehouseFulfillments.detachFromArchivedGeneration(warehouseDTO.businessUnitCode);
+      LOG.infof("Detached %d fulfillments of archived warehouse %s", detached, warehouseDTO.businessUnitCode);
+    }
 
     LOG.infof("Warehouse %s archived successfully", warehouseDTO.businessUnitCode);
   }
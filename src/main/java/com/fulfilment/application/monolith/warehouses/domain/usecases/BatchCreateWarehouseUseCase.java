@@ -0,0 +1,139 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.OccupancyChange;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseBatchItemResult;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchCreateWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationValidation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import com.fulfilment.application.monolith.warehouses.domain.utils.WarehouseTimestampUtil;
+import com.fulfilment.application.monolith.warehouses.domain.validators.CapacityValidator;
+import com.fulfilment.application.monolith.warehouses.domain.validators.LocationValidator;
+import jakarta.enterprise.context.ApplicationScoped;
+import org.jboss.logging.Logger;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Creates many warehouses at once. Existing business unit codes and location occupancy are loaded
+ * with one query each, after which every item is validated in memory against the same rules as a
+ * single create, including the capacity and slots taken by earlier items of the batch. Valid items
+ * are persisted together; rejected ones are reported back without failing the batch.
+ */
+@ApplicationScoped
+public class BatchCreateWarehouseUseCase implements BatchCreateWarehouseOperation {
+
+  private static final Logger LOG = Logger.getLogger(BatchCreateWarehouseUseCase.class);
+
+  static final int MAX_BATCH_SIZE = 10_000;
+
+  private final WarehouseStore warehouseStore;
+  private final LocationValidator locationValidator;
+  private final CapacityValidator capacityValidator;
+  private final LocationOccupancyLedger occupancyLedger;
+  private final LocationLock locationLock;
+  private final StockMovementStore stockMovementStore;
+
+  public BatchCreateWarehouseUseCase(
+      WarehouseStore warehouseStore,
+      LocationValidator locationValidator,
+      CapacityValidator capacityValidator,
+      LocationOccupancyLedger occupancyLedger,
+      LocationLock locationLock,
+      StockMovementStore stockMovementStore) {
+    this.warehouseStore = warehouseStore;
+    this.locationValidator = locationValidator;
+    this.capacityValidator = capacityValidator;
+    this.occupancyLedger = occupancyLedger;
+    this.locationLock = locationLock;
+    this.stockMovementStore = stockMovementStore;
+  }
+
+  @Override
+  public List<WarehouseBatchItemResult> createAll(List<WarehouseDTO> warehouseDTOs) {
+    LOG.infof("Creating %d warehouses in batch", warehouseDTOs.size());
+    if (warehouseDTOs.isEmpty() || warehouseDTOs.size() > MAX_BATCH_SIZE) {
+      throw new WarehouseValidationException("A batch must contain between 1 and " + MAX_BATCH_SIZE + " warehouses");
+    }
+
+    Set<String> takenCodes = new HashSet<>(warehouseStore.findActiveBusinessUnitCodes(
+        warehouseDTOs.stream().map(w -> w.businessUnitCode).filter(Objects::nonNull).toList()));
+    List<String> locations = warehouseDTOs.stream().map(w -> w.location).filter(Objects::nonNull).distinct().toList();
+    // held until commit, so the occupancy read below stays valid for the whole batch
+    locationLock.lock(locations);
+    Map<String, LocationOccupancy> occupancies = new HashMap<>(warehouseStore.getOccupancyByLocations(locations));
+
+    List<WarehouseBatchItemResult> results = new ArrayList<>(warehouseDTOs.size());
+    List<WarehouseDTO> accepted = new ArrayList<>();
+    try (LocationValidation validation = locationValidator.startValidation()) {
+      for (WarehouseDTO warehouseDTO : warehouseDTOs) {
+        try {
+          validate(warehouseDTO, takenCodes, occupancies);
+        } catch (WarehouseValidationException e) {
+          results.add(WarehouseBatchItemResult.rejected(warehouseDTO.businessUnitCode, e.getMessage()));
+          continue;
+        }
+        takenCodes.add(warehouseDTO.businessUnitCode);
+        occupancies.merge(
+            warehouseDTO.location,
+            new LocationOccupancy(warehouseDTO.location, 1, warehouseDTO.capacity),
+            (current, added) -> current.plus(added.activeWarehouses(), added.totalCapacity()));
+        accepted.add(warehouseDTO);
+        results.add(WarehouseBatchItemResult.created(warehouseDTO.businessUnitCode));
+      }
+    }
+
+    persistNewWarehouses(accepted);
+    LOG.infof("Warehouse batch done: %d created, %d rejected", accepted.size(), warehouseDTOs.size() - accepted.size());
+    return results;
+  }
+
+  private void validate(WarehouseDTO warehouseDTO, Set<String> takenCodes, Map<String, LocationOccupancy> occupancies) {
+    if (warehouseDTO.businessUnitCode == null || warehouseDTO.capacity == null || warehouseDTO.stock == null) {
+      throw new WarehouseValidationException("Warehouse business unit code, capacity and stock are required");
+    }
+    if (takenCodes.contains(warehouseDTO.businessUnitCode)) {
+      throw new WarehouseValidationException(
+          "Warehouse with business unit code " + warehouseDTO.businessUnitCode + " already exists");
+    }
+
+    LocationDTO location = locationValidator.validateAndResolveLocation(warehouseDTO.location);
+
+    LocationOccupancy occupancy = occupancies.getOrDefault(warehouseDTO.location, LocationOccupancy.empty(warehouseDTO.location));
+    capacityValidator.validateMaxWarehousesAtLocation(occupancy.activeWarehouses(), location, warehouseDTO.location);
+    capacityValidator.validateLocationCapacity(occupancy.totalCapacity(), warehouseDTO.capacity, location, warehouseDTO.location);
+
+    capacityValidator.validateStockDoesNotExceedCapacity(warehouseDTO.stock, warehouseDTO.capacity);
+  }
+
+  private void persistNewWarehouses(List<WarehouseDTO> accepted) {
+    if (accepted.isEmpty()) {
+      return;
+    }
+    ZonedDateTime creationAt = WarehouseTimestampUtil.getCurrentTimestamp();
+    Map<String, OccupancyChange> changes = new HashMap<>();
+    for (WarehouseDTO warehouseDTO : accepted) {
+      warehouseDTO.creationAt = creationAt;
+      changes.merge(warehouseDTO.location, OccupancyChange.added(warehouseDTO),
+          (a, b) -> new OccupancyChange(a.location(), a.warehouses() + b.warehouses(), a.capacity() + b.capacity()));
+    }
+    warehouseStore.createAll(accepted);
+    stockMovementStore.append(accepted.stream().map(StockMovement::created).toList());
+    // one ledger change per location rather than per warehouse
+    changes.values().forEach(occupancyLedger::record);
+  }
+}
@@ -1,8 +1,15 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
+import com.fulfilment.application.monolith.warehouses.domain.ledger.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.OccupancyChange;
 import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
 import com.fulfilment.application.monolith.warehouses.domain.ports.CreateWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationValidation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.fulfilment.application.monolith.warehouses.domain.utils.WarehouseTimestampUtil;
 import com.fulfilment.application.monolith.warehouses.domain.validators.CapacityValidator;
@@ -11,6 +18,8 @@ import com.fulfilment.application.monolith.warehouses.domain.validators.Warehous
 import jakarta.enterprise.context.ApplicationScoped;
 import org.jboss.logging.Logger;
 
+import java.util.List;
+
 @ApplicationScoped
 public class CreateWarehouseUseCase implements CreateWarehouseOperation {
 
@@ -20,22 +29,34 @@ public class CreateWarehouseUseCase implements CreateWarehouseOperation {
   private final WarehouseExistenceValidator warehouseExistenceValidator;
   private final LocationValidator locationValidator;
   private final CapacityValidator capacityValidator;
+  private final LocationOccupancyLedger occupancyLedger;
+  private final LocationLock locationLock;
+  private final StockMovementStore stockMovementStore;
 
   public CreateWarehouseUseCase(
       WarehouseStore warehouseStore,
       WarehouseExistenceValidator warehouseExistenceValidator,
       LocationValidator locationValidator,
-      CapacityValidator capacityValidator) {
+      CapacityValidator capacityValidator,
+      LocationOccupancyLedger occupancyLedger,
+      LocationLock locationLock,
+      StockMovementStore stockMovementStore) {
     this.warehouseStore = warehouseStore;
     this.warehouseExistenceValidator = warehouseExistenceValidator;
     this.locationValidator = locationValidator;
     this.capacityValidator = capacityValidator;
+    this.occupancyLedger = occupancyLedger;
+    this.locationLock = locationLock;
+    this.stockMovementStore = stockMovementStore;
   }
 
   @Override
   public void create(WarehouseDTO warehouseDTO) {
     LOG.infof("Creating warehouse with business unit code: %s at location: %s", warehouseDTO.businessUnitCode, warehouseDTO.location);
-    validateWarehouseCreation(warehouseDTO);
+    // the validation ends once the limits have been checked under the location lock
+    try (LocationValidation validation = locationValidator.startValidation()) {
+      validateWarehouseCreation(warehouseDTO);
+    }
     persistNewWarehouse(warehouseDTO);
     LOG.infof("Warehouse %s created successfully", warehouseDTO.businessUnitCode);
   }
@@ -48,17 +69,26 @@ public class CreateWarehouseUseCase implements CreateWarehouseOperation {
 
     LocationDTO location = locationValidator.validateAndResolveLocation(warehouseDTO.location);
 
-    int activeWarehousesCount = warehouseStore.findActiveByLocation(warehouseDTO.location).size();
-    capacityValidator.validateMaxWarehousesAtLocation(activeWarehousesCount, location, warehouseDTO.location);
-
-    int currentTotalCapacity = warehouseStore.getTotalCapacityByLocation(warehouseDTO.location);
-    capacityValidator.validateLocationCapacity(currentTotalCapacity, warehouseDTO.capacity, location, warehouseDTO.location);
+    // the ledger rejects requests for a full location without waiting behind its other writers
+    validateLocationLimits(warehouseDTO, location, occupancyLedger.occupancyOf(warehouseDTO.location));
 
     capacityValidator.validateStockDoesNotExceedCapacity(warehouseDTO.stock, warehouseDTO.capacity);
+
+    // the ledger can trail commits of concurrent writers, so the limits are checked again against
+    // the database while this transaction holds the location until it commits
+    locationLock.lock(List.of(warehouseDTO.location));
+    validateLocationLimits(warehouseDTO, location, warehouseStore.getOccupancyByLocation(warehouseDTO.location));
+  }
+
+  private void validateLocationLimits(WarehouseDTO warehouseDTO, LocationDTO location, LocationOccupancy occupancy) {
+    capacityValidator.validateMaxWarehousesAtLocation(occupancy.activeWarehouses(), location, warehouseDTO.location);
+    capacityValidator.validateLocationCapacity(occupancy.totalCapacity(), warehouseDTO.capacity, location, warehouseDTO.location);
   }
 
   private void persistNewWarehouse(WarehouseDTO warehouseDTO) {
     warehouseDTO.creationAt = WarehouseTimestampUtil.getCurrentTimestamp();
     warehouseStore.create(warehouseDTO);
+    stockMovementStore.append(List.of(StockMovement.created(warehouseDTO)));
+    occupancyLedger.record(OccupancyChange.added(warehouseDTO));
   }
 }
@@ -1,8 +1,14 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
+import com.fulfilment.application.monolith.warehouses.domain.ledger.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.OccupancyChange;
 import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationValidation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ReplaceWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseFulfillments;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.fulfilment.application.monolith.warehouses.domain.utils.WarehouseTimestampUtil;
 import com.fulfilment.application.monolith.warehouses.domain.validators.CapacityValidator;
@@ -11,6 +17,8 @@ import com.fulfilment.application.monolith.warehouses.domain.validators.Warehous
 import jakarta.enterprise.context.ApplicationScoped;
 import org.jboss.logging.Logger;
 
+import java.util.List;
+
 @ApplicationScoped
 public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
 
@@ -20,28 +28,50 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
   private final WarehouseExistenceValidator warehouseExistenceValidator;
   private final LocationValidator locationValidator;
   private final CapacityValidator capacityValidator;
+  private final LocationOccupancyLedger occupancyLedger;
+  private final LocationLock locationLock;
+  private final WarehouseFulfillments warehouseFulfillments;
 
   public ReplaceWarehouseUseCase(
       WarehouseStore warehouseStore,
       WarehouseExistenceValidator warehouseExistenceValidator,
       LocationValidator locationValidator,
-      CapacityValidator capacityValidator) {
+      CapacityValidator capacityValidator,
+      LocationOccupancyLedger occupancyLedger,
+      LocationLock locationLock,
+      WarehouseFulfillments warehouseFulfillments) {
     this.warehouseStore = warehouseStore;
     this.warehouseExistenceValidator = warehouseExistenceValidator;
     this.locationValidator = locationValidator;
     this.capacityValidator = capacityValidator;
+    this.occupancyLedger = occupancyLedger;
+    this.locationLock = locationLock;
+    this.warehouseFulfillments = warehouseFulfillments;
   }
 
   @Override
-  public void replace(WarehouseDTO newWarehouseDTO) {
+  public void replace(WarehouseDTO newWarehouseDTO, boolean moveFulfillments) {
     LOG.infof("Replacing warehouse %s at location %s", newWarehouseDTO.businessUnitCode, newWarehouseDTO.location);
 
     WarehouseDTO existingWarehouse = warehouseStore.findByBusinessUnitCode(newWarehouseDTO.businessUnitCode);
-    LocationDTO newLocation = locationValidator.validateAndResolveLocation(newWarehouseDTO.location);
+    try (LocationValidation validation = locationValidator.startValidation()) {
+      LocationDTO newLocation = locationValidator.validateAndResolveLocation(newWarehouseDTO.location);
+
+      validateWarehouseReplacement(newWarehouseDTO, existingWarehouse, newLocation);
+      validateLocationLimits(newWarehouseDTO, existingWarehouse, newLocation, occupancyLedger.occupancyOf(newWarehouseDTO.location));
+
+      // both locations change, so both are held; the limits are re-checked against the database
+      // because the ledger can trail commits of concurrent writers
+      locationLock.lock(List.of(existingWarehouse.location, newWarehouseDTO.location));
+      validateLocationLimits(newWarehouseDTO, existingWarehouse, newLocation, warehouseStore.getOccupancyByLocation(newWarehouseDTO.location));
+    }
 
-    validateWarehouseReplacement(newWarehouseDTO, existingWarehouse, newLocation);
-    archiveExistingWarehouse(existingWarehouse);
+    archiveExistingWarehouse(existingWarehouse, newWarehouseDTO);
     createReplacementWarehouse(newWarehouseDTO);
+    if (moveFulfillments) {
+      int moved = warehouseFulfillments.moveToActiveGeneration(newWarehouseDTO.businessUnitCode);
+      LOG.infof("Moved %d fulfillments to the new generation of warehouse %s", moved, newWarehouseDTO.businessUnitCode);
+    }
 
     LOG.infof("Warehouse %s replaced successfully", newWarehouseDTO.businessUnitCode);
   }
@@ -54,21 +84,26 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
 
     capacityValidator.validateStockMatches(newWarehouse.stock, existingWarehouse.stock);
     capacityValidator.validateStockDoesNotExceedCapacity(newWarehouse.stock, newWarehouse.capacity);
+  }
 
-    int currentTotalCapacity = warehouseStore.getTotalCapacityByLocation(newWarehouse.location);
-    capacityValidator.validateLocationCapacityForReplacement(currentTotalCapacity, newWarehouse, existingWarehouse, newLocation);
+  private void validateLocationLimits(
+      WarehouseDTO newWarehouse, WarehouseDTO existingWarehouse, LocationDTO newLocation, LocationOccupancy occupancy) {
+    capacityValidator.validateLocationCapacityForReplacement(occupancy.totalCapacity(), newWarehouse, existingWarehouse, newLocation);
 
     if (!newWarehouse.location.equals(existingWarehouse.location)) {
       LOG.debugf("Location change detected: %s -> %s", existingWarehouse.location, newWarehouse.location);
-      int activeWarehousesCount = warehouseStore.findActiveByLocation(newWarehouse.location).size();
-      capacityValidator.validateMaxWarehousesAtLocation(activeWarehousesCount, newLocation, newWarehouse.location);
+      capacityValidator.validateMaxWarehousesAtLocation(occupancy.activeWarehouses(), newLocation, newWarehouse.location);
     }
   }
 
-  private void archiveExistingWarehouse(WarehouseDTO existingWarehouse) {
+  private void archiveExistingWarehouse(WarehouseDTO existingWarehouse, WarehouseDTO newWarehouse) {
     LOG.debugf("Archiving existing warehouse %s", existingWarehouse.businessUnitCode);
-    existingWarehouse.archivedAt = WarehouseTimestampUtil.getCurrentTimestamp();
-    warehouseStore.update(existingWarehouse);
+    // only archivedAt is written, so a concurrent stock adjustment is not overwritten with the
+    // loaded stock; the replacement still has to match the stock the archive actually saw
+    WarehouseDTO archivedWarehouse = warehouseStore.archive(existingWarehouse.businessUnitCode, WarehouseTimestampUtil.getCurrentTimestamp());
+    warehouseExistenceValidator.validateWarehouseExists(archivedWarehouse, existingWarehouse.businessUnitCode);
+    capacityValidator.validateStockMatches(newWarehouse.stock, archivedWarehouse.stock);
+    occupancyLedger.record(OccupancyChange.removed(archivedWarehouse));
   }
 
   private void createReplacementWarehouse(WarehouseDTO newWarehouse) {
@@ -76,5 +111,6 @@ public class ReplaceWarehouseUseCase implements ReplaceWarehouseOperation {
     newWarehouse.creationAt = WarehouseTimestampUtil.getCurrentTimestamp();
     newWarehouse.archivedAt = null;
     warehouseStore.create(newWarehouse);
+    occupancyLedger.record(OccupancyChange.added(newWarehouse));
   }
 }
@@ -3,6 +3,7 @@ package com.fulfilment.application.monolith.warehouses.domain.validators;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
 import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
 import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationValidation;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.jboss.logging.Logger;
 
@@ -17,6 +18,10 @@ public class LocationValidator {
     this.locationResolver = locationResolver;
   }
 
+  public LocationValidation startValidation() {
+    return locationResolver.startValidation();
+  }
+
   public LocationDTO validateAndResolveLocation(String locationIdentifier) {
     LOG.debugf("Resolving location: %s", locationIdentifier);
     LocationDTO location = locationResolver.resolveByIdentifier(locationIdentifier);
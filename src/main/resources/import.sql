@@ -1,3 +1,5 @@
+CREATE UNIQUE INDEX ux_fulfillment_attached ON fulfillment(warehouse_id, product_id, store_id) WHERE detached_at IS NULL;
+
 INSERT INTO store(id, name, quantityProductsInStock) VALUES (1, 'HAARLEM', 10);
 INSERT INTO store(id, name, quantityProductsInStock) VALUES (2, 'AMSTERDAM', 5);
 INSERT INTO store(id, name, quantityProductsInStock) VALUES (3, 'HENGELO', 3);
@@ -15,3 +17,10 @@ VALUES (2, 'MWH.012', 'AMSTERDAM-001', 50, 5, '2023-07-01', null);
 INSERT INTO warehouse(id, businessUnitCode, location, capacity, stock, createdAt, archivedAt)
 VALUES (3, 'MWH.023', 'TILBURG-001', 30, 27, '2021-02-01', null);
 ALTER SEQUENCE warehouse_seq RESTART WITH 4;
+
+INSERT INTO stock_movement(id, businessUnitCode, delta, reason, occurredAt)
+VALUES (nextval('stock_movement_seq'), 'MWH.001', 10, 'CREATED', '2024-07-01');
+INSERT INTO stock_movement(id, businessUnitCode, delta, reason, occurredAt)
+VALUES (nextval('stock_movement_seq'), 'MWH.012', 5, 'CREATED', '2023-07-01');
+INSERT INTO stock_movement(id, businessUnitCode, delta, reason, occurredAt)
+VALUES (nextval('stock_movement_seq'), 'MWH.023', 27, 'CREATED', '2021-02-01');
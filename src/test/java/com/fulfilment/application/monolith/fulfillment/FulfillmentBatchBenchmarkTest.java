@@ -0,0 +1,151 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.products.Product;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Sends the same shuffled items once as single creates and once as one batch and compares the
+ * wall-clock time of both. Run with {@code ./mvnw -Pbenchmark test
+ * -Dtest=FulfillmentBatchBenchmarkTest}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class FulfillmentBatchBenchmarkTest {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentBatchBenchmarkTest.class);
+
+  private static final String PATH = "fulfillment";
+
+  private static final int WAREHOUSES = 4;
+  private static final int PRODUCTS = 6;
+  private static final int STORES = 20;
+
+  @Inject EntityManager entityManager;
+
+  private final List<Long> warehouseIds = new ArrayList<>();
+  private final List<Long> productIds = new ArrayList<>();
+  private final List<Long> storeIds = new ArrayList<>();
+
+  @BeforeEach
+  @Transactional
+  public void setUp() {
+    for (int i = 0; i < WAREHOUSES; i++) {
+      DbWarehouse warehouse = new DbWarehouse();
+      warehouse.businessUnitCode = "BATCH-BENCH-" + i;
+      warehouse.location = "ZWOLLE-001";
+      warehouse.capacity = 10;
+      warehouse.stock = 0;
+      warehouse.createdAt = LocalDateTime.now();
+      entityManager.persist(warehouse);
+      warehouseIds.add(warehouse.id);
+    }
+    for (int i = 0; i < PRODUCTS; i++) {
+      Product product = new Product("BATCH-BENCH-PRODUCT-" + i);
+      entityManager.persist(product);
+      productIds.add(product.id);
+    }
+    for (int i = 0; i < STORES; i++) {
+      Store store = new Store("BATCH-BENCH-STORE-" + i);
+      entityManager.persist(store);
+      storeIds.add(store.id);
+    }
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanUp() {
+    // fulfillments go with them through on delete cascade
+    entityManager
+        .createQuery("delete from DbWarehouse w where w.id in :ids")
+        .setParameter("ids", warehouseIds)
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Product p where p.id in :ids")
+        .setParameter("ids", productIds)
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Store s where s.id in :ids")
+        .setParameter("ids", storeIds)
+        .executeUpdate();
+  }
+
+  @Test
+  public void testBatchIsFasterThanSingleCreates() {
+    List<Map<String, Long>> items = items();
+
+    long start = System.nanoTime();
+    List<Long> createdIds = new ArrayList<>();
+    for (Map<String, Long> item : items) {
+      ExtractableResponse<Response> response =
+          given().contentType(ContentType.JSON).body(item).when().post(PATH).then().extract();
+      if (response.statusCode() == 201) {
+        createdIds.add(response.jsonPath().getLong("id"));
+      }
+    }
+    long singleMillis = (System.nanoTime() - start) / 1_000_000;
+
+    createdIds.forEach(id -> given().when().delete(PATH + "/" + id).then().statusCode(204));
+
+    start = System.nanoTime();
+    JsonPath batch =
+        given()
+            .contentType(ContentType.JSON)
+            .body(items)
+            .when()
+            .post(PATH + "/batch")
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath();
+    long batchMillis = (System.nanoTime() - start) / 1_000_000;
+
+    LOG.infof(
+        "%d items, %d created: single creates %d ms, batch %d ms",
+        items.size(), batch.getInt("created"), singleMillis, batchMillis);
+    assertEquals(createdIds.size(), batch.getInt("created"));
+    assertTrue(
+        batchMillis * 5 < singleMillis,
+        "batch " + batchMillis + " ms, singles " + singleMillis + " ms");
+  }
+
+  // every combination in a fixed shuffled order, so plenty of items run into a limit, plus a few
+  // pointing at a warehouse that does not exist
+  private List<Map<String, Long>> items() {
+    List<Map<String, Long>> items = new ArrayList<>();
+    for (Long storeId : storeIds) {
+      for (Long productId : productIds) {
+        for (Long warehouseId : warehouseIds) {
+          items.add(Map.of("warehouseId", warehouseId, "productId", productId, "storeId", storeId));
+        }
+      }
+      items.add(
+          Map.of("warehouseId", 999_999L, "productId", productIds.get(0), "storeId", storeId));
+    }
+    Collections.shuffle(items, new Random(42));
+    return items;
+  }
+}
@@ -0,0 +1,177 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fulfilment.application.monolith.products.Product;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.ExtractableResponse;
+import io.restassured.response.Response;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class FulfillmentBatchTest {
+
+  private static final String PATH = "fulfillment";
+
+  private static final int WAREHOUSES = 4;
+  private static final int PRODUCTS = 6;
+  private static final int STORES = 20;
+
+  @Inject EntityManager entityManager;
+
+  private final List<Long> warehouseIds = new ArrayList<>();
+  private final List<Long> productIds = new ArrayList<>();
+  private final List<Long> storeIds = new ArrayList<>();
+
+  @BeforeEach
+  @Transactional
+  public void setUp() {
+    for (int i = 0; i < WAREHOUSES; i++) {
+      DbWarehouse warehouse = new DbWarehouse();
+      warehouse.businessUnitCode = "BATCH-" + i;
+      warehouse.location = "ZWOLLE-001";
+      warehouse.capacity = 10;
+      warehouse.stock = 0;
+      warehouse.createdAt = LocalDateTime.now();
+      entityManager.persist(warehouse);
+      warehouseIds.add(warehouse.id);
+    }
+    for (int i = 0; i < PRODUCTS; i++) {
+      Product product = new Product("BATCH-PRODUCT-" + i);
+      entityManager.persist(product);
+      productIds.add(product.id);
+    }
+    for (int i = 0; i < STORES; i++) {
+      Store store = new Store("BATCH-STORE-" + i);
+      entityManager.persist(store);
+      storeIds.add(store.id);
+    }
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanUp() {
+    // fulfillments go with them through on delete cascade
+    entityManager
+        .createQuery("delete from DbWarehouse w where w.id in :ids")
+        .setParameter("ids", warehouseIds)
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Product p where p.id in :ids")
+        .setParameter("ids", productIds)
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Store s where s.id in :ids")
+        .setParameter("ids", storeIds)
+        .executeUpdate();
+  }
+
+  @Test
+  public void testBatchGivesTheSameOutcomesAsSingleCreates() {
+    List<Map<String, Long>> items = items();
+
+    List<String> singleOutcomes = new ArrayList<>();
+    List<String> singleMessages = new ArrayList<>();
+    List<Long> createdIds = new ArrayList<>();
+    for (Map<String, Long> item : items) {
+      ExtractableResponse<Response> response =
+          given().contentType(ContentType.JSON).body(item).when().post(PATH).then().extract();
+      JsonPath body = response.jsonPath();
+      switch (response.statusCode()) {
+        case 201 -> {
+          singleOutcomes.add("CREATED");
+          singleMessages.add(null);
+          createdIds.add(body.getLong("id"));
+        }
+        case 404 -> {
+          singleOutcomes.add("NOT_FOUND");
+          singleMessages.add(body.getString("error"));
+        }
+        case 409 -> {
+          singleOutcomes.add("REJECTED");
+          singleMessages.add(body.getString("error"));
+        }
+        default -> throw new AssertionError("unexpected status " + response.statusCode());
+      }
+    }
+
+    createdIds.forEach(id -> given().when().delete(PATH + "/" + id).then().statusCode(204));
+
+    JsonPath batch =
+        given()
+            .contentType(ContentType.JSON)
+            .body(items)
+            .when()
+            .post(PATH + "/batch")
+            .then()
+            .statusCode(200)
+            .extract()
+            .jsonPath();
+
+    assertEquals(singleOutcomes, batch.getList("results.status"));
+    assertEquals(singleMessages, batch.getList("results.message"));
+    assertEquals(createdIds.size(), batch.getInt("created"));
+    assertEquals(items.size() - createdIds.size(), batch.getInt("rejected"));
+    assertEquals(createdIds.size(), fulfillmentsOfStores());
+  }
+
+  @Test
+  public void testEmptyBatchIsRejected() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("[]")
+        .when()
+        .post(PATH + "/batch")
+        .then()
+        .statusCode(409);
+  }
+
+  // every combination in a fixed shuffled order, so plenty of items run into a limit, plus a few
+  // pointing at a warehouse that does not exist
+  private List<Map<String, Long>> items() {
+    List<Map<String, Long>> items = new ArrayList<>();
+    for (Long storeId : storeIds) {
+      for (Long productId : productIds) {
+        for (Long warehouseId : warehouseIds) {
+          items.add(Map.of("warehouseId", warehouseId, "productId", productId, "storeId", storeId));
+        }
+      }
+      items.add(
+          Map.of("warehouseId", 999_999L, "productId", productIds.get(0), "storeId", storeId));
+    }
+    Collections.shuffle(items, new Random(42));
+    return items;
+  }
+
+  private int fulfillmentsOfStores() {
+    int count = 0;
+    for (Long storeId : storeIds) {
+      count +=
+          given()
+              .when()
+              .get(PATH + "/store/" + storeId)
+              .then()
+              .extract()
+              .jsonPath()
+              .getList("id")
+              .size();
+    }
+    return count;
+  }
+}
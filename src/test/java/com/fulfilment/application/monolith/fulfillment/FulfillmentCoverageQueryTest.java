@@ -0,0 +1,150 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+import com.fulfilment.application.monolith.products.Product;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class FulfillmentCoverageQueryTest {
+
+  private static final String PATH = "fulfillment/coverage/query";
+
+  @Inject EntityManager entityManager;
+
+  private final List<Long> warehouseIds = new ArrayList<>();
+  private final List<Long> productIds = new ArrayList<>();
+  private final List<Long> storeIds = new ArrayList<>();
+
+  @BeforeEach
+  public void setUp() {
+    QuarkusTransaction.requiringNew().run(this::persistFixtures);
+    // warehouse 0 serves product 0 to stores 0 and 1, warehouse 1 serves product 0 to store 1
+    // and product 1 to store 2
+    create(0, 0, 0);
+    create(0, 0, 1);
+    create(1, 0, 1);
+    create(1, 1, 2);
+  }
+
+  private void persistFixtures() {
+    for (int i = 0; i < 3; i++) {
+      DbWarehouse warehouse = new DbWarehouse();
+      warehouse.businessUnitCode = "COVER-00" + i;
+      warehouse.location = "ZWOLLE-001";
+      warehouse.capacity = 10;
+      warehouse.stock = 0;
+      warehouse.createdAt = LocalDateTime.now();
+      entityManager.persist(warehouse);
+      warehouseIds.add(warehouse.id);
+      Product product = new Product("COVER-PRODUCT-" + i);
+      entityManager.persist(product);
+      productIds.add(product.id);
+      Store store = new Store("COVER-STORE-" + i);
+      entityManager.persist(store);
+      storeIds.add(store.id);
+    }
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanUp() {
+    // fulfillments go with them through on delete cascade
+    entityManager
+        .createQuery("delete from DbWarehouse w where w.id in :ids")
+        .setParameter("ids", warehouseIds)
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Store s where s.id in :ids")
+        .setParameter("ids", storeIds)
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Product p where p.id in :ids")
+        .setParameter("ids", productIds)
+        .executeUpdate();
+  }
+
+  @Test
+  public void testStoresServedByBothWarehouses() {
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            "{\"and\": [{\"warehouseId\": "
+                + warehouseIds.get(0)
+                + "}, {\"warehouseId\": "
+                + warehouseIds.get(1)
+                + "}]}")
+        .when()
+        .post(PATH)
+        .then()
+        .statusCode(200)
+        .body("count", equalTo(1))
+        .body("storeIds", contains(storeIds.get(1).intValue()));
+  }
+
+  @Test
+  public void testStoresOfTheWarehousesWithoutTheProductArePaged() {
+    given()
+        .contentType(ContentType.JSON)
+        .queryParam("limit", 1)
+        .body(
+            "{\"and\": [{\"or\": [{\"warehouseId\": "
+                + warehouseIds.get(0)
+                + "}, {\"warehouseId\": "
+                + warehouseIds.get(1)
+                + "}]}, {\"not\": {\"warehouseId\": "
+                + warehouseIds.get(0)
+                + ", \"productId\": "
+                + productIds.get(0)
+                + "}}]}")
+        .when()
+        .post(PATH)
+        .then()
+        .statusCode(200)
+        .body("count", equalTo(1))
+        .body("storeIds", contains(storeIds.get(2).intValue()));
+  }
+
+  @Test
+  public void testQueriesMixingKindsAreRejected() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"allStores\": true, \"warehouseId\": " + warehouseIds.get(0) + "}")
+        .when()
+        .post(PATH)
+        .then()
+        .statusCode(400);
+  }
+
+  private void create(int warehouse, int product, int store) {
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            "{\"warehouseId\": "
+                + warehouseIds.get(warehouse)
+                + ", \"productId\": "
+                + productIds.get(product)
+                + ", \"storeId\": "
+                + storeIds.get(store)
+                + "}")
+        .when()
+        .post("fulfillment")
+        .then()
+        .statusCode(201);
+  }
+}
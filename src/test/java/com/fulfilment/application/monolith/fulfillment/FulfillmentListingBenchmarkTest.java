@@ -0,0 +1,184 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.fulfillment.adapters.database.DbFulfillment;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.util.List;
+import java.util.function.Supplier;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Lists the 100k fulfillments of one store (1k warehouses times 100 products), first the way the
+ * listings used to, loading each fulfillment with its warehouse, product and store, then through
+ * the id projection and its NDJSON stream. The second-level cache is emptied before every run.
+ * Run with {@code ./mvnw -Pbenchmark test -Dtest=FulfillmentListingBenchmarkTest}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class FulfillmentListingBenchmarkTest {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentListingBenchmarkTest.class);
+
+  private static final int WAREHOUSES = 1_000;
+  private static final int PRODUCTS = 100;
+  private static final int FULFILLMENTS = WAREHOUSES * PRODUCTS;
+  private static final long FIRST_ID = 1_000_000_000L;
+  private static final long STORE_ID = FIRST_ID;
+  private static final int RUNS = 5;
+
+  @Inject FulfillmentStore fulfillmentStore;
+
+  @Inject EntityManager entityManager;
+
+  @Inject SessionFactory sessionFactory;
+
+  @BeforeEach
+  @Transactional
+  public void insertFulfillments() {
+    entityManager
+        .createNativeQuery(
+            "insert into store(id, name, quantityProductsInStock) values (:storeId, 'LISTING', 0)")
+        .setParameter("storeId", STORE_ID)
+        .executeUpdate();
+    insert(
+        "insert into warehouse(id, businessUnitCode, location, capacity, stock, createdAt) "
+            + "select :firstId + n, 'LISTING-' || n, 'LISTING-001', 100, 0, now() "
+            + "from generate_series(0, :rows - 1) n",
+        WAREHOUSES);
+    insert(
+        "insert into product(id, name, stock) select :firstId + n, 'LISTING-' || n, 0 "
+            + "from generate_series(0, :rows - 1) n",
+        PRODUCTS);
+    insert(
+        "insert into fulfillment(id, warehouse_id, product_id, store_id) "
+            + "select :firstId + n, :firstId + n / "
+            + PRODUCTS
+            + ", :firstId + n % "
+            + PRODUCTS
+            + ", :firstId from generate_series(0, :rows - 1) n",
+        FULFILLMENTS);
+    entityManager.createNativeQuery("analyze fulfillment").executeUpdate();
+  }
+
+  @AfterEach
+  @Transactional
+  public void removeFulfillments() {
+    for (String table : new String[] {"fulfillment", "store", "product", "warehouse"}) {
+      entityManager
+          .createNativeQuery("delete from " + table + " where id >= :firstId")
+          .setParameter("firstId", FIRST_ID)
+          .executeUpdate();
+    }
+  }
+
+  @Test
+  public void listStoreFulfillments() {
+    Run entities = measure(() -> QuarkusTransaction.requiringNew().call(this::listAsEntities));
+    Run projection =
+        measure(
+            () ->
+                QuarkusTransaction.requiringNew()
+                    .call(() -> fulfillmentStore.findByStoreId(STORE_ID)));
+    Run endpoint =
+        measure(
+            () ->
+                given()
+                    .when()
+                    .get("fulfillment/store/" + STORE_ID + "/stream")
+                    .then()
+                    .statusCode(200)
+                    .extract()
+                    .asString()
+                    .lines()
+                    .toList());
+
+    LOG.infof(
+        "%d fulfillments of one store: entities %d ms (%d statements, %d entities loaded), "
+            + "projection %d ms (%d statements, %d entities loaded), "
+            + "GET /fulfillment/store/{id}/stream %d ms",
+        FULFILLMENTS,
+        entities.millis,
+        entities.statements,
+        entities.entitiesLoaded,
+        projection.millis,
+        projection.statements,
+        projection.entitiesLoaded,
+        endpoint.millis);
+    assertEquals(FULFILLMENTS, entities.size);
+    assertEquals(FULFILLMENTS, projection.size);
+    assertEquals(FULFILLMENTS, endpoint.size);
+    assertEquals(1, projection.statements);
+    assertEquals(0, projection.entitiesLoaded);
+    assertTrue(projection.millis < entities.millis);
+  }
+
+  // what the listings did while the associations were eager: every fulfillment is hydrated along
+  // with the warehouse, product and store it points at
+  private List<FulfillmentDTO> listAsEntities() {
+    return entityManager
+        .createQuery(
+            "select f from DbFulfillment f join fetch f.warehouse join fetch f.product "
+                + "join fetch f.store where f.store.id = :storeId",
+            DbFulfillment.class)
+        .setParameter("storeId", STORE_ID)
+        .getResultList()
+        .stream()
+        .map(
+            entity -> {
+              FulfillmentDTO dto = new FulfillmentDTO();
+              dto.id = entity.id;
+              dto.warehouseId = entity.warehouse.id;
+              dto.productId = entity.product.id;
+              dto.storeId = entity.store.id;
+              return dto;
+            })
+        .toList();
+  }
+
+  // best of a few runs, each starting from an empty second-level cache
+  private Run measure(Supplier<List<?>> listing) {
+    Statistics statistics = sessionFactory.getStatistics();
+    Run best = null;
+    for (int i = 0; i < RUNS; i++) {
+      sessionFactory.getCache().evictAllRegions();
+      statistics.clear();
+      long start = System.nanoTime();
+      int size = listing.get().size();
+      Run run =
+          new Run(
+              (System.nanoTime() - start) / 1_000_000,
+              size,
+              statistics.getPrepareStatementCount(),
+              statistics.getEntityLoadCount());
+      if (best == null || run.millis < best.millis) {
+        best = run;
+      }
+    }
+    return best;
+  }
+
+  private void insert(String sql, int rows) {
+    entityManager
+        .createNativeQuery(sql)
+        .setParameter("firstId", FIRST_ID)
+        .setParameter("rows", rows)
+        .executeUpdate();
+  }
+
+  private record Run(long millis, int size, long statements, long entitiesLoaded) {}
+}
@@ -0,0 +1,153 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.products.Product;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class FulfillmentPaginationTest {
+
+  private static final String NDJSON = "application/x-ndjson";
+
+  @Inject EntityManager entityManager;
+
+  private Long warehouseId;
+  private Long storeId;
+  private final List<Long> productIds = new ArrayList<>();
+  private final List<Long> fulfillmentIds = new ArrayList<>();
+
+  @BeforeEach
+  public void setUp() {
+    QuarkusTransaction.requiringNew().run(this::persistFixtures);
+    for (Long productId : productIds) {
+      fulfillmentIds.add(
+          given()
+              .contentType(ContentType.JSON)
+              .body(
+                  "{\"warehouseId\": "
+                      + warehouseId
+                      + ", \"productId\": "
+                      + productId
+                      + ", \"storeId\": "
+                      + storeId
+                      + "}")
+              .when()
+              .post("fulfillment")
+              .then()
+              .statusCode(201)
+              .extract()
+              .jsonPath()
+              .getLong("id"));
+    }
+  }
+
+  private void persistFixtures() {
+    DbWarehouse warehouse = new DbWarehouse();
+    warehouse.businessUnitCode = "PAGE-001";
+    warehouse.location = "ZWOLLE-001";
+    warehouse.capacity = 10;
+    warehouse.stock = 0;
+    warehouse.createdAt = LocalDateTime.now();
+    entityManager.persist(warehouse);
+    Store store = new Store("PAGE-STORE");
+    entityManager.persist(store);
+    for (int i = 1; i <= 3; i++) {
+      Product product = new Product("PAGE-PRODUCT-" + i);
+      entityManager.persist(product);
+      productIds.add(product.id);
+    }
+    warehouseId = warehouse.id;
+    storeId = store.id;
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanUp() {
+    // fulfillments go with them through on delete cascade
+    entityManager
+        .createQuery("delete from DbWarehouse w where w.id = :id")
+        .setParameter("id", warehouseId)
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Store s where s.id = :id")
+        .setParameter("id", storeId)
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Product p where p.id in :ids")
+        .setParameter("ids", productIds)
+        .executeUpdate();
+  }
+
+  @Test
+  public void testStoreListingIsPagedById() {
+    List<Long> firstPage = page("fulfillment/store/" + storeId, null, 2);
+    List<Long> secondPage = page("fulfillment/store/" + storeId, firstPage.get(1), 2);
+
+    assertEquals(fulfillmentIds.subList(0, 2), firstPage);
+    assertEquals(fulfillmentIds.subList(2, 3), secondPage);
+  }
+
+  @Test
+  public void testWarehouseListingIsPagedById() {
+    List<Long> afterFirst = page("fulfillment/warehouse/" + warehouseId, fulfillmentIds.get(0), 10);
+
+    assertEquals(fulfillmentIds.subList(1, 3), afterFirst);
+  }
+
+  @Test
+  public void testPaginationRejectsLimitsOutOfRange() {
+    given().queryParam("limit", 1001).when().get("fulfillment").then().statusCode(400);
+    given().queryParam("limit", 0).when().get("fulfillment").then().statusCode(400);
+  }
+
+  @Test
+  public void testStoreStreamWritesOneFulfillmentPerLineInIdOrder() {
+    String body =
+        given()
+            .accept(NDJSON)
+            .when()
+            .get("fulfillment/store/" + storeId + "/stream")
+            .then()
+            .statusCode(200)
+            .contentType(NDJSON)
+            .extract()
+            .asString();
+
+    List<String> lines = body.lines().toList();
+    assertEquals(3, lines.size());
+    for (int i = 0; i < lines.size(); i++) {
+      assertTrue(lines.get(i).contains("\"id\":" + fulfillmentIds.get(i) + ","), lines.get(i));
+      assertTrue(lines.get(i).contains("\"productId\":" + productIds.get(i)), lines.get(i));
+    }
+  }
+
+  private List<Long> page(String path, Long after, int limit) {
+    return given()
+        .queryParam("limit", limit)
+        .queryParams(after != null ? Map.of("after", after) : Map.of())
+        .when()
+        .get(path)
+        .then()
+        .statusCode(200)
+        .extract()
+        .jsonPath()
+        .getList("id", Long.class);
+  }
+}
@@ -97,4 +97,17 @@ public class FulfillmentResourceTest {
   public void testDeleteNonExistent() {
     given().when().delete(PATH + "/9999").then().statusCode(404);
   }
+
+  @Test
+  @Order(7)
+  public void testReconcileStoreWithoutBody() {
+    given().contentType(ContentType.JSON).when().put(PATH + "/store/1").then().statusCode(409);
+    given()
+        .contentType(ContentType.JSON)
+        .body("[null]")
+        .when()
+        .put(PATH + "/store/1")
+        .then()
+        .statusCode(409);
+  }
 }
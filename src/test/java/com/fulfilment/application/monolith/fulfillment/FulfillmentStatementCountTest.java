@@ -0,0 +1,150 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.products.Product;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class FulfillmentStatementCountTest {
+
+  private static final String PATH = "fulfillment";
+
+  @Inject EntityManager entityManager;
+
+  @Inject SessionFactory sessionFactory;
+
+  private Long warehouseId;
+  private Long storeId;
+  private Long firstProductId;
+  private Long secondProductId;
+
+  @BeforeEach
+  @Transactional
+  public void setUp() {
+    DbWarehouse warehouse = new DbWarehouse();
+    warehouse.businessUnitCode = "STMT-001";
+    warehouse.location = "ZWOLLE-001";
+    warehouse.capacity = 10;
+    warehouse.stock = 0;
+    warehouse.createdAt = LocalDateTime.now();
+    entityManager.persist(warehouse);
+    Store store = new Store("STMT-STORE");
+    entityManager.persist(store);
+    Product first = new Product("STMT-PRODUCT-1");
+    entityManager.persist(first);
+    Product second = new Product("STMT-PRODUCT-2");
+    entityManager.persist(second);
+
+    warehouseId = warehouse.id;
+    storeId = store.id;
+    firstProductId = first.id;
+    secondProductId = second.id;
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanUp() {
+    // fulfillments go with them through on delete cascade
+    entityManager.createQuery("delete from DbWarehouse w where w.id = :id").setParameter("id", warehouseId).executeUpdate();
+    entityManager.createQuery("delete from Store s where s.id = :id").setParameter("id", storeId).executeUpdate();
+    entityManager
+        .createQuery("delete from Product p where p.id in :ids")
+        .setParameter("ids", List.of(firstProductId, secondProductId))
+        .executeUpdate();
+  }
+
+  @Test
+  public void testCreateFulfillmentChecksAllConstraintsUnderTheStoreLock() {
+    // the first request may draw a new block of fulfillment ids from the sequence
+    create(firstProductId);
+    Statistics statistics = sessionFactory.getStatistics();
+    statistics.clear();
+
+    create(secondProductId);
+
+    assertEquals(1, statistics.getEntityInsertCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(0, statistics.getEntityFetchCount());
+    // reference check, store and warehouse locks, constraint check and insert; plus a sequence
+    // call should the id block run out
+    assertTrue(statistics.getPrepareStatementCount() <= 6, "statements: " + statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void testReconcilingAnUnchangedStoreWritesNothing() {
+    create(firstProductId);
+    create(secondProductId);
+    Statistics statistics = sessionFactory.getStatistics();
+    statistics.clear();
+
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            "[{\"warehouseId\": "
+                + warehouseId
+                + ", \"productId\": "
+                + secondProductId
+                + "}, {\"warehouseId\": "
+                + warehouseId
+                + ", \"productId\": "
+                + firstProductId
+                + "}]")
+        .when()
+        .put(PATH + "/store/" + storeId)
+        .then()
+        .statusCode(200)
+        .body("unchanged", is(2))
+        .body("inserted", empty())
+        .body("deleted", empty());
+
+    assertEquals(0, statistics.getEntityInsertCount());
+    // locking the store and reading its fulfillments
+    assertEquals(2, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void testConstraintViolationsKeepTheirStatusCodes() {
+    post(999_999L, firstProductId, storeId, 404);
+    post(warehouseId, 999_999L, storeId, 404);
+    post(warehouseId, firstProductId, 999_999L, 404);
+  }
+
+  private void create(Long productId) {
+    post(warehouseId, productId, storeId, 201);
+  }
+
+  private void post(Long warehouse, Long product, Long store, int status) {
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            "{\"warehouseId\": "
+                + warehouse
+                + ", \"productId\": "
+                + product
+                + ", \"storeId\": "
+                + store
+                + "}")
+        .when()
+        .post(PATH)
+        .then()
+        .statusCode(status);
+  }
+}
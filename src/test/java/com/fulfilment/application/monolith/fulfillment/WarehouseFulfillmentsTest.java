@@ -0,0 +1,217 @@
+package com.fulfilment.application.monolith.fulfillment;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.fulfilment.application.monolith.fulfillment.adapters.database.DbFulfillment;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentConstraintCheck;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentFilter;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import com.fulfilment.application.monolith.products.Product;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.warehouses.adapters.database.DbWarehouse;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseFulfillments;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+@QuarkusTest
+public class WarehouseFulfillmentsTest {
+
+  private static final String BUSINESS_UNIT_CODE = "MOVE-001";
+
+  @Inject EntityManager entityManager;
+
+  @Inject WarehouseFulfillments warehouseFulfillments;
+
+  @Inject FulfillmentConstraintIndex constraintIndex;
+
+  @Inject FulfillmentStore fulfillmentStore;
+
+  private DbWarehouse archived;
+  private DbWarehouse active;
+  private final List<Product> products = new ArrayList<>();
+  private final List<Store> stores = new ArrayList<>();
+
+  @BeforeEach
+  @Transactional
+  public void setUp() {
+    LocalDateTime now = LocalDateTime.now();
+    archived = warehouse(now.minusDays(1), now);
+    active = warehouse(now, null);
+    for (int i = 0; i < 2; i++) {
+      Product product = new Product("MOVE-PRODUCT-" + i);
+      entityManager.persist(product);
+      products.add(product);
+      Store store = new Store("MOVE-STORE-" + i);
+      entityManager.persist(store);
+      stores.add(store);
+    }
+    fulfillment(archived, products.get(0), stores.get(0));
+    fulfillment(archived, products.get(1), stores.get(0));
+    fulfillment(archived, products.get(0), stores.get(1));
+    fulfillment(active, products.get(0), stores.get(0));
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanUp() {
+    // fulfillments go with them through on delete cascade
+    entityManager
+        .createQuery("delete from DbWarehouse w where w.id in :ids")
+        .setParameter("ids", List.of(archived.id, active.id))
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Product p where p.id in :ids")
+        .setParameter("ids", products.stream().map(product -> product.id).toList())
+        .executeUpdate();
+    entityManager
+        .createQuery("delete from Store s where s.id in :ids")
+        .setParameter("ids", stores.stream().map(store -> store.id).toList())
+        .executeUpdate();
+  }
+
+  @Test
+  public void testMoveToActiveGenerationRepointsFulfillmentsAndDropsDuplicates() {
+    int moved =
+        QuarkusTransaction.requiringNew()
+            .call(() -> warehouseFulfillments.moveToActiveGeneration(BUSINESS_UNIT_CODE));
+
+    assertEquals(2, moved);
+    assertEquals(0, fulfillmentsOf(archived.id));
+    assertEquals(3, fulfillmentsOf(active.id));
+    assertEquals(2, constraintIndex.productsInWarehouse(active.id));
+  }
+
+  @Test
+  public void testDetachedFulfillmentsStayButNoLongerCount() {
+    int detached =
+        QuarkusTransaction.requiringNew()
+            .call(() -> warehouseFulfillments.detachFromArchivedGeneration(BUSINESS_UNIT_CODE));
+
+    assertEquals(3, detached);
+    assertEquals(3, fulfillmentsOf(archived.id));
+    FulfillmentConstraintCheck check =
+        QuarkusTransaction.requiringNew()
+            .call(
+                () ->
+                    fulfillmentStore.checkConstraints(
+                        archived.id, products.get(0).id, stores.get(0).id));
+    assertEquals(1, check.warehousesForProductInStore());
+    assertEquals(1, check.warehousesForStore());
+    assertEquals(0, check.productsInWarehouse());
+  }
+
+  @Test
+  public void testDetachedFulfillmentsAreLeftOutOfLookups() {
+    QuarkusTransaction.requiringNew()
+        .run(() -> warehouseFulfillments.detachFromArchivedGeneration(BUSINESS_UNIT_CODE));
+
+    List<FulfillmentDTO> ofStore =
+        QuarkusTransaction.requiringNew()
+            .call(() -> fulfillmentStore.findByStoreId(stores.get(0).id));
+    assertEquals(1, ofStore.size());
+    assertEquals(active.id, ofStore.get(0).warehouseId);
+    List<FulfillmentDTO> ofArchived =
+        QuarkusTransaction.requiringNew()
+            .call(
+                () ->
+                    fulfillmentStore.findFulfillmentsPage(
+                        FulfillmentFilter.byWarehouse(archived.id), null, 10));
+    assertEquals(List.of(), ofArchived);
+  }
+
+  @Test
+  public void testDetachedPairsCanBeCreatedAndReconciledAgain() {
+    QuarkusTransaction.requiringNew()
+        .run(() -> warehouseFulfillments.detachFromArchivedGeneration(BUSINESS_UNIT_CODE));
+
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            "{\"warehouseId\": "
+                + archived.id
+                + ", \"productId\": "
+                + products.get(1).id
+                + ", \"storeId\": "
+                + stores.get(0).id
+                + "}")
+        .when()
+        .post("fulfillment")
+        .then()
+        .statusCode(201);
+    given()
+        .contentType(ContentType.JSON)
+        .body(
+            "[{\"warehouseId\": "
+                + archived.id
+                + ", \"productId\": "
+                + products.get(0).id
+                + "}]")
+        .when()
+        .put("fulfillment/store/" + stores.get(1).id)
+        .then()
+        .statusCode(200)
+        .body("inserted", hasSize(1))
+        .body("deleted", empty());
+
+    // the detached rows stay next to the new ones
+    assertEquals(5, fulfillmentsOf(archived.id));
+  }
+
+  @Test
+  public void testDroppedFulfillmentsAreDeleted() {
+    int dropped =
+        QuarkusTransaction.requiringNew()
+            .call(() -> warehouseFulfillments.dropFromArchivedGeneration(BUSINESS_UNIT_CODE));
+
+    assertEquals(3, dropped);
+    assertEquals(0, fulfillmentsOf(archived.id));
+    assertEquals(1, fulfillmentsOf(active.id));
+  }
+
+  private long fulfillmentsOf(Long warehouseId) {
+    return QuarkusTransaction.requiringNew()
+        .call(
+            () ->
+                entityManager
+                    .createQuery(
+                        "select count(f) from DbFulfillment f where f.warehouse.id = :id",
+                        Long.class)
+                    .setParameter("id", warehouseId)
+                    .getSingleResult());
+  }
+
+  private DbWarehouse warehouse(LocalDateTime createdAt, LocalDateTime archivedAt) {
+    DbWarehouse warehouse = new DbWarehouse();
+    warehouse.businessUnitCode = BUSINESS_UNIT_CODE;
+    warehouse.location = "ZWOLLE-001";
+    warehouse.capacity = 10;
+    warehouse.stock = 0;
+    warehouse.createdAt = createdAt;
+    warehouse.archivedAt = archivedAt;
+    entityManager.persist(warehouse);
+    return warehouse;
+  }
+
+  private void fulfillment(DbWarehouse warehouse, Product product, Store store) {
+    DbFulfillment fulfillment = new DbFulfillment();
+    fulfillment.warehouse = warehouse;
+    fulfillment.product = product;
+    fulfillment.store = store;
+    entityManager.persist(fulfillment);
+  }
+}
@@ -0,0 +1,143 @@
+package com.fulfilment.application.monolith.fulfillment.domain.coverage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.models.CoverageExpression;
+import com.fulfilment.application.monolith.fulfillment.domain.models.CoverageExpression.And;
+import com.fulfilment.application.monolith.fulfillment.domain.models.CoverageExpression.Not;
+import com.fulfilment.application.monolith.fulfillment.domain.models.CoverageExpression.Or;
+import com.fulfilment.application.monolith.fulfillment.domain.models.CoverageExpression.Product;
+import com.fulfilment.application.monolith.fulfillment.domain.models.CoverageExpression.Warehouse;
+import com.fulfilment.application.monolith.fulfillment.domain.models.CoverageExpression.WarehouseProduct;
+import com.fulfilment.application.monolith.stores.Store;
+import com.fulfilment.application.monolith.stores.StoreDeletedEvent;
+import com.fulfilment.application.monolith.stores.StoreEvent;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.roaringbitmap.longlong.Roaring64Bitmap;
+
+public class FulfillmentCoverageTest {
+
+  private FulfillmentCoverage coverage;
+
+  @BeforeEach
+  public void setUp() {
+    coverage = new FulfillmentCoverage();
+    // warehouse 1 serves product 10 to stores 100 and 101 and product 11 to store 100,
+    // warehouse 2 serves product 10 to store 102; store 103 has no fulfillments
+    coverage.onChange(new FulfillmentChange(1, 10, 100, 1));
+    coverage.onChange(new FulfillmentChange(1, 10, 101, 1));
+    coverage.onChange(new FulfillmentChange(1, 11, 100, 1));
+    coverage.onChange(new FulfillmentChange(2, 10, 102, 1));
+    coverage.onStoreEvent(new StoreEvent(store(103), StoreEvent.Action.CREATE));
+  }
+
+  @Test
+  public void testLeavesSelectStoresByWarehouseProductAndBoth() {
+    // then
+    assertStores(coverage.stores(new Warehouse(1)), 100, 101);
+    assertStores(coverage.stores(new Product(10)), 100, 101, 102);
+    assertStores(coverage.stores(new WarehouseProduct(1, 11)), 100);
+    assertStores(coverage.stores(new Warehouse(404)));
+    assertStores(coverage.stores(new CoverageExpression.AllStores()), 100, 101, 102, 103);
+  }
+
+  @Test
+  public void testIntersectionsUnionsAndComplements() {
+    // then
+    assertStores(coverage.stores(new And(List.of(new Product(10), new Product(11)))), 100);
+    assertStores(
+        coverage.stores(new Or(List.of(new Warehouse(1), new Warehouse(2)))), 100, 101, 102);
+    assertStores(coverage.stores(new Not(new Product(11))), 101, 102, 103);
+  }
+
+  @Test
+  public void testCombiningAResultLeavesTheLiveBitmapsAlone() {
+    // when
+    coverage.stores(new Warehouse(1)).addLong(999);
+    coverage.stores(new And(List.of(new Warehouse(1), new Product(11)))).removeLong(100);
+
+    // then
+    assertStores(coverage.stores(new Warehouse(1)), 100, 101);
+    assertStores(coverage.stores(new Product(11)), 100);
+  }
+
+  @Test
+  public void testStoreKeepsItsBitWhileAnotherFulfillmentStillLinksIt() {
+    // when
+    coverage.onChange(new FulfillmentChange(1, 10, 100, -1));
+
+    // then
+    assertStores(coverage.stores(new Warehouse(1)), 100, 101);
+    assertStores(coverage.stores(new Product(10)), 101, 102);
+    assertStores(coverage.stores(new WarehouseProduct(1, 10)), 101);
+
+    // when
+    coverage.onChange(new FulfillmentChange(1, 11, 100, -1));
+
+    // then
+    assertStores(coverage.stores(new Warehouse(1)), 101);
+    assertStores(coverage.stores(new Product(11)));
+    assertStores(coverage.stores(new Not(new Product(10))), 100, 103);
+  }
+
+  @Test
+  public void testDeletedStoreLeavesEveryBitmap() {
+    // when
+    coverage.onStoreDeleted(new StoreDeletedEvent(100L));
+    coverage.onStoreDeleted(new StoreDeletedEvent(103L));
+
+    // then
+    assertStores(coverage.stores(new CoverageExpression.AllStores()), 101, 102);
+    assertStores(coverage.stores(new Not(new Product(10))));
+    assertStores(coverage.stores(new Warehouse(1)), 101);
+    assertStores(coverage.stores(new Product(11)));
+    assertStores(coverage.stores(new WarehouseProduct(1, 10)), 101);
+  }
+
+  @Test
+  public void testResultsAreCopies() {
+    // when
+    coverage.stores(new Warehouse(1)).add(999);
+
+    // then
+    assertStores(coverage.stores(new Warehouse(1)), 100, 101);
+  }
+
+  @Test
+  public void testChangesCommittedDuringARebuildAreReplayedOntoIt() {
+    // when
+    coverage.rebuild(
+        () -> {
+          CoverageBitmaps loaded = new CoverageBitmaps();
+          loaded.add(1, 10, 100);
+          loaded.add(3, 12, 104);
+          // committed after the load read its rows
+          coverage.onChange(new FulfillmentChange(3, 12, 105, 1));
+          coverage.onChange(new FulfillmentChange(3, 12, 104, -1));
+          return loaded;
+        });
+
+    // then
+    assertStores(coverage.stores(new Warehouse(3)), 105);
+    assertStores(coverage.stores(new Product(10)), 100);
+
+    // when
+    coverage.onChange(new FulfillmentChange(3, 12, 106, 1));
+
+    // then
+    assertStores(coverage.stores(new Warehouse(3)), 105, 106);
+  }
+
+  private static void assertStores(Roaring64Bitmap actual, long... storeIds) {
+    assertArrayEquals(storeIds, actual.toArray());
+  }
+
+  private static Store store(long id) {
+    Store store = new Store("COVERAGE-" + id);
+    store.id = id;
+    return store;
+  }
+}
@@ -0,0 +1,159 @@
+package com.fulfilment.application.monolith.fulfillment.domain.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.fulfillment.domain.index.ConstraintTallies.ProductStore;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentConstraintCheck;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import io.quarkus.narayana.jta.runtime.TransactionConfiguration;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.Random;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Rebuild time and heap footprint of the constraint index over 10M fulfillments, and the cost of a
+ * limit check against it versus the count queries. The data keeps to the limits: 1M stores served
+ * by two of 10k warehouses each, five products per warehouse, so every fulfillment is its own
+ * product and store pair. Run with {@code ./mvnw -Pbenchmark test
+ * -Dtest=FulfillmentConstraintIndexBenchmarkTest}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class FulfillmentConstraintIndexBenchmarkTest {
+
+  private static final Logger LOG = Logger.getLogger(FulfillmentConstraintIndexBenchmarkTest.class);
+
+  private static final int FULFILLMENTS = 10_000_000;
+  private static final int FULFILLMENTS_PER_STORE = 10;
+  private static final int WAREHOUSES = 10_000;
+  private static final int PRODUCTS_PER_WAREHOUSE = 5;
+  private static final long FIRST_ID = 1_000_000_000L;
+  private static final int LOOKUPS = 1_000;
+  private static final int SETUP_TIMEOUT_SECONDS = 1_800;
+
+  @Inject FulfillmentStore fulfillmentStore;
+
+  @Inject EntityManager entityManager;
+
+  @BeforeEach
+  @Transactional
+  @TransactionConfiguration(timeout = SETUP_TIMEOUT_SECONDS)
+  public void insertFulfillments() {
+    insert(
+        "insert into warehouse(id, businessUnitCode, location, capacity, stock, createdAt) "
+            + "select :firstId + n, 'INDEX-' || n, 'INDEX-001', 100, 0, now() "
+            + "from generate_series(0, :rows - 1) n",
+        WAREHOUSES);
+    insert(
+        "insert into product(id, name, stock) select :firstId + n, 'INDEX-' || n, 0 "
+            + "from generate_series(0, :rows - 1) n",
+        WAREHOUSES * PRODUCTS_PER_WAREHOUSE);
+    insert(
+        "insert into store(id, name, quantityProductsInStock) select :firstId + n, 'INDEX-' || n, 0 "
+            + "from generate_series(0, :rows - 1) n",
+        FULFILLMENTS / FULFILLMENTS_PER_STORE);
+    // store s takes five products from warehouse s and five from warehouse s + 1
+    insert(
+        "insert into fulfillment(id, warehouse_id, product_id, store_id) "
+            + "select :firstId + n, :firstId + w, :firstId + w * 5 + n % 5, :firstId + n / 10 "
+            + "from (select n, (n / 10 + n % 10 / 5) % "
+            + WAREHOUSES
+            + " w from generate_series(0, :rows - 1) n) f",
+        FULFILLMENTS);
+    entityManager.createNativeQuery("analyze fulfillment").executeUpdate();
+  }
+
+  @AfterEach
+  @Transactional
+  @TransactionConfiguration(timeout = SETUP_TIMEOUT_SECONDS)
+  public void removeFulfillments() {
+    for (String table : new String[] {"fulfillment", "store", "product", "warehouse"}) {
+      entityManager
+          .createNativeQuery("delete from " + table + " where id >= :firstId")
+          .setParameter("firstId", FIRST_ID)
+          .executeUpdate();
+    }
+  }
+
+  @Test
+  @Transactional
+  @TransactionConfiguration(timeout = SETUP_TIMEOUT_SECONDS)
+  public void rebuildAndLookups() {
+    long heapBefore = usedHeapAfterGc();
+    long start = System.nanoTime();
+    ConstraintTallies tallies = ConstraintTallies.load(fulfillmentStore);
+    long rebuildNanos = System.nanoTime() - start;
+    long footprint = usedHeapAfterGc() - heapBefore;
+
+    assertEquals(FULFILLMENTS / FULFILLMENTS_PER_STORE, tallies.warehousesByStore.size());
+    assertEquals(FULFILLMENTS, tallies.warehousesByProductStore.size());
+    assertEquals(WAREHOUSES, tallies.productsByWarehouse.size());
+
+    Random random = new Random(42);
+    long queryNanos = 0;
+    long indexNanos = 0;
+    for (int i = 0; i < LOOKUPS; i++) {
+      long storeId = FIRST_ID + random.nextInt(FULFILLMENTS / FULFILLMENTS_PER_STORE);
+      long warehouseId = FIRST_ID + random.nextInt(WAREHOUSES);
+      long productId = FIRST_ID + random.nextInt(WAREHOUSES * PRODUCTS_PER_WAREHOUSE);
+
+      start = System.nanoTime();
+      FulfillmentConstraintCheck check =
+          fulfillmentStore.checkConstraints(warehouseId, productId, storeId);
+      queryNanos += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      int warehousesForProductInStore =
+          sizeOf(tallies.warehousesByProductStore.get(new ProductStore(productId, storeId)));
+      int warehousesForStore = sizeOf(tallies.warehousesByStore.get(storeId));
+      int productsInWarehouse = sizeOf(tallies.productsByWarehouse.get(warehouseId));
+      indexNanos += System.nanoTime() - start;
+
+      assertEquals(check.warehousesForProductInStore(), warehousesForProductInStore);
+      assertEquals(check.warehousesForStore(), warehousesForStore);
+      assertEquals(check.productsInWarehouse(), productsInWarehouse);
+    }
+
+    LOG.infof(
+        "%d fulfillments: rebuild %d ms, %d index entries in ~%d MB (%.0f bytes/fulfillment), "
+            + "limit check %.3f ms by query vs %.4f ms from the index",
+        FULFILLMENTS,
+        rebuildNanos / 1_000_000,
+        tallies.size(),
+        footprint / (1024 * 1024),
+        (double) footprint / FULFILLMENTS,
+        queryNanos / 1e6 / LOOKUPS,
+        indexNanos / 1e6 / LOOKUPS);
+    assertTrue(indexNanos < queryNanos);
+    Reference.reachabilityFence(tallies);
+  }
+
+  private void insert(String sql, int rows) {
+    entityManager
+        .createNativeQuery(sql)
+        .setParameter("firstId", FIRST_ID)
+        .setParameter("rows", rows)
+        .executeUpdate();
+  }
+
+  // an estimate: whatever else the application allocates meanwhile is counted as well
+  private static long usedHeapAfterGc() {
+    System.gc();
+    System.gc();
+    return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+  }
+
+  private static int sizeOf(IdTally tally) {
+    return tally != null ? tally.size() : 0;
+  }
+}
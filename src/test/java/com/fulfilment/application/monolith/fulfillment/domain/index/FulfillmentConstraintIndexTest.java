@@ -0,0 +1,151 @@
+package com.fulfilment.application.monolith.fulfillment.domain.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+
+import jakarta.enterprise.event.Event;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class FulfillmentConstraintIndexTest {
+
+  @Mock private Event<FulfillmentChange> changes;
+
+  @Mock private Event<FulfillmentChanges> bulkChanges;
+
+  private FulfillmentConstraintIndex index;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    index = new FulfillmentConstraintIndex(changes, bulkChanges);
+  }
+
+  @Test
+  public void testUnknownIdsCountNothing() {
+    // then
+    assertEquals(0, index.warehousesForProductInStore(1, 1));
+    assertEquals(0, index.warehousesForStore(1));
+    assertEquals(0, index.productsInWarehouse(1));
+  }
+
+  @Test
+  public void testRecordOnlyFiresEvent() {
+    // given
+    FulfillmentChange change = new FulfillmentChange(1, 2, 3, 1);
+
+    // when
+    index.record(change);
+
+    // then
+    verify(changes).fire(change);
+    assertEquals(0, index.warehousesForStore(3));
+  }
+
+  @Test
+  public void testRecordAllFiresOneEventForTheLot() {
+    // given
+    List<FulfillmentChange> moved =
+        List.of(new FulfillmentChange(1, 10, 100, -1), new FulfillmentChange(2, 10, 100, 1));
+
+    // when
+    index.recordAll(moved);
+    index.recordAll(List.of());
+
+    // then
+    verify(bulkChanges).fire(new FulfillmentChanges(moved));
+    verifyNoMoreInteractions(bulkChanges);
+  }
+
+  @Test
+  public void testCommittedBulkChangesAreAppliedInOrder() {
+    // given
+    index.onChange(new FulfillmentChange(1, 10, 100, 1));
+
+    // when
+    index.onChanges(
+        new FulfillmentChanges(
+            List.of(new FulfillmentChange(1, 10, 100, -1), new FulfillmentChange(2, 10, 100, 1))));
+
+    // then
+    assertEquals(1, index.warehousesForStore(100));
+    assertEquals(0, index.productsInWarehouse(1));
+    assertEquals(1, index.productsInWarehouse(2));
+  }
+
+  @Test
+  public void testCommittedChangesCountDistinctIds() {
+    // when
+    index.onChange(new FulfillmentChange(1, 10, 100, 1));
+    index.onChange(new FulfillmentChange(1, 11, 100, 1));
+    index.onChange(new FulfillmentChange(2, 10, 100, 1));
+    index.onChange(new FulfillmentChange(1, 10, 101, 1));
+
+    // then
+    assertEquals(2, index.warehousesForStore(100));
+    assertEquals(1, index.warehousesForStore(101));
+    assertEquals(2, index.warehousesForProductInStore(10, 100));
+    assertEquals(1, index.warehousesForProductInStore(11, 100));
+    assertEquals(2, index.productsInWarehouse(1));
+    assertEquals(1, index.productsInWarehouse(2));
+  }
+
+  @Test
+  public void testIdStaysWhileAnotherFulfillmentStillLinksIt() {
+    // given
+    index.onChange(new FulfillmentChange(1, 10, 100, 1));
+    index.onChange(new FulfillmentChange(1, 11, 100, 1));
+
+    // when
+    index.onChange(new FulfillmentChange(1, 10, 100, -1));
+
+    // then
+    assertEquals(1, index.warehousesForStore(100));
+    assertEquals(0, index.warehousesForProductInStore(10, 100));
+    assertEquals(1, index.productsInWarehouse(1));
+
+    // when
+    index.onChange(new FulfillmentChange(1, 11, 100, -1));
+
+    // then
+    assertEquals(0, index.warehousesForStore(100));
+    assertEquals(0, index.productsInWarehouse(1));
+    assertEquals(0, index.tallies().size());
+  }
+
+  @Test
+  public void testRemovingUnknownFulfillmentChangesNothing() {
+    // given
+    index.onChange(new FulfillmentChange(1, 10, 100, 1));
+
+    // when
+    index.onChange(new FulfillmentChange(2, 10, 100, -1));
+
+    // then
+    assertEquals(1, index.warehousesForStore(100));
+    assertEquals(1, index.warehousesForProductInStore(10, 100));
+    assertEquals(0, index.productsInWarehouse(2));
+  }
+
+  @Test
+  public void testReplaceAllDropsEntriesMissingFromRebuild() {
+    // given
+    index.onChange(new FulfillmentChange(1, 10, 100, 1));
+    ConstraintTallies rebuilt = new ConstraintTallies();
+    rebuilt.add(2, 20, 200, 1);
+
+    // when
+    index.replaceAll(rebuilt);
+
+    // then
+    assertEquals(0, index.warehousesForStore(100));
+    assertEquals(0, index.productsInWarehouse(1));
+    assertEquals(1, index.warehousesForStore(200));
+    assertEquals(1, index.warehousesForProductInStore(20, 200));
+    assertEquals(1, index.productsInWarehouse(2));
+  }
+}
@@ -0,0 +1,123 @@
+package com.fulfilment.application.monolith.fulfillment.domain.index;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class FulfillmentIndexReconcilerTest {
+
+  @Mock private FulfillmentStore fulfillmentStore;
+
+  private final List<FulfillmentDTO> fulfillments = new ArrayList<>();
+
+  private FulfillmentConstraintIndex index;
+  private SimpleMeterRegistry meterRegistry;
+  private FulfillmentIndexReconciler reconciler;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    doAnswer(
+            invocation -> {
+              Consumer<FulfillmentDTO> consumer = invocation.getArgument(0);
+              List.copyOf(fulfillments).forEach(consumer);
+              return null;
+            })
+        .when(fulfillmentStore)
+        .forEachFulfillment(any());
+    index = new FulfillmentConstraintIndex(null, null);
+    meterRegistry = new SimpleMeterRegistry();
+    reconciler = new FulfillmentIndexReconciler(fulfillmentStore, index, meterRegistry);
+  }
+
+  @Test
+  public void testStartupLoadsIndexFromStore() {
+    // given
+    fulfillments.add(fulfillment(1, 10, 100));
+    fulfillments.add(fulfillment(2, 10, 100));
+    fulfillments.add(fulfillment(1, 11, 101));
+
+    // when
+    reconciler.onStart(null);
+
+    // then
+    assertEquals(2, index.warehousesForStore(100));
+    assertEquals(2, index.warehousesForProductInStore(10, 100));
+    assertEquals(2, index.productsInWarehouse(1));
+  }
+
+  @Test
+  public void testDriftIsCorrectedOnlyWhenSeenTwice() {
+    // given
+    index.apply(new FulfillmentChange(1, 10, 100, 1));
+    index.apply(new FulfillmentChange(2, 10, 100, 1));
+    fulfillments.add(fulfillment(1, 10, 100));
+
+    // when
+    reconciler.checkConsistency();
+
+    // then
+    assertEquals(2, index.warehousesForStore(100));
+
+    // when
+    reconciler.checkConsistency();
+
+    // then
+    assertEquals(1, index.warehousesForStore(100));
+    assertEquals(1, index.warehousesForProductInStore(10, 100));
+    assertEquals(0, index.productsInWarehouse(2));
+    // one correction for each of the three entries warehouse 2 was counted in
+    assertEquals(3.0, meterRegistry.counter("fulfillment.constraint-index.corrections").count());
+  }
+
+  @Test
+  public void testTransientDifferenceIsNotCorrected() {
+    // given
+    fulfillments.add(fulfillment(1, 10, 100));
+
+    // when
+    reconciler.checkConsistency();
+    index.apply(new FulfillmentChange(1, 10, 100, 1));
+    fulfillments.add(fulfillment(2, 10, 100));
+    reconciler.checkConsistency();
+    index.apply(new FulfillmentChange(2, 10, 100, 1));
+
+    // then
+    assertEquals(2, index.warehousesForStore(100));
+    assertEquals(0.0, meterRegistry.counter("fulfillment.constraint-index.corrections").count());
+  }
+
+  @Test
+  public void testFulfillmentsMissingFromIndexAreAdded() {
+    // given
+    fulfillments.add(fulfillment(1, 10, 100));
+
+    // when
+    reconciler.checkConsistency();
+    reconciler.checkConsistency();
+
+    // then
+    assertEquals(1, index.warehousesForStore(100));
+    assertEquals(1, index.warehousesForProductInStore(10, 100));
+    assertEquals(1, index.productsInWarehouse(1));
+  }
+
+  private static FulfillmentDTO fulfillment(long warehouseId, long productId, long storeId) {
+    FulfillmentDTO fulfillment = new FulfillmentDTO();
+    fulfillment.warehouseId = warehouseId;
+    fulfillment.productId = productId;
+    fulfillment.storeId = storeId;
+    return fulfillment;
+  }
+}
@@ -0,0 +1,98 @@
+package com.fulfilment.application.monolith.fulfillment.domain.planning;
+
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDemand;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentPlan;
+import com.fulfilment.application.monolith.fulfillment.domain.models.PlanningSnapshot;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Plans 1k and 10k stores demanding 20 of 1k products each. Stores fall into 100 regions whose
+ * demand overlaps; half of the 2k warehouses already carry three products and every store has
+ * one of them. Run with {@code ./mvnw -Pbenchmark test
+ * -Dbenchmark.includes=FulfillmentPlannerBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class FulfillmentPlannerBenchmark {
+
+  private static final int PRODUCTS = 1_000;
+  private static final int WAREHOUSES = 2_000;
+  private static final int DEMAND_PER_STORE = 20;
+  private static final int REGIONS = 100;
+
+  @Param({"1000", "10000"})
+  int stores;
+
+  private final FulfillmentPlanner planner = new FulfillmentPlanner();
+  private PlanningSnapshot snapshot;
+  private List<FulfillmentDemand> demand;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Random random = new Random(42);
+    Map<Long, Set<Long>> catalogues = new HashMap<>();
+    for (long warehouseId = 1; warehouseId <= WAREHOUSES; warehouseId++) {
+      Set<Long> products = new HashSet<>();
+      if (warehouseId <= WAREHOUSES / 2) {
+        for (int i = 0; i < 3; i++) {
+          products.add(1 + (warehouseId * 5 + i) % PRODUCTS);
+        }
+      }
+      catalogues.put(warehouseId, products);
+    }
+
+    Set<Long> storeIds = new HashSet<>();
+    Set<Long> productIds = new HashSet<>();
+    for (long productId = 1; productId <= PRODUCTS; productId++) {
+      productIds.add(productId);
+    }
+    List<FulfillmentDTO> assignments = new ArrayList<>();
+    demand = new ArrayList<>();
+    for (long storeId = 1; storeId <= stores; storeId++) {
+      storeIds.add(storeId);
+      long region = storeId % REGIONS;
+      for (int i = 0; i < DEMAND_PER_STORE; i++) {
+        long productId = 1 + (region * 10 + random.nextInt(30)) % PRODUCTS;
+        demand.add(new FulfillmentDemand(storeId, productId));
+      }
+      long warehouseId = 1 + random.nextInt(WAREHOUSES / 2);
+      for (Long productId : catalogues.get(warehouseId)) {
+        FulfillmentDTO assignment = new FulfillmentDTO();
+        assignment.warehouseId = warehouseId;
+        assignment.productId = productId;
+        assignment.storeId = storeId;
+        assignments.add(assignment);
+      }
+    }
+    snapshot = new PlanningSnapshot(storeIds, productIds, catalogues, assignments);
+  }
+
+  @Benchmark
+  public FulfillmentPlan plan() {
+    return planner.plan(snapshot, demand);
+  }
+}
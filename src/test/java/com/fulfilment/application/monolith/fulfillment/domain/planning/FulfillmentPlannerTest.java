@@ -0,0 +1,194 @@
+package com.fulfilment.application.monolith.fulfillment.domain.planning;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDemand;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentPlan;
+import com.fulfilment.application.monolith.fulfillment.domain.models.PlanningSnapshot;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+import org.junit.jupiter.api.Test;
+
+public class FulfillmentPlannerTest {
+
+  private final FulfillmentPlanner planner = new FulfillmentPlanner();
+
+  @Test
+  public void testAssignmentsThatAlreadyServeTheDemandAreLeftAlone() {
+    // given
+    PlanningSnapshot snapshot =
+        snapshot(
+            Map.of(1L, Set.of(10L, 11L), 2L, Set.of(10L)),
+            List.of(fulfillment(1, 10, 100), fulfillment(2, 10, 100), fulfillment(1, 11, 100)));
+
+    // when
+    FulfillmentPlan plan = planner.plan(snapshot, List.of(demand(100, 10), demand(100, 11)));
+
+    // then
+    assertEquals(List.of(), plan.inserts());
+    assertEquals(List.of(), plan.deletes());
+    assertEquals(2, plan.covered());
+  }
+
+  @Test
+  public void testUncarriedProductJoinsTheWarehouseOfProductsDemandedWithIt() {
+    // given
+    PlanningSnapshot snapshot =
+        snapshot(
+            Map.of(1L, Set.of(10L), 2L, Set.of(), 3L, Set.of(12L)),
+            List.of(fulfillment(1, 10, 100)));
+
+    // when
+    FulfillmentPlan plan = planner.plan(snapshot, List.of(demand(100, 10), demand(100, 11)));
+
+    // then
+    assertEquals(1, plan.inserts().size());
+    assertFulfillment(1, 11, 100, plan.inserts().get(0));
+    assertEquals(List.of(), plan.deletes());
+  }
+
+  @Test
+  public void testPairsNoLongerDemandedAreDeletedAndUnknownOnesReported() {
+    // given
+    PlanningSnapshot snapshot =
+        snapshot(
+            Map.of(1L, Set.of(10L, 11L)),
+            List.of(fulfillment(1, 10, 100), fulfillment(1, 11, 100)));
+
+    // when
+    FulfillmentPlan plan = planner.plan(snapshot, List.of(demand(100, 10), demand(999, 10)));
+
+    // then
+    assertEquals(List.of(), plan.inserts());
+    assertEquals(1, plan.deletes().size());
+    assertFulfillment(1, 11, 100, plan.deletes().get(0));
+    assertEquals(List.of(demand(999, 10)), plan.uncovered());
+    assertEquals(2, plan.demanded());
+    assertEquals(1, plan.covered());
+  }
+
+  @Test
+  public void testStoreTakesAtMostThreeWarehouses() {
+    // given four full warehouses of five products each
+    Map<Long, Set<Long>> catalogues = new HashMap<>();
+    List<FulfillmentDemand> demand = new ArrayList<>();
+    for (long warehouseId = 1; warehouseId <= 4; warehouseId++) {
+      long first = warehouseId * 10;
+      catalogues.put(
+          warehouseId, LongStream.range(first, first + 5).boxed().collect(Collectors.toSet()));
+      LongStream.range(first, first + 5).forEach(productId -> demand.add(demand(100, productId)));
+    }
+
+    // when
+    FulfillmentPlan plan = planner.plan(snapshot(catalogues, List.of()), demand);
+
+    // then
+    assertEquals(15, plan.covered());
+    assertEquals(5, plan.uncovered().size());
+    assertEquals(3, plan.inserts().stream().map(f -> f.warehouseId).distinct().count());
+  }
+
+  @Test
+  public void testPlannedStateKeepsToTheLimits() {
+    // given
+    Random random = new Random(42);
+    Map<Long, Set<Long>> catalogues = new HashMap<>();
+    for (long warehouseId = 1; warehouseId <= 40; warehouseId++) {
+      catalogues.put(warehouseId, new HashSet<>());
+    }
+    List<FulfillmentDTO> current = new ArrayList<>();
+    for (long storeId = 1; storeId <= 200; storeId++) {
+      long warehouseId = 1 + random.nextInt(20);
+      long productId = 1 + (warehouseId * 3 + random.nextInt(3)) % 60;
+      Set<Long> catalogue = catalogues.get(warehouseId);
+      if (catalogue.size() < 5 || catalogue.contains(productId)) {
+        catalogue.add(productId);
+        current.add(fulfillment(warehouseId, productId, storeId));
+      }
+    }
+    List<FulfillmentDemand> demand = new ArrayList<>();
+    for (long storeId = 1; storeId <= 200; storeId++) {
+      for (int i = 0; i < 8; i++) {
+        demand.add(demand(storeId, 1 + (storeId % 10) * 6 + random.nextInt(12)));
+      }
+    }
+
+    // when
+    FulfillmentPlan plan = planner.plan(snapshot(catalogues, current), demand);
+
+    // then
+    Set<List<Long>> planned = new HashSet<>();
+    current.forEach(f -> planned.add(List.of(f.warehouseId, f.productId, f.storeId)));
+    plan.deletes().forEach(f -> assertTrue(planned.remove(key(f))));
+    plan.inserts().forEach(f -> assertTrue(planned.add(key(f))));
+    assertTrue(countDistinct(planned, 0, 1).values().stream().allMatch(n -> n <= 5));
+    assertTrue(countDistinct(planned, 2, 0).values().stream().allMatch(n -> n <= 3));
+    Map<List<Long>, Set<Long>> warehousesByProductStore = new HashMap<>();
+    planned.forEach(
+        f ->
+            warehousesByProductStore
+                .computeIfAbsent(List.of(f.get(1), f.get(2)), k -> new HashSet<>())
+                .add(f.get(0)));
+    assertTrue(warehousesByProductStore.values().stream().allMatch(w -> w.size() <= 2));
+    long demandedAndPlanned =
+        demand.stream()
+            .distinct()
+            .filter(d -> warehousesByProductStore.containsKey(List.of(d.productId(), d.storeId())))
+            .count();
+    assertEquals(plan.covered(), demandedAndPlanned);
+    assertEquals(
+        warehousesByProductStore.size(),
+        demandedAndPlanned,
+        "only demanded pairs remain for the demanded stores");
+  }
+
+  // distinct values at position "counted" per value at position "by" of warehouse, product, store
+  private static Map<Long, Integer> countDistinct(
+      Set<List<Long>> fulfillments, int by, int counted) {
+    Map<Long, Set<Long>> distinct = new HashMap<>();
+    fulfillments.forEach(
+        f -> distinct.computeIfAbsent(f.get(by), k -> new HashSet<>()).add(f.get(counted)));
+    Map<Long, Integer> counts = new HashMap<>();
+    distinct.forEach((key, values) -> counts.put(key, values.size()));
+    return counts;
+  }
+
+  private static List<Long> key(FulfillmentDTO f) {
+    return List.of(f.warehouseId, f.productId, f.storeId);
+  }
+
+  private static PlanningSnapshot snapshot(
+      Map<Long, Set<Long>> catalogues, List<FulfillmentDTO> assignments) {
+    Set<Long> stores = new HashSet<>(LongStream.rangeClosed(1, 500).boxed().toList());
+    Set<Long> products = new HashSet<>(LongStream.rangeClosed(1, 500).boxed().toList());
+    return new PlanningSnapshot(stores, products, catalogues, assignments);
+  }
+
+  private static FulfillmentDemand demand(long storeId, long productId) {
+    return new FulfillmentDemand(storeId, productId);
+  }
+
+  private static FulfillmentDTO fulfillment(long warehouseId, long productId, long storeId) {
+    FulfillmentDTO dto = new FulfillmentDTO();
+    dto.warehouseId = warehouseId;
+    dto.productId = productId;
+    dto.storeId = storeId;
+    return dto;
+  }
+
+  private static void assertFulfillment(
+      long warehouseId, long productId, long storeId, FulfillmentDTO actual) {
+    assertEquals(warehouseId, actual.warehouseId);
+    assertEquals(productId, actual.productId);
+    assertEquals(storeId, actual.storeId);
+  }
+}
@@ -0,0 +1,192 @@
+package com.fulfilment.application.monolith.fulfillment.domain.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentBatchItemResult;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentBatchItemResult.Outcome;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.ProductPerWarehouseValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerProductPerStoreValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerStoreValidator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class BatchCreateFulfillmentUseCaseTest {
+
+  @Mock private FulfillmentStore fulfillmentStore;
+
+  @Mock private FulfillmentConstraintIndex constraintIndex;
+
+  private BatchCreateFulfillmentUseCase batchCreateFulfillmentUseCase;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    batchCreateFulfillmentUseCase =
+        new BatchCreateFulfillmentUseCase(
+            fulfillmentStore,
+            new WarehousePerProductPerStoreValidator(),
+            new WarehousePerStoreValidator(),
+            new ProductPerWarehouseValidator(),
+            constraintIndex);
+    when(fulfillmentStore.findExistingWarehouseIds(any())).thenReturn(Set.of(1L, 2L, 3L, 4L));
+    when(fulfillmentStore.findExistingProductIds(any()))
+        .thenReturn(Set.of(10L, 11L, 12L, 13L, 14L, 15L));
+    when(fulfillmentStore.lockStores(any())).thenReturn(Set.of(100L, 101L));
+    when(fulfillmentStore.findByStoreIds(any())).thenReturn(List.of());
+    when(fulfillmentStore.findProductIdsByWarehouseIds(any())).thenReturn(Map.of());
+  }
+
+  @Test
+  public void testCreateAllValidFulfillments() {
+    // given
+    List<FulfillmentDTO> batch = List.of(fulfillment(1L, 10L, 100L), fulfillment(2L, 10L, 100L));
+
+    // when
+    List<FulfillmentBatchItemResult> results = batchCreateFulfillmentUseCase.createAll(batch);
+
+    // then
+    assertEquals(List.of(Outcome.CREATED, Outcome.CREATED), outcomes(results));
+    verify(fulfillmentStore).persistFulfillments(batch);
+    verify(constraintIndex).record(new FulfillmentChange(1L, 10L, 100L, 1));
+    verify(constraintIndex).record(new FulfillmentChange(2L, 10L, 100L, 1));
+  }
+
+  @Test
+  public void testStoresAndWarehousesAreLockedBeforeTheLinksAreRead() {
+    // given
+    List<FulfillmentDTO> batch = List.of(fulfillment(2L, 10L, 101L), fulfillment(1L, 10L, 100L));
+
+    // when
+    batchCreateFulfillmentUseCase.createAll(batch);
+
+    // then
+    InOrder order = inOrder(fulfillmentStore);
+    order.verify(fulfillmentStore).lockStores(Set.of(100L, 101L));
+    order.verify(fulfillmentStore).lockWarehouses(Set.of(1L, 2L, 3L, 4L));
+    order.verify(fulfillmentStore).findByStoreIds(Set.of(100L, 101L));
+  }
+
+  @Test
+  public void testEarlierItemsCountTowardsTheLimits() {
+    // given
+    List<FulfillmentDTO> batch =
+        List.of(
+            fulfillment(1L, 10L, 100L),
+            fulfillment(2L, 10L, 100L),
+            fulfillment(3L, 10L, 100L),
+            fulfillment(3L, 11L, 100L),
+            fulfillment(4L, 12L, 100L));
+
+    // when
+    List<FulfillmentBatchItemResult> results = batchCreateFulfillmentUseCase.createAll(batch);
+
+    // then
+    assertEquals(
+        List.of(
+            Outcome.CREATED, Outcome.CREATED, Outcome.REJECTED, Outcome.CREATED, Outcome.REJECTED),
+        outcomes(results));
+    assertEquals(
+        "Product already has the maximum of 2 warehouses for this store.",
+        results.get(2).message());
+    assertEquals("Store already has the maximum of 3 warehouses.", results.get(4).message());
+    verify(fulfillmentStore)
+        .persistFulfillments(List.of(batch.get(0), batch.get(1), batch.get(3)));
+  }
+
+  @Test
+  public void testExistingFulfillmentsCountTowardsTheLimits() {
+    // given
+    when(fulfillmentStore.findProductIdsByWarehouseIds(any()))
+        .thenReturn(Map.of(1L, Set.of(10L, 11L, 12L, 13L, 14L)));
+
+    // when
+    List<FulfillmentBatchItemResult> results =
+        batchCreateFulfillmentUseCase.createAll(
+            List.of(fulfillment(1L, 15L, 100L), fulfillment(1L, 14L, 100L)));
+
+    // then
+    assertEquals(List.of(Outcome.REJECTED, Outcome.CREATED), outcomes(results));
+    assertEquals(
+        "Warehouse already has the maximum of 5 product types.", results.get(0).message());
+  }
+
+  @Test
+  public void testMissingReferencesAndFieldsAreReportedPerItem() {
+    // when
+    List<FulfillmentBatchItemResult> results =
+        batchCreateFulfillmentUseCase.createAll(
+            List.of(
+                fulfillment(9L, 10L, 100L),
+                fulfillment(1L, 19L, 100L),
+                fulfillment(1L, 10L, 109L),
+                fulfillment(null, 10L, 100L)));
+
+    // then
+    assertEquals(
+        List.of(Outcome.NOT_FOUND, Outcome.NOT_FOUND, Outcome.NOT_FOUND, Outcome.REJECTED),
+        outcomes(results));
+    assertEquals("Warehouse with id 9 does not exist.", results.get(0).message());
+    assertEquals("Product with id 19 does not exist.", results.get(1).message());
+    assertEquals("Store with id 109 does not exist.", results.get(2).message());
+    verify(fulfillmentStore, never()).persistFulfillments(any());
+    verifyNoInteractions(constraintIndex);
+  }
+
+  @Test
+  public void testDuplicatesAreRejected() {
+    // given
+    when(fulfillmentStore.findByStoreIds(any())).thenReturn(List.of(fulfillment(1L, 10L, 100L)));
+    when(fulfillmentStore.findProductIdsByWarehouseIds(any()))
+        .thenReturn(Map.of(1L, Set.of(10L)));
+
+    // when
+    List<FulfillmentBatchItemResult> results =
+        batchCreateFulfillmentUseCase.createAll(
+            List.of(
+                fulfillment(1L, 10L, 100L),
+                fulfillment(2L, 10L, 101L),
+                fulfillment(2L, 10L, 101L)));
+
+    // then
+    assertEquals(List.of(Outcome.REJECTED, Outcome.CREATED, Outcome.REJECTED), outcomes(results));
+  }
+
+  @Test
+  public void testEmptyBatchIsRejected() {
+    // when / then
+    assertThrows(
+        FulfillmentValidationException.class,
+        () -> batchCreateFulfillmentUseCase.createAll(List.of()));
+    verifyNoInteractions(fulfillmentStore);
+  }
+
+  private static List<Outcome> outcomes(List<FulfillmentBatchItemResult> results) {
+    return results.stream().map(FulfillmentBatchItemResult::outcome).toList();
+  }
+
+  private static FulfillmentDTO fulfillment(Long warehouseId, Long productId, Long storeId) {
+    FulfillmentDTO fulfillment = new FulfillmentDTO();
+    fulfillment.warehouseId = warehouseId;
+    fulfillment.productId = productId;
+    fulfillment.storeId = storeId;
+    return fulfillment;
+  }
+}
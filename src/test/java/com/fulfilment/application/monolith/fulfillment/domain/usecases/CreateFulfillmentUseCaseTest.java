@@ -0,0 +1,122 @@
+package com.fulfilment.application.monolith.fulfillment.domain.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentNotFoundException;
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentConstraintCheck;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentReferenceCheck;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.ProductPerWarehouseValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerProductPerStoreValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerStoreValidator;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class CreateFulfillmentUseCaseTest {
+
+  private static final Long WAREHOUSE_ID = 1L;
+  private static final Long PRODUCT_ID = 10L;
+  private static final Long STORE_ID = 100L;
+
+  @Mock private FulfillmentStore fulfillmentStore;
+
+  @Mock private FulfillmentConstraintIndex constraintIndex;
+
+  private CreateFulfillmentUseCase createFulfillmentUseCase;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    createFulfillmentUseCase =
+        new CreateFulfillmentUseCase(
+            fulfillmentStore,
+            new WarehousePerProductPerStoreValidator(),
+            new WarehousePerStoreValidator(),
+            new ProductPerWarehouseValidator(),
+            constraintIndex);
+    when(fulfillmentStore.checkReferences(WAREHOUSE_ID, PRODUCT_ID, STORE_ID))
+        .thenReturn(new FulfillmentReferenceCheck(true, true, true));
+    when(fulfillmentStore.lockStore(STORE_ID)).thenReturn(true);
+  }
+
+  @Test
+  public void testLimitsAreCheckedAgainstTheTableUnderTheStoreLock() {
+    // given
+    when(fulfillmentStore.checkConstraints(WAREHOUSE_ID, PRODUCT_ID, STORE_ID))
+        .thenReturn(new FulfillmentConstraintCheck(true, true, true, 0, 1, 2));
+
+    // when
+    createFulfillmentUseCase.create(fulfillment());
+
+    // then
+    InOrder order = inOrder(fulfillmentStore);
+    order.verify(fulfillmentStore).lockStore(STORE_ID);
+    order.verify(fulfillmentStore).lockWarehouses(List.of(WAREHOUSE_ID));
+    order.verify(fulfillmentStore).checkConstraints(WAREHOUSE_ID, PRODUCT_ID, STORE_ID);
+    order.verify(fulfillmentStore).persistFulfillment(any());
+  }
+
+  @Test
+  public void testTheTableRejectsWhatTheIndexHasNotSeenYet() {
+    // given: a create committed on another node is missing from this node's index
+    when(fulfillmentStore.checkConstraints(WAREHOUSE_ID, PRODUCT_ID, STORE_ID))
+        .thenReturn(
+            new FulfillmentConstraintCheck(
+                true, true, true, 0, WarehousePerStoreValidator.MAX_WAREHOUSES_PER_STORE, 0));
+
+    // when / then
+    assertThrows(
+        FulfillmentValidationException.class,
+        () -> createFulfillmentUseCase.create(fulfillment()));
+    verify(fulfillmentStore, never()).persistFulfillment(any());
+  }
+
+  @Test
+  public void testAnIndexThatStillCountsDeletedRowsDoesNotReject() {
+    // given: the index has not yet seen fulfillments deleted on another node
+    when(constraintIndex.warehousesForStore(anyLong()))
+        .thenReturn(WarehousePerStoreValidator.MAX_WAREHOUSES_PER_STORE);
+    when(constraintIndex.productsInWarehouse(anyLong()))
+        .thenReturn(ProductPerWarehouseValidator.MAX_PRODUCTS_PER_WAREHOUSE);
+    when(fulfillmentStore.checkConstraints(WAREHOUSE_ID, PRODUCT_ID, STORE_ID))
+        .thenReturn(new FulfillmentConstraintCheck(true, true, true, 0, 0, 0));
+
+    // when
+    createFulfillmentUseCase.create(fulfillment());
+
+    // then
+    verify(fulfillmentStore).persistFulfillment(any());
+  }
+
+  @Test
+  public void testStoreDeletedBeforeTheLockIsNotFound() {
+    // given
+    when(fulfillmentStore.lockStore(STORE_ID)).thenReturn(false);
+
+    // when / then
+    assertThrows(
+        FulfillmentNotFoundException.class, () -> createFulfillmentUseCase.create(fulfillment()));
+    verify(fulfillmentStore, never()).persistFulfillment(any());
+  }
+
+  private static FulfillmentDTO fulfillment() {
+    FulfillmentDTO dto = new FulfillmentDTO();
+    dto.warehouseId = WAREHOUSE_ID;
+    dto.productId = PRODUCT_ID;
+    dto.storeId = STORE_ID;
+    return dto;
+  }
+}
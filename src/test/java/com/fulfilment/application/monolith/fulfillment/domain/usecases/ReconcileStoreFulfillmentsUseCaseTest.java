@@ -0,0 +1,184 @@
+package com.fulfilment.application.monolith.fulfillment.domain.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentNotFoundException;
+import com.fulfilment.application.monolith.fulfillment.domain.exceptions.FulfillmentValidationException;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentReconciliation;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.ProductPerWarehouseValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerProductPerStoreValidator;
+import com.fulfilment.application.monolith.fulfillment.domain.validators.WarehousePerStoreValidator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class ReconcileStoreFulfillmentsUseCaseTest {
+
+  private static final Long STORE_ID = 100L;
+
+  @Mock private FulfillmentStore fulfillmentStore;
+
+  @Mock private FulfillmentConstraintIndex constraintIndex;
+
+  private ReconcileStoreFulfillmentsUseCase reconcileStoreFulfillmentsUseCase;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    reconcileStoreFulfillmentsUseCase =
+        new ReconcileStoreFulfillmentsUseCase(
+            fulfillmentStore,
+            new WarehousePerProductPerStoreValidator(),
+            new WarehousePerStoreValidator(),
+            new ProductPerWarehouseValidator(),
+            constraintIndex);
+    when(fulfillmentStore.lockStore(STORE_ID)).thenReturn(true);
+    when(fulfillmentStore.findExistingWarehouseIds(any())).thenReturn(Set.of(1L, 2L, 3L, 4L));
+    when(fulfillmentStore.findExistingProductIds(any())).thenReturn(Set.of(10L, 11L, 12L));
+    when(fulfillmentStore.findProductIdsOfOtherStores(any(), any())).thenReturn(Map.of());
+  }
+
+  @Test
+  public void testUnchangedAssignmentsCostNoWrites() {
+    // given
+    when(fulfillmentStore.findByStoreId(STORE_ID))
+        .thenReturn(List.of(existing(1L, 1L, 10L), existing(2L, 2L, 11L)));
+
+    // when
+    FulfillmentReconciliation reconciliation =
+        reconcileStoreFulfillmentsUseCase.reconcile(
+            STORE_ID, List.of(desired(2L, 11L), desired(1L, 10L)));
+
+    // then
+    assertEquals(List.of(), reconciliation.inserted());
+    assertEquals(List.of(), reconciliation.deleted());
+    assertEquals(2, reconciliation.unchanged());
+    verify(fulfillmentStore, never()).deleteFulfillments(anyCollection());
+    verify(fulfillmentStore, never()).persistFulfillments(anyList());
+    verify(fulfillmentStore, never()).findExistingWarehouseIds(any());
+  }
+
+  @Test
+  public void testOnlyTheDifferenceIsWritten() {
+    // given
+    FulfillmentDTO stale = existing(2L, 2L, 11L);
+    when(fulfillmentStore.findByStoreId(STORE_ID))
+        .thenReturn(List.of(existing(1L, 1L, 10L), stale));
+    FulfillmentDTO added = desired(3L, 12L);
+
+    // when
+    FulfillmentReconciliation reconciliation =
+        reconcileStoreFulfillmentsUseCase.reconcile(STORE_ID, List.of(desired(1L, 10L), added));
+
+    // then
+    assertEquals(List.of(added), reconciliation.inserted());
+    assertEquals(List.of(stale), reconciliation.deleted());
+    assertEquals(1, reconciliation.unchanged());
+    assertEquals(STORE_ID, added.storeId);
+    verify(fulfillmentStore).lockWarehouses(List.of(3L));
+    verify(fulfillmentStore).deleteFulfillments(List.of(2L));
+    verify(fulfillmentStore).persistFulfillments(List.of(added));
+    verify(constraintIndex).record(new FulfillmentChange(2L, 11L, STORE_ID, -1));
+    verify(constraintIndex).record(new FulfillmentChange(3L, 12L, STORE_ID, 1));
+  }
+
+  @Test
+  public void testLimitsAreCheckedAgainstTheResultingSet() {
+    // given
+    when(fulfillmentStore.findByStoreId(STORE_ID))
+        .thenReturn(
+            List.of(existing(1L, 1L, 10L), existing(2L, 2L, 10L), existing(3L, 3L, 11L)));
+
+    // when: the store swaps warehouse 3 for warehouse 4, staying at three warehouses
+    FulfillmentReconciliation reconciliation =
+        reconcileStoreFulfillmentsUseCase.reconcile(
+            STORE_ID, List.of(desired(1L, 10L), desired(2L, 10L), desired(4L, 11L)));
+
+    // then
+    assertEquals(1, reconciliation.inserted().size());
+    assertEquals(1, reconciliation.deleted().size());
+  }
+
+  @Test
+  public void testResultingSetOverALimitIsRejectedWithoutWrites() {
+    // given
+    when(fulfillmentStore.findByStoreId(STORE_ID)).thenReturn(List.of());
+
+    // when
+    FulfillmentValidationException exception =
+        assertThrows(
+            FulfillmentValidationException.class,
+            () ->
+                reconcileStoreFulfillmentsUseCase.reconcile(
+                    STORE_ID, List.of(desired(1L, 10L), desired(2L, 10L), desired(3L, 10L))));
+
+    // then
+    assertEquals(
+        "Product 10 cannot have more than 2 warehouses for this store.", exception.getMessage());
+    verify(fulfillmentStore, never()).persistFulfillments(anyList());
+  }
+
+  @Test
+  public void testProductsOfOtherStoresCountTowardsTheWarehouseLimit() {
+    // given
+    when(fulfillmentStore.findByStoreId(STORE_ID)).thenReturn(List.of());
+    when(fulfillmentStore.findProductIdsOfOtherStores(Set.of(1L), STORE_ID))
+        .thenReturn(Map.of(1L, Set.of(20L, 21L, 22L, 23L, 24L)));
+
+    // when
+    FulfillmentValidationException exception =
+        assertThrows(
+            FulfillmentValidationException.class,
+            () -> reconcileStoreFulfillmentsUseCase.reconcile(STORE_ID, List.of(desired(1L, 10L))));
+
+    // then
+    assertEquals("Warehouse 1 cannot have more than 5 product types.", exception.getMessage());
+  }
+
+  @Test
+  public void testUnknownStoreOrWarehouseIsNotFound() {
+    // given
+    when(fulfillmentStore.findByStoreId(STORE_ID)).thenReturn(List.of());
+
+    // when
+    assertThrows(
+        FulfillmentNotFoundException.class,
+        () -> reconcileStoreFulfillmentsUseCase.reconcile(999L, List.of(desired(1L, 10L))));
+    FulfillmentNotFoundException exception =
+        assertThrows(
+            FulfillmentNotFoundException.class,
+            () -> reconcileStoreFulfillmentsUseCase.reconcile(STORE_ID, List.of(desired(9L, 10L))));
+
+    // then
+    assertEquals("Warehouse with id 9 does not exist.", exception.getMessage());
+  }
+
+  private static FulfillmentDTO existing(Long id, Long warehouseId, Long productId) {
+    FulfillmentDTO dto = desired(warehouseId, productId);
+    dto.id = id;
+    dto.storeId = STORE_ID;
+    return dto;
+  }
+
+  private static FulfillmentDTO desired(Long warehouseId, Long productId) {
+    FulfillmentDTO dto = new FulfillmentDTO();
+    dto.warehouseId = warehouseId;
+    dto.productId = productId;
+    return dto;
+  }
+}
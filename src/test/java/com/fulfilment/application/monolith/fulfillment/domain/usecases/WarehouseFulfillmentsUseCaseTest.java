@@ -0,0 +1,168 @@
+package com.fulfilment.application.monolith.fulfillment.domain.usecases;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentChange;
+import com.fulfilment.application.monolith.fulfillment.domain.index.FulfillmentConstraintIndex;
+import com.fulfilment.application.monolith.fulfillment.domain.models.FulfillmentDTO;
+import com.fulfilment.application.monolith.fulfillment.domain.ports.FulfillmentStore;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+public class WarehouseFulfillmentsUseCaseTest {
+
+  private static final Long ACTIVE_ID = 20L;
+  private static final Long ARCHIVED_ID = 10L;
+
+  @Mock private FulfillmentStore fulfillmentStore;
+
+  @Mock private FulfillmentConstraintIndex constraintIndex;
+
+  private WarehouseFulfillmentsUseCase warehouseFulfillmentsUseCase;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    warehouseFulfillmentsUseCase =
+        new WarehouseFulfillmentsUseCase(fulfillmentStore, constraintIndex);
+    when(fulfillmentStore.findWarehouseIdsByBusinessUnitCode("MWH.001", 2))
+        .thenReturn(List.of(ACTIVE_ID, ARCHIVED_ID));
+  }
+
+  @Test
+  public void testMovesEveryFulfillmentWithOneUpdate() {
+    // given
+    when(fulfillmentStore.findByWarehouseIds(List.of(ARCHIVED_ID, ACTIVE_ID)))
+        .thenReturn(
+            List.of(
+                fulfillment(1L, ARCHIVED_ID, 100L, 1L), fulfillment(2L, ARCHIVED_ID, 101L, 1L)));
+    when(fulfillmentStore.moveFulfillments(ARCHIVED_ID, ACTIVE_ID)).thenReturn(2);
+
+    // when
+    int moved = warehouseFulfillmentsUseCase.moveToActiveGeneration("MWH.001");
+
+    // then
+    assertEquals(2, moved);
+    verify(fulfillmentStore).deleteFulfillments(List.of());
+    verify(constraintIndex)
+        .recordAll(
+            List.of(
+                new FulfillmentChange(ARCHIVED_ID, 100L, 1L, -1),
+                new FulfillmentChange(ACTIVE_ID, 100L, 1L, 1),
+                new FulfillmentChange(ARCHIVED_ID, 101L, 1L, -1),
+                new FulfillmentChange(ACTIVE_ID, 101L, 1L, 1)));
+  }
+
+  @Test
+  public void testPairsTheActiveGenerationAlreadyServesAreDropped() {
+    // given
+    when(fulfillmentStore.findByWarehouseIds(List.of(ARCHIVED_ID, ACTIVE_ID)))
+        .thenReturn(
+            List.of(
+                fulfillment(1L, ARCHIVED_ID, 100L, 1L),
+                fulfillment(2L, ARCHIVED_ID, 101L, 1L),
+                fulfillment(3L, ACTIVE_ID, 100L, 1L)));
+    when(fulfillmentStore.moveFulfillments(ARCHIVED_ID, ACTIVE_ID)).thenReturn(1);
+
+    // when
+    int moved = warehouseFulfillmentsUseCase.moveToActiveGeneration("MWH.001");
+
+    // then
+    assertEquals(1, moved);
+    verify(fulfillmentStore).deleteFulfillments(List.of(1L));
+    verify(constraintIndex)
+        .recordAll(
+            List.of(
+                new FulfillmentChange(ARCHIVED_ID, 100L, 1L, -1),
+                new FulfillmentChange(ARCHIVED_ID, 101L, 1L, -1),
+                new FulfillmentChange(ACTIVE_ID, 101L, 1L, 1)));
+  }
+
+  @Test
+  public void testFirstGenerationHasNothingToMove() {
+    // given
+    when(fulfillmentStore.findWarehouseIdsByBusinessUnitCode("MWH.002", 2))
+        .thenReturn(List.of(ACTIVE_ID));
+
+    // when
+    int moved = warehouseFulfillmentsUseCase.moveToActiveGeneration("MWH.002");
+
+    // then
+    assertEquals(0, moved);
+    verify(fulfillmentStore, never()).findByWarehouseIds(any());
+    verify(fulfillmentStore, never()).moveFulfillments(anyLong(), anyLong());
+  }
+
+  @Test
+  public void testDetachesTheArchivedGenerationWithOneUpdate() {
+    // given
+    when(fulfillmentStore.findLastArchivedWarehouseId("MWH.001")).thenReturn(ARCHIVED_ID);
+    when(fulfillmentStore.findByWarehouseIds(List.of(ARCHIVED_ID)))
+        .thenReturn(
+            List.of(
+                fulfillment(1L, ARCHIVED_ID, 100L, 1L), fulfillment(2L, ARCHIVED_ID, 101L, 2L)));
+    when(fulfillmentStore.detachFulfillments(ARCHIVED_ID)).thenReturn(2);
+
+    // when
+    int detached = warehouseFulfillmentsUseCase.detachFromArchivedGeneration("MWH.001");
+
+    // then
+    assertEquals(2, detached);
+    verify(fulfillmentStore, never()).deleteFulfillmentsOfWarehouse(anyLong());
+    verify(constraintIndex)
+        .recordAll(
+            List.of(
+                new FulfillmentChange(ARCHIVED_ID, 100L, 1L, -1),
+                new FulfillmentChange(ARCHIVED_ID, 101L, 2L, -1)));
+  }
+
+  @Test
+  public void testDropsTheArchivedGenerationWithOneDelete() {
+    // given
+    when(fulfillmentStore.findLastArchivedWarehouseId("MWH.001")).thenReturn(ARCHIVED_ID);
+    when(fulfillmentStore.findByWarehouseIds(List.of(ARCHIVED_ID)))
+        .thenReturn(List.of(fulfillment(1L, ARCHIVED_ID, 100L, 1L)));
+    when(fulfillmentStore.deleteFulfillmentsOfWarehouse(ARCHIVED_ID)).thenReturn(1);
+
+    // when
+    int dropped = warehouseFulfillmentsUseCase.dropFromArchivedGeneration("MWH.001");
+
+    // then
+    assertEquals(1, dropped);
+    verify(fulfillmentStore, never()).detachFulfillments(anyLong());
+    verify(constraintIndex).recordAll(List.of(new FulfillmentChange(ARCHIVED_ID, 100L, 1L, -1)));
+  }
+
+  @Test
+  public void testWarehouseWithoutFulfillmentsWritesNothing() {
+    // given
+    when(fulfillmentStore.findLastArchivedWarehouseId("MWH.001")).thenReturn(ARCHIVED_ID);
+    when(fulfillmentStore.findByWarehouseIds(List.of(ARCHIVED_ID))).thenReturn(List.of());
+
+    // when
+    int detached = warehouseFulfillmentsUseCase.detachFromArchivedGeneration("MWH.001");
+
+    // then
+    assertEquals(0, detached);
+    verify(fulfillmentStore, never()).detachFulfillments(anyLong());
+    verify(constraintIndex, never()).recordAll(any());
+  }
+
+  private static FulfillmentDTO fulfillment(
+      Long id, Long warehouseId, Long productId, Long storeId) {
+    FulfillmentDTO dto = new FulfillmentDTO();
+    dto.id = id;
+    dto.warehouseId = warehouseId;
+    dto.productId = productId;
+    dto.storeId = storeId;
+    return dto;
+  }
+}
@@ -0,0 +1,77 @@
+package com.fulfilment.application.monolith.location;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the linear scan the gateway used to do with the hash index, for catalogues of 10, 10k
+ * and 1M locations. Run with {@code ./mvnw -Pbenchmark test -Dbenchmark.includes=LocationCatalogueBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationCatalogueBenchmark {
+
+  private static final int LOOKUPS = 1024;
+
+  @Param({"10", "10000", "1000000"})
+  int size;
+
+  private List<LocationDTO> locations;
+  private LocationCatalogue catalogue;
+  private String[] identifiers;
+  private int cursor;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    locations = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      locations.add(new LocationDTO(String.format("LOCATION-%07d", i), 1 + i % 5, 40 + i % 100));
+    }
+    catalogue = new LocationCatalogue(locations);
+
+    Random random = new Random(42);
+    identifiers = new String[LOOKUPS];
+    for (int i = 0; i < LOOKUPS; i++) {
+      identifiers[i] = locations.get(random.nextInt(size)).identification;
+    }
+  }
+
+  @Benchmark
+  public LocationDTO linearScan() {
+    String identifier = nextIdentifier();
+    return locations.stream()
+        .filter(location -> location.identification.equals(identifier))
+        .findFirst()
+        .orElse(null);
+  }
+
+  @Benchmark
+  public LocationDTO hashIndex() {
+    return catalogue.resolve(nextIdentifier());
+  }
+
+  private String nextIdentifier() {
+    cursor = (cursor + 1) & (LOOKUPS - 1);
+    return identifiers[cursor];
+  }
+}
@@ -0,0 +1,76 @@
+package com.fulfilment.application.monolith.location;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocationCatalogueTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void testBundledResourceContainsDefaultLocations() {
+    LocationCatalogue catalogue = LocationCatalogue.fromBundledResource();
+
+    assertEquals(8, catalogue.size());
+    LocationDTO location = catalogue.resolve("VETSBY-001");
+    assertNotNull(location);
+    assertEquals(1, location.maxNumberOfWarehouses);
+    assertEquals(90, location.maxCapacity);
+  }
+
+  @Test
+  public void testFromFileSkipsCommentsAndBlankLines() throws Exception {
+    Path file = tempDir.resolve("locations.csv");
+    Files.writeString(file, "# identification,maxNumberOfWarehouses,maxCapacity\n\nUTRECHT-001, 4, 120\n");
+
+    LocationCatalogue catalogue = LocationCatalogue.fromFile(file);
+
+    assertEquals(1, catalogue.size());
+    assertEquals(120, catalogue.resolve("UTRECHT-001").maxCapacity);
+  }
+
+  @Test
+  public void testParseRejectsMalformedLine() {
+    BufferedReader reader = new BufferedReader(new StringReader("ZWOLLE-001,1\n"));
+
+    IllegalArgumentException ex = assertThrows(IllegalArgumentException.class, () ->
+        LocationCatalogue.parse(reader, "test.csv")
+    );
+    assertTrue(ex.getMessage().contains("test.csv:1"));
+  }
+
+  @Test
+  public void testParseRejectsNonNumericLimits() {
+    BufferedReader reader = new BufferedReader(new StringReader("ZWOLLE-001,one,40\n"));
+
+    assertThrows(IllegalArgumentException.class, () -> LocationCatalogue.parse(reader, "test.csv"));
+  }
+
+  @Test
+  public void testDuplicateIdentifiersAreRejected() {
+    List<LocationDTO> locations = List.of(
+        new LocationDTO("ZWOLLE-001", 1, 40),
+        new LocationDTO("ZWOLLE-001", 2, 50));
+
+    assertThrows(IllegalArgumentException.class, () -> new LocationCatalogue(locations));
+  }
+
+  @Test
+  public void testUnknownIdentifierResolvesToNullRepeatedly() {
+    LocationCatalogue catalogue = new LocationCatalogue(List.of(new LocationDTO("ZWOLLE-001", 1, 40)));
+
+    assertNull(catalogue.resolve("UNKNOWN-001"));
+    assertNull(catalogue.resolve("UNKNOWN-001"));
+    assertNotNull(catalogue.resolve("ZWOLLE-001"));
+  }
+}
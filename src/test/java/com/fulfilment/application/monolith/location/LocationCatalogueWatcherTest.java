@@ -0,0 +1,63 @@
+package com.fulfilment.application.monolith.location;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocationCatalogueWatcherTest {
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  public void testUnchangedFileIsNotReloaded() throws Exception {
+    // given
+    Path file = tempDir.resolve("locations.csv");
+    Files.writeString(file, "ZWOLLE-001,1,40\n");
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    LocationGateway gateway = new LocationGateway(Optional.of(file.toString()), meterRegistry);
+    LocationCatalogueWatcher watcher = new LocationCatalogueWatcher(gateway);
+
+    // when
+    watcher.checkForChanges();
+
+    // then
+    assertEquals(0, meterRegistry.get("location.catalogue.reload").timer().count());
+  }
+
+  @Test
+  public void testChangedFileIsReloaded() throws Exception {
+    // given
+    Path file = tempDir.resolve("locations.csv");
+    Files.writeString(file, "ZWOLLE-001,1,40\n");
+    LocationGateway gateway = new LocationGateway(Optional.of(file.toString()), new SimpleMeterRegistry());
+    LocationCatalogueWatcher watcher = new LocationCatalogueWatcher(gateway);
+
+    // when
+    Files.writeString(file, "ZWOLLE-001,1,40\nTILBURG-001,1,40\n");
+    Files.setLastModifiedTime(file, FileTime.from(Instant.now().plusSeconds(5)));
+    watcher.checkForChanges();
+
+    // then
+    assertEquals(2, gateway.size());
+  }
+
+  @Test
+  public void testWithoutConfiguredFileNothingIsWatched() {
+    // given
+    LocationGateway gateway = new LocationGateway(Optional.empty(), new SimpleMeterRegistry());
+    LocationCatalogueWatcher watcher = new LocationCatalogueWatcher(gateway);
+
+    // when & then
+    assertDoesNotThrow(watcher::checkForChanges);
+    assertEquals(8, gateway.size());
+  }
+}
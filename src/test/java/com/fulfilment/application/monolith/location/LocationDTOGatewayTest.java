@@ -1,18 +1,33 @@
 package com.fulfilment.application.monolith.location;
 
 import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationValidation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 public class LocationDTOGatewayTest {
 
+  @TempDir
+  Path tempDir;
+
+  private SimpleMeterRegistry meterRegistry;
+
   private LocationGateway locationGateway;
 
   @BeforeEach
   public void setUp() {
-    locationGateway = new LocationGateway();
+    meterRegistry = new SimpleMeterRegistry();
+    locationGateway = new LocationGateway(Optional.empty(), meterRegistry);
   }
 
   @Test
@@ -35,4 +50,86 @@ public class LocationDTOGatewayTest {
     // then
     assertNull(locationDTO);
   }
+
+  @Test
+  public void testWhenResolveNullIdentifierShouldReturnNull() {
+    // when
+    LocationDTO locationDTO = locationGateway.resolveByIdentifier(null);
+
+    // then
+    assertNull(locationDTO);
+  }
+
+  @Test
+  public void testWhenResolveAllShouldReturnOnlyKnownLocations() {
+    // when
+    Map<String, LocationDTO> resolved = locationGateway.resolveAll(List.of("ZWOLLE-001", "NON-EXISTENT", "AMSTERDAM-002"));
+
+    // then
+    assertEquals(2, resolved.size());
+    assertEquals(1, resolved.get("ZWOLLE-001").maxNumberOfWarehouses);
+    assertEquals(75, resolved.get("AMSTERDAM-002").maxCapacity);
+    assertFalse(resolved.containsKey("NON-EXISTENT"));
+  }
+
+  @Test
+  public void testWhenCatalogueFileChangesReloadShouldSwapInNewLimits() throws Exception {
+    // given
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Path file = tempDir.resolve("locations.csv");
+    Files.writeString(file, "ZWOLLE-001,1,40\n");
+    LocationGateway gateway = new LocationGateway(Optional.of(file.toString()), registry);
+    LocationDTO before = gateway.resolveByIdentifier("ZWOLLE-001");
+
+    // when
+    Files.writeString(file, "ZWOLLE-001,3,120\nUTRECHT-001,2,60\n");
+    int size = gateway.reload();
+
+    // then
+    assertEquals(2, size);
+    assertEquals(40, before.maxCapacity);
+    assertEquals(120, gateway.resolveByIdentifier("ZWOLLE-001").maxCapacity);
+    assertNotNull(gateway.resolveByIdentifier("UTRECHT-001"));
+    assertEquals(1, registry.get("location.catalogue.reload").timer().count());
+    assertEquals(1.0, registry.get("location.catalogue.generation").gauge().value());
+  }
+
+  @Test
+  public void testWhenReloadFailsShouldKeepPreviousCatalogue() throws Exception {
+    // given
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Path file = tempDir.resolve("locations.csv");
+    Files.writeString(file, "ZWOLLE-001,1,40\n");
+    LocationGateway gateway = new LocationGateway(Optional.of(file.toString()), registry);
+
+    // when
+    Files.writeString(file, "ZWOLLE-001,broken\n");
+
+    // then
+    assertThrows(IllegalArgumentException.class, gateway::reload);
+    assertEquals(40, gateway.resolveByIdentifier("ZWOLLE-001").maxCapacity);
+    assertEquals(1.0, registry.get("location.catalogue.reload.failures").counter().count());
+    assertEquals(0.0, registry.get("location.catalogue.generation").gauge().value());
+  }
+
+  @Test
+  public void testWhenReloadSwapsDuringValidationShouldCountItAsStale() throws Exception {
+    // given
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    Path file = tempDir.resolve("locations.csv");
+    Files.writeString(file, "ZWOLLE-001,1,40\n");
+    LocationGateway gateway = new LocationGateway(Optional.of(file.toString()), registry);
+    gateway.startValidation().close();
+
+    // when
+    LocationValidation validation = gateway.startValidation();
+    LocationDTO location = gateway.resolveByIdentifier("ZWOLLE-001");
+    Files.writeString(file, "ZWOLLE-001,1,120\n");
+    gateway.reload();
+    validation.close();
+
+    // then
+    assertEquals(40, location.maxCapacity);
+    assertEquals(1.0, registry.get("location.catalogue.stale.validations").counter().count());
+  }
 }
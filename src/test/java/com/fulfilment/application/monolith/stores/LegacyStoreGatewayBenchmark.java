@@ -0,0 +1,90 @@
+package com.fulfilment.application.monolith.stores;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the legacy gateway's temp file writes with appends to the memory-mapped store journal,
+ * for single events and for relay batches of 50, and the journal with eight writers sharing its
+ * forces. Run with {@code ./mvnw -Pbenchmark test -Dbenchmark.includes=LegacyStoreGatewayBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LegacyStoreGatewayBenchmark {
+
+  @Param({"1", "50"})
+  int batchSize;
+
+  private Path directory;
+  private StoreJournal journal;
+  private LegacyStoreManagerGateway tempFileGateway;
+  private LegacyStoreManagerGateway journalGateway;
+  private List<StoreEvent> batch;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = Files.createTempDirectory("legacy-store-journal");
+    journal = new StoreJournal(directory, 64 << 20, 2);
+    tempFileGateway = new LegacyStoreManagerGateway();
+    journalGateway = new LegacyStoreManagerGateway(journal);
+
+    batch = new ArrayList<>(batchSize);
+    for (int i = 0; i < batchSize; i++) {
+      Store store = new Store(String.format("STORE-%05d", i));
+      store.id = (long) i;
+      store.quantityProductsInStock = i % 100;
+      batch.add(new StoreEvent(store, StoreEvent.Action.UPDATE));
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    journal.close();
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+        Files.deleteIfExists(file);
+      }
+    }
+  }
+
+  @Benchmark
+  public void tempFile() {
+    tempFileGateway.syncStoresOnLegacySystem(batch);
+  }
+
+  @Benchmark
+  public void journal() {
+    journalGateway.syncStoresOnLegacySystem(batch);
+  }
+
+  @Benchmark
+  @Threads(8)
+  public void journalEightWriters() {
+    journalGateway.syncStoresOnLegacySystem(batch);
+  }
+}
@@ -2,8 +2,14 @@ package com.fulfilment.application.monolith.stores;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 public class LegacyStoreManagerGatewayTest {
 
@@ -29,4 +35,30 @@ public class LegacyStoreManagerGatewayTest {
 
     assertDoesNotThrow(() -> gateway.updateStoreOnLegacySystem(store));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testSyncStoresOnLegacySystem() {
+    Store created = new Store("TestStore");
+    Store updated = new Store("OtherStore");
+    updated.quantityProductsInStock = 30;
+
+    assertDoesNotThrow(() -> gateway.syncStoresOnLegacySystem(List.of(
+        new StoreEvent(created, StoreEvent.Action.CREATE),
+        new StoreEvent(updated, StoreEvent.Action.UPDATE))));
+  }
+
+  @Test
+  public void testJournalModeAppendsToTheStoreJournal(@TempDir Path directory) {
+    LegacyStoreManagerGateway journalGateway = new LegacyStoreManagerGateway(new StoreJournal(directory, 4096, 2));
+    Store store = new Store("TestStore");
+    store.id = 5L;
+
+    journalGateway.createStoreOnLegacySystem(store);
+    journalGateway.syncStoresOnLegacySystem(List.of(new StoreEvent(store, StoreEvent.Action.UPDATE)));
+
+    List<StoreEvent> journaled = new ArrayList<>();
+    StoreJournalReader.fromOldest(directory).poll(journaled::add, 10);
+    assertEquals(List.of(StoreEvent.Action.CREATE, StoreEvent.Action.UPDATE), journaled.stream().map(StoreEvent::action).toList());
+    assertEquals(5L, journaled.get(1).store().id);
+  }
+}
@@ -0,0 +1,80 @@
+package com.fulfilment.application.monolith.stores;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StoreEventCoalescerTest {
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private StoreEventCoalescer storeEventCoalescer;
+
+  @BeforeEach
+  public void setUp() {
+    meterRegistry = new SimpleMeterRegistry();
+    storeEventCoalescer = new StoreEventCoalescer(meterRegistry);
+  }
+
+  @Test
+  public void testUpdatesOfAStoreCollapseIntoTheLatest() {
+    // given
+    List<StoreEvent> events = List.of(
+        event(1L, 10, StoreEvent.Action.UPDATE),
+        event(2L, 20, StoreEvent.Action.UPDATE),
+        event(1L, 11, StoreEvent.Action.UPDATE),
+        event(1L, 12, StoreEvent.Action.UPDATE));
+
+    // when
+    List<StoreEvent> coalesced = storeEventCoalescer.coalesce(events);
+
+    // then
+    assertEquals(List.of("UPDATE 1 12", "UPDATE 2 20"), coalesced.stream().map(StoreEventCoalescerTest::describe).toList());
+    assertEquals(2.0, meterRegistry.get("legacy.store.coalescer.ratio").gauge().value());
+  }
+
+  @Test
+  public void testCreateFollowedByUpdatesStaysACreate() {
+    // given
+    List<StoreEvent> events = List.of(
+        event(1L, 10, StoreEvent.Action.CREATE),
+        event(1L, 11, StoreEvent.Action.UPDATE),
+        event(1L, 12, StoreEvent.Action.UPDATE));
+
+    // when
+    List<StoreEvent> coalesced = storeEventCoalescer.coalesce(events);
+
+    // then
+    assertEquals(List.of("CREATE 1 12"), coalesced.stream().map(StoreEventCoalescerTest::describe).toList());
+    assertEquals(3, meterRegistry.get("legacy.store.coalescer.received").counter().count());
+    assertEquals(1, meterRegistry.get("legacy.store.coalescer.emitted").counter().count());
+  }
+
+  @Test
+  public void testEventsWithoutAStoreIdPassThrough() {
+    // given
+    List<StoreEvent> events = List.of(event(null, 1, StoreEvent.Action.CREATE), event(null, 2, StoreEvent.Action.CREATE));
+
+    // when
+    List<StoreEvent> coalesced = storeEventCoalescer.coalesce(events);
+
+    // then
+    assertEquals(events, coalesced);
+    assertEquals(1.0, meterRegistry.get("legacy.store.coalescer.ratio").gauge().value());
+  }
+
+  private static StoreEvent event(Long id, int quantity, StoreEvent.Action action) {
+    Store store = new Store("STORE-" + id);
+    store.id = id;
+    store.quantityProductsInStock = quantity;
+    return new StoreEvent(store, action);
+  }
+
+  private static String describe(StoreEvent event) {
+    return event.action() + " " + event.store().id + " " + event.store().quantityProductsInStock;
+  }
+}
@@ -13,11 +13,14 @@ public class StoreEventListenerTest {
   @InjectMock
   LegacyStoreManagerGateway legacyStoreManagerGateway;
 
+  @InjectMock
+  StoreOutboxRelay storeOutboxRelay;
+
   @Inject
   StoreEventListener storeEventListener;
 
   @Test
-  public void testOnStoreEventWithCreateActionShouldCallLegacyGateway() {
+  public void testOnStoreEventWithCreateActionShouldWakeTheRelayUp() {
     // given
     Store store = new Store();
     store.name = "Test Store";
@@ -28,12 +31,12 @@ public class StoreEventListenerTest {
     storeEventListener.onStoreEvent(event);
 
     // then
-    verify(legacyStoreManagerGateway, times(1)).createStoreOnLegacySystem(store);
-    verify(legacyStoreManagerGateway, never()).updateStoreOnLegacySystem(any());
+    verify(storeOutboxRelay, times(1)).wakeUp();
+    verifyNoInteractions(legacyStoreManagerGateway);
   }
 
   @Test
-  public void testOnStoreEventWithUpdateActionShouldCallLegacyGateway() {
+  public void testOnStoreEventWithUpdateActionShouldWakeTheRelayUp() {
     // given
     Store store = new Store();
     store.id = 1L;
@@ -45,7 +48,7 @@ public class StoreEventListenerTest {
     storeEventListener.onStoreEvent(event);
 
     // then
-    verify(legacyStoreManagerGateway, times(1)).updateStoreOnLegacySystem(store);
-    verify(legacyStoreManagerGateway, never()).createStoreOnLegacySystem(any());
+    verify(storeOutboxRelay, times(1)).wakeUp();
+    verifyNoInteractions(legacyStoreManagerGateway);
   }
 }
@@ -0,0 +1,133 @@
+package com.fulfilment.application.monolith.stores;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StoreJournalTest {
+
+  private static final int SEGMENT_SIZE = 4096;
+
+  @TempDir
+  Path directory;
+
+  @Test
+  public void testAppendedEventsAreTailedInOrder() {
+    // given
+    StoreJournal journal = new StoreJournal(directory, SEGMENT_SIZE, 4);
+    StoreJournalReader reader = StoreJournalReader.fromOldest(directory);
+    journal.append(List.of(event(1, "A", StoreEvent.Action.CREATE), event(2, "B", StoreEvent.Action.UPDATE)));
+
+    // when
+    List<StoreEvent> read = new ArrayList<>();
+    int first = reader.poll(read::add, 10);
+    journal.append(List.of(event(1, "A", StoreEvent.Action.UPDATE)));
+    int second = reader.poll(read::add, 10);
+
+    // then
+    assertEquals(2, first);
+    assertEquals(1, second);
+    assertEquals(List.of("CREATE 1 A 1", "UPDATE 2 B 2", "UPDATE 1 A 1"), read.stream().map(StoreJournalTest::describe).toList());
+    assertEquals(0, reader.poll(read::add, 10));
+  }
+
+  @Test
+  public void testSegmentsRollAndOnlyTheNewestAreRetained() throws Exception {
+    // given
+    StoreJournal journal = new StoreJournal(directory, SEGMENT_SIZE, 2);
+
+    // when: records here take about 30 bytes, so some 135 fit a segment and this fills over four
+    for (int i = 0; i < 600; i++) {
+      journal.append(List.of(event(i, "STORE-" + i, StoreEvent.Action.UPDATE)));
+    }
+
+    // then
+    List<Long> segments = StoreJournal.segmentNumbers(directory);
+    assertEquals(2, segments.size());
+    assertEquals(4L, segments.get(1));
+    StoreJournalReader reader = StoreJournalReader.fromOldest(directory);
+    List<StoreEvent> read = new ArrayList<>();
+    reader.poll(read::add, 1_000);
+    assertEquals(599L, read.get(read.size() - 1).store().id);
+    assertEquals(4L, reader.segment());
+  }
+
+  @Test
+  public void testReaderThatFellBehindSkipsToTheOldestRetainedSegment() {
+    // given
+    StoreJournal journal = new StoreJournal(directory, SEGMENT_SIZE, 1);
+    StoreJournalReader reader = StoreJournalReader.fromOldest(directory);
+
+    // when
+    for (int i = 0; i < 300; i++) {
+      journal.append(List.of(event(i, "STORE-" + i, StoreEvent.Action.UPDATE)));
+    }
+    List<StoreEvent> read = new ArrayList<>();
+    reader.poll(read::add, 1_000);
+
+    // then
+    assertEquals(299L, read.get(read.size() - 1).store().id);
+    assertTrue(read.size() < 300);
+  }
+
+  @Test
+  public void testReopenedJournalAppendsAfterTheLastRecord() {
+    // given
+    new StoreJournal(directory, SEGMENT_SIZE, 4).append(List.of(event(1, "A", StoreEvent.Action.CREATE)));
+
+    // when
+    new StoreJournal(directory, SEGMENT_SIZE, 4).append(List.of(event(2, "B", StoreEvent.Action.CREATE)));
+
+    // then
+    List<StoreEvent> read = new ArrayList<>();
+    StoreJournalReader.fromOldest(directory).poll(read::add, 10);
+    assertEquals(List.of("CREATE 1 A 1", "CREATE 2 B 2"), read.stream().map(StoreJournalTest::describe).toList());
+  }
+
+  @Test
+  public void testConcurrentWritersLoseNoRecords() throws Exception {
+    // given
+    StoreJournal journal = new StoreJournal(directory, 1 << 20, 4);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+
+    // when
+    List<Future<?>> writers = new ArrayList<>();
+    for (int writer = 0; writer < 8; writer++) {
+      int first = writer * 1_000;
+      writers.add(executor.submit(() -> {
+        for (int i = first; i < first + 1_000; i++) {
+          journal.append(List.of(event(i, "STORE-" + i, StoreEvent.Action.UPDATE)));
+        }
+      }));
+    }
+    for (Future<?> writer : writers) {
+      writer.get();
+    }
+    executor.shutdown();
+
+    // then
+    List<StoreEvent> read = new ArrayList<>();
+    StoreJournalReader.fromOldest(directory).poll(read::add, 10_000);
+    assertEquals(8_000, read.size());
+    assertEquals(8_000, read.stream().map(event -> event.store().id).distinct().count());
+  }
+
+  private static StoreEvent event(long id, String name, StoreEvent.Action action) {
+    Store store = new Store(name);
+    store.id = id;
+    store.quantityProductsInStock = (int) id;
+    return new StoreEvent(store, action);
+  }
+
+  private static String describe(StoreEvent event) {
+    return event.action() + " " + event.store().id + " " + event.store().name + " " + event.store().quantityProductsInStock;
+  }
+}
@@ -0,0 +1,78 @@
+package com.fulfilment.application.monolith.stores;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Relays 50k store outbox events through the real legacy gateway, one batch per transaction as the
+ * worker does. Run with {@code ./mvnw -Pbenchmark test -Dtest=StoreOutboxRelayBenchmarkTest}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class StoreOutboxRelayBenchmarkTest {
+
+  private static final Logger LOG = Logger.getLogger(StoreOutboxRelayBenchmarkTest.class);
+
+  private static final int EVENTS = 50_000;
+  private static final long FIRST_ID = 1_000_000_000L;
+
+  @Inject
+  StoreOutboxRelay storeOutboxRelay;
+
+  @Inject
+  EntityManager entityManager;
+
+  @BeforeEach
+  @Transactional
+  public void insertEvents() {
+    entityManager.createQuery("update StoreOutboxEvent e set e.deliveredAt = :now where e.deliveredAt is null")
+        .setParameter("now", LocalDateTime.now())
+        .executeUpdate();
+    entityManager.createNativeQuery(
+            "insert into store_outbox(id, store_id, store_name, quantity_products_in_stock, action, created_at) "
+                + "select :firstId + n, n % 1000, 'OUTBOX-' || (n % 1000), n % 100, "
+                + "case when n < 1000 then 'CREATE' else 'UPDATE' end, localtimestamp "
+                + "from generate_series(0, :rows - 1) n")
+        .setParameter("firstId", FIRST_ID)
+        .setParameter("rows", EVENTS)
+        .executeUpdate();
+    entityManager.createNativeQuery("analyze store_outbox").executeUpdate();
+  }
+
+  @AfterEach
+  @Transactional
+  public void removeEvents() {
+    entityManager.createNativeQuery("delete from store_outbox where id >= :firstId")
+        .setParameter("firstId", FIRST_ID)
+        .executeUpdate();
+  }
+
+  @Test
+  public void relayReachesThousandsOfEventsPerSecond() {
+    long start = System.nanoTime();
+    int relayed = 0;
+    int batches = 0;
+    for (int batch = storeOutboxRelay.relayBatch(); batch > 0; batch = storeOutboxRelay.relayBatch()) {
+      relayed += batch;
+      batches++;
+    }
+    long nanos = System.nanoTime() - start;
+
+    double perSecond = relayed / (nanos / 1e9);
+    LOG.infof("Relayed %d store outbox events in %d batches, %d ms: %.0f events/s",
+        relayed, batches, nanos / 1_000_000, perSecond);
+    assertEquals(EVENTS, relayed);
+    assertTrue(perSecond > 1_000);
+  }
+}
@@ -0,0 +1,223 @@
+package com.fulfilment.application.monolith.stores;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.InjectMock;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@QuarkusTest
+public class StoreOutboxRelayTest {
+
+  @InjectMock
+  LegacyStoreManagerGateway legacyStoreManagerGateway;
+
+  @Inject
+  StoreOutboxRelay storeOutboxRelay;
+
+  @Inject
+  EntityManager entityManager;
+
+  @Inject
+  MeterRegistry meterRegistry;
+
+  @BeforeEach
+  @Transactional
+  public void setUp() {
+    // rows other tests left behind are not this test's to relay
+    entityManager.createQuery("update StoreOutboxEvent e set e.deliveredAt = :now where e.deliveredAt is null")
+        .setParameter("now", LocalDateTime.now())
+        .executeUpdate();
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testStoreWritesAreRelayedFromTheOutbox() {
+    // given
+    given()
+        .contentType("application/json")
+        .body("{\"name\": \"OUTBOX-STORE\", \"quantityProductsInStock\": 7}")
+        .when().post("stores")
+        .then()
+        .statusCode(201);
+
+    // when
+    int relayed = storeOutboxRelay.relayBatch();
+
+    // then
+    assertEquals(1, relayed);
+    ArgumentCaptor<List<StoreEvent>> captor = ArgumentCaptor.forClass(List.class);
+    verify(legacyStoreManagerGateway).syncStoresOnLegacySystem(captor.capture());
+    StoreEvent event = captor.getValue().get(0);
+    assertEquals(StoreEvent.Action.CREATE, event.action());
+    assertEquals("OUTBOX-STORE", event.store().name);
+    assertEquals(7, event.store().quantityProductsInStock);
+    assertEquals(0, undelivered());
+    assertEquals(0, storeOutboxRelay.relayBatch());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testChangesToAStoreWithinABatchReachTheLegacySystemAsOne() {
+    // given
+    int id = given()
+        .contentType("application/json")
+        .body("{\"name\": \"OUTBOX-COALESCED\", \"quantityProductsInStock\": 1}")
+        .when().post("stores")
+        .then()
+        .statusCode(201)
+        .extract().path("id");
+    for (int quantity = 2; quantity <= 4; quantity++) {
+      given()
+          .contentType("application/json")
+          .body("{\"name\": \"OUTBOX-COALESCED\", \"quantityProductsInStock\": " + quantity + "}")
+          .when().put("stores/" + id)
+          .then()
+          .statusCode(200);
+    }
+
+    // when
+    int relayed = storeOutboxRelay.relayBatch();
+
+    // then
+    assertEquals(4, relayed);
+    ArgumentCaptor<List<StoreEvent>> captor = ArgumentCaptor.forClass(List.class);
+    verify(legacyStoreManagerGateway).syncStoresOnLegacySystem(captor.capture());
+    assertEquals(1, captor.getValue().size());
+    StoreEvent event = captor.getValue().get(0);
+    assertEquals(StoreEvent.Action.CREATE, event.action());
+    assertEquals(4, event.store().quantityProductsInStock);
+    assertEquals(0, undelivered());
+  }
+
+  @Test
+  public void testFailedDeliveryIsRetried() {
+    // given
+    QuarkusTransaction.requiringNew().run(() -> {
+      Store store = new Store("OUTBOX-RETRY");
+      store.id = 999L;
+      new StoreOutboxEvent(new StoreEvent(store, StoreEvent.Action.UPDATE)).persist();
+    });
+    doThrow(new UncheckedIOException(new IOException("legacy system down")))
+        .doNothing()
+        .when(legacyStoreManagerGateway).syncStoresOnLegacySystem(anyList());
+
+    // when
+    int failed = storeOutboxRelay.relayBatch();
+    long pending = undelivered();
+    int retried = storeOutboxRelay.relayBatch();
+
+    // then
+    assertEquals(0, failed);
+    assertEquals(1, pending);
+    assertEquals(1, retried);
+    assertEquals(0, undelivered());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  public void testStoreHeldByAnotherRelayIsSkippedUntilReleased() throws Exception {
+    // given: events for two stores, and another relay in the middle of delivering the first
+    QuarkusTransaction.requiringNew().run(() -> {
+      outboxEvent(991L, 1);
+      outboxEvent(992L, 1);
+      outboxEvent(991L, 2);
+    });
+    CountDownLatch held = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService otherRelay = Executors.newSingleThreadExecutor();
+    Future<?> holder = otherRelay.submit(() -> QuarkusTransaction.requiringNew().run(() -> {
+      entityManager.createNativeQuery("select count(*) from (select pg_advisory_xact_lock(:namespace, :key)) l")
+          .setParameter("namespace", StoreOutboxRelay.ADVISORY_LOCK_NAMESPACE)
+          .setParameter("key", 991)
+          .getSingleResult();
+      held.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }));
+
+    try {
+      assertTrue(held.await(10, TimeUnit.SECONDS));
+
+      // when
+      int whileHeld = storeOutboxRelay.relayBatch();
+      release.countDown();
+      holder.get(10, TimeUnit.SECONDS);
+      int afterRelease = storeOutboxRelay.relayBatch();
+
+      // then: neither of the held store's events overtook the other
+      assertEquals(1, whileHeld);
+      assertEquals(2, afterRelease);
+      ArgumentCaptor<List<StoreEvent>> captor = ArgumentCaptor.forClass(List.class);
+      verify(legacyStoreManagerGateway, times(2)).syncStoresOnLegacySystem(captor.capture());
+      assertEquals(992L, captor.getAllValues().get(0).get(0).store().id);
+      StoreEvent coalesced = captor.getAllValues().get(1).get(0);
+      assertEquals(991L, coalesced.store().id);
+      assertEquals(2, coalesced.store().quantityProductsInStock);
+    } finally {
+      release.countDown();
+      otherRelay.shutdownNow();
+    }
+  }
+
+  @Test
+  public void testBacklogGaugesFollowTheUndeliveredRows() {
+    // given
+    QuarkusTransaction.requiringNew().run(() -> outboxEvent(993L, 1));
+    doThrow(new UncheckedIOException(new IOException("legacy system down")))
+        .when(legacyStoreManagerGateway).syncStoresOnLegacySystem(anyList());
+
+    // when
+    storeOutboxRelay.relayBatch();
+    storeOutboxRelay.refreshBacklog();
+
+    // then
+    assertEquals(1, meterRegistry.get("legacy.store.outbox.pending").gauge().value());
+    assertTrue(meterRegistry.get("legacy.store.outbox.oldest.age").gauge().value() >= 0);
+
+    // when
+    doNothing().when(legacyStoreManagerGateway).syncStoresOnLegacySystem(anyList());
+    storeOutboxRelay.relayBatch();
+    storeOutboxRelay.refreshBacklog();
+
+    // then
+    assertEquals(0, meterRegistry.get("legacy.store.outbox.pending").gauge().value());
+    assertEquals(0, meterRegistry.get("legacy.store.outbox.oldest.age").gauge().value());
+  }
+
+  private void outboxEvent(Long storeId, int quantity) {
+    Store store = new Store("OUTBOX-" + storeId);
+    store.id = storeId;
+    store.quantityProductsInStock = quantity;
+    new StoreOutboxEvent(new StoreEvent(store, StoreEvent.Action.UPDATE)).persist();
+  }
+
+  private long undelivered() {
+    return QuarkusTransaction.requiringNew().call(() -> entityManager
+        .createQuery("select count(e) from StoreOutboxEvent e where e.deliveredAt is null", Long.class)
+        .getSingleResult());
+  }
+}
@@ -0,0 +1,124 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.ledger.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class PostgresLocationLockTest {
+
+  private static final Logger LOG = Logger.getLogger(PostgresLocationLockTest.class);
+
+  private static final int WRITERS = 64;
+  private static final long HOLD_MILLIS = 50;
+
+  // 3 warehouses and 75 capacity in the bundled catalogue, no warehouses in import.sql
+  private static final String LOCATION = "AMSTERDAM-002";
+
+  @Inject
+  PostgresLocationLock locationLock;
+
+  @Inject
+  WarehouseRepository warehouseRepository;
+
+  @Inject
+  LocationOccupancyLedger occupancyLedger;
+
+  @AfterEach
+  @Transactional
+  public void cleanUp() {
+    warehouseRepository.delete("businessUnitCode like 'RACE-%'");
+    occupancyLedger.reset(warehouseRepository.getOccupancyByLocation(LOCATION));
+  }
+
+  @Test
+  public void testConcurrentCreatesNeverExceedLocationLimits() throws Exception {
+    int before = QuarkusTransaction.requiringNew()
+        .call(() -> warehouseRepository.getOccupancyByLocation(LOCATION).activeWarehouses());
+
+    List<Integer> statuses = runConcurrently(i -> () -> given()
+        .contentType(ContentType.JSON)
+        .body("{\"id\": \"RACE-" + i + "\", \"location\": \"" + LOCATION + "\", \"capacity\": 20, \"stock\": 0}")
+        .when()
+        .post("warehouse")
+        .then()
+        .extract()
+        .statusCode());
+
+    LocationOccupancy after = QuarkusTransaction.requiringNew()
+        .call(() -> warehouseRepository.getOccupancyByLocation(LOCATION));
+    assertEquals(3, after.activeWarehouses());
+    assertTrue(after.totalCapacity() <= 75);
+    assertEquals(3 - before, statuses.stream().filter(status -> status == 200).count());
+    assertEquals(WRITERS - (3 - before), statuses.stream().filter(status -> status == 400).count());
+  }
+
+  @Test
+  public void testDifferentLocationsAreLockedInParallel() throws Exception {
+    long distinct = timeHoldingLocks(i -> "THROUGHPUT-" + i);
+    long same = timeHoldingLocks(i -> "THROUGHPUT-SHARED");
+
+    LOG.infof("%d writers holding a location lock for %d ms: distinct locations %d ms (%.0f tx/s), one location %d ms (%.0f tx/s)",
+        WRITERS, HOLD_MILLIS, distinct, WRITERS * 1000.0 / distinct, same, WRITERS * 1000.0 / same);
+    assertTrue(same >= WRITERS * HOLD_MILLIS, "writers of one location must be serialised");
+    assertTrue(distinct * 4 < same, "writers of different locations must not wait for each other");
+  }
+
+  private long timeHoldingLocks(IntFunction<String> locationOfWriter) throws Exception {
+    long start = System.nanoTime();
+    runConcurrently(i -> () -> {
+      QuarkusTransaction.requiringNew().run(() -> {
+        locationLock.lock(List.of(locationOfWriter.apply(i)));
+        try {
+          Thread.sleep(HOLD_MILLIS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      });
+      return null;
+    });
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+
+  private <T> List<T> runConcurrently(IntFunction<Callable<T>> writer) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+    try {
+      CountDownLatch startSignal = new CountDownLatch(1);
+      List<Future<T>> futures = new ArrayList<>();
+      for (int i = 0; i < WRITERS; i++) {
+        Callable<T> task = writer.apply(i);
+        futures.add(executor.submit(() -> {
+          startSignal.await();
+          return task.call();
+        }));
+      }
+      startSignal.countDown();
+      List<T> results = new ArrayList<>();
+      for (Future<T> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
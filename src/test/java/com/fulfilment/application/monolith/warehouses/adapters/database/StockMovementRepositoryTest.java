@@ -0,0 +1,110 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class StockMovementRepositoryTest {
+
+  private static final ZonedDateTime T0 = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneId.systemDefault());
+
+  @Inject
+  StockMovementRepository stockMovementRepository;
+
+  @BeforeEach
+  @Transactional
+  public void cleanUp() {
+    stockMovementRepository.deleteAll();
+    stockMovementRepository.getEntityManager().createQuery("delete from DbStockSnapshot").executeUpdate();
+  }
+
+  @Test
+  @Transactional
+  public void testStockAsOfReplaysMovementsWithoutSnapshots() {
+    stockMovementRepository.append(List.of(
+        movement("MOV-001", 10, StockMovement.Reason.CREATED, 0),
+        movement("MOV-001", -3, StockMovement.Reason.ADJUSTED, 1),
+        movement("MOV-001", 0, StockMovement.Reason.ADJUSTED, 2),
+        movement("MOV-002", 4, StockMovement.Reason.CREATED, 2)));
+
+    assertNull(stockMovementRepository.findStockAsOf("MOV-001", T0.minusHours(1)));
+    assertEquals(10, stockMovementRepository.findStockAsOf("MOV-001", T0));
+    assertEquals(7, stockMovementRepository.findStockAsOf("MOV-001", T0.plusHours(5)));
+    assertEquals(4, stockMovementRepository.findStockAsOf("MOV-002", T0.plusHours(5)));
+    assertNull(stockMovementRepository.findStockAsOf("MOV-404", T0.plusHours(5)));
+    assertEquals(3, stockMovementRepository.count());
+  }
+
+  @Test
+  @Transactional
+  public void testSnapshotsFoldMovementsIncrementally() {
+    stockMovementRepository.append(List.of(
+        movement("MOV-001", 10, StockMovement.Reason.CREATED, 0),
+        movement("MOV-001", 5, StockMovement.Reason.ADJUSTED, 1),
+        movement("MOV-002", 8, StockMovement.Reason.CREATED, 1)));
+    assertEquals(2, stockMovementRepository.snapshotUpTo(T0.plusHours(2)));
+    assertEquals(0, stockMovementRepository.snapshotUpTo(T0.plusHours(2)));
+
+    stockMovementRepository.append(List.of(
+        movement("MOV-001", -4, StockMovement.Reason.ADJUSTED, 3),
+        movement("MOV-001", -11, StockMovement.Reason.ARCHIVED, 5)));
+    assertEquals(1, stockMovementRepository.snapshotUpTo(T0.plusHours(4)));
+
+    // before, at and between snapshots, and on the tail after the last one
+    assertEquals(15, stockMovementRepository.findStockAsOf("MOV-001", T0.plusHours(2)));
+    assertEquals(11, stockMovementRepository.findStockAsOf("MOV-001", T0.plusHours(4)));
+    assertEquals(0, stockMovementRepository.findStockAsOf("MOV-001", T0.plusHours(6)));
+    assertEquals(10, stockMovementRepository.findStockAsOf("MOV-001", T0.plusMinutes(30)));
+    // no movement since its first snapshot, so MOV-002 was left out of the second run
+    assertEquals(8, stockMovementRepository.findStockAsOf("MOV-002", T0.plusHours(6)));
+  }
+
+  @Test
+  @Transactional
+  public void testAppendAcrossSeveralJdbcBatches() {
+    List<StockMovement> movements = new ArrayList<>();
+    for (int i = 0; i < StockMovementRepository.BATCH_SIZE * 2 + 7; i++) {
+      movements.add(movement("MOV-001", 1, StockMovement.Reason.ADJUSTED, i));
+    }
+
+    stockMovementRepository.append(movements);
+
+    assertEquals(movements.size(), stockMovementRepository.count());
+    assertEquals(movements.size(), stockMovementRepository.findStockAsOf("MOV-001", T0.plusDays(365)));
+  }
+
+  @Test
+  @Transactional
+  public void testAppendLeavesTheCallersEntitiesManaged() {
+    DbWarehouse warehouse = new DbWarehouse();
+    warehouse.businessUnitCode = "MOV-001";
+    warehouse.location = "ZWOLLE-001";
+    warehouse.capacity = 10;
+    warehouse.stock = 0;
+    stockMovementRepository.getEntityManager().persist(warehouse);
+    List<StockMovement> movements = new ArrayList<>();
+    for (int i = 0; i < StockMovementRepository.BATCH_SIZE + 1; i++) {
+      movements.add(movement("MOV-001", 1, StockMovement.Reason.ADJUSTED, i));
+    }
+
+    stockMovementRepository.append(movements);
+
+    assertTrue(stockMovementRepository.getEntityManager().contains(warehouse));
+    stockMovementRepository.getEntityManager().remove(warehouse);
+  }
+
+  private static StockMovement movement(String buCode, int delta, StockMovement.Reason reason, int hoursAfterT0) {
+    return new StockMovement(buCode, delta, reason, T0.plusHours(hoursAfterT0));
+  }
+}
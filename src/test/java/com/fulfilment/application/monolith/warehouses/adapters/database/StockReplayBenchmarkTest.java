@@ -0,0 +1,108 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Point-in-time stock over 10M movements (1k warehouses with 10k movements each, one per second
+ * from 2000-01-01), first by replaying every movement and then from snapshots plus the tail. Run
+ * with {@code ./mvnw -Pbenchmark test -Dtest=StockReplayBenchmarkTest}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class StockReplayBenchmarkTest {
+
+  private static final Logger LOG = Logger.getLogger(StockReplayBenchmarkTest.class);
+
+  private static final int WAREHOUSES = 1_000;
+  private static final int MOVEMENTS = 10_000_000;
+  private static final long FIRST_ID = 1_000_000_000L;
+  private static final int LOOKUPS = 200;
+
+  private static final ZonedDateTime START = ZonedDateTime.of(2000, 1, 1, 0, 0, 0, 0, ZoneId.systemDefault());
+
+  @Inject
+  StockMovementRepository stockMovementRepository;
+
+  @Inject
+  EntityManager entityManager;
+
+  @BeforeEach
+  @Transactional
+  public void insertMovements() {
+    entityManager.createQuery("delete from DbStockSnapshot").executeUpdate();
+    // deltas of -3..3 around an opening balance keep every warehouse's stock positive
+    entityManager.createNativeQuery(
+            "insert into stock_movement(id, businessUnitCode, delta, reason, occurredAt) "
+                + "select :firstId + n, 'REPLAY-' || lpad(cast(n % :warehouses as text), 4, '0'), "
+                + "case when n < :warehouses then 100000 else n % 7 - 3 end, "
+                + "case when n < :warehouses then 'CREATED' else 'ADJUSTED' end, "
+                + "timestamp '2000-01-01' + n * interval '1 second' "
+                + "from generate_series(0, :rows - 1) n")
+        .setParameter("firstId", FIRST_ID)
+        .setParameter("warehouses", WAREHOUSES)
+        .setParameter("rows", MOVEMENTS)
+        .executeUpdate();
+    entityManager.createNativeQuery("analyze stock_movement").executeUpdate();
+  }
+
+  @AfterEach
+  @Transactional
+  public void removeMovements() {
+    entityManager.createNativeQuery("delete from stock_movement where id >= :firstId")
+        .setParameter("firstId", FIRST_ID)
+        .executeUpdate();
+    entityManager.createQuery("delete from DbStockSnapshot").executeUpdate();
+  }
+
+  @Test
+  @Transactional
+  public void snapshotsShortenTheReplay() {
+    // a little before the last movement, so the lookups below replay a short tail
+    ZonedDateTime end = START.plusSeconds(MOVEMENTS);
+    ZonedDateTime cutoff = end.minusSeconds(MOVEMENTS / 100);
+
+    int[] replayed = new int[LOOKUPS];
+    long start = System.nanoTime();
+    Random random = new Random(42);
+    for (int i = 0; i < LOOKUPS; i++) {
+      replayed[i] = stockMovementRepository.findStockAsOf(code(random), end);
+    }
+    long replayNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    int snapshots = stockMovementRepository.snapshotUpTo(cutoff);
+    long snapshotNanos = System.nanoTime() - start;
+    assertEquals(WAREHOUSES, snapshots);
+    entityManager.createNativeQuery("analyze stock_snapshot").executeUpdate();
+
+    start = System.nanoTime();
+    random = new Random(42);
+    for (int i = 0; i < LOOKUPS; i++) {
+      assertEquals(replayed[i], stockMovementRepository.findStockAsOf(code(random), end));
+    }
+    long tailNanos = System.nanoTime() - start;
+
+    LOG.infof("%d movements: full replay %.1f ms/lookup, snapshot run %d ms, snapshot + tail %.1f ms/lookup (%.0fx)",
+        MOVEMENTS, replayNanos / 1e6 / LOOKUPS, snapshotNanos / 1_000_000, tailNanos / 1e6 / LOOKUPS,
+        (double) replayNanos / tailNanos);
+    assertTrue(tailNanos < replayNanos);
+  }
+
+  private static String code(Random random) {
+    return String.format("REPLAY-%04d", random.nextInt(WAREHOUSES));
+  }
+}
@@ -0,0 +1,152 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.transaction.Status;
+import jakarta.transaction.Synchronization;
+import jakarta.transaction.TransactionSynchronizationRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class WarehouseCacheTest {
+
+  @Mock
+  private TransactionSynchronizationRegistry transactionRegistry;
+
+  private final Map<Object, Object> transactionResources = new HashMap<>();
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  private WarehouseCache warehouseCache;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    when(transactionRegistry.getResource(any())).thenAnswer(i -> transactionResources.get(i.getArgument(0)));
+    doAnswer(i -> transactionResources.put(i.getArgument(0), i.getArgument(1)))
+        .when(transactionRegistry).putResource(any(), any());
+    warehouseCache = new WarehouseCache(
+        transactionRegistry, meterRegistry, 100, Duration.ofMinutes(10), Duration.ofMinutes(2));
+  }
+
+  @Test
+  public void testRepeatedLookupsAreServedFromTheCache() {
+    // given
+    Function<String, WarehouseDTO> loader = loaderReturning(warehouse("MWH.001", 50));
+
+    // when
+    WarehouseDTO first = warehouseCache.get("MWH.001", loader);
+    first.capacity = 999;
+    WarehouseDTO second = warehouseCache.get("MWH.001", loader);
+
+    // then
+    assertEquals(1, loads.get());
+    assertEquals(50, second.capacity);
+    assertNotSame(first, second);
+    assertEquals(0.5, meterRegistry.get("warehouse.cache.hit.ratio").gauge().value());
+  }
+
+  @Test
+  public void testMissesAreNotCached() {
+    // given
+    Function<String, WarehouseDTO> loader = loaderReturning(null);
+
+    // when
+    warehouseCache.get("MWH.404", loader);
+    WarehouseDTO found = warehouseCache.get("MWH.404", loader);
+
+    // then
+    assertNull(found);
+    assertEquals(2, loads.get());
+  }
+
+  @Test
+  public void testWrittenCodesAreReadFromTheStoreUntilCommitAndInvalidatedAfterwards() {
+    // given
+    warehouseCache.get("MWH.001", loaderReturning(warehouse("MWH.001", 50)));
+    when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+
+    // when
+    warehouseCache.invalidateAfterCommit(List.of("MWH.001"));
+    WarehouseDTO insideWriter = warehouseCache.get("MWH.001", loaderReturning(warehouse("MWH.001", 80)));
+    Synchronization synchronization = capturedSynchronization();
+    synchronization.afterCompletion(Status.STATUS_COMMITTED);
+    transactionResources.clear();
+    WarehouseDTO afterCommit = warehouseCache.get("MWH.001", loaderReturning(warehouse("MWH.001", 80)));
+
+    // then
+    assertEquals(80, insideWriter.capacity);
+    assertEquals(80, afterCommit.capacity);
+    assertEquals(3, loads.get());
+  }
+
+  @Test
+  public void testRolledBackWritesKeepTheCommittedRowCached() {
+    // given
+    warehouseCache.get("MWH.001", loaderReturning(warehouse("MWH.001", 50)));
+    when(transactionRegistry.getTransactionKey()).thenReturn(new Object());
+
+    // when
+    warehouseCache.invalidateAfterCommit(List.of("MWH.001"));
+    capturedSynchronization().afterCompletion(Status.STATUS_ROLLEDBACK);
+    transactionResources.clear();
+    WarehouseDTO found = warehouseCache.get("MWH.001", loaderReturning(warehouse("MWH.001", 80)));
+
+    // then
+    assertEquals(50, found.capacity);
+    assertEquals(1, loads.get());
+  }
+
+  @Test
+  public void testWritesOutsideATransactionInvalidateImmediately() {
+    // given
+    warehouseCache.get("MWH.001", loaderReturning(warehouse("MWH.001", 50)));
+
+    // when
+    warehouseCache.invalidateAfterCommit(List.of("MWH.001"));
+    WarehouseDTO found = warehouseCache.get("MWH.001", loaderReturning(warehouse("MWH.001", 80)));
+
+    // then
+    assertEquals(80, found.capacity);
+    verify(transactionRegistry, never()).registerInterposedSynchronization(any());
+  }
+
+  private Synchronization capturedSynchronization() {
+    ArgumentCaptor<Synchronization> captor = ArgumentCaptor.forClass(Synchronization.class);
+    verify(transactionRegistry).registerInterposedSynchronization(captor.capture());
+    return captor.getValue();
+  }
+
+  private Function<String, WarehouseDTO> loaderReturning(WarehouseDTO warehouseDTO) {
+    return buCode -> {
+      loads.incrementAndGet();
+      return warehouseDTO;
+    };
+  }
+
+  private static WarehouseDTO warehouse(String buCode, int capacity) {
+    WarehouseDTO warehouseDTO = new WarehouseDTO();
+    warehouseDTO.businessUnitCode = buCode;
+    warehouseDTO.location = "ZWOLLE-001";
+    warehouseDTO.capacity = capacity;
+    warehouseDTO.stock = 0;
+    return warehouseDTO;
+  }
+}
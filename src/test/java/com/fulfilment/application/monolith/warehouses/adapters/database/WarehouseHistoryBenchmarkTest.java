@@ -0,0 +1,107 @@
+package com.fulfilment.application.monolith.warehouses.adapters.database;
+
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.persistence.EntityManager;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * History and as-of lookups against 1M archived generations (10k business units with 100
+ * generations each). Run with {@code ./mvnw -Pbenchmark test -Dtest=WarehouseHistoryBenchmarkTest}.
+ */
+@QuarkusTest
+@Tag("benchmark")
+public class WarehouseHistoryBenchmarkTest {
+
+  private static final Logger LOG = Logger.getLogger(WarehouseHistoryBenchmarkTest.class);
+
+  private static final int BUSINESS_UNITS = 10_000;
+  private static final int GENERATIONS = 100;
+  private static final long FIRST_ID = 100_000_000L;
+  private static final int LOOKUPS = 2_000;
+
+  @Inject
+  WarehouseRepository warehouseRepository;
+
+  @Inject
+  EntityManager entityManager;
+
+  @BeforeEach
+  @Transactional
+  public void insertArchivedGenerations() {
+    // generation g of unit u lives for one day starting 2000-01-01 + g days
+    entityManager.createNativeQuery(
+            "insert into warehouse(id, businessUnitCode, location, capacity, stock, createdAt, archivedAt) "
+                + "select :firstId + n, 'BENCH-' || lpad(cast(n % :units as text), 5, '0'), 'AMSTERDAM-001', 10, 0, "
+                + "timestamp '2000-01-01' + (n / :units) * interval '1 day', "
+                + "timestamp '2000-01-01' + (n / :units + 1) * interval '1 day' "
+                + "from generate_series(0, :rows - 1) n")
+        .setParameter("firstId", FIRST_ID)
+        .setParameter("units", BUSINESS_UNITS)
+        .setParameter("rows", BUSINESS_UNITS * GENERATIONS)
+        .executeUpdate();
+    entityManager.createNativeQuery("analyze warehouse").executeUpdate();
+  }
+
+  @AfterEach
+  @Transactional
+  public void removeArchivedGenerations() {
+    entityManager.createNativeQuery("delete from warehouse where id >= :firstId")
+        .setParameter("firstId", FIRST_ID)
+        .executeUpdate();
+  }
+
+  @Test
+  @Transactional
+  public void historyAndAsOfUseTheCompositeIndex() {
+    String historyPlan = explain("select * from warehouse where businessUnitCode = 'BENCH-00042' order by createdAt");
+    String asOfPlan = explain("select * from warehouse where businessUnitCode = 'BENCH-00042' "
+        + "and createdAt <= timestamp '2000-02-15' order by createdAt desc limit 1");
+    LOG.infof("History plan:%n%s", historyPlan);
+    LOG.infof("As-of plan:%n%s", asOfPlan);
+    assertTrue(historyPlan.contains("ix_warehouse_business_unit_code_created_at"));
+    assertTrue(asOfPlan.contains("ix_warehouse_business_unit_code_created_at"));
+
+    Random random = new Random(42);
+    ZonedDateTime epoch = ZonedDateTime.of(2000, 1, 1, 12, 0, 0, 0, ZoneId.systemDefault());
+
+    long start = System.nanoTime();
+    for (int i = 0; i < LOOKUPS; i++) {
+      assertEquals(GENERATIONS, warehouseRepository.findHistoryByBusinessUnitCode(code(random)).size());
+      entityManager.clear();
+    }
+    long historyNanos = System.nanoTime() - start;
+
+    start = System.nanoTime();
+    for (int i = 0; i < LOOKUPS; i++) {
+      assertNotNull(warehouseRepository.findByBusinessUnitCodeAsOf(code(random), epoch.plusDays(random.nextInt(GENERATIONS))));
+      entityManager.clear();
+    }
+    long asOfNanos = System.nanoTime() - start;
+
+    LOG.infof("%d rows: history %.1f us/lookup, as-of %.1f us/lookup",
+        BUSINESS_UNITS * GENERATIONS, historyNanos / 1000.0 / LOOKUPS, asOfNanos / 1000.0 / LOOKUPS);
+  }
+
+  private String explain(String sql) {
+    @SuppressWarnings("unchecked")
+    List<String> lines = entityManager.createNativeQuery("explain " + sql).getResultList();
+    return String.join("\n", lines);
+  }
+
+  private static String code(Random random) {
+    return String.format("BENCH-%05d", random.nextInt(BUSINESS_UNITS));
+  }
+}
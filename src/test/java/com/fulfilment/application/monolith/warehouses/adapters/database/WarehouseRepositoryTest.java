@@ -1,5 +1,6 @@
 package com.fulfilment.application.monolith.warehouses.adapters.database;
 
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
 import io.quarkus.test.junit.QuarkusTest;
 import jakarta.inject.Inject;
@@ -8,7 +9,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -18,10 +23,15 @@ public class WarehouseRepositoryTest {
   @Inject
   WarehouseRepository warehouseRepository;
 
+  @Inject
+  WarehouseCache warehouseCache;
+
   @BeforeEach
   @Transactional
   public void cleanUp() {
     warehouseRepository.deleteAll();
+    // bulk deletes bypass the store and so the cache
+    warehouseCache.invalidateAll();
   }
 
   @Test
@@ -232,4 +242,193 @@ public class WarehouseRepositoryTest {
     int totalCapacity = warehouseRepository.getTotalCapacityByLocation("EMPTY-LOC");
     assertEquals(0, totalCapacity);
   }
-}
\ No newline at end of file
+
+  @Test
+  @Transactional
+  public void testGetOccupancyByLocation() {
+    warehouseRepository.create(warehouse("OCC-001", "AMSTERDAM-001", 40, null));
+    warehouseRepository.create(warehouse("OCC-002", "AMSTERDAM-001", 30, null));
+    warehouseRepository.create(warehouse("OCC-003", "AMSTERDAM-001", 50, ZonedDateTime.now()));
+
+    LocationOccupancy occupancy = warehouseRepository.getOccupancyByLocation("AMSTERDAM-001");
+    assertEquals(new LocationOccupancy("AMSTERDAM-001", 2, 70), occupancy);
+  }
+
+  @Test
+  @Transactional
+  public void testGetOccupancyByLocationReturnsEmptyForEmptyLocation() {
+    LocationOccupancy occupancy = warehouseRepository.getOccupancyByLocation("EMPTY-LOC");
+    assertEquals(LocationOccupancy.empty("EMPTY-LOC"), occupancy);
+  }
+
+  @Test
+  @Transactional
+  public void testGetOccupancyByLocations() {
+    warehouseRepository.create(warehouse("OCC-001", "AMSTERDAM-001", 40, null));
+    warehouseRepository.create(warehouse("OCC-002", "AMSTERDAM-001", 30, null));
+    warehouseRepository.create(warehouse("OCC-003", "ZWOLLE-001", 20, null));
+    warehouseRepository.create(warehouse("OCC-004", "TILBURG-001", 10, null));
+
+    Map<String, LocationOccupancy> occupancies =
+        warehouseRepository.getOccupancyByLocations(Set.of("AMSTERDAM-001", "ZWOLLE-001", "EMPTY-LOC"));
+
+    assertEquals(Map.of(
+        "AMSTERDAM-001", new LocationOccupancy("AMSTERDAM-001", 2, 70),
+        "ZWOLLE-001", new LocationOccupancy("ZWOLLE-001", 1, 20)), occupancies);
+    assertTrue(warehouseRepository.getOccupancyByLocations(Set.of()).isEmpty());
+  }
+
+  @Test
+  @Transactional
+  public void testGetOccupancyOfAllLocationsIgnoresArchivedWarehouses() {
+    warehouseRepository.create(warehouse("OCC-001", "AMSTERDAM-001", 40, null));
+    warehouseRepository.create(warehouse("OCC-002", "ZWOLLE-001", 20, ZonedDateTime.now()));
+
+    Map<String, LocationOccupancy> occupancies = warehouseRepository.getOccupancyOfAllLocations();
+
+    assertEquals(Map.of("AMSTERDAM-001", new LocationOccupancy("AMSTERDAM-001", 1, 40)), occupancies);
+  }
+
+  @Test
+  @Transactional
+  public void testCreateAllAcrossSeveralJdbcBatches() {
+    List<WarehouseDTO> batch = new ArrayList<>();
+    for (int i = 0; i < WarehouseRepository.BATCH_SIZE * 2 + 7; i++) {
+      batch.add(warehouse(String.format("BATCH-%03d", i), "AMSTERDAM-001", 1, null));
+    }
+
+    warehouseRepository.createAll(batch);
+
+    assertEquals(batch.size(), warehouseRepository.count());
+    assertEquals(batch.size(), warehouseRepository.getOccupancyByLocation("AMSTERDAM-001").activeWarehouses());
+    assertNotNull(warehouseRepository.findByBusinessUnitCode("BATCH-106"));
+  }
+
+  @Test
+  @Transactional
+  public void testFindActiveBusinessUnitCodes() {
+    warehouseRepository.create(warehouse("CODE-001", "ZWOLLE-001", 10, null));
+    warehouseRepository.create(warehouse("CODE-002", "ZWOLLE-001", 10, ZonedDateTime.now()));
+
+    Set<String> codes = warehouseRepository.findActiveBusinessUnitCodes(List.of("CODE-001", "CODE-002", "CODE-003"));
+
+    assertEquals(Set.of("CODE-001"), codes);
+    assertTrue(warehouseRepository.findActiveBusinessUnitCodes(List.of()).isEmpty());
+  }
+
+  @Test
+  @Transactional
+  public void testFindActiveWarehousesPage() {
+    warehouseRepository.create(warehouse("PAGE-003", "ZWOLLE-001", 10, null));
+    warehouseRepository.create(warehouse("PAGE-001", "ZWOLLE-001", 10, null));
+    warehouseRepository.create(warehouse("PAGE-002", "ZWOLLE-001", 10, ZonedDateTime.now()));
+    warehouseRepository.create(warehouse("PAGE-004", "ZWOLLE-001", 10, null));
+
+    List<WarehouseDTO> first = warehouseRepository.findActiveWarehousesPage(null, 2);
+    List<WarehouseDTO> second = warehouseRepository.findActiveWarehousesPage(first.get(1).businessUnitCode, 2);
+
+    assertEquals(List.of("PAGE-001", "PAGE-003"), first.stream().map(w -> w.businessUnitCode).toList());
+    assertEquals(List.of("PAGE-004"), second.stream().map(w -> w.businessUnitCode).toList());
+  }
+
+  @Test
+  @Transactional
+  public void testForEachActiveWarehouse() {
+    warehouseRepository.create(warehouse("STREAM-002", "ZWOLLE-001", 20, null));
+    warehouseRepository.create(warehouse("STREAM-001", "ZWOLLE-001", 10, null));
+    warehouseRepository.create(warehouse("STREAM-003", "ZWOLLE-001", 30, ZonedDateTime.now()));
+
+    List<WarehouseDTO> streamed = new ArrayList<>();
+    warehouseRepository.forEachActiveWarehouse(streamed::add);
+
+    assertEquals(List.of("STREAM-001", "STREAM-002"), streamed.stream().map(w -> w.businessUnitCode).toList());
+    assertEquals(10, streamed.get(0).capacity);
+    assertEquals("ZWOLLE-001", streamed.get(0).location);
+    assertNotNull(streamed.get(0).creationAt);
+  }
+
+  @Test
+  @Transactional
+  public void testFindHistoryByBusinessUnitCode() {
+    ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(3);
+    warehouseRepository.create(generation("HIST-001", 20, start.plusDays(1), start.plusDays(2)));
+    warehouseRepository.create(generation("HIST-001", 10, start, start.plusDays(1)));
+    warehouseRepository.create(generation("HIST-001", 30, start.plusDays(2), null));
+    warehouseRepository.create(generation("HIST-002", 40, start, null));
+
+    List<WarehouseDTO> history = warehouseRepository.findHistoryByBusinessUnitCode("HIST-001");
+
+    assertEquals(List.of(10, 20, 30), history.stream().map(w -> w.capacity).toList());
+    assertNull(history.get(2).archivedAt);
+    assertTrue(warehouseRepository.findHistoryByBusinessUnitCode("HIST-999").isEmpty());
+  }
+
+  @Test
+  @Transactional
+  public void testFindByBusinessUnitCodeAsOf() {
+    ZonedDateTime start = ZonedDateTime.now().truncatedTo(ChronoUnit.SECONDS).minusDays(10);
+    warehouseRepository.create(generation("ASOF-001", 10, start, start.plusDays(1)));
+    warehouseRepository.create(generation("ASOF-001", 20, start.plusDays(2), start.plusDays(3)));
+    warehouseRepository.create(generation("ASOF-001", 30, start.plusDays(3), null));
+
+    assertNull(warehouseRepository.findByBusinessUnitCodeAsOf("ASOF-001", start.minusHours(1)));
+    assertEquals(10, warehouseRepository.findByBusinessUnitCodeAsOf("ASOF-001", start.plusHours(1)).capacity);
+    // archived and not yet replaced
+    assertNull(warehouseRepository.findByBusinessUnitCodeAsOf("ASOF-001", start.plusDays(1).plusHours(1)));
+    assertEquals(20, warehouseRepository.findByBusinessUnitCodeAsOf("ASOF-001", start.plusDays(2)).capacity);
+    assertEquals(30, warehouseRepository.findByBusinessUnitCodeAsOf("ASOF-001", start.plusDays(3)).capacity);
+    assertEquals(30, warehouseRepository.findByBusinessUnitCodeAsOf("ASOF-001", ZonedDateTime.now()).capacity);
+  }
+
+  private static WarehouseDTO generation(String businessUnitCode, int capacity, ZonedDateTime createdAt, ZonedDateTime archivedAt) {
+    WarehouseDTO dto = warehouse(businessUnitCode, "ZWOLLE-001", capacity, archivedAt);
+    dto.creationAt = createdAt;
+    return dto;
+  }
+
+  @Test
+  @Transactional
+  public void testAdjustStockStaysWithinZeroAndCapacity() {
+    warehouseRepository.create(warehouse("STOCK-001", "ZWOLLE-001", 10, null));
+    warehouseRepository.create(warehouse("STOCK-002", "ZWOLLE-001", 10, ZonedDateTime.now()));
+
+    assertEquals(7, warehouseRepository.adjustStock("STOCK-001", 7));
+    assertEquals(10, warehouseRepository.adjustStock("STOCK-001", 3));
+    assertNull(warehouseRepository.adjustStock("STOCK-001", 1));
+    assertEquals(0, warehouseRepository.adjustStock("STOCK-001", -10));
+    assertNull(warehouseRepository.adjustStock("STOCK-001", -1));
+    assertNull(warehouseRepository.adjustStock("STOCK-002", 1));
+    assertNull(warehouseRepository.adjustStock("STOCK-404", 1));
+    assertEquals(0, warehouseRepository.findByBusinessUnitCode("STOCK-001").stock);
+  }
+
+  @Test
+  @Transactional
+  public void testArchiveKeepsConcurrentStockAdjustment() {
+    warehouseRepository.create(warehouse("ARCHIVE-001", "ZWOLLE-001", 10, null));
+    WarehouseDTO loaded = warehouseRepository.findByBusinessUnitCode("ARCHIVE-001");
+    warehouseRepository.adjustStock("ARCHIVE-001", 4);
+    ZonedDateTime archivedAt = ZonedDateTime.now();
+
+    WarehouseDTO archived = warehouseRepository.archive("ARCHIVE-001", archivedAt);
+
+    assertEquals(0, loaded.stock);
+    assertEquals(4, archived.stock);
+    assertEquals("ZWOLLE-001", archived.location);
+    assertEquals(10, archived.capacity);
+    assertEquals(archivedAt, archived.archivedAt);
+    assertNull(warehouseRepository.findByBusinessUnitCode("ARCHIVE-001"));
+    assertNull(warehouseRepository.archive("ARCHIVE-001", archivedAt));
+  }
+
+  private static WarehouseDTO warehouse(String businessUnitCode, String location, int capacity, ZonedDateTime archivedAt) {
+    WarehouseDTO dto = new WarehouseDTO();
+    dto.businessUnitCode = businessUnitCode;
+    dto.location = location;
+    dto.capacity = capacity;
+    dto.stock = 0;
+    dto.creationAt = ZonedDateTime.now();
+    dto.archivedAt = archivedAt;
+    return dto;
+  }
+}
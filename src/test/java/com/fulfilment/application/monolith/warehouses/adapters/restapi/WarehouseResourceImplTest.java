@@ -1,23 +1,38 @@
 package com.fulfilment.application.monolith.warehouses.adapters.restapi;
 
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseBatchItemResult;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.AdjustWarehouseStockOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ArchiveWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.BatchCreateWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.CreateWarehouseOperation;
 import com.fulfilment.application.monolith.warehouses.domain.ports.ReplaceWarehouseOperation;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import com.fulfilment.api.beans.StockAdjustmentRequest;
+import com.fulfilment.api.beans.StockAdjustmentResponse;
 import com.fulfilment.api.beans.Warehouse;
+import com.fulfilment.api.beans.WarehouseBatchResponse;
+import com.fulfilment.api.beans.WarehouseGeneration;
+import com.fulfilment.api.beans.WarehouseStockAsOf;
+import jakarta.ws.rs.WebApplicationException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class WarehouseResourceImplTest {
@@ -31,24 +46,35 @@ public class WarehouseResourceImplTest {
   @Mock
   private ArchiveWarehouseOperation archiveWarehouseOperation;
 
+  @Mock
+  private BatchCreateWarehouseOperation batchCreateWarehouseOperation;
+
+  @Mock
+  private AdjustWarehouseStockOperation adjustWarehouseStockOperation;
+
   @Mock
   private WarehouseStore warehouseStore;
 
+  @Mock
+  private StockMovementStore stockMovementStore;
+
   private WarehouseResourceImpl warehouseResource;
 
   @BeforeEach
   public void setUp() {
     MockitoAnnotations.openMocks(this);
     warehouseResource = new WarehouseResourceImpl(
-        createWarehouseOperation, replaceWarehouseOperation, archiveWarehouseOperation, warehouseStore
+        createWarehouseOperation, replaceWarehouseOperation, archiveWarehouseOperation,
+        batchCreateWarehouseOperation, adjustWarehouseStockOperation, warehouseStore,
+        stockMovementStore
     );
   }
 
   @Test
   public void testListAllWarehousesUnits_empty() {
-    when(warehouseStore.findAllActiveWarehouses()).thenReturn(Collections.emptyList());
+    when(warehouseStore.findActiveWarehousesPage(null, 100)).thenReturn(Collections.emptyList());
 
-    List<Warehouse> result = warehouseResource.listAllWarehousesUnits();
+    List<Warehouse> result = warehouseResource.listAllWarehousesUnits(null, null);
 
     assertTrue(result.isEmpty());
   }
@@ -61,9 +87,9 @@ public class WarehouseResourceImplTest {
     dto.capacity = 30;
     dto.stock = 10;
 
-    when(warehouseStore.findAllActiveWarehouses()).thenReturn(List.of(dto));
+    when(warehouseStore.findActiveWarehousesPage(null, 100)).thenReturn(List.of(dto));
 
-    List<Warehouse> result = warehouseResource.listAllWarehousesUnits();
+    List<Warehouse> result = warehouseResource.listAllWarehousesUnits(null, null);
 
     assertEquals(1, result.size());
     assertEquals("WH001", result.get(0).getId());
@@ -72,6 +98,22 @@ public class WarehouseResourceImplTest {
     assertEquals(10, result.get(0).getStock());
   }
 
+  @Test
+  public void testListAllWarehousesUnits_nextPage() {
+    when(warehouseStore.findActiveWarehousesPage("WH001", 2)).thenReturn(Collections.emptyList());
+
+    warehouseResource.listAllWarehousesUnits("WH001", 2);
+
+    verify(warehouseStore).findActiveWarehousesPage("WH001", 2);
+  }
+
+  @Test
+  public void testListAllWarehousesUnits_invalidLimit() {
+    assertThrows(WebApplicationException.class, () -> warehouseResource.listAllWarehousesUnits(null, 0));
+    assertThrows(WebApplicationException.class, () -> warehouseResource.listAllWarehousesUnits(null, 1001));
+    verify(warehouseStore, never()).findActiveWarehousesPage(any(), anyInt());
+  }
+
   @Test
   public void testCreateANewWarehouseUnit() {
     Warehouse input = new Warehouse();
@@ -94,6 +136,39 @@ public class WarehouseResourceImplTest {
     assertEquals("ZWOLLE-001", result.getLocation());
   }
 
+  @Test
+  public void testCreateWarehousesInBatch() {
+    Warehouse first = new Warehouse();
+    first.setId("WH001");
+    first.setLocation("ZWOLLE-001");
+    first.setCapacity(30);
+    first.setStock(10);
+    Warehouse second = new Warehouse();
+    second.setId("WH002");
+    second.setLocation("UNKNOWN-001");
+    second.setCapacity(30);
+    second.setStock(10);
+
+    when(batchCreateWarehouseOperation.createAll(any())).thenReturn(List.of(
+        WarehouseBatchItemResult.created("WH001"),
+        WarehouseBatchItemResult.rejected("WH002", "Location UNKNOWN-001 does not exist")));
+
+    WarehouseBatchResponse result = warehouseResource.createWarehousesInBatch(List.of(first, second));
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<WarehouseDTO>> captor = ArgumentCaptor.forClass(List.class);
+    verify(batchCreateWarehouseOperation).createAll(captor.capture());
+    assertEquals(2, captor.getValue().size());
+    assertEquals("WH001", captor.getValue().get(0).businessUnitCode);
+    assertEquals("UNKNOWN-001", captor.getValue().get(1).location);
+
+    assertEquals(1, result.getCreated());
+    assertEquals(1, result.getRejected());
+    assertEquals("CREATED", result.getResults().get(0).getStatus());
+    assertEquals("REJECTED", result.getResults().get(1).getStatus());
+    assertEquals("Location UNKNOWN-001 does not exist", result.getResults().get(1).getMessage());
+  }
+
   @Test
   public void testGetAWarehouseUnitByID_found() {
     WarehouseDTO dto = new WarehouseDTO();
@@ -119,6 +194,85 @@ public class WarehouseResourceImplTest {
     );
   }
 
+  @Test
+  public void testGetWarehouseHistory() {
+    WarehouseDTO archived = new WarehouseDTO();
+    archived.businessUnitCode = "WH001";
+    archived.capacity = 30;
+    archived.creationAt = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    archived.archivedAt = ZonedDateTime.of(2024, 2, 1, 0, 0, 0, 0, ZoneOffset.UTC);
+    WarehouseDTO active = new WarehouseDTO();
+    active.businessUnitCode = "WH001";
+    active.capacity = 40;
+    active.creationAt = archived.archivedAt;
+
+    when(warehouseStore.findHistoryByBusinessUnitCode("WH001")).thenReturn(List.of(archived, active));
+
+    List<WarehouseGeneration> result = warehouseResource.getWarehouseHistory("WH001");
+
+    assertEquals(2, result.size());
+    assertEquals("2024-01-01T00:00Z", result.get(0).getCreatedAt());
+    assertEquals("2024-02-01T00:00Z", result.get(0).getArchivedAt());
+    assertEquals(40, result.get(1).getCapacity());
+    assertNull(result.get(1).getArchivedAt());
+  }
+
+  @Test
+  public void testGetWarehouseHistory_notFound() {
+    when(warehouseStore.findHistoryByBusinessUnitCode("WH999")).thenReturn(Collections.emptyList());
+
+    assertThrows(WarehouseNotFoundException.class, () -> warehouseResource.getWarehouseHistory("WH999"));
+  }
+
+  @Test
+  public void testGetWarehouseAsOf() {
+    WarehouseDTO dto = new WarehouseDTO();
+    dto.businessUnitCode = "WH001";
+    dto.capacity = 30;
+    ZonedDateTime at = ZonedDateTime.of(2024, 1, 15, 12, 0, 0, 0, ZoneOffset.UTC);
+    when(warehouseStore.findByBusinessUnitCodeAsOf("WH001", at)).thenReturn(dto);
+
+    WarehouseGeneration result = warehouseResource.getWarehouseAsOf("WH001", "2024-01-15T12:00:00Z");
+
+    assertEquals("WH001", result.getId());
+    assertEquals(30, result.getCapacity());
+  }
+
+  @Test
+  public void testGetWarehouseAsOf_notActive() {
+    when(warehouseStore.findByBusinessUnitCodeAsOf(eq("WH001"), any())).thenReturn(null);
+
+    assertThrows(WarehouseNotFoundException.class, () ->
+        warehouseResource.getWarehouseAsOf("WH001", "2024-01-15T12:00:00Z"));
+  }
+
+  @Test
+  public void testGetWarehouseAsOf_invalidTimestamp() {
+    assertThrows(WarehouseValidationException.class, () ->
+        warehouseResource.getWarehouseAsOf("WH001", "yesterday"));
+    verify(warehouseStore, never()).findByBusinessUnitCodeAsOf(any(), any());
+  }
+
+  @Test
+  public void testGetWarehouseStockAsOf() {
+    ZonedDateTime at = ZonedDateTime.of(2024, 7, 1, 12, 0, 0, 0, ZoneOffset.UTC);
+    when(stockMovementStore.findStockAsOf("WH001", at)).thenReturn(10);
+
+    WarehouseStockAsOf result = warehouseResource.getWarehouseStockAsOf("WH001", "2024-07-01T12:00:00Z");
+
+    assertEquals("WH001", result.getId());
+    assertEquals("2024-07-01T12:00Z", result.getAt());
+    assertEquals(10, result.getStock());
+  }
+
+  @Test
+  public void testGetWarehouseStockAsOf_noMovements() {
+    when(stockMovementStore.findStockAsOf(eq("WH999"), any())).thenReturn(null);
+
+    assertThrows(WarehouseNotFoundException.class, () ->
+        warehouseResource.getWarehouseStockAsOf("WH999", "2024-07-01T12:00:00Z"));
+  }
+
   @Test
   public void testReplaceAWarehouseUnitByID() {
     Warehouse input = new Warehouse();
@@ -126,10 +280,10 @@ public class WarehouseResourceImplTest {
     input.setCapacity(50);
     input.setStock(10);
 
-    Warehouse result = warehouseResource.replaceAWarehouseUnitByID("WH001", input);
+    Warehouse result = warehouseResource.replaceAWarehouseUnitByID("WH001", null, input);
 
     ArgumentCaptor<WarehouseDTO> captor = ArgumentCaptor.forClass(WarehouseDTO.class);
-    verify(replaceWarehouseOperation).replace(captor.capture());
+    verify(replaceWarehouseOperation).replace(captor.capture(), eq(false));
     WarehouseDTO captured = captor.getValue();
     assertEquals("WH001", captured.businessUnitCode);
     assertEquals("AMSTERDAM-001", captured.location);
@@ -141,10 +295,23 @@ public class WarehouseResourceImplTest {
 
   @Test
   public void testArchiveAWarehouseUnitByID() {
-    warehouseResource.archiveAWarehouseUnitByID("WH001");
+    warehouseResource.archiveAWarehouseUnitByID("WH001", null);
 
     ArgumentCaptor<WarehouseDTO> captor = ArgumentCaptor.forClass(WarehouseDTO.class);
-    verify(archiveWarehouseOperation).archive(captor.capture());
+    verify(archiveWarehouseOperation).archive(captor.capture(), eq(false));
     assertEquals("WH001", captor.getValue().businessUnitCode);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testAdjustWarehouseStock() {
+    StockAdjustmentRequest request = new StockAdjustmentRequest();
+    request.setDeltas(List.of(5, -2));
+    when(adjustWarehouseStockOperation.adjust("WH001", List.of(5, -2))).thenReturn(13);
+
+    StockAdjustmentResponse result = warehouseResource.adjustWarehouseStock("WH001", request);
+
+    assertEquals("WH001", result.getId());
+    assertEquals(13, result.getStock());
+    assertEquals(2, result.getApplied());
+  }
+}
@@ -0,0 +1,145 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import io.quarkus.narayana.jta.QuarkusTransaction;
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class WarehouseStockAdjustmentTest {
+
+  private static final Logger LOG = Logger.getLogger(WarehouseStockAdjustmentTest.class);
+
+  private static final String HOT_WAREHOUSE = "HOT-001";
+  private static final int CAPACITY = 1000;
+  private static final int WRITERS = 64;
+
+  @Inject
+  WarehouseRepository warehouseRepository;
+
+  @BeforeEach
+  @Transactional
+  public void setUp() {
+    WarehouseDTO dto = new WarehouseDTO();
+    dto.businessUnitCode = HOT_WAREHOUSE;
+    dto.location = "VETSBY-001";
+    dto.capacity = CAPACITY;
+    dto.stock = 0;
+    dto.creationAt = ZonedDateTime.now();
+    warehouseRepository.create(dto);
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanUp() {
+    warehouseRepository.delete("businessUnitCode = ?1", HOT_WAREHOUSE);
+  }
+
+  @Test
+  public void testBatchOfDeltasIsAppliedTogether() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"deltas\": [5, -2, 10]}")
+        .when()
+        .post("warehouse/" + HOT_WAREHOUSE + "/stock-adjustments")
+        .then()
+        .statusCode(200)
+        .body("id", equalTo(HOT_WAREHOUSE))
+        .body("stock", equalTo(13))
+        .body("applied", equalTo(3));
+
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"deltas\": [-10, -10]}")
+        .when()
+        .post("warehouse/" + HOT_WAREHOUSE + "/stock-adjustments")
+        .then()
+        .statusCode(400);
+
+    assertEquals(13, stockOfHotWarehouse());
+  }
+
+  @Test
+  public void testUnknownWarehouseIsNotFound() {
+    given()
+        .contentType(ContentType.JSON)
+        .body("{\"deltas\": [1]}")
+        .when()
+        .post("warehouse/UNKNOWN-001/stock-adjustments")
+        .then()
+        .statusCode(404);
+  }
+
+  @Test
+  public void testConcurrentAdjustmentsOfOneWarehouseAreNeitherLostNorOverbooked() throws Exception {
+    int perWriter = 10;
+    long start = System.nanoTime();
+    List<Integer> statuses = runConcurrently(perWriter, 1);
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    LOG.infof("%d adjustments of one warehouse by %d writers in %d ms (%.0f/s)",
+        WRITERS * perWriter, WRITERS, millis, WRITERS * perWriter * 1000.0 / Math.max(millis, 1));
+
+    assertTrue(statuses.stream().allMatch(status -> status == 200));
+    assertEquals(WRITERS * perWriter, stockOfHotWarehouse());
+
+    // only 18 increments of 20 fit into the remaining 360, the other 46 must be turned away
+    List<Integer> overbooking = runConcurrently(1, 20);
+    assertEquals((CAPACITY - WRITERS * perWriter) / 20, overbooking.stream().filter(status -> status == 200).count());
+    assertEquals(CAPACITY - (CAPACITY - WRITERS * perWriter) % 20, stockOfHotWarehouse());
+  }
+
+  private List<Integer> runConcurrently(int requestsPerWriter, int delta) throws Exception {
+    ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+    try {
+      List<Future<List<Integer>>> futures = new ArrayList<>();
+      for (int i = 0; i < WRITERS; i++) {
+        Callable<List<Integer>> writer = () -> {
+          List<Integer> statuses = new ArrayList<>();
+          for (int r = 0; r < requestsPerWriter; r++) {
+            statuses.add(given()
+                .contentType(ContentType.JSON)
+                .body("{\"deltas\": [" + delta + "]}")
+                .when()
+                .post("warehouse/" + HOT_WAREHOUSE + "/stock-adjustments")
+                .then()
+                .extract()
+                .statusCode());
+          }
+          return statuses;
+        };
+        futures.add(executor.submit(writer));
+      }
+      List<Integer> statuses = new ArrayList<>();
+      for (Future<List<Integer>> future : futures) {
+        statuses.addAll(future.get());
+      }
+      return statuses;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private int stockOfHotWarehouse() {
+    return QuarkusTransaction.requiringNew()
+        .call(() -> warehouseRepository.findByBusinessUnitCode(HOT_WAREHOUSE).stock);
+  }
+}
@@ -0,0 +1,99 @@
+package com.fulfilment.application.monolith.warehouses.adapters.restapi;
+
+import com.fulfilment.application.monolith.warehouses.adapters.database.WarehouseRepository;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import io.quarkus.test.junit.QuarkusTest;
+import jakarta.inject.Inject;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.jupiter.api.Assertions.*;
+
+@QuarkusTest
+public class WarehouseStreamResourceTest {
+
+  @Inject
+  WarehouseRepository warehouseRepository;
+
+  @BeforeEach
+  @Transactional
+  public void setUp() {
+    for (String code : List.of("NDJSON-002", "NDJSON-001", "stream")) {
+      WarehouseDTO dto = new WarehouseDTO();
+      dto.businessUnitCode = code;
+      dto.location = "VETSBY-001";
+      dto.capacity = 10;
+      dto.stock = 1;
+      dto.creationAt = ZonedDateTime.now();
+      warehouseRepository.create(dto);
+    }
+  }
+
+  @AfterEach
+  @Transactional
+  public void cleanUp() {
+    warehouseRepository.delete("businessUnitCode like 'NDJSON-%' or businessUnitCode = 'stream'");
+  }
+
+  @Test
+  public void testStreamWritesOneJsonObjectPerLine() {
+    String body = given()
+        .accept(WarehouseStreamResource.NDJSON)
+        .when()
+        .get("warehouse-stream")
+        .then()
+        .statusCode(200)
+        .contentType(WarehouseStreamResource.NDJSON)
+        .extract()
+        .asString();
+
+    List<String> lines = Arrays.stream(body.split("\n"))
+        .filter(line -> line.contains("NDJSON-"))
+        .toList();
+    assertEquals(2, lines.size());
+    assertTrue(lines.get(0).startsWith("{") && lines.get(0).contains("\"id\":\"NDJSON-001\""));
+    assertTrue(lines.get(1).contains("\"id\":\"NDJSON-002\""));
+    assertTrue(lines.get(1).contains("\"location\":\"VETSBY-001\""));
+  }
+
+  @Test
+  public void testBusinessUnitCodeStreamIsNotShadowed() {
+    given()
+        .when()
+        .get("warehouse/stream")
+        .then()
+        .statusCode(200)
+        .body("id", equalTo("stream"));
+  }
+
+  @Test
+  public void testKeysetPagination() {
+    given()
+        .queryParam("after", "NDJSON-001")
+        .queryParam("limit", 1)
+        .when()
+        .get("warehouse")
+        .then()
+        .statusCode(200)
+        .body("id", contains("NDJSON-002"));
+  }
+
+  @Test
+  public void testPaginationRejectsLimitAboveMaximum() {
+    given()
+        .queryParam("limit", 5000)
+        .when()
+        .get("warehouse")
+        .then()
+        .statusCode(400);
+  }
+}
@@ -0,0 +1,88 @@
+package com.fulfilment.application.monolith.warehouses.domain.ledger;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import jakarta.enterprise.event.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LocationOccupancyLedgerTest {
+
+  @Mock
+  private Event<OccupancyChange> changes;
+
+  private LocationOccupancyLedger ledger;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ledger = new LocationOccupancyLedger(changes);
+  }
+
+  @Test
+  public void testUnknownLocationIsEmpty() {
+    // when
+    LocationOccupancy occupancy = ledger.occupancyOf("ZWOLLE-001");
+
+    // then
+    assertEquals(LocationOccupancy.empty("ZWOLLE-001"), occupancy);
+  }
+
+  @Test
+  public void testRecordOnlyFiresEvent() {
+    // given
+    OccupancyChange change = new OccupancyChange("ZWOLLE-001", 1, 30);
+
+    // when
+    ledger.record(change);
+
+    // then
+    verify(changes).fire(change);
+    assertEquals(0, ledger.occupancyOf("ZWOLLE-001").activeWarehouses());
+  }
+
+  @Test
+  public void testCommittedChangesAreApplied() {
+    // given
+    ledger.onChange(new OccupancyChange("ZWOLLE-001", 1, 30));
+    ledger.onChange(new OccupancyChange("ZWOLLE-001", 1, 10));
+
+    // when
+    ledger.onChange(new OccupancyChange("ZWOLLE-001", -1, -30));
+
+    // then
+    assertEquals(new LocationOccupancy("ZWOLLE-001", 1, 10), ledger.occupancyOf("ZWOLLE-001"));
+  }
+
+  @Test
+  public void testReplaceAllDropsLocationsNoLongerPresent() {
+    // given
+    ledger.onChange(new OccupancyChange("ZWOLLE-001", 1, 30));
+    ledger.onChange(new OccupancyChange("AMSTERDAM-001", 1, 50));
+
+    // when
+    ledger.replaceAll(Map.of("AMSTERDAM-001", new LocationOccupancy("AMSTERDAM-001", 2, 80)));
+
+    // then
+    assertEquals(Map.of("AMSTERDAM-001", new LocationOccupancy("AMSTERDAM-001", 2, 80)), ledger.snapshot());
+    assertEquals(LocationOccupancy.empty("ZWOLLE-001"), ledger.occupancyOf("ZWOLLE-001"));
+  }
+
+  @Test
+  public void testReset() {
+    // given
+    ledger.onChange(new OccupancyChange("ZWOLLE-001", 3, 90));
+
+    // when
+    ledger.reset(new LocationOccupancy("ZWOLLE-001", 1, 30));
+
+    // then
+    assertEquals(new LocationOccupancy("ZWOLLE-001", 1, 30), ledger.occupancyOf("ZWOLLE-001"));
+  }
+}
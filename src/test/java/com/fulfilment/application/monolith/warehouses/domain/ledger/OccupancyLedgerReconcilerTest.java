@@ -0,0 +1,104 @@
+package com.fulfilment.application.monolith.warehouses.domain.ledger;
+
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class OccupancyLedgerReconcilerTest {
+
+  @Mock
+  private WarehouseStore warehouseStore;
+
+  private LocationOccupancyLedger ledger;
+  private SimpleMeterRegistry meterRegistry;
+  private OccupancyLedgerReconciler reconciler;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    ledger = new LocationOccupancyLedger(null);
+    meterRegistry = new SimpleMeterRegistry();
+    reconciler = new OccupancyLedgerReconciler(warehouseStore, ledger, meterRegistry);
+  }
+
+  @Test
+  public void testStartupRebuildsLedgerFromStore() {
+    // given
+    when(warehouseStore.getOccupancyOfAllLocations()).thenReturn(Map.of(
+        "ZWOLLE-001", new LocationOccupancy("ZWOLLE-001", 2, 40),
+        "AMSTERDAM-001", new LocationOccupancy("AMSTERDAM-001", 1, 50)));
+
+    // when
+    reconciler.onStart(null);
+
+    // then
+    assertEquals(Map.of(
+        "ZWOLLE-001", new LocationOccupancy("ZWOLLE-001", 2, 40),
+        "AMSTERDAM-001", new LocationOccupancy("AMSTERDAM-001", 1, 50)), ledger.snapshot());
+  }
+
+  @Test
+  public void testDriftIsCorrectedOnlyWhenSeenTwice() {
+    // given
+    when(warehouseStore.getOccupancyOfAllLocations()).thenReturn(occupancy("ZWOLLE-001", 1, 30));
+    ledger.reset(new LocationOccupancy("ZWOLLE-001", 2, 60));
+
+    // when
+    reconciler.checkConsistency();
+
+    // then
+    assertEquals(new LocationOccupancy("ZWOLLE-001", 2, 60), ledger.occupancyOf("ZWOLLE-001"));
+
+    // when
+    reconciler.checkConsistency();
+
+    // then
+    assertEquals(new LocationOccupancy("ZWOLLE-001", 1, 30), ledger.occupancyOf("ZWOLLE-001"));
+    assertEquals(1.0, meterRegistry.counter("warehouse.occupancy.ledger.corrections").count());
+  }
+
+  @Test
+  public void testTransientDifferenceIsNotCorrected() {
+    // given
+    when(warehouseStore.getOccupancyOfAllLocations())
+        .thenReturn(occupancy("ZWOLLE-001", 1, 30))
+        .thenReturn(occupancy("ZWOLLE-001", 2, 40));
+
+    // when
+    reconciler.checkConsistency();
+    ledger.onChange(new OccupancyChange("ZWOLLE-001", 1, 30));
+    ledger.onChange(new OccupancyChange("ZWOLLE-001", 1, 10));
+    reconciler.checkConsistency();
+
+    // then
+    assertEquals(new LocationOccupancy("ZWOLLE-001", 2, 40), ledger.occupancyOf("ZWOLLE-001"));
+    assertEquals(0.0, meterRegistry.counter("warehouse.occupancy.ledger.corrections").count());
+  }
+
+  @Test
+  public void testLocationEmptiedInDatabaseIsCorrected() {
+    // given
+    when(warehouseStore.getOccupancyOfAllLocations()).thenReturn(Map.of());
+    ledger.reset(new LocationOccupancy("ZWOLLE-001", 1, 30));
+
+    // when
+    reconciler.checkConsistency();
+    reconciler.checkConsistency();
+
+    // then
+    assertEquals(LocationOccupancy.empty("ZWOLLE-001"), ledger.occupancyOf("ZWOLLE-001"));
+  }
+
+  private static Map<String, LocationOccupancy> occupancy(String location, int warehouses, int capacity) {
+    return Map.of(location, new LocationOccupancy(location, warehouses, capacity));
+  }
+}
@@ -0,0 +1,43 @@
+package com.fulfilment.application.monolith.warehouses.domain.ledger;
+
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class StockSnapshotterTest {
+
+  @Mock
+  private StockMovementStore stockMovementStore;
+
+  private StockSnapshotter stockSnapshotter;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    stockSnapshotter = new StockSnapshotter(stockMovementStore, Duration.ofMinutes(2));
+  }
+
+  @Test
+  public void testSnapshotTrailsTheClockByTheLag() {
+    // given
+    ZonedDateTime before = ZonedDateTime.now();
+
+    // when
+    stockSnapshotter.takeSnapshot();
+
+    // then
+    ArgumentCaptor<ZonedDateTime> cutoff = ArgumentCaptor.forClass(ZonedDateTime.class);
+    verify(stockMovementStore).snapshotUpTo(cutoff.capture());
+    assertFalse(cutoff.getValue().isBefore(before.minusMinutes(2)));
+    assertFalse(cutoff.getValue().isAfter(ZonedDateTime.now().minusMinutes(2)));
+  }
+}
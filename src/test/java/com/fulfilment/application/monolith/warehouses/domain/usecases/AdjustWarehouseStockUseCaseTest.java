@@ -0,0 +1,102 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class AdjustWarehouseStockUseCaseTest {
+
+  @Mock
+  private WarehouseStore warehouseStore;
+
+  @Mock
+  private StockMovementStore stockMovementStore;
+
+  private AdjustWarehouseStockUseCase adjustWarehouseStockUseCase;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    adjustWarehouseStockUseCase = new AdjustWarehouseStockUseCase(warehouseStore, stockMovementStore);
+  }
+
+  @Test
+  public void testAdjustAppliesTheSumOfAllDeltasInOneUpdate() {
+    // given
+    when(warehouseStore.adjustStock("WH001", 3)).thenReturn(13);
+
+    // when
+    int stock = adjustWarehouseStockUseCase.adjust("WH001", List.of(5, -2));
+
+    // then
+    assertEquals(13, stock);
+    verify(warehouseStore, times(1)).adjustStock(anyString(), anyInt());
+    verify(warehouseStore, never()).findByBusinessUnitCode(anyString());
+    ArgumentCaptor<List<StockMovement>> movements = ArgumentCaptor.forClass(List.class);
+    verify(stockMovementStore).append(movements.capture());
+    assertEquals(List.of(5, -2), movements.getValue().stream().map(StockMovement::delta).toList());
+    assertTrue(movements.getValue().stream().allMatch(m -> m.reason() == StockMovement.Reason.ADJUSTED));
+  }
+
+  @Test
+  public void testAdjustFailsWhenWarehouseNotFound() {
+    // given
+    when(warehouseStore.adjustStock("WH999", 1)).thenReturn(null);
+    when(warehouseStore.findByBusinessUnitCode("WH999")).thenReturn(null);
+
+    // when & then
+    assertThrows(WarehouseNotFoundException.class, () -> adjustWarehouseStockUseCase.adjust("WH999", List.of(1)));
+  }
+
+  @Test
+  public void testAdjustFailsWhenStockWouldLeaveCapacityRange() {
+    // given
+    WarehouseDTO existing = new WarehouseDTO();
+    existing.businessUnitCode = "WH001";
+    existing.capacity = 10;
+    existing.stock = 8;
+    when(warehouseStore.adjustStock("WH001", 5)).thenReturn(null);
+    when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existing);
+
+    // when & then
+    WarehouseValidationException exception = assertThrows(WarehouseValidationException.class, () ->
+        adjustWarehouseStockUseCase.adjust("WH001", List.of(5)));
+    assertTrue(exception.getMessage().contains("outside 0..10"));
+    verify(stockMovementStore, never()).append(any());
+  }
+
+  @Test
+  public void testAdjustRejectsEmptyOrNullDeltas() {
+    assertThrows(WarehouseValidationException.class, () -> adjustWarehouseStockUseCase.adjust("WH001", List.of()));
+    assertThrows(WarehouseValidationException.class, () ->
+        adjustWarehouseStockUseCase.adjust("WH001", Arrays.asList(1, null)));
+    assertThrows(WarehouseValidationException.class, () ->
+        adjustWarehouseStockUseCase.adjust("WH001", Collections.nCopies(AdjustWarehouseStockUseCase.MAX_DELTAS + 1, 1)));
+    verify(warehouseStore, never()).adjustStock(anyString(), anyInt());
+  }
+
+  @Test
+  public void testAdjustRejectsDeltasOverflowingAnInteger() {
+    assertThrows(WarehouseValidationException.class, () ->
+        adjustWarehouseStockUseCase.adjust("WH001", List.of(Integer.MAX_VALUE, 1)));
+    verify(warehouseStore, never()).adjustStock(anyString(), anyInt());
+  }
+}
@@ -2,7 +2,12 @@ package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.OccupancyChange;
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseFulfillments;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.fulfilment.application.monolith.warehouses.domain.validators.WarehouseExistenceValidator;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,9 +16,12 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.time.ZonedDateTime;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.notNull;
 import static org.mockito.Mockito.*;
 
 public class ArchiveWarehouseUseCaseTest {
@@ -24,6 +32,15 @@ public class ArchiveWarehouseUseCaseTest {
   @Mock
   private WarehouseExistenceValidator warehouseExistenceValidator;
 
+  @Mock
+  private LocationOccupancyLedger occupancyLedger;
+
+  @Mock
+  private StockMovementStore stockMovementStore;
+
+  @Mock
+  private WarehouseFulfillments warehouseFulfillments;
+
   private ArchiveWarehouseUseCase archiveWarehouseUseCase;
 
   @BeforeEach
@@ -31,7 +48,10 @@ public class ArchiveWarehouseUseCaseTest {
     MockitoAnnotations.openMocks(this);
     archiveWarehouseUseCase = new ArchiveWarehouseUseCase(
         warehouseStore,
-        warehouseExistenceValidator
+        warehouseExistenceValidator,
+        occupancyLedger,
+        stockMovementStore,
+        warehouseFulfillments
     );
   }
 
@@ -41,21 +61,78 @@ public class ArchiveWarehouseUseCaseTest {
     WarehouseDTO existingWarehouseDTO = new WarehouseDTO();
     existingWarehouseDTO.businessUnitCode = "WH001";
     existingWarehouseDTO.location = "ZWOLLE-001";
+    existingWarehouseDTO.capacity = 30;
+    existingWarehouseDTO.stock = 12;
     existingWarehouseDTO.archivedAt = null;
 
     WarehouseDTO warehouseDTOToArchive = new WarehouseDTO();
     warehouseDTOToArchive.businessUnitCode = "WH001";
 
     when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existingWarehouseDTO);
+    // a concurrent adjustment moved the stored stock past the loaded one
+    WarehouseDTO archivedWarehouseDTO = archived("WH001", 15);
+    when(warehouseStore.archive(eq("WH001"), any())).thenReturn(archivedWarehouseDTO);
 
     // when
-    archiveWarehouseUseCase.archive(warehouseDTOToArchive);
+    archiveWarehouseUseCase.archive(warehouseDTOToArchive, false);
 
     // then
     verify(warehouseExistenceValidator).validateWarehouseExists(existingWarehouseDTO, "WH001");
     verify(warehouseExistenceValidator).validateWarehouseNotArchived(existingWarehouseDTO);
-    verify(warehouseStore, times(1)).update(warehouseDTOToArchive);
-    assertNotNull(warehouseDTOToArchive.archivedAt);
+    verify(warehouseStore, times(1)).archive(eq("WH001"), notNull());
+    verify(warehouseStore, never()).archive(any(), any());
+    verify(occupancyLedger).record(new OccupancyChange("ZWOLLE-001", -1, -30));
+    verify(stockMovementStore).append(List.of(
+        new StockMovement("WH001", -15, StockMovement.Reason.ARCHIVED, archivedWarehouseDTO.archivedAt)));
+    assertNull(existingWarehouseDTO.archivedAt);
+    verify(warehouseFulfillments).detachFromArchivedGeneration("WH001");
+    verify(warehouseFulfillments, never()).dropFromArchivedGeneration(any());
+  }
+
+  @Test
+  public void testArchiveWarehouseDropsFulfillmentsWhenAsked() {
+    // given
+    WarehouseDTO existingWarehouseDTO = new WarehouseDTO();
+    existingWarehouseDTO.businessUnitCode = "WH001";
+    existingWarehouseDTO.location = "ZWOLLE-001";
+    existingWarehouseDTO.capacity = 30;
+    existingWarehouseDTO.stock = 12;
+
+    WarehouseDTO warehouseDTOToArchive = new WarehouseDTO();
+    warehouseDTOToArchive.businessUnitCode = "WH001";
+
+    when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existingWarehouseDTO);
+    when(warehouseStore.archive(eq("WH001"), any())).thenReturn(archived("WH001", 12));
+    when(warehouseFulfillments.dropFromArchivedGeneration("WH001")).thenReturn(4);
+
+    // when
+    archiveWarehouseUseCase.archive(warehouseDTOToArchive, true);
+
+    // then
+    verify(warehouseStore).archive(eq("WH001"), notNull());
+    verify(warehouseFulfillments).dropFromArchivedGeneration("WH001");
+    verify(warehouseFulfillments, never()).detachFromArchivedGeneration(any());
+  }
+
+  @Test
+  public void testArchiveWarehouseFailsWhenArchivedConcurrently() {
+    // given
+    WarehouseDTO existingWarehouseDTO = new WarehouseDTO();
+    existingWarehouseDTO.businessUnitCode = "WH001";
+
+    WarehouseDTO warehouseDTOToArchive = new WarehouseDTO();
+    warehouseDTOToArchive.businessUnitCode = "WH001";
+
+    when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existingWarehouseDTO);
+    when(warehouseStore.archive(eq("WH001"), any())).thenReturn(null);
+    doThrow(new WarehouseNotFoundException("does not exist"))
+        .when(warehouseExistenceValidator).validateWarehouseExists(null, "WH001");
+
+    // when & then
+    assertThrows(WarehouseNotFoundException.class, () -> archiveWarehouseUseCase.archive(warehouseDTOToArchive, false));
+    verify(occupancyLedger, never()).record(any());
+    verify(stockMovementStore, never()).append(any());
+    verify(warehouseFulfillments, never()).detachFromArchivedGeneration(any());
   }
 
   @Test
@@ -70,10 +147,12 @@ public class ArchiveWarehouseUseCaseTest {
 
     // when & then
     WarehouseNotFoundException exception = assertThrows(WarehouseNotFoundException.class, () -> {
-      archiveWarehouseUseCase.archive(warehouseDTO);
+      archiveWarehouseUseCase.archive(warehouseDTO, false);
     });
     assertTrue(exception.getMessage().contains("does not exist"));
-    verify(warehouseStore, never()).update(any());
+    verify(warehouseStore, never()).archive(any(), any());
+    verify(occupancyLedger, never()).record(any());
+    verify(stockMovementStore, never()).append(any());
   }
 
   @Test
@@ -92,9 +171,21 @@ public class ArchiveWarehouseUseCaseTest {
 
     // when & then
     WarehouseValidationException exception = assertThrows(WarehouseValidationException.class, () -> {
-      archiveWarehouseUseCase.archive(warehouseDTOToArchive);
+      archiveWarehouseUseCase.archive(warehouseDTOToArchive, false);
     });
     assertTrue(exception.getMessage().contains("already archived"));
-    verify(warehouseStore, never()).update(any());
+    verify(warehouseStore, never()).archive(any(), any());
+    verify(occupancyLedger, never()).record(any());
+    verify(stockMovementStore, never()).append(any());
+  }
+
+  private static WarehouseDTO archived(String businessUnitCode, int stock) {
+    WarehouseDTO dto = new WarehouseDTO();
+    dto.businessUnitCode = businessUnitCode;
+    dto.location = "ZWOLLE-001";
+    dto.capacity = 30;
+    dto.stock = stock;
+    dto.archivedAt = ZonedDateTime.now();
+    return dto;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,175 @@
+package com.fulfilment.application.monolith.warehouses.domain.usecases;
+
+import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.OccupancyChange;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseBatchItemResult;
+import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationResolver;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
+import com.fulfilment.application.monolith.warehouses.domain.validators.CapacityValidator;
+import com.fulfilment.application.monolith.warehouses.domain.validators.LocationValidator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class BatchCreateWarehouseUseCaseTest {
+
+  @Mock
+  private WarehouseStore warehouseStore;
+
+  @Mock
+  private LocationResolver locationResolver;
+
+  @Mock
+  private LocationOccupancyLedger occupancyLedger;
+
+  @Mock
+  private LocationLock locationLock;
+
+  @Mock
+  private StockMovementStore stockMovementStore;
+
+  private BatchCreateWarehouseUseCase batchCreateWarehouseUseCase;
+
+  @BeforeEach
+  public void setUp() {
+    MockitoAnnotations.openMocks(this);
+    batchCreateWarehouseUseCase = new BatchCreateWarehouseUseCase(
+        warehouseStore, new LocationValidator(locationResolver), new CapacityValidator(), occupancyLedger, locationLock,
+        stockMovementStore
+    );
+    when(locationResolver.resolveByIdentifier("ZWOLLE-001")).thenReturn(new LocationDTO("ZWOLLE-001", 2, 100));
+    when(locationResolver.resolveByIdentifier("AMSTERDAM-001")).thenReturn(new LocationDTO("AMSTERDAM-001", 5, 150));
+    when(warehouseStore.findActiveBusinessUnitCodes(any())).thenReturn(Set.of());
+    when(warehouseStore.getOccupancyByLocations(any())).thenReturn(Map.of());
+  }
+
+  @Test
+  public void testCreateAllValidWarehouses() {
+    // given
+    List<WarehouseDTO> batch = List.of(
+        warehouse("WH001", "ZWOLLE-001", 30, 10),
+        warehouse("WH002", "ZWOLLE-001", 40, 5),
+        warehouse("WH003", "AMSTERDAM-001", 50, 0));
+
+    // when
+    List<WarehouseBatchItemResult> results = batchCreateWarehouseUseCase.createAll(batch);
+
+    // then
+    assertTrue(results.stream().allMatch(WarehouseBatchItemResult::created));
+    verify(locationLock).lock(List.of("ZWOLLE-001", "AMSTERDAM-001"));
+    verify(warehouseStore).createAll(batch);
+    batch.forEach(warehouse -> assertNotNull(warehouse.creationAt));
+    verify(occupancyLedger).record(new OccupancyChange("ZWOLLE-001", 2, 70));
+    verify(occupancyLedger).record(new OccupancyChange("AMSTERDAM-001", 1, 50));
+    verify(stockMovementStore).append(batch.stream().map(StockMovement::created).toList());
+  }
+
+  @Test
+  public void testLimitsConsumedByEarlierItemsInTheBatch() {
+    // given
+    when(warehouseStore.getOccupancyByLocations(any()))
+        .thenReturn(Map.of("ZWOLLE-001", new LocationOccupancy("ZWOLLE-001", 1, 60)));
+    WarehouseDTO fits = warehouse("WH001", "ZWOLLE-001", 30, 10);
+    WarehouseDTO noSlotLeft = warehouse("WH002", "ZWOLLE-001", 5, 0);
+
+    // when
+    List<WarehouseBatchItemResult> results = batchCreateWarehouseUseCase.createAll(List.of(fits, noSlotLeft));
+
+    // then
+    assertTrue(results.get(0).created());
+    assertFalse(results.get(1).created());
+    assertTrue(results.get(1).message().contains("Maximum number of warehouses reached"));
+    verify(warehouseStore).createAll(List.of(fits));
+  }
+
+  @Test
+  public void testCapacityConsumedByEarlierItemsInTheBatch() {
+    // given
+    List<WarehouseDTO> batch = List.of(
+        warehouse("WH001", "AMSTERDAM-001", 100, 10),
+        warehouse("WH002", "AMSTERDAM-001", 60, 10),
+        warehouse("WH003", "AMSTERDAM-001", 50, 10));
+
+    // when
+    List<WarehouseBatchItemResult> results = batchCreateWarehouseUseCase.createAll(batch);
+
+    // then
+    assertTrue(results.get(0).created());
+    assertFalse(results.get(1).created());
+    assertTrue(results.get(1).message().contains("exceeds maximum capacity"));
+    assertTrue(results.get(2).created());
+    verify(occupancyLedger).record(new OccupancyChange("AMSTERDAM-001", 2, 150));
+  }
+
+  @Test
+  public void testRejectsExistingAndDuplicateBusinessUnitCodes() {
+    // given
+    when(warehouseStore.findActiveBusinessUnitCodes(any())).thenReturn(Set.of("MWH.001"));
+    List<WarehouseDTO> batch = List.of(
+        warehouse("MWH.001", "ZWOLLE-001", 10, 0),
+        warehouse("WH001", "ZWOLLE-001", 10, 0),
+        warehouse("WH001", "AMSTERDAM-001", 10, 0));
+
+    // when
+    List<WarehouseBatchItemResult> results = batchCreateWarehouseUseCase.createAll(batch);
+
+    // then
+    assertFalse(results.get(0).created());
+    assertTrue(results.get(0).message().contains("already exists"));
+    assertTrue(results.get(1).created());
+    assertFalse(results.get(2).created());
+    assertTrue(results.get(2).message().contains("already exists"));
+  }
+
+  @Test
+  public void testRejectsInvalidItemsWithoutFailingTheBatch() {
+    // given
+    List<WarehouseDTO> batch = List.of(
+        warehouse("WH001", "UNKNOWN-001", 10, 0),
+        warehouse("WH002", "ZWOLLE-001", 10, 20),
+        warehouse("WH003", "ZWOLLE-001", null, 0));
+
+    // when
+    List<WarehouseBatchItemResult> results = batchCreateWarehouseUseCase.createAll(batch);
+
+    // then
+    assertTrue(results.get(0).message().contains("does not exist"));
+    assertTrue(results.get(1).message().contains("stock cannot exceed"));
+    assertTrue(results.get(2).message().contains("required"));
+    verify(warehouseStore, never()).createAll(any());
+    verify(occupancyLedger, never()).record(any());
+  }
+
+  @Test
+  public void testRejectsEmptyBatch() {
+    // when & then
+    assertThrows(WarehouseValidationException.class, () ->
+        batchCreateWarehouseUseCase.createAll(Collections.emptyList()));
+  }
+
+  private static WarehouseDTO warehouse(String businessUnitCode, String location, Integer capacity, Integer stock) {
+    WarehouseDTO warehouseDTO = new WarehouseDTO();
+    warehouseDTO.businessUnitCode = businessUnitCode;
+    warehouseDTO.location = location;
+    warehouseDTO.capacity = capacity;
+    warehouseDTO.stock = stock;
+    return warehouseDTO;
+  }
+}
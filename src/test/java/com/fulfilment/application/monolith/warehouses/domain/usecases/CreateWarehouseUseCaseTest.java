@@ -1,18 +1,24 @@
 package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.OccupancyChange;
 import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
+import com.fulfilment.application.monolith.warehouses.domain.models.StockMovement;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import com.fulfilment.application.monolith.warehouses.domain.ports.StockMovementStore;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.fulfilment.application.monolith.warehouses.domain.validators.CapacityValidator;
 import com.fulfilment.application.monolith.warehouses.domain.validators.LocationValidator;
 import com.fulfilment.application.monolith.warehouses.domain.validators.WarehouseExistenceValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -33,13 +39,23 @@ public class CreateWarehouseUseCaseTest {
   @Mock
   private CapacityValidator capacityValidator;
 
+  @Mock
+  private LocationOccupancyLedger occupancyLedger;
+
+  @Mock
+  private LocationLock locationLock;
+
+  @Mock
+  private StockMovementStore stockMovementStore;
+
   private CreateWarehouseUseCase createWarehouseUseCase;
 
   @BeforeEach
   public void setUp() {
     MockitoAnnotations.openMocks(this);
     createWarehouseUseCase = new CreateWarehouseUseCase(
-        warehouseStore, warehouseExistenceValidator, locationValidator, capacityValidator
+        warehouseStore, warehouseExistenceValidator, locationValidator, capacityValidator, occupancyLedger, locationLock,
+        stockMovementStore
     );
   }
 
@@ -56,8 +72,8 @@ public class CreateWarehouseUseCaseTest {
 
     when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(null);
     when(locationValidator.validateAndResolveLocation("ZWOLLE-001")).thenReturn(locationDTO);
-    when(warehouseStore.findActiveByLocation("ZWOLLE-001")).thenReturn(Collections.emptyList());
-    when(warehouseStore.getTotalCapacityByLocation("ZWOLLE-001")).thenReturn(0);
+    when(occupancyLedger.occupancyOf("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 0, 0));
+    when(warehouseStore.getOccupancyByLocation("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 0, 0));
 
     // when
     createWarehouseUseCase.create(warehouseDTO);
@@ -65,11 +81,17 @@ public class CreateWarehouseUseCaseTest {
     // then
     verify(warehouseExistenceValidator).validateWarehouseDoesNotExist(null, "WH001");
     verify(locationValidator).validateAndResolveLocation("ZWOLLE-001");
-    verify(capacityValidator).validateMaxWarehousesAtLocation(0, locationDTO, "ZWOLLE-001");
-    verify(capacityValidator).validateLocationCapacity(0, 30, locationDTO, "ZWOLLE-001");
+    verify(capacityValidator, times(2)).validateMaxWarehousesAtLocation(0, locationDTO, "ZWOLLE-001");
+    verify(capacityValidator, times(2)).validateLocationCapacity(0, 30, locationDTO, "ZWOLLE-001");
     verify(capacityValidator).validateStockDoesNotExceedCapacity(10, 30);
-    verify(warehouseStore).create(warehouseDTO);
+    InOrder inOrder = inOrder(locationLock, warehouseStore);
+    inOrder.verify(locationLock).lock(List.of("ZWOLLE-001"));
+    inOrder.verify(warehouseStore).getOccupancyByLocation("ZWOLLE-001");
+    inOrder.verify(warehouseStore).create(warehouseDTO);
+    verify(occupancyLedger).record(new OccupancyChange("ZWOLLE-001", 1, 30));
     assertNotNull(warehouseDTO.creationAt);
+    verify(stockMovementStore).append(List.of(
+        new StockMovement("WH001", 10, StockMovement.Reason.CREATED, warehouseDTO.creationAt)));
   }
 
   @Test
@@ -92,6 +114,7 @@ public class CreateWarehouseUseCaseTest {
     });
     assertTrue(exception.getMessage().contains("already exists"));
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -111,6 +134,7 @@ public class CreateWarehouseUseCaseTest {
     });
     assertTrue(exception.getMessage().contains("does not exist"));
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -126,7 +150,7 @@ public class CreateWarehouseUseCaseTest {
 
     when(warehouseStore.findByBusinessUnitCode("WH002")).thenReturn(null);
     when(locationValidator.validateAndResolveLocation("ZWOLLE-001")).thenReturn(locationDTO);
-    when(warehouseStore.findActiveByLocation("ZWOLLE-001")).thenReturn(List.of(new WarehouseDTO()));
+    when(occupancyLedger.occupancyOf("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 1, 0));
     doThrow(new WarehouseValidationException("Maximum number of warehouses reached"))
         .when(capacityValidator).validateMaxWarehousesAtLocation(1, locationDTO, "ZWOLLE-001");
 
@@ -135,7 +159,9 @@ public class CreateWarehouseUseCaseTest {
       createWarehouseUseCase.create(warehouseDTO);
     });
     assertTrue(exception.getMessage().contains("Maximum number of warehouses reached"));
+    verify(locationLock, never()).lock(any());
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -151,8 +177,7 @@ public class CreateWarehouseUseCaseTest {
 
     when(warehouseStore.findByBusinessUnitCode("WH002")).thenReturn(null);
     when(locationValidator.validateAndResolveLocation("ZWOLLE-001")).thenReturn(locationDTO);
-    when(warehouseStore.findActiveByLocation("ZWOLLE-001")).thenReturn(Collections.emptyList());
-    when(warehouseStore.getTotalCapacityByLocation("ZWOLLE-001")).thenReturn(0);
+    when(occupancyLedger.occupancyOf("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 0, 0));
     doThrow(new WarehouseValidationException("Warehouse capacity exceeds maximum capacity"))
         .when(capacityValidator).validateLocationCapacity(0, 50, locationDTO, "ZWOLLE-001");
 
@@ -161,7 +186,9 @@ public class CreateWarehouseUseCaseTest {
       createWarehouseUseCase.create(warehouseDTO);
     });
     assertTrue(exception.getMessage().contains("capacity exceeds"));
+    verify(locationLock, never()).lock(any());
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -177,8 +204,7 @@ public class CreateWarehouseUseCaseTest {
 
     when(warehouseStore.findByBusinessUnitCode("WH002")).thenReturn(null);
     when(locationValidator.validateAndResolveLocation("ZWOLLE-001")).thenReturn(locationDTO);
-    when(warehouseStore.findActiveByLocation("ZWOLLE-001")).thenReturn(Collections.emptyList());
-    when(warehouseStore.getTotalCapacityByLocation("ZWOLLE-001")).thenReturn(0);
+    when(occupancyLedger.occupancyOf("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 0, 0));
     doThrow(new WarehouseValidationException("Warehouse stock cannot exceed warehouse capacity"))
         .when(capacityValidator).validateStockDoesNotExceedCapacity(20, 10);
 
@@ -188,5 +214,32 @@ public class CreateWarehouseUseCaseTest {
     });
     assertTrue(exception.getMessage().contains("stock cannot exceed"));
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
+  }
+
+  @Test
+  public void testCreateWarehouseFailsWhenConcurrentWriterFilledLocation() {
+    // given
+    WarehouseDTO warehouseDTO = new WarehouseDTO();
+    warehouseDTO.businessUnitCode = "WH002";
+    warehouseDTO.location = "ZWOLLE-001";
+    warehouseDTO.capacity = 10;
+    warehouseDTO.stock = 5;
+
+    LocationDTO locationDTO = new LocationDTO("ZWOLLE-001", 1, 40);
+
+    when(warehouseStore.findByBusinessUnitCode("WH002")).thenReturn(null);
+    when(locationValidator.validateAndResolveLocation("ZWOLLE-001")).thenReturn(locationDTO);
+    // the ledger has not seen the other writer's commit yet, the database has
+    when(occupancyLedger.occupancyOf("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 0, 0));
+    when(warehouseStore.getOccupancyByLocation("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 1, 30));
+    doThrow(new WarehouseValidationException("Maximum number of warehouses reached"))
+        .when(capacityValidator).validateMaxWarehousesAtLocation(1, locationDTO, "ZWOLLE-001");
+
+    // when & then
+    assertThrows(WarehouseValidationException.class, () -> createWarehouseUseCase.create(warehouseDTO));
+    verify(locationLock).lock(List.of("ZWOLLE-001"));
+    verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
-}
\ No newline at end of file
+}
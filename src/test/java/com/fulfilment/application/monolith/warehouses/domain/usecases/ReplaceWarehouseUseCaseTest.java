@@ -2,19 +2,24 @@ package com.fulfilment.application.monolith.warehouses.domain.usecases;
 
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseNotFoundException;
 import com.fulfilment.application.monolith.warehouses.domain.exceptions.WarehouseValidationException;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.LocationOccupancyLedger;
+import com.fulfilment.application.monolith.warehouses.domain.ledger.OccupancyChange;
 import com.fulfilment.application.monolith.warehouses.domain.models.LocationDTO;
+import com.fulfilment.application.monolith.warehouses.domain.models.LocationOccupancy;
 import com.fulfilment.application.monolith.warehouses.domain.models.WarehouseDTO;
+import com.fulfilment.application.monolith.warehouses.domain.ports.LocationLock;
+import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseFulfillments;
 import com.fulfilment.application.monolith.warehouses.domain.ports.WarehouseStore;
 import com.fulfilment.application.monolith.warehouses.domain.validators.CapacityValidator;
 import com.fulfilment.application.monolith.warehouses.domain.validators.LocationValidator;
 import com.fulfilment.application.monolith.warehouses.domain.validators.WarehouseExistenceValidator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
 import java.time.ZonedDateTime;
-import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,13 +40,23 @@ public class ReplaceWarehouseUseCaseTest {
   @Mock
   private CapacityValidator capacityValidator;
 
+  @Mock
+  private LocationOccupancyLedger occupancyLedger;
+
+  @Mock
+  private LocationLock locationLock;
+
+  @Mock
+  private WarehouseFulfillments warehouseFulfillments;
+
   private ReplaceWarehouseUseCase replaceWarehouseUseCase;
 
   @BeforeEach
   public void setUp() {
     MockitoAnnotations.openMocks(this);
     replaceWarehouseUseCase = new ReplaceWarehouseUseCase(
-        warehouseStore, warehouseExistenceValidator, locationValidator, capacityValidator
+        warehouseStore, warehouseExistenceValidator, locationValidator, capacityValidator, occupancyLedger, locationLock,
+        warehouseFulfillments
     );
   }
 
@@ -64,25 +79,65 @@ public class ReplaceWarehouseUseCaseTest {
     LocationDTO locationDTO = new LocationDTO("ZWOLLE-001", 1, 40);
 
     when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existingWarehouse);
+    when(warehouseStore.archive(eq("WH001"), any())).thenReturn(archivedCopyOf(existingWarehouse));
     when(locationValidator.validateAndResolveLocation("ZWOLLE-001")).thenReturn(locationDTO);
-    when(warehouseStore.getTotalCapacityByLocation("ZWOLLE-001")).thenReturn(30);
+    when(occupancyLedger.occupancyOf("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 1, 30));
+    when(warehouseStore.getOccupancyByLocation("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 1, 30));
 
     // when
-    replaceWarehouseUseCase.replace(newWarehouse);
+    replaceWarehouseUseCase.replace(newWarehouse, false);
 
     // then
     verify(warehouseExistenceValidator).validateWarehouseExists(existingWarehouse, "WH001");
     verify(warehouseExistenceValidator).validateCannotReplaceArchivedWarehouse(existingWarehouse);
-    verify(capacityValidator).validateStockMatches(10, 10);
+    // once against the loaded generation and once against the stock the archive saw
+    verify(capacityValidator, times(2)).validateStockMatches(10, 10);
     verify(capacityValidator).validateStockDoesNotExceedCapacity(10, 35);
-    verify(capacityValidator).validateLocationCapacityForReplacement(30, newWarehouse, existingWarehouse, locationDTO);
+    verify(capacityValidator, times(2)).validateLocationCapacityForReplacement(30, newWarehouse, existingWarehouse, locationDTO);
+    verify(locationLock).lock(List.of("ZWOLLE-001", "ZWOLLE-001"));
     // Same location - should NOT validate max warehouses
     verify(capacityValidator, never()).validateMaxWarehousesAtLocation(anyInt(), any(), anyString());
-    verify(warehouseStore).update(existingWarehouse);
-    assertNotNull(existingWarehouse.archivedAt);
+    verify(warehouseStore).archive(eq("WH001"), notNull());
+    verify(warehouseStore, never()).update(any());
     verify(warehouseStore).create(newWarehouse);
     assertNotNull(newWarehouse.creationAt);
     assertNull(newWarehouse.archivedAt);
+    verify(occupancyLedger).record(new OccupancyChange("ZWOLLE-001", -1, -30));
+    verify(occupancyLedger).record(new OccupancyChange("ZWOLLE-001", 1, 35));
+    verify(warehouseFulfillments, never()).moveToActiveGeneration(anyString());
+    verify(warehouseFulfillments, never()).detachFromArchivedGeneration(anyString());
+  }
+
+  @Test
+  public void testReplaceWarehouseMovesFulfillmentsToNewGenerationWhenAsked() {
+    // given
+    WarehouseDTO existingWarehouse = new WarehouseDTO();
+    existingWarehouse.businessUnitCode = "WH001";
+    existingWarehouse.location = "ZWOLLE-001";
+    existingWarehouse.capacity = 30;
+    existingWarehouse.stock = 10;
+
+    WarehouseDTO newWarehouse = new WarehouseDTO();
+    newWarehouse.businessUnitCode = "WH001";
+    newWarehouse.location = "ZWOLLE-001";
+    newWarehouse.capacity = 35;
+    newWarehouse.stock = 10;
+
+    when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existingWarehouse);
+    when(warehouseStore.archive(eq("WH001"), any())).thenReturn(archivedCopyOf(existingWarehouse));
+    when(locationValidator.validateAndResolveLocation("ZWOLLE-001")).thenReturn(new LocationDTO("ZWOLLE-001", 1, 40));
+    when(occupancyLedger.occupancyOf("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 1, 30));
+    when(warehouseStore.getOccupancyByLocation("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 1, 30));
+    when(warehouseFulfillments.moveToActiveGeneration("WH001")).thenReturn(3);
+
+    // when
+    replaceWarehouseUseCase.replace(newWarehouse, true);
+
+    // then the new generation exists before the fulfillments are moved to it
+    InOrder inOrder = inOrder(warehouseStore, warehouseFulfillments);
+    inOrder.verify(warehouseStore).archive(eq("WH001"), notNull());
+    inOrder.verify(warehouseStore).create(newWarehouse);
+    inOrder.verify(warehouseFulfillments).moveToActiveGeneration("WH001");
   }
 
   @Test
@@ -104,17 +159,54 @@ public class ReplaceWarehouseUseCaseTest {
     LocationDTO newLocation = new LocationDTO("AMSTERDAM-001", 5, 100);
 
     when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existingWarehouse);
+    when(warehouseStore.archive(eq("WH001"), any())).thenReturn(archivedCopyOf(existingWarehouse));
     when(locationValidator.validateAndResolveLocation("AMSTERDAM-001")).thenReturn(newLocation);
-    when(warehouseStore.getTotalCapacityByLocation("AMSTERDAM-001")).thenReturn(0);
-    when(warehouseStore.findActiveByLocation("AMSTERDAM-001")).thenReturn(Collections.emptyList());
+    when(occupancyLedger.occupancyOf("AMSTERDAM-001")).thenReturn(new LocationOccupancy("AMSTERDAM-001", 0, 0));
+    when(warehouseStore.getOccupancyByLocation("AMSTERDAM-001")).thenReturn(new LocationOccupancy("AMSTERDAM-001", 0, 0));
 
     // when
-    replaceWarehouseUseCase.replace(newWarehouse);
+    replaceWarehouseUseCase.replace(newWarehouse, false);
 
     // then
-    verify(capacityValidator).validateMaxWarehousesAtLocation(0, newLocation, "AMSTERDAM-001");
-    verify(warehouseStore).update(existingWarehouse);
+    verify(locationLock).lock(List.of("ZWOLLE-001", "AMSTERDAM-001"));
+    verify(capacityValidator, times(2)).validateMaxWarehousesAtLocation(0, newLocation, "AMSTERDAM-001");
+    verify(warehouseStore).archive(eq("WH001"), notNull());
     verify(warehouseStore).create(newWarehouse);
+    verify(occupancyLedger).record(new OccupancyChange("ZWOLLE-001", -1, -30));
+    verify(occupancyLedger).record(new OccupancyChange("AMSTERDAM-001", 1, 40));
+  }
+
+  @Test
+  public void testReplaceWarehouseFailsWhenStockWasAdjustedConcurrently() {
+    // given
+    WarehouseDTO existingWarehouse = new WarehouseDTO();
+    existingWarehouse.businessUnitCode = "WH001";
+    existingWarehouse.location = "ZWOLLE-001";
+    existingWarehouse.capacity = 30;
+    existingWarehouse.stock = 10;
+
+    WarehouseDTO newWarehouse = new WarehouseDTO();
+    newWarehouse.businessUnitCode = "WH001";
+    newWarehouse.location = "ZWOLLE-001";
+    newWarehouse.capacity = 35;
+    newWarehouse.stock = 10;
+
+    WarehouseDTO archivedWarehouse = archivedCopyOf(existingWarehouse);
+    archivedWarehouse.stock = 12;
+
+    when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existingWarehouse);
+    when(warehouseStore.archive(eq("WH001"), any())).thenReturn(archivedWarehouse);
+    when(locationValidator.validateAndResolveLocation("ZWOLLE-001")).thenReturn(new LocationDTO("ZWOLLE-001", 1, 40));
+    when(occupancyLedger.occupancyOf("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 1, 30));
+    when(warehouseStore.getOccupancyByLocation("ZWOLLE-001")).thenReturn(new LocationOccupancy("ZWOLLE-001", 1, 30));
+    doThrow(new WarehouseValidationException("Stock mismatch"))
+        .when(capacityValidator).validateStockMatches(10, 12);
+
+    // when & then the transaction is rolled back with the archive
+    assertThrows(WarehouseValidationException.class, () -> replaceWarehouseUseCase.replace(newWarehouse, false));
+    verify(warehouseStore, never()).update(any());
+    verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -133,10 +225,11 @@ public class ReplaceWarehouseUseCaseTest {
 
     // when & then
     assertThrows(WarehouseNotFoundException.class, () -> {
-      replaceWarehouseUseCase.replace(newWarehouse);
+      replaceWarehouseUseCase.replace(newWarehouse, false);
     });
-    verify(warehouseStore, never()).update(any());
+    verify(warehouseStore, never()).archive(any(), any());
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -160,10 +253,11 @@ public class ReplaceWarehouseUseCaseTest {
 
     // when & then
     assertThrows(WarehouseValidationException.class, () -> {
-      replaceWarehouseUseCase.replace(newWarehouse);
+      replaceWarehouseUseCase.replace(newWarehouse, false);
     });
-    verify(warehouseStore, never()).update(any());
+    verify(warehouseStore, never()).archive(any(), any());
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -191,10 +285,11 @@ public class ReplaceWarehouseUseCaseTest {
 
     // when & then
     assertThrows(WarehouseValidationException.class, () -> {
-      replaceWarehouseUseCase.replace(newWarehouse);
+      replaceWarehouseUseCase.replace(newWarehouse, false);
     });
-    verify(warehouseStore, never()).update(any());
+    verify(warehouseStore, never()).archive(any(), any());
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -210,10 +305,11 @@ public class ReplaceWarehouseUseCaseTest {
 
     // when & then
     assertThrows(WarehouseValidationException.class, () -> {
-      replaceWarehouseUseCase.replace(newWarehouse);
+      replaceWarehouseUseCase.replace(newWarehouse, false);
     });
-    verify(warehouseStore, never()).update(any());
+    verify(warehouseStore, never()).archive(any(), any());
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -241,10 +337,11 @@ public class ReplaceWarehouseUseCaseTest {
 
     // when & then
     assertThrows(WarehouseValidationException.class, () -> {
-      replaceWarehouseUseCase.replace(newWarehouse);
+      replaceWarehouseUseCase.replace(newWarehouse, false);
     });
-    verify(warehouseStore, never()).update(any());
+    verify(warehouseStore, never()).archive(any(), any());
     verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
   }
 
   @Test
@@ -267,16 +364,58 @@ public class ReplaceWarehouseUseCaseTest {
 
     when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existingWarehouse);
     when(locationValidator.validateAndResolveLocation("TILBURG-001")).thenReturn(newLocation);
-    when(warehouseStore.getTotalCapacityByLocation("TILBURG-001")).thenReturn(0);
-    when(warehouseStore.findActiveByLocation("TILBURG-001")).thenReturn(List.of(new WarehouseDTO()));
+    when(occupancyLedger.occupancyOf("TILBURG-001")).thenReturn(new LocationOccupancy("TILBURG-001", 1, 0));
     doThrow(new WarehouseValidationException("Maximum number of warehouses reached"))
         .when(capacityValidator).validateMaxWarehousesAtLocation(1, newLocation, "TILBURG-001");
 
     // when & then
     assertThrows(WarehouseValidationException.class, () -> {
-      replaceWarehouseUseCase.replace(newWarehouse);
+      replaceWarehouseUseCase.replace(newWarehouse, false);
     });
-    verify(warehouseStore, never()).update(any());
+    verify(locationLock, never()).lock(any());
+    verify(warehouseStore, never()).archive(any(), any());
+    verify(warehouseStore, never()).create(any());
+    verify(occupancyLedger, never()).record(any());
+  }
+
+  @Test
+  public void testReplaceWarehouseFailsWhenConcurrentWriterFilledNewLocation() {
+    // given
+    WarehouseDTO existingWarehouse = new WarehouseDTO();
+    existingWarehouse.businessUnitCode = "WH001";
+    existingWarehouse.location = "ZWOLLE-001";
+    existingWarehouse.capacity = 30;
+    existingWarehouse.stock = 10;
+
+    WarehouseDTO newWarehouse = new WarehouseDTO();
+    newWarehouse.businessUnitCode = "WH001";
+    newWarehouse.location = "TILBURG-001";
+    newWarehouse.capacity = 30;
+    newWarehouse.stock = 10;
+
+    LocationDTO newLocation = new LocationDTO("TILBURG-001", 1, 40);
+
+    when(warehouseStore.findByBusinessUnitCode("WH001")).thenReturn(existingWarehouse);
+    when(locationValidator.validateAndResolveLocation("TILBURG-001")).thenReturn(newLocation);
+    when(occupancyLedger.occupancyOf("TILBURG-001")).thenReturn(new LocationOccupancy("TILBURG-001", 0, 0));
+    when(warehouseStore.getOccupancyByLocation("TILBURG-001")).thenReturn(new LocationOccupancy("TILBURG-001", 1, 20));
+    doThrow(new WarehouseValidationException("Maximum number of warehouses reached"))
+        .when(capacityValidator).validateMaxWarehousesAtLocation(1, newLocation, "TILBURG-001");
+
+    // when & then
+    assertThrows(WarehouseValidationException.class, () -> replaceWarehouseUseCase.replace(newWarehouse, false));
+    verify(locationLock).lock(List.of("ZWOLLE-001", "TILBURG-001"));
+    verify(warehouseStore, never()).archive(any(), any());
     verify(warehouseStore, never()).create(any());
   }
-}
\ No newline at end of file
+
+  private static WarehouseDTO archivedCopyOf(WarehouseDTO warehouse) {
+    WarehouseDTO archived = new WarehouseDTO();
+    archived.businessUnitCode = warehouse.businessUnitCode;
+    archived.location = warehouse.location;
+    archived.capacity = warehouse.capacity;
+    archived.stock = warehouse.stock;
+    archived.archivedAt = ZonedDateTime.now();
+    return archived;
+  }
+}